@@ -26,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.zowe.apiml.apicatalog.exceptions.ContainerStatusRetrievalThrowable;
 import org.zowe.apiml.apicatalog.model.APIContainer;
+import org.zowe.apiml.apicatalog.model.APIService;
 import org.zowe.apiml.apicatalog.services.cached.CachedApiDocService;
 import org.zowe.apiml.apicatalog.services.cached.CachedProductFamilyService;
 import org.zowe.apiml.message.log.ApimlLogger;
@@ -143,6 +144,8 @@ public class ApiCatalogController {
     }
 
     private void setApiDocToService(APIContainer apiContainer) {
+        // start to fetch and transform the missing docs of all services in parallel, the loop below waits just for each one it needs
+        cachedApiDocService.prefetchDefaultApiDocs(apiContainer.getServices().stream().map(APIService::getServiceId).toList());
         apiContainer.getServices().forEach(apiService -> {
             // try the get the Api Doc for this service, if it fails for any reason then do not change the existing value
             // it may or may not be null
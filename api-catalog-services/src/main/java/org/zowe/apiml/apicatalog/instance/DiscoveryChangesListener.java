@@ -0,0 +1,132 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.apicatalog.instance;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Listener of the changes in the discovery service. The discovery service pushes an event about each change of the
+ * registry, the listener then refreshes the catalog from the delta. A burst of events (ie. start of many instances)
+ * is coalesced into one refresh within apiml.catalog.discoveryChanges.debounceMillis.
+ * <p>
+ * If the stream is closed or the discovery service does not provide it, the listener connects again after
+ * reconnectMillis. The periodic refresh (see {@link InstanceRefreshService#refreshCacheFromDiscovery()}) stays as a
+ * fallback, it gets the changes which were not pushed.
+ */
+@Slf4j
+@Service
+public class DiscoveryChangesListener {
+
+    private final InstanceRetrievalService instanceRetrievalService;
+    private final boolean enabled;
+    private final long debounceMillis;
+    private final long reconnectMillis;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private volatile Runnable refresh;
+
+    @Autowired
+    public DiscoveryChangesListener(
+        InstanceRetrievalService instanceRetrievalService,
+        @Value("${apiml.catalog.discoveryChanges.enabled:true}") boolean enabled,
+        @Value("${apiml.catalog.discoveryChanges.debounceMillis:200}") long debounceMillis,
+        @Value("${apiml.catalog.discoveryChanges.reconnectMillis:10000}") long reconnectMillis
+    ) {
+        this(instanceRetrievalService, enabled, debounceMillis, reconnectMillis, Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "Discovery changes listener");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    DiscoveryChangesListener(
+        InstanceRetrievalService instanceRetrievalService,
+        boolean enabled,
+        long debounceMillis,
+        long reconnectMillis,
+        ScheduledExecutorService executor
+    ) {
+        this.instanceRetrievalService = instanceRetrievalService;
+        this.enabled = enabled;
+        this.debounceMillis = debounceMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * Start listening to the changes
+     *
+     * @param refresh refresh of the catalog called after the changes
+     */
+    public void start(Runnable refresh) {
+        if (!enabled || !started.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.refresh = refresh;
+        execute(() -> executor.execute(this::listen));
+        log.debug("Listening to changes of the discovery service");
+    }
+
+    void listen() {
+        try {
+            if (!instanceRetrievalService.listenToRegistryChanges(this::onChange)) {
+                log.debug("No discovery service provides changes of the registry, the catalog is refreshed periodically");
+            }
+        } catch (RuntimeException e) {
+            log.debug("The stream of changes of the discovery service was interrupted", e);
+        }
+
+        execute(() -> executor.schedule(this::listen, reconnectMillis, TimeUnit.MILLISECONDS));
+    }
+
+    void onChange() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            execute(() -> executor.schedule(this::refresh, debounceMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void refresh() {
+        // the events received during the refresh schedule the next one
+        refreshScheduled.set(false);
+        try {
+            refresh.run();
+        } catch (RuntimeException e) {
+            log.debug("Cannot refresh the catalog after changes of the discovery service", e);
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            task.run();
+        } catch (RejectedExecutionException e) {
+            log.debug("The listener of changes of the discovery service is stopped");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+}
@@ -18,12 +18,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.apicatalog.model.APIContainer;
+import org.zowe.apiml.apicatalog.services.cached.CachedApiDocService;
 import org.zowe.apiml.apicatalog.services.cached.CachedProductFamilyService;
 import org.zowe.apiml.apicatalog.services.cached.CachedServicesService;
 import org.zowe.apiml.message.log.ApimlLogger;
 import org.zowe.apiml.product.logging.annotations.InjectApimlLogger;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import static org.zowe.apiml.constants.EurekaMetadataDefinition.CATALOG_ID;
@@ -31,6 +33,9 @@ import static org.zowe.apiml.constants.EurekaMetadataDefinition.CATALOG_ID;
 /**
  * Refresh the cache with the latest state of the discovery service
  * Use deltas to get latest changes from Eureka
+ * <p>
+ * The refresh is triggered by the changes pushed by the discovery service (see {@link DiscoveryChangesListener}) and
+ * periodically as a fallback.
  */
 @Slf4j
 @Service
@@ -41,6 +46,8 @@ public class InstanceRefreshService {
     private final CachedProductFamilyService cachedProductFamilyService;
     private final CachedServicesService cachedServicesService;
     private final InstanceRetrievalService instanceRetrievalService;
+    private final CachedApiDocService cachedApiDocService;
+    private final DiscoveryChangesListener discoveryChangesListener;
     private boolean isStarted = false;
 
     @InjectApimlLogger
@@ -51,6 +58,7 @@ public class InstanceRefreshService {
      */
     public void start() {
         this.isStarted = true;
+        discoveryChangesListener.start(this::refreshCacheFromDiscovery);
         log.info("InstanceRefreshService started");
     }
 
@@ -61,7 +69,7 @@ public class InstanceRefreshService {
     @Scheduled(
         initialDelayString = "${apiml.service-registry.cacheRefreshInitialDelayInMillis}",
         fixedDelayString = "${apiml.service-registry.cacheRefreshRetryDelayInMillis}")
-    public void refreshCacheFromDiscovery() {
+    public synchronized void refreshCacheFromDiscovery() {
         if (!isStarted) {
             log.debug("InstanceRefreshService is stopped. Skip refresh.");
             return;
@@ -153,8 +161,17 @@ public class InstanceRefreshService {
      * @param application       the service
      */
     private void processInstance(Set<String> containersUpdated, InstanceInfo instance, Application application) {
+        InstanceInfo previousInstance = application.getByInstanceId(instance.getId());
         application.addInstance(instance);
 
+        if (!InstanceInfo.ActionType.MODIFIED.equals(instance.getActionType())
+            || previousInstance == null
+            || !Objects.equals(previousInstance.getMetadata(), instance.getMetadata())
+        ) {
+            // API docs depend on metadata of the instances
+            cachedApiDocService.invalidateApiDocs(instance.getAppName());
+        }
+
         if (!InstanceInfo.InstanceStatus.DOWN.equals(instance.getStatus())) {
             // update any containers which contain this service
             updateContainer(containersUpdated, instance);
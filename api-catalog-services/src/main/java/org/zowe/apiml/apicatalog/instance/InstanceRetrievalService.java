@@ -13,6 +13,7 @@ package org.zowe.apiml.apicatalog.instance;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.converters.jackson.EurekaJsonJacksonCodec;
 import com.netflix.discovery.shared.Application;
@@ -38,7 +39,11 @@ import org.zowe.apiml.product.instance.InstanceInitializationException;
 import org.zowe.apiml.product.logging.annotations.InjectApimlLogger;
 import org.zowe.apiml.product.registry.ApplicationWrapper;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -58,6 +63,8 @@ public class InstanceRetrievalService {
 
     private static final String APPS_ENDPOINT = "apps/";
     private static final String DELTA_ENDPOINT = "delta";
+    private static final String CHANGES_ENDPOINT = "/discovery/api/v1/registry/changes";
+    private static final String EVENT_DATA_PREFIX = "data:";
     private static final String UNKNOWN = "unknown";
 
     @InjectApimlLogger
@@ -65,6 +72,9 @@ public class InstanceRetrievalService {
 
     private ObjectMapper mapper = new ObjectMapper();
 
+    // the codec is created once, the reader is thread-safe
+    private final ObjectReader applicationsReader = createApplicationsReader();
+
     @Autowired
     public InstanceRetrievalService(DiscoveryConfigProperties discoveryConfigProperties,
                                     CloseableHttpClient httpClient) {
@@ -133,8 +143,10 @@ public class InstanceRetrievalService {
         List<EurekaServiceInstanceRequest> requestInfoList = constructServiceInfoQueryRequest(null, delta);
         for (EurekaServiceInstanceRequest requestInfo : requestInfoList) {
             try {
-                String responseBody = queryDiscoveryForInstances(requestInfo);
-                return extractApplications(responseBody);
+                Applications applications = queryDiscovery(requestInfo, this::extractApplications);
+                if (applications != null) {
+                    return applications;
+                }
             } catch (Exception e) {
                 log.debug("Not able to contact discovery service: {}", requestInfo.getEurekaRequestUrl(), e);
             }
@@ -144,23 +156,78 @@ public class InstanceRetrievalService {
     }
 
     /**
-     * Parse information from the response and extract the Applications object which contains all the registry information returned by eureka server
+     * Listen to the changes of the registry. The discovery service sends them as server-sent events, the listener is
+     * called for each event. The method blocks until the stream is closed, the caller should connect again then.
+     *
+     * @param listener called for each change
+     * @return true if any discovery service provided the stream, false if none is available
+     */
+    public boolean listenToRegistryChanges(Runnable listener) {
+        for (EurekaServiceInstanceRequest requestInfo : constructChangesRequest()) {
+            try {
+                if (Boolean.TRUE.equals(readRegistryChanges(requestInfo, listener))) {
+                    return true;
+                }
+            } catch (Exception e) {
+                log.debug("Not able to listen to changes of discovery service: {}", requestInfo.getEurekaRequestUrl(), e);
+            }
+        }
+        return false;
+    }
+
+    private Boolean readRegistryChanges(EurekaServiceInstanceRequest requestInfo, Runnable listener) throws IOException {
+        HttpGet httpGet = new HttpGet(requestInfo.getEurekaRequestUrl());
+        for (Header header : createRequestHeader(requestInfo, MediaType.TEXT_EVENT_STREAM_VALUE)) {
+            httpGet.setHeader(header);
+        }
+
+        return httpClient.execute(httpGet, response -> {
+            if (!HttpStatus.valueOf(response.getCode()).is2xxSuccessful()) {
+                log.debug("The discovery service {} does not provide changes of the registry: {}", requestInfo.getEurekaRequestUrl(), response.getCode());
+                return false;
+            }
+
+            HttpEntity responseEntity = response.getEntity();
+            if (responseEntity != null) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(responseEntity.getContent(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        // the content of the event is not important, the changes are read from the delta
+                        if (line.startsWith(EVENT_DATA_PREFIX)) {
+                            listener.run();
+                        }
+                    }
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Parse information from the response and extract the Applications object which contains all the registry information returned by eureka server.
+     * The body is parsed directly from the stream.
      *
-     * @param responseBody the http response body
+     * @param responseEntity the http response body
      * @return Applications object that wraps all the registry information
      */
-    private Applications extractApplications(String responseBody) {
-        Applications applications = null;
-        ObjectMapper mapper = new EurekaJsonJacksonCodec().getObjectMapper(Applications.class);
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        try {
-            applications = mapper.readValue(responseBody, Applications.class);
+    private Applications extractApplications(HttpEntity responseEntity) {
+        if (responseEntity == null) {
+            apimlLog.log("org.zowe.apiml.apicatalog.serviceRetrievalParsingFailed", "No content");
+            return null;
+        }
+
+        try (InputStream content = responseEntity.getContent()) {
+            return applicationsReader.readValue(content);
         } catch (IOException e) {
             apimlLog.log("org.zowe.apiml.apicatalog.serviceRetrievalParsingFailed", e.getMessage());
+            return null;
         }
+    }
 
-        return applications;
+    private static ObjectReader createApplicationsReader() {
+        ObjectMapper applicationsMapper = new EurekaJsonJacksonCodec().getObjectMapper(Applications.class);
+        applicationsMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return applicationsMapper.readerFor(Applications.class);
     }
 
     /**
@@ -170,8 +237,13 @@ public class InstanceRetrievalService {
      * @return ResponseEntity<String> query response
      */
     String queryDiscoveryForInstances(EurekaServiceInstanceRequest eurekaServiceInstanceRequest) throws IOException {
+        return queryDiscovery(eurekaServiceInstanceRequest,
+            responseEntity -> responseEntity == null ? "" : EntityUtils.toString(responseEntity, StandardCharsets.UTF_8));
+    }
+
+    private <T> T queryDiscovery(EurekaServiceInstanceRequest eurekaServiceInstanceRequest, ResponseBodyReader<T> bodyReader) throws IOException {
         HttpGet httpGet = new HttpGet(eurekaServiceInstanceRequest.getEurekaRequestUrl());
-        for (Header header : createRequestHeader(eurekaServiceInstanceRequest)) {
+        for (Header header : createRequestHeader(eurekaServiceInstanceRequest, MediaType.APPLICATION_JSON_VALUE)) {
             httpGet.setHeader(header);
         }
 
@@ -179,15 +251,15 @@ public class InstanceRetrievalService {
             final int statusCode = response.getCode();
             final HttpEntity responseEntity = response.getEntity();
 
+            if (HttpStatus.valueOf(statusCode).is2xxSuccessful()) {
+                return bodyReader.read(responseEntity);
+            }
+
             String responseBody = "";
             if (responseEntity != null) {
                 responseBody = EntityUtils.toString(responseEntity, StandardCharsets.UTF_8);
             }
 
-            if (HttpStatus.valueOf(statusCode).is2xxSuccessful()) {
-                return responseBody;
-            }
-
             apimlLog.log("org.zowe.apiml.apicatalog.serviceRetrievalRequestFailed",
                 eurekaServiceInstanceRequest.getServiceId(),
                 eurekaServiceInstanceRequest.getEurekaRequestUrl(),
@@ -222,6 +294,24 @@ public class InstanceRetrievalService {
             .orElse(null);
     }
 
+    /**
+     * Construct a tuple used to subscribe to the changes of the registry
+     *
+     * @return request information
+     */
+    private List<EurekaServiceInstanceRequest> constructChangesRequest() {
+        String[] discoveryServiceUrls = discoveryConfigProperties.getLocations();
+        List<EurekaServiceInstanceRequest> eurekaServiceInstanceRequests = new ArrayList<>(discoveryServiceUrls.length);
+        for (String discoveryUrl : discoveryServiceUrls) {
+            eurekaServiceInstanceRequests.add(EurekaServiceInstanceRequest.builder()
+                .eurekaRequestUrl(URI.create(discoveryUrl).resolve(CHANGES_ENDPOINT).toString())
+                .username(discoveryConfigProperties.getEurekaUserName())
+                .password(discoveryConfigProperties.getEurekaUserPassword())
+                .build());
+        }
+        return eurekaServiceInstanceRequests;
+    }
+
     /**
      * Construct a tuple used to query the discovery service
      *
@@ -263,9 +353,10 @@ public class InstanceRetrievalService {
     /**
      * Create HTTP headers
      *
+     * @param accept expected type of the response
      * @return HTTP Headers
      */
-    private List<Header> createRequestHeader(EurekaServiceInstanceRequest eurekaServiceInstanceRequest) {
+    private List<Header> createRequestHeader(EurekaServiceInstanceRequest eurekaServiceInstanceRequest, String accept) {
         List<Header> headers = new ArrayList<>();
         if (eurekaServiceInstanceRequest != null && eurekaServiceInstanceRequest.getUsername() != null && eurekaServiceInstanceRequest.getPassword() != null) {
             String basicToken = "Basic " + Base64.getEncoder().encodeToString((eurekaServiceInstanceRequest.getUsername() + ":"
@@ -273,7 +364,15 @@ public class InstanceRetrievalService {
             headers.add(new BasicHeader(HttpHeaders.AUTHORIZATION, basicToken));
         }
         headers.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
-        headers.add(new BasicHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE));
+        headers.add(new BasicHeader(HttpHeaders.ACCEPT, accept));
         return headers;
     }
+
+    @FunctionalInterface
+    private interface ResponseBodyReader<T> {
+
+        T read(HttpEntity responseEntity) throws IOException;
+
+    }
+
 }
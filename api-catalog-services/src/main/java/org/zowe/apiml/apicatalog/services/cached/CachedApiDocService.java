@@ -10,7 +10,18 @@
 
 package org.zowe.apiml.apicatalog.services.cached;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.apicatalog.services.cached.model.ApiDocCacheKey;
 import org.zowe.apiml.apicatalog.services.cached.model.ApiDocInfo;
@@ -19,13 +30,30 @@ import org.zowe.apiml.apicatalog.services.status.model.ApiDocNotFoundException;
 import org.zowe.apiml.apicatalog.services.status.model.ApiVersionNotFoundException;
 import org.zowe.apiml.apicatalog.swagger.TransformApiDocService;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.UnaryOperator;
 
 /**
  * Caching service for API Doc Info
+ * <p>
+ * The transformed API docs are cached. The first request of a doc fetches it from the service and transforms it,
+ * the next requests are served from the cache. An entry older than apiml.catalog.apiDoc.cache.revalidateSeconds is
+ * still served, but it is revalidated in the background. The revalidation is a conditional fetch (If-None-Match and
+ * If-Modified-Since), the doc is transformed again only if it was changed. If the revalidation fails, the previous
+ * doc stays in the cache.
+ * <p>
+ * The docs of a service with changed metadata (see {@link #invalidateApiDocs(String)}) are fetched and transformed
+ * again, because the transformation depends on the metadata (routes, API info). The size of the cache is limited by
+ * apiml.catalog.apiDoc.cache.maxSizeMb.
+ * <p>
+ * The revalidation and the prefetch of docs run in a bounded pool (apiml.catalog.apiDoc.transform.threads, the
+ * number of processors by default), so the docs of different services are fetched and transformed in parallel. If
+ * the pool is full, the task is rejected and the doc is loaded by the first request which needs it.
  */
 
 @Service
@@ -33,18 +61,83 @@ import java.util.function.UnaryOperator;
 public class CachedApiDocService {
     public static final String DEFAULT_API_KEY = "default";
 
-    private static final Map<ApiDocCacheKey, String> serviceApiDocs = new HashMap<>();
-    private static final Map<String, List<String>> serviceApiVersions = new HashMap<>();
-    private static final Map<String, String> serviceApiDefaultVersions = new HashMap<>();
+    private static final long DEFAULT_REVALIDATE_SECONDS = 30;
+    private static final long DEFAULT_MAX_SIZE_MB = 64;
+    private static final int EXECUTOR_QUEUE_SIZE = 1000;
+
+    private final LoadingCache<ApiDocCacheKey, ApiDocEntry> serviceApiDocs;
+    private final Map<String, List<String>> serviceApiVersions = new ConcurrentHashMap<>();
+    private final Map<String, String> serviceApiDefaultVersions = new ConcurrentHashMap<>();
 
     private final APIDocRetrievalService apiDocRetrievalService;
     private final TransformApiDocService transformApiDocService;
+    private final Executor executor;
 
     private static final UnaryOperator<String> exceptionMessage = serviceId -> "No API Documentation was retrieved for the service " + serviceId + ".";
 
+    /**
+     * The service owns a new pool of transformation, call {@link #shutdown()} when it is not used anymore.
+     */
     public CachedApiDocService(APIDocRetrievalService apiDocRetrievalService, TransformApiDocService transformApiDocService) {
+        this(apiDocRetrievalService, transformApiDocService, DEFAULT_REVALIDATE_SECONDS, DEFAULT_MAX_SIZE_MB, 0);
+    }
+
+    @Autowired
+    public CachedApiDocService(
+        APIDocRetrievalService apiDocRetrievalService,
+        TransformApiDocService transformApiDocService,
+        @Value("${apiml.catalog.apiDoc.cache.revalidateSeconds:" + DEFAULT_REVALIDATE_SECONDS + "}") long revalidateSeconds,
+        @Value("${apiml.catalog.apiDoc.cache.maxSizeMb:" + DEFAULT_MAX_SIZE_MB + "}") long maxSizeMb,
+        @Value("${apiml.catalog.apiDoc.transform.threads:0}") int threads
+    ) {
+        this(apiDocRetrievalService, transformApiDocService, revalidateSeconds, maxSizeMb, Ticker.systemTicker(), createExecutor(threads));
+    }
+
+    CachedApiDocService(
+        APIDocRetrievalService apiDocRetrievalService,
+        TransformApiDocService transformApiDocService,
+        long revalidateSeconds,
+        long maxSizeMb,
+        Ticker ticker,
+        Executor executor
+    ) {
         this.apiDocRetrievalService = apiDocRetrievalService;
         this.transformApiDocService = transformApiDocService;
+        this.executor = executor;
+
+        Caffeine<ApiDocCacheKey, ApiDocEntry> builder = Caffeine.newBuilder()
+            .maximumWeight(maxSizeMb * 1024 * 1024)
+            .weigher((ApiDocCacheKey key, ApiDocEntry entry) -> entry.getWeight())
+            .ticker(ticker)
+            .executor(executor);
+        if (revalidateSeconds > 0) {
+            builder.refreshAfterWrite(Duration.ofSeconds(revalidateSeconds));
+        }
+        this.serviceApiDocs = builder.build(new ApiDocLoader());
+    }
+
+    static ExecutorService createExecutor(int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(EXECUTOR_QUEUE_SIZE),
+            r -> {
+                Thread thread = new Thread(r, "apiDocTransform-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
     }
 
     /**
@@ -55,20 +148,8 @@ public class CachedApiDocService {
      * @return api doc info for the requested service id
      */
     public String getApiDocForService(final String serviceId, final String apiVersion) {
-        // First try to fetch apiDoc from the DS
-        try {
-            ApiDocInfo apiDocInfo = apiDocRetrievalService.retrieveApiDoc(serviceId, apiVersion);
-            if (apiDocInfo != null && apiDocInfo.getApiDocContent() != null) {
-                String apiDoc = transformApiDocService.transformApiDoc(serviceId, apiDocInfo);
-                CachedApiDocService.serviceApiDocs.put(new ApiDocCacheKey(serviceId, apiVersion), apiDoc);
-                return apiDoc;
-            }
-        } catch (Exception e) {
-            log.debug("Exception updating API doc in cache for '{} {}'", serviceId, apiVersion, e);
-        }
-
-        // if no DS is available try to use cached data
-        String apiDoc = CachedApiDocService.serviceApiDocs.get(new ApiDocCacheKey(serviceId, apiVersion));
+        // use cached data, missing doc is fetched from the DS
+        String apiDoc = getApiDoc(new ApiDocCacheKey(serviceId, apiVersion));
         if (apiDoc != null) {
             return apiDoc;
         }
@@ -87,7 +168,7 @@ public class CachedApiDocService {
      * @param apiDoc     API Doc info
      */
     public void updateApiDocForService(final String serviceId, final String apiVersion, final String apiDoc) {
-        CachedApiDocService.serviceApiDocs.put(new ApiDocCacheKey(serviceId, apiVersion), apiDoc);
+        serviceApiDocs.put(new ApiDocCacheKey(serviceId, apiVersion), new ApiDocEntry(null, apiDoc));
     }
 
     /**
@@ -97,20 +178,8 @@ public class CachedApiDocService {
      * @return api doc info for the latest API of the request service id
      */
     public String getDefaultApiDocForService(final String serviceId) {
-        // First try to fetch apiDoc from the DS
-        try {
-            ApiDocInfo apiDocInfo = apiDocRetrievalService.retrieveDefaultApiDoc(serviceId);
-            if (apiDocInfo != null && apiDocInfo.getApiDocContent() != null) {
-                String apiDoc = transformApiDocService.transformApiDoc(serviceId, apiDocInfo);
-                CachedApiDocService.serviceApiDocs.put(new ApiDocCacheKey(serviceId, DEFAULT_API_KEY), apiDoc);
-                return apiDoc;
-            }
-        } catch (Throwable t) {
-            log.debug("Exception updating default API doc in cache for '{}'.", serviceId, t);
-        }
-
-        // if no DS is available try to use cached data
-        String apiDoc = CachedApiDocService.serviceApiDocs.get(new ApiDocCacheKey(serviceId, DEFAULT_API_KEY));
+        // use cached data, missing doc is fetched from the DS
+        String apiDoc = getApiDoc(new ApiDocCacheKey(serviceId, DEFAULT_API_KEY));
         if (apiDoc != null) {
             return apiDoc;
         }
@@ -128,7 +197,51 @@ public class CachedApiDocService {
      * @param apiDoc    API Doc info
      */
     public void updateDefaultApiDocForService(final String serviceId, final String apiDoc) {
-        CachedApiDocService.serviceApiDocs.put(new ApiDocCacheKey(serviceId, DEFAULT_API_KEY), apiDoc);
+        updateApiDocForService(serviceId, DEFAULT_API_KEY, apiDoc);
+    }
+
+    /**
+     * Mark the cached api docs of the service as outdated and fetch them again in the background. Until then, the
+     * previous docs are served. This method should be executed if the metadata of the service were changed.
+     *
+     * @param serviceId service identifier
+     */
+    public void invalidateApiDocs(final String serviceId) {
+        boolean cached = false;
+        for (ApiDocCacheKey key : serviceApiDocs.asMap().keySet()) {
+            if (StringUtils.equalsIgnoreCase(key.getServiceId(), serviceId)) {
+                serviceApiDocs.asMap().computeIfPresent(key, (k, entry) -> entry.outdated());
+                serviceApiDocs.refresh(key);
+                cached = true;
+            }
+        }
+
+        if (!cached) {
+            // a new service, prepare its default doc before the first request
+            prefetch(new ApiDocCacheKey(StringUtils.lowerCase(serviceId), DEFAULT_API_KEY));
+        }
+    }
+
+    /**
+     * Start to fetch and transform the missing default docs of the services in parallel. The method does not wait,
+     * a request of the doc which is being loaded waits just for it. The failures are ignored (the doc is fetched again
+     * by the next request).
+     *
+     * @param serviceIds service identifiers
+     */
+    public void prefetchDefaultApiDocs(final Collection<String> serviceIds) {
+        serviceIds.stream()
+            .map(serviceId -> new ApiDocCacheKey(StringUtils.lowerCase(serviceId), DEFAULT_API_KEY))
+            .filter(key -> serviceApiDocs.getIfPresent(key) == null)
+            .forEach(this::prefetch);
+    }
+
+    private void prefetch(ApiDocCacheKey key) {
+        try {
+            executor.execute(() -> getApiDoc(key));
+        } catch (RejectedExecutionException e) {
+            log.debug("The prefetch of API doc for '{}' was rejected", key.getServiceId(), e);
+        }
     }
 
     /**
@@ -142,7 +255,7 @@ public class CachedApiDocService {
         try {
             List<String> versions = apiDocRetrievalService.retrieveApiVersions(serviceId);
             if (!versions.isEmpty()) {
-                CachedApiDocService.serviceApiVersions.put(serviceId, versions);
+                serviceApiVersions.put(serviceId, versions);
                 return versions;
             }
         } catch (Exception e) {
@@ -150,7 +263,7 @@ public class CachedApiDocService {
         }
 
         // if no DS is available try to use cached data
-        List<String> versions = CachedApiDocService.serviceApiVersions.get(serviceId);
+        List<String> versions = serviceApiVersions.get(serviceId);
         if (versions != null) {
             return versions;
         }
@@ -168,7 +281,7 @@ public class CachedApiDocService {
      * @param apiVersions the API versions
      */
     public void updateApiVersionsForService(final String serviceId, final List<String> apiVersions) {
-        CachedApiDocService.serviceApiVersions.put(serviceId, apiVersions);
+        serviceApiVersions.put(serviceId, apiVersions);
     }
 
     /**
@@ -182,7 +295,7 @@ public class CachedApiDocService {
         try {
             String version = apiDocRetrievalService.retrieveDefaultApiVersion(serviceId);
             if (version != null) {
-                CachedApiDocService.serviceApiDefaultVersions.put(serviceId, version);
+                serviceApiDefaultVersions.put(serviceId, version);
                 return version;
             }
         } catch (Exception e) {
@@ -190,7 +303,7 @@ public class CachedApiDocService {
         }
 
         // if no DS is available try to use cached data
-        String version = CachedApiDocService.serviceApiDefaultVersions.get(serviceId);
+        String version = serviceApiDefaultVersions.get(serviceId);
         if (version != null) {
             return version;
         }
@@ -207,14 +320,119 @@ public class CachedApiDocService {
      * @param apiVersion the default API version
      */
     public void updateDefaultApiVersionForService(final String serviceId, final String apiVersion) {
-        CachedApiDocService.serviceApiDefaultVersions.put(serviceId, apiVersion);
+        serviceApiDefaultVersions.put(serviceId, apiVersion);
     }
 
     /**
      * Reset the cache for this service
      */
     public void resetCache() {
-        serviceApiDocs.clear();
+        serviceApiDocs.invalidateAll();
         serviceApiVersions.clear();
+        serviceApiDefaultVersions.clear();
     }
+
+    private String getApiDoc(ApiDocCacheKey key) {
+        try {
+            ApiDocEntry entry = serviceApiDocs.get(key);
+            return entry == null ? null : entry.getApiDoc();
+        } catch (Exception e) {
+            log.debug("Exception updating API doc in cache for '{} {}'", key.getServiceId(), key.getApiVersion(), e);
+            return null;
+        }
+    }
+
+    private ApiDocInfo retrieveApiDoc(ApiDocCacheKey key, ApiDocInfo previous) {
+        boolean defaultApi = DEFAULT_API_KEY.equals(key.getApiVersion());
+        if (previous == null) {
+            return defaultApi ?
+                apiDocRetrievalService.retrieveDefaultApiDoc(key.getServiceId()) :
+                apiDocRetrievalService.retrieveApiDoc(key.getServiceId(), key.getApiVersion());
+        }
+        return defaultApi ?
+            apiDocRetrievalService.retrieveDefaultApiDoc(key.getServiceId(), previous) :
+            apiDocRetrievalService.retrieveApiDoc(key.getServiceId(), key.getApiVersion(), previous);
+    }
+
+    private ApiDocEntry transform(ApiDocCacheKey key, ApiDocInfo apiDocInfo) {
+        String apiDoc = transformApiDocService.transformApiDoc(key.getServiceId(), apiDocInfo);
+        return new ApiDocEntry(apiDocInfo, apiDoc);
+    }
+
+    /**
+     * Fetches the missing docs and revalidates the stale ones
+     */
+    private class ApiDocLoader implements CacheLoader<ApiDocCacheKey, ApiDocEntry> {
+
+        @Override
+        public ApiDocEntry load(ApiDocCacheKey key) {
+            ApiDocInfo apiDocInfo = retrieveApiDoc(key, null);
+            if (apiDocInfo == null || apiDocInfo.getApiDocContent() == null) {
+                return null;
+            }
+            return transform(key, apiDocInfo);
+        }
+
+        @Override
+        public ApiDocEntry reload(ApiDocCacheKey key, ApiDocEntry oldValue) {
+            ApiDocInfo previous = oldValue.isOutdated() ? null : oldValue.getSource();
+            try {
+                ApiDocInfo apiDocInfo = retrieveApiDoc(key, previous);
+                if (apiDocInfo == null || apiDocInfo.getApiDocContent() == null) {
+                    // not modified or not available, keep the previous doc
+                    return oldValue;
+                }
+                if (previous != null && oldValue.isSameContent(apiDocInfo)) {
+                    // the service does not support conditional requests, but the content is the same
+                    return new ApiDocEntry(apiDocInfo, oldValue.getApiDoc());
+                }
+                return transform(key, apiDocInfo);
+            } catch (Exception e) {
+                log.debug("Exception revalidating API doc in cache for '{} {}'", key.getServiceId(), key.getApiVersion(), e);
+                return oldValue;
+            }
+        }
+
+    }
+
+    /**
+     * Cached doc with the source information. The content of the source is not stored, just its hash to recognize
+     * the same content.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static final class ApiDocEntry {
+
+        private final ApiDocInfo source;
+        private final int contentLength;
+        private final int contentHash;
+        private final String apiDoc;
+        private final boolean outdated;
+
+        ApiDocEntry(ApiDocInfo source, String apiDoc) {
+            this(
+                source == null ? null : new ApiDocInfo(source.getApiInfo(), null, source.getRoutes(), source.getEtag(), source.getLastModified()),
+                source == null ? -1 : source.getApiDocContent().length(),
+                source == null ? 0 : source.getApiDocContent().hashCode(),
+                apiDoc,
+                false
+            );
+        }
+
+        ApiDocEntry outdated() {
+            return new ApiDocEntry(source, contentLength, contentHash, apiDoc, true);
+        }
+
+        boolean isSameContent(ApiDocInfo apiDocInfo) {
+            String content = apiDocInfo.getApiDocContent();
+            return (content.length() == contentLength) && (content.hashCode() == contentHash);
+        }
+
+        int getWeight() {
+            // approximate size in bytes
+            return (int) Math.min(Integer.MAX_VALUE, 2L * (apiDoc == null ? 0 : apiDoc.length()));
+        }
+
+    }
+
 }
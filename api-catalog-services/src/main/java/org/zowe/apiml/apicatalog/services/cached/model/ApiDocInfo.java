@@ -27,4 +27,14 @@ public class ApiDocInfo {
     ApiInfo apiInfo;
     String apiDocContent;
     RoutedServices routes;
+
+    /**
+     * Validators of the fetched document (headers ETag and Last-Modified), they are used for a conditional fetch
+     */
+    String etag;
+    String lastModified;
+
+    public ApiDocInfo(ApiInfo apiInfo, String apiDocContent, RoutedServices routes) {
+        this(apiInfo, apiDocContent, routes, null, null);
+    }
 }
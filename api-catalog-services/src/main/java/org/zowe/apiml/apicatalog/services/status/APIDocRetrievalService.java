@@ -16,6 +16,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -156,16 +159,31 @@ public class APIDocRetrievalService {
      * @throws ApiDocNotFoundException if the response is error
      */
     public ApiDocInfo retrieveApiDoc(@NonNull String serviceId, String apiVersion) {
+        return retrieveApiDoc(serviceId, apiVersion, null);
+    }
+
+    /**
+     * Retrieve the API docs for a registered service conditionally. The request contains validators (ETag and
+     * Last-Modified) of the previous response. If the service responds the document was not modified, the previous
+     * instance is returned.
+     *
+     * @param serviceId  the unique service id
+     * @param apiVersion the version of the API
+     * @param previous   the previously retrieved API doc or null
+     * @return the API doc and related information for transformation, or previous if the doc was not modified
+     * @throws ApiDocNotFoundException if the response is error
+     */
+    public ApiDocInfo retrieveApiDoc(@NonNull String serviceId, String apiVersion, ApiDocInfo previous) {
         log.debug("Retrieving API doc for '{} {}'", serviceId, apiVersion);
         InstanceInfo instanceInfo = getInstanceInfo(serviceId);
 
         List<ApiInfo> apiInfoList = metadataParser.parseApiInfo(instanceInfo.getMetadata());
         ApiInfo apiInfo = findApi(apiInfoList, apiVersion);
 
-        return buildApiDocInfo(serviceId, apiInfo, instanceInfo);
+        return buildApiDocInfo(serviceId, apiInfo, instanceInfo, previous);
     }
 
-    private ApiDocInfo buildApiDocInfo(String serviceId, ApiInfo apiInfo, InstanceInfo instanceInfo) {
+    private ApiDocInfo buildApiDocInfo(String serviceId, ApiInfo apiInfo, InstanceInfo instanceInfo, ApiDocInfo previous) {
         RoutedServices routes = metadataParser.parseRoutes(instanceInfo.getMetadata());
         String apiDocUrl = getApiDocUrl(apiInfo, instanceInfo, routes);
 
@@ -174,14 +192,20 @@ public class APIDocRetrievalService {
             return getApiDocInfoBySubstituteSwagger(instanceInfo, routes, apiInfo);
         }
 
-        String apiDocContent = "";
+        ApiDocResponse response;
         try {
-            apiDocContent = getApiDocContentByUrl(serviceId, apiDocUrl);
+            response = getApiDocContentByUrl(serviceId, apiDocUrl, previous);
         } catch (IOException e) {
             apimlLogger.log("org.zowe.apiml.apicatalog.apiDocHostCommunication", serviceId, e.getMessage());
             log.debug("Error retrieving api doc for '{}'", serviceId, e);
+            return new ApiDocInfo(apiInfo, "", routes);
         }
-        return new ApiDocInfo(apiInfo, apiDocContent, routes);
+
+        if (response.notModified() && (previous != null)) {
+            log.debug("API doc of '{}' was not modified", serviceId);
+            return previous;
+        }
+        return new ApiDocInfo(apiInfo, response.content(), routes, response.etag(), response.lastModified());
     }
 
     /**
@@ -197,13 +221,26 @@ public class APIDocRetrievalService {
      * @throws ApiDocNotFoundException if the response is error
      */
     public ApiDocInfo retrieveDefaultApiDoc(@NonNull String serviceId) {
+        return retrieveDefaultApiDoc(serviceId, null);
+    }
+
+    /**
+     * Retrieve the default API docs for a registered service conditionally, see
+     * {@link #retrieveApiDoc(String, String, ApiDocInfo)}.
+     *
+     * @param serviceId the unique service id
+     * @param previous  the previously retrieved API doc or null
+     * @return the default API doc and related information for transfer, or previous if the doc was not modified
+     * @throws ApiDocNotFoundException if the response is error
+     */
+    public ApiDocInfo retrieveDefaultApiDoc(@NonNull String serviceId, ApiDocInfo previous) {
         log.debug("Retrieving default API doc for service '{}'", serviceId);
         InstanceInfo instanceInfo = getInstanceInfo(serviceId);
 
         List<ApiInfo> apiInfoList = metadataParser.parseApiInfo(instanceInfo.getMetadata());
         ApiInfo defaultApiInfo = getDefaultApiInfo(apiInfoList);
 
-        return buildApiDocInfo(serviceId, defaultApiInfo, instanceInfo);
+        return buildApiDocInfo(serviceId, defaultApiInfo, instanceInfo, previous);
     }
 
     private ApiInfo getDefaultApiInfo(List<ApiInfo> apiInfoList) {
@@ -300,14 +337,27 @@ public class APIDocRetrievalService {
      *
      * @param serviceId the unique service id
      * @param apiDocUrl the url of apidoc
+     * @param previous  the previously retrieved API doc, its validators are sent in the request
      * @return the information about ApiDoc content as application/json
      * @throws ApiDocNotFoundException if the response is error
      */
-    private String getApiDocContentByUrl(@NonNull String serviceId, String apiDocUrl) throws IOException {
+    private ApiDocResponse getApiDocContentByUrl(@NonNull String serviceId, String apiDocUrl, ApiDocInfo previous) throws IOException {
         HttpGet httpGet = new HttpGet(apiDocUrl);
         httpGet.setHeader(org.apache.http.HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, previous.getEtag());
+            }
+            if (previous.getLastModified() != null) {
+                httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, previous.getLastModified());
+            }
+        }
 
         return secureHttpClientWithoutKeystore.execute(httpGet, response -> {
+                if (HttpStatus.SC_NOT_MODIFIED == response.getCode()) {
+                    return ApiDocResponse.NOT_MODIFIED;
+                }
+
                 String responseBody = "";
                 var responseEntity = response.getEntity();
                 if (responseEntity != null) {
@@ -315,7 +365,7 @@ public class APIDocRetrievalService {
                 }
 
             if (HttpStatus.SC_OK == response.getCode()) {
-                return responseBody;
+                return new ApiDocResponse(responseBody, getHeader(response, HttpHeaders.ETAG), getHeader(response, HttpHeaders.LAST_MODIFIED), false);
             } else {
                     throw new ApiDocNotFoundException("No API Documentation was retrieved due to " + serviceId +
                         " server error: '" + responseBody + "'.");
@@ -324,6 +374,11 @@ public class APIDocRetrievalService {
         );
     }
 
+    private String getHeader(ClassicHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
     /**
      * Get ApiDocInfo by Substitute Swagger
      *
@@ -431,4 +486,11 @@ public class APIDocRetrievalService {
 
         return uri.toUriString();
     }
+
+    private record ApiDocResponse(String content, String etag, String lastModified, boolean notModified) {
+
+        static final ApiDocResponse NOT_MODIFIED = new ApiDocResponse(null, null, null, true);
+
+    }
+
 }
@@ -34,11 +34,21 @@ public class StandaloneAPIDocRetrievalService extends APIDocRetrievalService {
         return null;
     }
 
+    @Override
+    public ApiDocInfo retrieveApiDoc(@NonNull String serviceId, String apiVersion, ApiDocInfo previous) {
+        return null;
+    }
+
     @Override
     public ApiDocInfo retrieveDefaultApiDoc(@NonNull String serviceId) {
         return null;
     }
 
+    @Override
+    public ApiDocInfo retrieveDefaultApiDoc(@NonNull String serviceId, ApiDocInfo previous) {
+        return null;
+    }
+
     @Override
     public List<String> retrieveApiVersions(@NonNull String serviceId) {
         return Collections.emptyList();
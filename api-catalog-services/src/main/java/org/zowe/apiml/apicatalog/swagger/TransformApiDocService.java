@@ -10,21 +10,36 @@
 
 package org.zowe.apiml.apicatalog.swagger;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.apicatalog.services.cached.model.ApiDocInfo;
 import org.zowe.apiml.apicatalog.swagger.api.AbstractApiDocService;
 
 import jakarta.validation.UnexpectedTypeException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * Transforms API documentation to documentation relative to Gateway, not the service instance
+ * <p>
+ * The time of each transformation and the size of the transformed document are measured per service (metrics
+ * apiml.catalog.apiDoc.transform and apiml.catalog.apiDoc.transform.size).
  */
 @Service
 @RequiredArgsConstructor
 public class TransformApiDocService {
+    static final String METRIC_NAME = "apiml.catalog.apiDoc.transform";
+
     private final Function<String, AbstractApiDocService<?, ?>> beanApiDocFactory;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> sizes = new ConcurrentHashMap<>();
 
     /**
      * Does transformation API documentation
@@ -37,11 +52,25 @@ public class TransformApiDocService {
      */
     public String transformApiDoc(String serviceId, ApiDocInfo apiDocInfo) {
         //maybe null check of apidocinfo
+        long start = System.nanoTime();
         AbstractApiDocService<?, ?> abstractApiDocService = beanApiDocFactory.apply(apiDocInfo.getApiDocContent());
         if (abstractApiDocService == null) {
             throw new UnexpectedTypeException("Response is not a Swagger or OpenAPI type object.");
         }
 
-        return abstractApiDocService.transformApiDoc(serviceId, apiDocInfo);
+        String apiDoc = abstractApiDocService.transformApiDoc(serviceId, apiDocInfo);
+
+        String tag = String.valueOf(serviceId);
+        timers.computeIfAbsent(tag, id -> Timer.builder(METRIC_NAME)
+                .tag("serviceId", id)
+                .register(meterRegistry))
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        sizes.computeIfAbsent(tag, id -> DistributionSummary.builder(METRIC_NAME + ".size")
+                .baseUnit("characters")
+                .tag("serviceId", id)
+                .register(meterRegistry))
+            .record(apiDocInfo.getApiDocContent().length());
+
+        return apiDoc;
     }
 }
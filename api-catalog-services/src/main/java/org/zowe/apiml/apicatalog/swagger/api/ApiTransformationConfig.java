@@ -10,10 +10,8 @@
 
 package org.zowe.apiml.apicatalog.swagger.api;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +30,9 @@ import java.util.function.Function;
 @SuppressWarnings("squid:S1452")
 public class ApiTransformationConfig {
 
+    // JSON is a subset of YAML, the factory is thread-safe
+    private static final YAMLFactory YAML_FACTORY = new YAMLFactory();
+
     private final GatewayClient gatewayClient;
 
     @Bean
@@ -42,18 +43,12 @@ public class ApiTransformationConfig {
     @Bean
     @Scope(value = "prototype")
     public AbstractApiDocService<?, ?> abstractApiDocService(String content) {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         try {
-            ObjectNode objectNode = mapper.readValue(content, ObjectNode.class);
-            JsonNode openApiNode = objectNode.get("openapi");
-            if (openApiNode != null) {
+            String version = readSpecificationVersion(content);
+            if ("openapi".equals(version)) {
                 return new ApiDocV3Service(gatewayClient);
-            } else {
-                JsonNode swaggerNode = objectNode.get("swagger");
-                if (swaggerNode != null) {
-                    return new ApiDocV2Service(gatewayClient);
-                }
+            } else if ("swagger".equals(version)) {
+                return new ApiDocV2Service(gatewayClient);
             }
         } catch (IOException e) {
             log.debug("Could not convert response body to a Swagger/OpenAPI object.", e);
@@ -63,4 +58,34 @@ public class ApiTransformationConfig {
         return null;
     }
 
+    /**
+     * Find the top-level field with the version of the specification. The document is streamed and nested objects
+     * are skipped, so it is not read into a tree just to recognize its type. The transformation itself still parses
+     * the whole document (see {@link AbstractApiDocService#transformApiDoc}).
+     *
+     * @param content API doc as JSON or YAML
+     * @return "openapi" or "swagger" (openapi has priority), null if there is none of them
+     * @throws IOException if the content is not an object
+     */
+    private String readSpecificationVersion(String content) throws IOException {
+        boolean swagger = false;
+        try (JsonParser parser = YAML_FACTORY.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The document is not an object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                if ("openapi".equals(fieldName)) {
+                    return fieldName;
+                }
+                swagger |= "swagger".equals(fieldName);
+
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+        return swagger ? "swagger" : null;
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.apicatalog.instance;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DiscoveryChangesListenerTest {
+
+    private static final long DEBOUNCE = 200;
+    private static final long RECONNECT = 10_000;
+
+    private InstanceRetrievalService instanceRetrievalService;
+    private ScheduledExecutorService executor;
+    private Runnable refresh;
+
+    @BeforeEach
+    void setUp() {
+        instanceRetrievalService = mock(InstanceRetrievalService.class);
+        executor = mock(ScheduledExecutorService.class);
+        refresh = mock(Runnable.class);
+    }
+
+    private DiscoveryChangesListener createListener(boolean enabled) {
+        return new DiscoveryChangesListener(instanceRetrievalService, enabled, DEBOUNCE, RECONNECT, executor);
+    }
+
+    private List<Runnable> scheduledWithDelay(long delay) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(captor.capture(), eq(delay), eq(TimeUnit.MILLISECONDS));
+        return captor.getAllValues();
+    }
+
+    @Test
+    void givenDisabledListener_whenStarted_thenDoNothing() {
+        createListener(false).start(refresh);
+
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void givenStartedListener_whenStartedAgain_thenListenOnce() {
+        DiscoveryChangesListener listener = createListener(true);
+        listener.start(refresh);
+        listener.start(refresh);
+
+        verify(executor, times(1)).execute(any());
+    }
+
+    @Nested
+    class GivenStream {
+
+        private DiscoveryChangesListener listener;
+
+        @BeforeEach
+        void setUp() {
+            listener = createListener(true);
+            listener.start(refresh);
+        }
+
+        @Test
+        void whenEventsAreReceived_thenRefreshOnce() {
+            when(instanceRetrievalService.listenToRegistryChanges(any())).thenAnswer(invocation -> {
+                Runnable onChange = invocation.getArgument(0);
+                onChange.run();
+                onChange.run();
+                onChange.run();
+                return true;
+            });
+
+            listener.listen();
+
+            List<Runnable> refreshes = scheduledWithDelay(DEBOUNCE);
+            assertEquals(1, refreshes.size());
+            refreshes.get(0).run();
+            verify(refresh).run();
+        }
+
+        @Test
+        void whenEventIsReceivedAfterRefresh_thenRefreshAgain() {
+            listener.onChange();
+            scheduledWithDelay(DEBOUNCE).get(0).run();
+            listener.onChange();
+
+            verify(executor, times(2)).schedule(any(Runnable.class), eq(DEBOUNCE), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenStreamIsClosed_thenReconnect() {
+            when(instanceRetrievalService.listenToRegistryChanges(any())).thenReturn(false);
+
+            listener.listen();
+
+            verify(executor).schedule(any(Runnable.class), eq(RECONNECT), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenStreamFails_thenReconnect() {
+            when(instanceRetrievalService.listenToRegistryChanges(any())).thenThrow(new IllegalStateException("error"));
+
+            listener.listen();
+
+            verify(executor).schedule(any(Runnable.class), eq(RECONNECT), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenRefreshFails_thenContinue() {
+            doThrow(new IllegalStateException("error")).when(refresh).run();
+
+            listener.onChange();
+            scheduledWithDelay(DEBOUNCE).get(0).run();
+            listener.onChange();
+
+            verify(executor, times(2)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenStopped_thenShutdownExecutor() {
+            listener.stop();
+
+            verify(executor).shutdownNow();
+        }
+
+    }
+
+}
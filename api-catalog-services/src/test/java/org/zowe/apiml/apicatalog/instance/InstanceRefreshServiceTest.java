@@ -18,6 +18,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.zowe.apiml.apicatalog.model.APIContainer;
+import org.zowe.apiml.apicatalog.services.cached.CachedApiDocService;
 import org.zowe.apiml.apicatalog.services.cached.CachedProductFamilyService;
 import org.zowe.apiml.apicatalog.services.cached.CachedServicesService;
 import org.zowe.apiml.apicatalog.util.ContainerServiceMockUtil;
@@ -40,6 +41,8 @@ class InstanceRefreshServiceTest {
     private CachedProductFamilyService cachedProductFamilyService;
     private CachedServicesService cachedServicesService;
     private InstanceRetrievalService instanceRetrievalService;
+    private CachedApiDocService cachedApiDocService;
+    private DiscoveryChangesListener discoveryChangesListener;
 
     private InstanceRefreshService underTest;
 
@@ -49,8 +52,10 @@ class InstanceRefreshServiceTest {
         cachedProductFamilyService = mock(CachedProductFamilyService.class);
         cachedServicesService = mock(CachedServicesService.class);
         instanceRetrievalService = mock(InstanceRetrievalService.class);
+        cachedApiDocService = mock(CachedApiDocService.class);
+        discoveryChangesListener = mock(DiscoveryChangesListener.class);
 
-        underTest = new InstanceRefreshService(cachedProductFamilyService, cachedServicesService, instanceRetrievalService);
+        underTest = new InstanceRefreshService(cachedProductFamilyService, cachedServicesService, instanceRetrievalService, cachedApiDocService, discoveryChangesListener);
         underTest.start();
 
         addApiCatalogToCache();
@@ -103,6 +108,7 @@ class InstanceRefreshServiceTest {
 
                     verify(cachedProductFamilyService, times(1))
                         .saveContainerFromInstance("api-five", newInstanceOfService);
+                    verify(cachedApiDocService).invalidateApiDocs(newInstanceOfService.getAppName());
                 }
             }
 
@@ -137,6 +143,7 @@ class InstanceRefreshServiceTest {
                         .removeInstance("api-three", changedInstanceOfService);
                     verify(cachedServicesService, never()).updateService(anyString(), any(Application.class));
                     verify(cachedProductFamilyService, never()).saveContainerFromInstance("api-three", changedInstanceOfService);
+                    verify(cachedApiDocService).invalidateApiDocs(changedInstanceOfService.getAppName());
                 }
 
                 @Test
@@ -157,6 +164,7 @@ class InstanceRefreshServiceTest {
                     verify(cachedServicesService, times(1)).updateService(changedInstanceOfService.getAppName(), service3);
                     verify(cachedProductFamilyService, times(1))
                         .saveContainerFromInstance("api-three", changedInstanceOfService);
+                    verify(cachedApiDocService, never()).invalidateApiDocs(anyString());
                 }
             }
 
@@ -197,6 +205,11 @@ class InstanceRefreshServiceTest {
     }
 
 
+    @Test
+    void whenStarted_thenListenToChangesOfDiscovery() {
+        verify(discoveryChangesListener).start(any(Runnable.class));
+    }
+
     private void addApiCatalogToCache() {
         InstanceInfo apiCatalogInstance = containerServiceMockUtil.createInstance(
             CoreService.API_CATALOG.getServiceId(),
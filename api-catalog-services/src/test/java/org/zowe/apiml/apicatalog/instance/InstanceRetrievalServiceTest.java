@@ -219,6 +219,35 @@ class InstanceRetrievalServiceTest {
                 );
         }
 
+        @Test
+        void whenListenToRegistryChanges_thenCallListenerForEachEvent() throws IOException {
+            HttpClientMockHelper.mockResponse(response,
+                "event:change\ndata:{\"action\":\"SUBSCRIBED\"}\n\n" +
+                ":heartbeat\n\n" +
+                "event:change\ndata:{\"action\":\"REGISTERED\",\"serviceId\":\"SERVICE\"}\n\n");
+            Runnable listener = mock(Runnable.class);
+
+            assertTrue(instanceRetrievalService.listenToRegistryChanges(listener));
+
+            verify(listener, times(2)).run();
+            verify(httpClient).execute(
+                argThat((ClassicHttpRequest request) -> "/discovery/api/v1/registry/changes".equals(request.getPath())
+                    && "text/event-stream".equals(request.getFirstHeader("Accept").getValue())),
+                any(HttpClientResponseHandler.class)
+            );
+        }
+
+        @Test
+        void whenChangesAreNotProvided_thenReturnFalse() throws IOException {
+            when(response.getCode()).thenReturn(HttpStatus.SC_NOT_FOUND);
+            Runnable listener = mock(Runnable.class);
+
+            assertFalse(instanceRetrievalService.listenToRegistryChanges(listener));
+
+            verify(listener, never()).run();
+            verify(httpClient, times(discoveryConfigProperties.getLocations().length)).execute(any(ClassicHttpRequest.class), any(HttpClientResponseHandler.class));
+        }
+
         private Map<String, InstanceInfo> createInstances() {
             Map<String, InstanceInfo> instanceInfoMap = new HashMap<>();
 
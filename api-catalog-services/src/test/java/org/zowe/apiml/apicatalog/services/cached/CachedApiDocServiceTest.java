@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.apicatalog.services.cached;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -24,13 +25,26 @@ import org.zowe.apiml.apicatalog.services.status.model.ApiDocNotFoundException;
 import org.zowe.apiml.apicatalog.services.status.model.ApiVersionNotFoundException;
 import org.zowe.apiml.apicatalog.swagger.TransformApiDocService;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
@@ -51,6 +65,11 @@ class CachedApiDocServiceTest {
         cachedApiDocService.resetCache();
     }
 
+    @AfterEach
+    void tearDown() {
+        cachedApiDocService.shutdown();
+    }
+
     @Nested
     class GivenValidApiDoc_thenReturnIt {
         @Test
@@ -263,4 +282,200 @@ class CachedApiDocServiceTest {
             () -> cachedApiDocService.getDefaultApiVersionForService(serviceId));
         assertEquals("Error trying to find default API version", exception.getMessage());
     }
+
+    @Nested
+    class GivenCachedApiDoc {
+
+        private static final String SERVICE_ID = "service";
+        private static final String VERSION = "v1";
+
+        private final AtomicLong time = new AtomicLong();
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final ApiDocInfo apiDocInfo = new ApiDocInfo(null, "api doc", null, "\"etag\"", null);
+
+        @BeforeEach
+        void setUp() {
+            cachedApiDocService.shutdown();
+            cachedApiDocService = new CachedApiDocService(apiDocRetrievalService, transformApiDocService, 30, 64, time::get, tasks::add);
+
+            when(apiDocRetrievalService.retrieveApiDoc(SERVICE_ID, VERSION)).thenReturn(apiDocInfo);
+            when(transformApiDocService.transformApiDoc(SERVICE_ID, apiDocInfo)).thenReturn("transformed");
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+        }
+
+        private void expire() {
+            time.addAndGet(Duration.ofSeconds(31).toNanos());
+        }
+
+        private void runTasks() {
+            new ArrayList<>(tasks).forEach(Runnable::run);
+            tasks.clear();
+        }
+
+        @Test
+        void whenRequestedRepeatedly_thenFetchAndTransformOnce() {
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+
+            verify(apiDocRetrievalService, times(1)).retrieveApiDoc(SERVICE_ID, VERSION);
+            verify(transformApiDocService, times(1)).transformApiDoc(any(), any());
+        }
+
+        @Test
+        void whenStaleAndModified_thenServeStaleAndRevalidate() {
+            ApiDocInfo modified = new ApiDocInfo(null, "modified api doc", null);
+            when(apiDocRetrievalService.retrieveApiDoc(any(), any(), any())).thenReturn(modified);
+            when(transformApiDocService.transformApiDoc(SERVICE_ID, modified)).thenReturn("modified");
+            expire();
+
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            runTasks();
+            assertEquals("modified", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            verify(apiDocRetrievalService).retrieveApiDoc(any(), any(), argThat(previous -> (previous != null) && "\"etag\"".equals(previous.getEtag())));
+        }
+
+        @Test
+        void whenStaleAndNotModified_thenDoNotTransformAgain() {
+            when(apiDocRetrievalService.retrieveApiDoc(any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+            expire();
+
+            cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION);
+            runTasks();
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            verify(apiDocRetrievalService).retrieveApiDoc(any(), any(), any());
+            verify(transformApiDocService, times(1)).transformApiDoc(any(), any());
+        }
+
+        @Test
+        void whenStaleAndSameContent_thenDoNotTransformAgain() {
+            when(apiDocRetrievalService.retrieveApiDoc(any(), any(), any())).thenReturn(new ApiDocInfo(null, "api doc", null));
+            expire();
+
+            cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION);
+            runTasks();
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            verify(apiDocRetrievalService).retrieveApiDoc(any(), any(), any());
+            verify(transformApiDocService, times(1)).transformApiDoc(any(), any());
+        }
+
+        @Test
+        void whenRevalidationFails_thenServeStale() {
+            when(apiDocRetrievalService.retrieveApiDoc(any(), any(), any())).thenThrow(new ApiDocNotFoundException("error"));
+            expire();
+
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            runTasks();
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+        }
+
+        @Test
+        void whenInvalidated_thenFetchAndTransformAgain() {
+            ApiDocInfo modified = new ApiDocInfo(null, "api doc", null);
+            when(apiDocRetrievalService.retrieveApiDoc(SERVICE_ID, VERSION)).thenReturn(modified);
+            when(transformApiDocService.transformApiDoc(SERVICE_ID, modified)).thenReturn("new routes");
+
+            cachedApiDocService.invalidateApiDocs(SERVICE_ID.toUpperCase());
+            assertEquals("transformed", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            runTasks();
+
+            assertEquals("new routes", cachedApiDocService.getApiDocForService(SERVICE_ID, VERSION));
+            verify(apiDocRetrievalService, times(2)).retrieveApiDoc(SERVICE_ID, VERSION);
+        }
+
+        @Test
+        void whenNewServiceIsInvalidated_thenPrefetchDefaultApiDoc() {
+            ApiDocInfo other = new ApiDocInfo(null, "other api doc", null);
+            when(apiDocRetrievalService.retrieveDefaultApiDoc("other")).thenReturn(other);
+            when(transformApiDocService.transformApiDoc("other", other)).thenReturn("other transformed");
+
+            cachedApiDocService.invalidateApiDocs("OTHER");
+            runTasks();
+
+            assertEquals("other transformed", cachedApiDocService.getDefaultApiDocForService("other"));
+            verify(apiDocRetrievalService, times(1)).retrieveDefaultApiDoc("other");
+        }
+    }
+
+    @Nested
+    class GivenPrefetch {
+
+        @BeforeEach
+        void setUp() {
+            cachedApiDocService.shutdown();
+            cachedApiDocService = new CachedApiDocService(apiDocRetrievalService, transformApiDocService, 30, 64, System::nanoTime, Runnable::run);
+        }
+
+        @Test
+        void whenPrefetched_thenLoadOnlyMissingDefaultApiDocs() {
+            ApiDocInfo apiDocInfo = new ApiDocInfo(null, "api doc", null);
+            when(apiDocRetrievalService.retrieveDefaultApiDoc(any())).thenReturn(apiDocInfo);
+            when(transformApiDocService.transformApiDoc(any(), any())).thenReturn("transformed");
+            cachedApiDocService.updateDefaultApiDocForService("service1", "cached");
+
+            cachedApiDocService.prefetchDefaultApiDocs(Arrays.asList("service1", "service2", "service3"));
+
+            verify(apiDocRetrievalService, never()).retrieveDefaultApiDoc("service1");
+            verify(apiDocRetrievalService).retrieveDefaultApiDoc("service2");
+            verify(apiDocRetrievalService).retrieveDefaultApiDoc("service3");
+            assertEquals("cached", cachedApiDocService.getDefaultApiDocForService("service1"));
+            assertEquals("transformed", cachedApiDocService.getDefaultApiDocForService("service2"));
+        }
+
+        @Test
+        void whenServiceIdIsNotLowerCase_thenPrefetchTheSameKeyAsInvalidation() {
+            ApiDocInfo apiDocInfo = new ApiDocInfo(null, "api doc", null);
+            when(apiDocRetrievalService.retrieveDefaultApiDoc("service")).thenReturn(apiDocInfo);
+            when(transformApiDocService.transformApiDoc("service", apiDocInfo)).thenReturn("transformed");
+
+            cachedApiDocService.prefetchDefaultApiDocs(Collections.singletonList("SERVICE"));
+
+            assertEquals("transformed", cachedApiDocService.getDefaultApiDocForService("service"));
+            verify(apiDocRetrievalService, times(1)).retrieveDefaultApiDoc("service");
+        }
+
+        @Test
+        void whenPrefetchIsQueued_thenDoNotWaitForIt() {
+            List<Runnable> tasks = new ArrayList<>();
+            cachedApiDocService = new CachedApiDocService(apiDocRetrievalService, transformApiDocService, 30, 64, System::nanoTime, tasks::add);
+
+            cachedApiDocService.prefetchDefaultApiDocs(Arrays.asList("service1", "service2"));
+
+            assertEquals(2, tasks.size());
+            verifyNoInteractions(apiDocRetrievalService);
+        }
+
+        @Test
+        void whenPrefetchFails_thenIgnore() {
+            when(apiDocRetrievalService.retrieveDefaultApiDoc(any())).thenThrow(new ApiDocNotFoundException("error"));
+
+            cachedApiDocService.prefetchDefaultApiDocs(Collections.singletonList("service"));
+
+            verify(apiDocRetrievalService).retrieveDefaultApiDoc("service");
+        }
+
+        @Test
+        void whenPoolIsFull_thenRejectTheTask() {
+            ExecutorService executor = CachedApiDocService.createExecutor(1);
+            CountDownLatch blocked = new CountDownLatch(1);
+            try {
+                executor.execute(() -> {
+                    try {
+                        blocked.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                for (int i = 0; i < 1000; i++) {
+                    executor.execute(() -> { });
+                }
+
+                AtomicBoolean executed = new AtomicBoolean();
+                assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> executed.set(true)));
+                assertFalse(executed.get());
+            } finally {
+                blocked.countDown();
+                executor.shutdownNow();
+            }
+        }
+    }
+
 }
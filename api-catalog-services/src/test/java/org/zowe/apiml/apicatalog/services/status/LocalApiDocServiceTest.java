@@ -13,11 +13,17 @@ package org.zowe.apiml.apicatalog.services.status;
 import com.netflix.appinfo.InstanceInfo;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.message.BasicHeader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -255,6 +261,54 @@ class LocalApiDocServiceTest {
         }
     }
 
+    @Nested
+    class WhenRevalidateApiDoc {
+
+        private final ApiDocInfo previous = new ApiDocInfo(null, null, null, "\"v1\"", "Wed, 21 Oct 2015 07:28:00 GMT");
+
+        @BeforeEach
+        void setUp() {
+            when(instanceRetrievalService.getInstanceInfo(SERVICE_ID))
+                .thenReturn(getStandardInstance(getStandardMetadata(), true));
+        }
+
+        @Test
+        void givenNotModified_thenReturnPrevious() throws IOException {
+            HttpClientMockHelper.mockResponse(response, HttpStatus.SC_NOT_MODIFIED, null);
+
+            assertSame(previous, apiDocRetrievalService.retrieveApiDoc(SERVICE_ID, SERVICE_VERSION_V, previous));
+
+            ArgumentCaptor<ClassicHttpRequest> request = ArgumentCaptor.forClass(ClassicHttpRequest.class);
+            verify(httpClient).execute(request.capture(), any(HttpClientResponseHandler.class));
+            assertEquals("\"v1\"", request.getValue().getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+            assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", request.getValue().getFirstHeader(HttpHeaders.IF_MODIFIED_SINCE).getValue());
+        }
+
+        @Test
+        void givenModified_thenReturnNewContentWithValidators() {
+            HttpClientMockHelper.mockResponse(response, HttpStatus.SC_OK, "new api-doc body");
+            when(response.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v2\""));
+
+            ApiDocInfo actualResponse = apiDocRetrievalService.retrieveApiDoc(SERVICE_ID, SERVICE_VERSION_V, previous);
+
+            assertEquals("new api-doc body", actualResponse.getApiDocContent());
+            assertEquals("\"v2\"", actualResponse.getEtag());
+            assertNull(actualResponse.getLastModified());
+        }
+
+        @Test
+        void givenNoPrevious_thenFetchUnconditionally() throws IOException {
+            HttpClientMockHelper.mockResponse(response, HttpStatus.SC_OK, "api-doc body");
+
+            apiDocRetrievalService.retrieveDefaultApiDoc(SERVICE_ID, null);
+
+            ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+            verify(httpClient).execute(request.capture(), any(HttpClientResponseHandler.class));
+            assertNull(request.getValue().getFirstHeader(HttpHeaders.IF_NONE_MATCH));
+        }
+
+    }
+
     @Nested
     class WhenGetDefaultApiDoc {
         @Test
@@ -12,6 +12,7 @@ package org.zowe.apiml.apicatalog.standalone;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -79,6 +80,11 @@ class StandaloneLoaderServiceTest {
             cachedApiDocService.resetCache();
         }
 
+        @AfterEach
+        void tearDown() {
+            cachedApiDocService.shutdown();
+        }
+
         @Test
         void thenContainerCacheIsPopulated() {
             assertNull(cachedServicesService.getAllCachedServices());
@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.apicatalog.swagger;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +30,7 @@ class TransformApiDocServiceTest {
 
     private Function<String, AbstractApiDocService<?, ?>> beanApiDocFactory;
     private TransformApiDocService transformApiDocService;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setup() {
@@ -45,7 +47,8 @@ class TransformApiDocServiceTest {
             }
         };
 
-        transformApiDocService = new TransformApiDocService(beanApiDocFactory);
+        meterRegistry = new SimpleMeterRegistry();
+        transformApiDocService = new TransformApiDocService(beanApiDocFactory, meterRegistry);
     }
 
     @Test
@@ -86,4 +89,16 @@ class TransformApiDocServiceTest {
             beanApiDocFactory.apply("DOC2"), never()
         ).transformApiDoc(SERVICE_ID, apiDocInfo);
     }
+
+    @Test
+    void testTransformApiDoc_thenRecordMetricsOfService() {
+        ApiDocInfo apiDocInfo = new ApiDocInfo(null, "DOC3", null);
+        transformApiDocService.transformApiDoc(SERVICE_ID, apiDocInfo);
+        transformApiDocService.transformApiDoc(SERVICE_ID, apiDocInfo);
+
+        Assertions.assertEquals(2, meterRegistry.get(TransformApiDocService.METRIC_NAME).tag("serviceId", SERVICE_ID).timer().count());
+        Assertions.assertEquals(8, meterRegistry.get(TransformApiDocService.METRIC_NAME + ".size").tag("serviceId", SERVICE_ID).summary().totalAmount());
+        Assertions.assertEquals(2, meterRegistry.getMeters().size());
+    }
+
 }
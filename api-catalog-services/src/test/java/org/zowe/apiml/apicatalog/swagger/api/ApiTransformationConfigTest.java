@@ -53,6 +53,24 @@ class ApiTransformationConfigTest {
         assertTrue(abstractApiDocService instanceof ApiDocV3Service, "AbstractApiDocService is not ApiDocV3Service");
     }
 
+    @Test
+    void givenOpenApiAfterLargeObject_whenGetApiDocService_thenReturnApiDocV3Service() {
+        abstractApiDocService = beanApiDocFactory.apply("{\"paths\": {\"/a\": {\"openapi\": [1, {\"swagger\": 2}]}}, \"openapi\": \"3.0\"}");
+        assertTrue(abstractApiDocService instanceof ApiDocV3Service, "AbstractApiDocService is not ApiDocV3Service");
+    }
+
+    @Test
+    void givenSwaggerAndOpenApi_whenGetApiDocService_thenReturnApiDocV3Service() {
+        abstractApiDocService = beanApiDocFactory.apply("swagger: 2.0\ninfo:\n  title: test\nopenapi: 3.0");
+        assertTrue(abstractApiDocService instanceof ApiDocV3Service, "AbstractApiDocService is not ApiDocV3Service");
+    }
+
+    @Test
+    void givenNestedSwaggerOnly_whenGetApiDocService_thenReturnNull() {
+        abstractApiDocService = beanApiDocFactory.apply("{\"info\": {\"swagger\": \"2.0\"}}");
+        assertNull(abstractApiDocService, "abstractApiDocService is not null");
+    }
+
     @Test
     void givenApiDocNotInOpenApiNorSwagger_whenGetApiDocService_thenReturnNull() {
         abstractApiDocService = beanApiDocFactory.apply("{\"superapi\": \"3.0\"}");
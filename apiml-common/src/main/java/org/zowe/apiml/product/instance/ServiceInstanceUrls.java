@@ -0,0 +1,107 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.product.instance;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.util.EurekaUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Base URLs of the running instances of a service as they are known by the local copy of the registry. It allows
+ * a client to call the service directly instead of the route via the Gateway.
+ * <p>
+ * Each call returns the instances in a rotated order (round-robin) to spread the load. The instance which failed
+ * recently is moved to the end of the list for {@code failureCooldownMs}, so it is used only if no other instance
+ * is available.
+ */
+@Slf4j
+public class ServiceInstanceUrls {
+
+    private final EurekaClient eurekaClient;
+    private final String serviceId;
+    private final long failureCooldownMs;
+    private final LongSupplier clock;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Long> failures = new ConcurrentHashMap<>();
+
+    public ServiceInstanceUrls(EurekaClient eurekaClient, String serviceId, long failureCooldownMs) {
+        this(eurekaClient, serviceId, failureCooldownMs, System::currentTimeMillis);
+    }
+
+    ServiceInstanceUrls(EurekaClient eurekaClient, String serviceId, long failureCooldownMs, LongSupplier clock) {
+        this.eurekaClient = eurekaClient;
+        this.serviceId = serviceId;
+        this.failureCooldownMs = failureCooldownMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @return base URLs (ie. https://host:port) of the instances in the state UP, an empty list if there is none
+     */
+    public List<String> getUrls() {
+        Application application = eurekaClient.getApplication(serviceId);
+        if (application == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> urls = application.getInstances().stream()
+            .filter(instance -> instance.getStatus() == InstanceInfo.InstanceStatus.UP)
+            .map(EurekaUtils::getUrl)
+            .distinct()
+            .toList();
+        if (urls.isEmpty()) {
+            return urls;
+        }
+
+        List<String> rotated = new ArrayList<>(urls);
+        Collections.rotate(rotated, -Math.floorMod(next.getAndIncrement(), urls.size()));
+
+        long now = clock.getAsLong();
+        failures.values().removeIf(failedAt -> now - failedAt >= failureCooldownMs);
+        if (!failures.isEmpty()) {
+            // the sort is stable, so the instances keep the rotated order in both groups
+            rotated.sort(Comparator.comparing(failures::containsKey));
+        }
+        return rotated;
+    }
+
+    /**
+     * Mark the instance as failed, it is used as the last one until the cooldown elapses.
+     *
+     * @param url base URL of the instance as it was returned by {@link #getUrls()}
+     */
+    public void failed(String url) {
+        log.debug("The instance {} of the service {} is not available", url, serviceId);
+        failures.put(url, clock.getAsLong());
+    }
+
+    /**
+     * Mark the instance as available again.
+     *
+     * @param url base URL of the instance as it was returned by {@link #getUrls()}
+     */
+    public void succeeded(String url) {
+        failures.remove(url);
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.product.instance;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceInstanceUrlsTest {
+
+    private static final String SERVICE_ID = "cachingservice";
+
+    private final EurekaClient eurekaClient = mock(EurekaClient.class);
+    private final AtomicLong now = new AtomicLong(1000);
+    private ServiceInstanceUrls underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ServiceInstanceUrls(eurekaClient, SERVICE_ID, 100, now::get);
+    }
+
+    private static InstanceInfo instance(String hostname, InstanceInfo.InstanceStatus status) {
+        return InstanceInfo.Builder.newBuilder()
+            .setAppName(SERVICE_ID)
+            .setInstanceId(hostname + ":" + SERVICE_ID + ":10016")
+            .setHostName(hostname)
+            .setSecurePort(10016)
+            .enablePort(InstanceInfo.PortType.SECURE, true)
+            .setStatus(status)
+            .build();
+    }
+
+    private void register(InstanceInfo... instances) {
+        when(eurekaClient.getApplication(SERVICE_ID)).thenReturn(new Application(SERVICE_ID, List.of(instances)));
+    }
+
+    @Test
+    void givenNoApplication_thenReturnEmptyList() {
+        assertTrue(underTest.getUrls().isEmpty());
+    }
+
+    @Test
+    void givenInstances_thenReturnOnlyTheRunningOnesInRotatedOrder() {
+        register(
+            instance("host1", InstanceInfo.InstanceStatus.UP),
+            instance("host2", InstanceInfo.InstanceStatus.DOWN),
+            instance("host3", InstanceInfo.InstanceStatus.UP)
+        );
+
+        List<String> first = underTest.getUrls();
+        List<String> second = underTest.getUrls();
+
+        assertEquals(2, first.size());
+        assertTrue(first.containsAll(List.of("https://host1:10016", "https://host3:10016")));
+        assertEquals(first.get(0), second.get(1));
+        assertEquals(first.get(1), second.get(0));
+    }
+
+    @Test
+    void givenFailedInstance_thenUseItAsTheLastOneUntilTheCooldownElapses() {
+        register(
+            instance("host1", InstanceInfo.InstanceStatus.UP),
+            instance("host2", InstanceInfo.InstanceStatus.UP)
+        );
+
+        underTest.failed("https://host1:10016");
+        assertEquals(List.of("https://host2:10016", "https://host1:10016"), underTest.getUrls());
+        assertEquals(List.of("https://host2:10016", "https://host1:10016"), underTest.getUrls());
+
+        now.addAndGet(100);
+        List<String> urls = underTest.getUrls();
+        assertEquals(List.of("https://host1:10016", "https://host2:10016"), urls);
+    }
+
+    @Test
+    void givenRecoveredInstance_thenUseItAgain() {
+        register(
+            instance("host1", InstanceInfo.InstanceStatus.UP),
+            instance("host2", InstanceInfo.InstanceStatus.UP)
+        );
+
+        underTest.failed("https://host1:10016");
+        underTest.succeeded("https://host1:10016");
+        underTest.getUrls();
+
+        assertEquals(List.of("https://host2:10016", "https://host1:10016"), underTest.getUrls());
+    }
+
+}
@@ -18,6 +18,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.zowe.apiml.caching.model.CompareAndSet;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
@@ -27,6 +30,8 @@ import org.zowe.apiml.message.core.MessageService;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.security.cert.X509Certificate;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -36,6 +41,7 @@ import java.util.Optional;
 public class CachingController {
     private final Storage storage;
     private final MessageService messageService;
+    private final MapChangesPoller mapChangesPoller;
 
 
     @GetMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -95,6 +101,98 @@ public class CachingController {
             key, request, HttpStatus.NO_CONTENT);
     }
 
+    @GetMapping(value = "/cache", params = "key", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves the values of the given keys in the cache",
+        description = "Values returned for the calling service, the keys which are not in the cache are omitted")
+    @ResponseBody
+    public ResponseEntity<Object> getValues(@RequestParam("key") List<String> keys, HttpServletRequest request) {
+        return getServiceId(request).<ResponseEntity<Object>>map(
+            s -> {
+                try {
+                    return new ResponseEntity<>(storage.readAll(s, keys), HttpStatus.OK);
+                } catch (StorageException exception) {
+                    return exceptionToResponse(exception);
+                } catch (Exception exception) {
+                    return handleInternalError(exception, request.getRequestURL());
+                }
+            }
+        ).orElseGet(this::getUnauthorizedResponse);
+    }
+
+    @PutMapping(value = "/cache/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create or update more keys in the cache",
+        description = "All the key-value pairs are stored, the result of each one is returned (201 created, 204 updated or the error)")
+    @ResponseBody
+    public ResponseEntity<Object> upsertAll(@RequestBody List<KeyValue> keyValues, HttpServletRequest request) {
+        return getServiceId(request).<ResponseEntity<Object>>map(
+            s -> {
+                try {
+                    if (keyValues == null) {
+                        throw invalidPayloadException(null, "No KeyValue provided in the payload");
+                    }
+                    keyValues.forEach(this::checkForInvalidPayload);
+
+                    List<ItemResult> results = storage.upsertAll(s, keyValues);
+                    return new ResponseEntity<>(results, HttpStatus.OK);
+                } catch (StorageException exception) {
+                    return exceptionToResponse(exception);
+                } catch (Exception exception) {
+                    return handleInternalError(exception, request.getRequestURL());
+                }
+            }
+        ).orElseGet(this::getUnauthorizedResponse);
+    }
+
+    @PutMapping(value = "/cache/upsert", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Create or update key in the cache",
+        description = "The key-value pair is created (201) if the key is not in the cache, otherwise it is updated (204)")
+    @ResponseBody
+    public ResponseEntity<Object> upsert(@RequestBody KeyValue keyValue, HttpServletRequest request) {
+        Optional<String> serviceId = getServiceId(request);
+        if (serviceId.isEmpty()) {
+            return getUnauthorizedResponse();
+        }
+
+        try {
+            checkForInvalidPayload(keyValue);
+
+            boolean created = storage.upsert(serviceId.get(), keyValue);
+            return new ResponseEntity<>(created ? HttpStatus.CREATED : HttpStatus.NO_CONTENT);
+        } catch (StorageException exception) {
+            return exceptionToResponse(exception);
+        } catch (Exception exception) {
+            return handleInternalError(exception, request.getRequestURL());
+        }
+    }
+
+    @PutMapping(value = "/cache/compare-and-set", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Update key in the cache if it has the expected value",
+        description = "The value is replaced only if the current value is the expectedValue, otherwise the conflict is returned")
+    @ResponseBody
+    public ResponseEntity<Object> compareAndSet(@RequestBody CompareAndSet compareAndSet, HttpServletRequest request) {
+        Optional<String> serviceId = getServiceId(request);
+        if (serviceId.isEmpty()) {
+            return getUnauthorizedResponse();
+        }
+
+        try {
+            if (compareAndSet == null) {
+                throw invalidPayloadException(null, "No KeyValue provided in the payload");
+            }
+            KeyValue keyValue = compareAndSet.toKeyValue();
+            checkForInvalidPayload(keyValue);
+
+            if (!storage.compareAndSet(serviceId.get(), keyValue, compareAndSet.getExpectedValue())) {
+                throw new StorageException(Messages.VALUE_CHANGED.getKey(), Messages.VALUE_CHANGED.getStatus(), keyValue.getKey());
+            }
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (StorageException exception) {
+            return exceptionToResponse(exception);
+        } catch (Exception exception) {
+            return handleInternalError(exception, request.getRequestURL());
+        }
+    }
+
     @PostMapping(value = "/cache", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Create a new key in the cache",
         description = "A new key-value pair will be added to the cache")
@@ -130,6 +228,36 @@ public class CachingController {
         ).orElseGet(this::getUnauthorizedResponse);
     }
 
+    @GetMapping(value = "/cache-list/{mapKey}", params = "sinceRevision", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Retrieves the changes in the cache map since the given revision",
+        description = "Only the added, updated and removed items are returned. If the revision is too old, the full content is returned. " +
+            "With waitMs the request is held until there is any change or the time runs out.")
+    @ResponseBody
+    public DeferredResult<ResponseEntity<Object>> getMapItemsSince(
+        @PathVariable String mapKey,
+        @RequestParam long sinceRevision,
+        @RequestParam(defaultValue = "0") long waitMs,
+        HttpServletRequest request
+    ) {
+        Optional<String> serviceId = getServiceId(request);
+        if (serviceId.isEmpty()) {
+            DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>();
+            result.setResult(getUnauthorizedResponse());
+            return result;
+        }
+
+        // the request could be already recycled when the check is repeated
+        StringBuffer requestUrl = request.getRequestURL();
+        log.debug("Get changes for serviceId: {} since revision {}", serviceId.get(), sinceRevision);
+        return mapChangesPoller.poll(() -> {
+            try {
+                return new ResponseEntity<>(storage.getMapItemsSince(serviceId.get(), mapKey, sinceRevision), HttpStatus.OK);
+            } catch (Exception exception) {
+                return handleIncompatibleStorageMethod(exception, requestUrl);
+            }
+        }, waitMs);
+    }
+
     @GetMapping(value = "/cache-list", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Retrieves all the maps in the cache",
         description = "Values returned for the calling service")
@@ -272,7 +400,7 @@ public class CachingController {
     }
 
     private Optional<String> getServiceId(HttpServletRequest request) {
-        Optional<String> certificateServiceId = getHeader(request, "X-Certificate-DistinguishedName");
+        Optional<String> certificateServiceId = getCertificateServiceId(request);
         Optional<String> specificServiceId = getHeader(request, "X-CS-Service-ID");
 
         if (certificateServiceId.isPresent() && specificServiceId.isPresent()) {
@@ -284,6 +412,24 @@ public class CachingController {
         }
     }
 
+    /**
+     * The Gateway provides the distinguished name of the client certificate in the header. The direct call (without
+     * the Gateway) is identified by the certificate of the TLS connection, in the same format as the Gateway does.
+     */
+    @SuppressWarnings("deprecation")
+    private Optional<String> getCertificateServiceId(HttpServletRequest request) {
+        Optional<String> header = getHeader(request, "X-Certificate-DistinguishedName");
+        if (header.isPresent()) {
+            return header;
+        }
+
+        if (request.getAttribute("jakarta.servlet.request.X509Certificate") instanceof X509Certificate[] certificates
+            && certificates.length > 0) {
+            return Optional.of(certificates[0].getSubjectDN().getName());
+        }
+        return Optional.empty();
+    }
+
     private Optional<String> getHeader(HttpServletRequest request, String headerName) {
         String serviceId = request.getHeader(headerName);
         if (StringUtils.isEmpty(serviceId)) {
@@ -327,6 +473,10 @@ public class CachingController {
         if (key == null) {
             throw invalidPayloadException(keyValue.toString(), "No key provided in the payload");
         }
+
+        if (keyValue.getTtl() != null && keyValue.getTtl() < 0) {
+            throw invalidPayloadException(keyValue.toString(), "The ttl cannot be negative");
+        }
     }
 
     @FunctionalInterface
@@ -0,0 +1,89 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.api;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.zowe.apiml.caching.model.MapChanges;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Long-polling of changes in a cache map. The request is held until there is any change or the waiting time
+ * runs out. The storage is checked periodically, so it works the same way for all instances of a clustered
+ * storage. The waiting requests don't block any servlet thread.
+ */
+@Component
+public class MapChangesPoller {
+
+    private final long checkIntervalMs;
+    private final long maxWaitMs;
+    private final ScheduledExecutorService scheduler;
+
+    public MapChangesPoller(
+        @Value("${caching.changes.checkIntervalMs:250}") long checkIntervalMs,
+        @Value("${caching.changes.maxWaitMs:30000}") long maxWaitMs
+    ) {
+        this.checkIntervalMs = checkIntervalMs;
+        this.maxWaitMs = maxWaitMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Cache map changes poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Call the check immediately. If it returns no changes, call it again periodically until there are any
+     * changes or the waiting time runs out.
+     *
+     * @param check  the request of changes, it returns a response with {@link MapChanges} or an error response
+     * @param waitMs how long the request could be held, it is limited by the configuration
+     * @return the result which is set by the first response with changes, by an error or by the last check
+     */
+    public DeferredResult<ResponseEntity<Object>> poll(Supplier<ResponseEntity<Object>> check, long waitMs) {
+        long wait = Math.max(0, Math.min(waitMs, maxWaitMs));
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>(wait + 2 * checkIntervalMs + 1000);
+        result.onTimeout(() -> result.setResult(check.get()));
+        check(check, System.currentTimeMillis() + wait, result);
+        return result;
+    }
+
+    private void check(Supplier<ResponseEntity<Object>> check, long deadline, DeferredResult<ResponseEntity<Object>> result) {
+        if (result.isSetOrExpired()) {
+            return;
+        }
+
+        ResponseEntity<Object> response = check.get();
+        if (!isUnchanged(response) || (System.currentTimeMillis() >= deadline)) {
+            result.setResult(response);
+            return;
+        }
+
+        scheduler.schedule(() -> check(check, deadline, result), checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean isUnchanged(ResponseEntity<Object> response) {
+        return response.getBody() instanceof MapChanges changes && changes.isEmpty();
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+}
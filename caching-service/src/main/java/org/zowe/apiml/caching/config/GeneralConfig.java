@@ -31,6 +31,8 @@ public class GeneralConfig implements WebMvcConfigurer {
     private String evictionStrategy;
     @Value("${caching.storage.size:100}")
     private int maxDataSize;
+    @Value("${caching.storage.expiry.sweepIntervalMs:1000}")
+    private long expirySweepIntervalMs;
 
     @Override
     public void configurePathMatch(PathMatchConfigurer configurer) {
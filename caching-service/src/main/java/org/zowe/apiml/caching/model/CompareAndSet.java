@@ -0,0 +1,33 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request to replace the value of the key only if the current value is the expected one
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompareAndSet {
+
+    private String key;
+    private String expectedValue;
+    private String value;
+
+    public KeyValue toKeyValue() {
+        return new KeyValue(key, value);
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.zowe.apiml.caching.service.StorageException;
+
+/**
+ * Result of a single item of the batch operation. The status has the same meaning as the status of the request
+ * with the single item.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemResult {
+
+    private String key;
+    private int status;
+    private String messageKey;
+
+    public static ItemResult created(String key) {
+        return new ItemResult(key, HttpStatus.CREATED.value(), null);
+    }
+
+    public static ItemResult updated(String key) {
+        return new ItemResult(key, HttpStatus.NO_CONTENT.value(), null);
+    }
+
+    public static ItemResult failed(String key, StorageException e) {
+        return new ItemResult(key, e.getStatus().value(), e.getKey());
+    }
+
+}
@@ -11,6 +11,7 @@
 package org.zowe.apiml.caching.model;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -29,6 +30,11 @@ public class KeyValue implements Serializable {
     private final String value;
     private String serviceId;
     private final String created;
+    /**
+     * Time to live of the entry in seconds since its creation (or the last update). The entry without it (or with zero)
+     * never expires.
+     */
+    private Long ttl;
 
     public KeyValue(String key, String value) {
         this.key = key;
@@ -37,6 +43,28 @@ public class KeyValue implements Serializable {
         this.created = currentTime();
     }
 
+    /**
+     * @return the time of the expiration in milliseconds since the epoch, or null if the entry does not expire
+     */
+    @JsonIgnore
+    public Long getExpiresAt() {
+        if (ttl == null || ttl <= 0) {
+            return null;
+        }
+        try {
+            return Long.parseLong(created) + ttl * 1000;
+        } catch (NumberFormatException e) {
+            // the entry without valid time of the creation is considered as the oldest one
+            return ttl * 1000;
+        }
+    }
+
+    @JsonIgnore
+    public boolean isExpired(long now) {
+        Long expiresAt = getExpiresAt();
+        return expiresAt != null && expiresAt <= now;
+    }
+
     private static String currentTime() {
         return String.valueOf(new Date().getTime());
     }
@@ -0,0 +1,180 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Bounded journal of changes of a single cache map. Each change increases the revision of the map by one. The
+ * journal keeps only the last changes, older revisions are answered by the full content of the map.
+ * <p>
+ * The first revision is derived from the current time, so a client holding a revision of a previous journal
+ * (ie. the storage was restarted) gets the full content instead of wrong changes.
+ * <p>
+ * The journal also keeps the keys currently present in the map, so a storage keeping each item as a separate
+ * entry can read the map without scanning all the entries.
+ */
+public class MapChangeLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private HashSet<String> keys = new HashSet<>();
+    @Getter
+    private long revision;
+
+    public MapChangeLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MapChangeLog(int capacity) {
+        this.capacity = capacity;
+        this.revision = System.currentTimeMillis();
+    }
+
+    /**
+     * @return independent copy of the journal, it could be modified without any effect on this instance
+     */
+    public MapChangeLog copy() {
+        MapChangeLog copy = new MapChangeLog(capacity);
+        copy.revision = revision;
+        copy.changes.addAll(changes);
+        copy.keys = keys == null ? null : new HashSet<>(keys);
+        return copy;
+    }
+
+    /**
+     * @return keys present in the map, null if the journal was stored by a version without the keys
+     */
+    public Set<String> getKeys() {
+        return keys == null ? null : Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Set the keys present in the map, ie. for a journal stored without the keys.
+     */
+    public void setKeys(Collection<String> keys) {
+        this.keys = new HashSet<>(keys);
+    }
+
+    public void put(String key, String value) {
+        record(key, value);
+    }
+
+    public void remove(String key) {
+        record(key, null);
+    }
+
+    private void record(String key, String value) {
+        if (keys != null) {
+            if (value == null) {
+                keys.remove(key);
+            } else {
+                keys.add(key);
+            }
+        }
+        changes.addLast(new Change(++revision, key, value));
+        while (changes.size() > capacity) {
+            changes.removeFirst();
+        }
+    }
+
+    /**
+     * Compute changes since the given revision. If more changes of the same key happened, only the last one is
+     * returned.
+     *
+     * @param sinceRevision revision known by the client
+     * @param items         the current content of the map, used if the changes cannot be computed
+     * @return the changes or the full content of the map
+     */
+    public MapChanges changesSince(long sinceRevision, Map<String, String> items) {
+        return changesSince(sinceRevision, () -> items);
+    }
+
+    /**
+     * Compute changes since the given revision, the content of the map is read only if the changes cannot be
+     * computed.
+     *
+     * @param sinceRevision revision known by the client
+     * @param items         reader of the current content of the map
+     * @return the changes or the full content of the map
+     */
+    public MapChanges changesSince(long sinceRevision, Supplier<Map<String, String>> items) {
+        if (sinceRevision == revision) {
+            return new MapChanges(revision, false, Collections.emptyMap(), Collections.emptySet());
+        }
+        if (!isKnown(sinceRevision)) {
+            return MapChanges.snapshot(revision, items.get());
+        }
+
+        Map<String, String> updated = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        for (Change change : changes) {
+            if (change.getRevision() <= sinceRevision) {
+                continue;
+            }
+            if (change.getValue() == null) {
+                updated.remove(change.getKey());
+                removed.add(change.getKey());
+            } else {
+                removed.remove(change.getKey());
+                updated.put(change.getKey(), change.getValue());
+            }
+        }
+        return new MapChanges(revision, false, updated, removed);
+    }
+
+    private boolean isKnown(long sinceRevision) {
+        if (sinceRevision > revision) {
+            return false;
+        }
+        // all changes after sinceRevision have to be still in the journal
+        return !changes.isEmpty() && changes.getFirst().getRevision() <= sinceRevision + 1;
+    }
+
+    /**
+     * The revision identifies the content of the journal. It allows to replace the journal in the cache only if
+     * it was not changed in the meantime.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MapChangeLog)) return false;
+        MapChangeLog that = (MapChangeLog) o;
+        return capacity == that.capacity && revision == that.revision;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(capacity, revision);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Change implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long revision;
+        private final String key;
+        private final String value;
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Data POJO that represents changes in a cache map since a revision requested by the client. If the changes
+ * cannot be computed (the revision is unknown or too old), the full content of the map is returned and the flag
+ * full is set. In this case the client has to replace its copy of the map instead of applying the changes.
+ */
+@Data
+public class MapChanges {
+    private final long revision;
+    private final boolean full;
+    private final Map<String, String> updated;
+    private final Set<String> removed;
+
+    public static MapChanges snapshot(long revision, Map<String, String> items) {
+        return new MapChanges(revision, true, items == null ? Collections.emptyMap() : items, Collections.emptySet());
+    }
+
+    public static MapChanges unchanged(long revision) {
+        return new MapChanges(revision, false, Collections.emptyMap(), Collections.emptySet());
+    }
+
+    /**
+     * Changes of a map without the journal. The revision is derived from the content of the map, so the client
+     * gets no change while the content is the same and the full content once it differs.
+     *
+     * @param sinceRevision revision known by the client
+     * @param items         the current content of the map
+     * @return no change or the full content of the map
+     */
+    public static MapChanges ofContent(long sinceRevision, Map<String, String> items) {
+        long revision = contentRevision(items);
+        return revision == sinceRevision ? unchanged(revision) : snapshot(revision, items);
+    }
+
+    static long contentRevision(Map<String, String> items) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (items != null) {
+                new TreeMap<>(items).forEach((key, value) -> {
+                    digest.update(key.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                });
+            }
+            // the revision is not negative, the negative one means unknown on the client side
+            return ByteBuffer.wrap(digest.digest()).getLong() & Long.MAX_VALUE;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return !full && updated.isEmpty() && removed.isEmpty();
+    }
+}
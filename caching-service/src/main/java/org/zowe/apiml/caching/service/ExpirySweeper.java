@@ -0,0 +1,202 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removal of the expired entries in the background for the storages without a native expiration. The storage
+ * schedules each written entry with a ttl. The entries are ordered by the time of the expiration in a priority queue,
+ * so the sweep touches only the expired ones. The storage has to confirm the removal, because the entry could be
+ * updated (with another expiration) or removed in the meantime.
+ * <p>
+ * Without an interval, nothing runs in the background and {@link #sweep()} has to be called explicitly.
+ */
+@Slf4j
+public class ExpirySweeper implements AutoCloseable {
+
+    static final String METRIC_NAME = "apiml.caching.expiry";
+
+    @FunctionalInterface
+    public interface Expiration {
+
+        /**
+         * Remove the entry if it is still stored with the same time of the expiration.
+         *
+         * @return true if the entry was removed
+         */
+        boolean expire(String serviceId, String key, long expiresAt);
+
+    }
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Counter expired;
+    private final ScheduledExecutorService executor;
+    private volatile Expiration expiration;
+
+    public ExpirySweeper(String storage, long intervalMs, MeterRegistry meterRegistry) {
+        this.expired = Counter.builder(METRIC_NAME + ".expired")
+            .description("Number of the entries removed after their ttl")
+            .tag("storage", storage)
+            .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".scheduled", this, ExpirySweeper::getScheduled)
+            .description("Number of the entries waiting for the expiration")
+            .tag("storage", storage)
+            .register(meterRegistry);
+
+        if (intervalMs > 0) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Cache expiry sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor.scheduleWithFixedDelay(this::sweep, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * @return the sweeper without any background thread and with the metrics not published
+     */
+    public static ExpirySweeper manual(String storage) {
+        return new ExpirySweeper(storage, 0, new SimpleMeterRegistry());
+    }
+
+    /**
+     * @param expiration removal of the entry in the storage, it is called from the thread of the sweeper
+     */
+    public void start(Expiration expiration) {
+        this.expiration = expiration;
+    }
+
+    /**
+     * Run the task in the thread of the sweeper, ie. to schedule the entries stored before the start. Without
+     * the background thread the task is not called.
+     */
+    public void execute(Runnable task) {
+        if (executor == null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.debug("The task of the expiry sweeper failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("The expiry sweeper is stopped");
+        }
+    }
+
+    /**
+     * @param expiresAt time of the expiration in milliseconds since the epoch, null if the entry does not expire
+     */
+    public void schedule(String serviceId, String key, Long expiresAt) {
+        if (expiresAt == null) {
+            return;
+        }
+
+        synchronized (queue) {
+            queue.add(new Entry(expiresAt, serviceId, key));
+        }
+    }
+
+    /**
+     * Count the entry which was found expired and removed by the storage itself (ie. on the read).
+     */
+    public void expired() {
+        expired.increment();
+    }
+
+    public int sweep() {
+        return sweep(System.currentTimeMillis());
+    }
+
+    public int sweep(long now) {
+        Expiration current = expiration;
+        if (current == null) {
+            return 0;
+        }
+
+        int removed = 0;
+        List<Entry> failed = new ArrayList<>();
+        Entry entry;
+        while ((entry = poll(now)) != null) {
+            try {
+                if (current.expire(entry.serviceId(), entry.key(), entry.expiresAt())) {
+                    removed++;
+                    expired.increment();
+                }
+            } catch (RuntimeException e) {
+                log.debug("Cannot remove the expired entry {}|{}", entry.serviceId(), entry.key(), e);
+                failed.add(entry);
+            }
+        }
+
+        // the failed entries are tried again with the next sweep
+        synchronized (queue) {
+            queue.addAll(failed);
+        }
+        if (removed > 0) {
+            log.debug("{} expired entries were removed", removed);
+        }
+        return removed;
+    }
+
+    private Entry poll(long now) {
+        synchronized (queue) {
+            Entry head = queue.peek();
+            return (head == null || head.expiresAt() > now) ? null : queue.poll();
+        }
+    }
+
+    public int getScheduled() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Entry(long expiresAt, String serviceId, String key) implements Comparable<Entry> {
+
+        private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::expiresAt);
+
+        @Override
+        public int compareTo(Entry o) {
+            return ORDER.compare(this, o);
+        }
+
+    }
+
+}
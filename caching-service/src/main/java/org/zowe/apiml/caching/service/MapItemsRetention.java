@@ -0,0 +1,93 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.models.AccessTokenContainer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rules which items of the maps with invalidated tokens and rules are still relevant. The others could be evicted
+ * (see {@link Storage#removeNonRelevantTokens(String, String)} and {@link Storage#removeNonRelevantRules(String, String)}).
+ */
+@Slf4j
+@UtilityClass
+public class MapItemsRetention {
+
+    private static final long RULES_RETENTION_DAYS = 90;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    /**
+     * @param value JSON of {@link AccessTokenContainer}
+     * @return false if the token is already expired, otherwise (including invalid value) true
+     */
+    public boolean isTokenRelevant(String value) {
+        try {
+            AccessTokenContainer c = objectMapper.readValue(value, AccessTokenContainer.class);
+            return !c.getExpiresAt().isBefore(LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            log.error("Not able to parse invalidToken json value.", e);
+            return true;
+        }
+    }
+
+    /**
+     * @param value     timestamp of the rule creation (in milliseconds)
+     * @param timestamp current time (in milliseconds)
+     * @return false if the rule is older than the retention period, otherwise true
+     */
+    public boolean isRuleRelevant(String value, long timestamp) {
+        long delta = timestamp - Long.parseLong(value);
+        long deltaToDays = TimeUnit.MILLISECONDS.toDays(delta);
+        return deltaToDays <= RULES_RETENTION_DAYS;
+    }
+
+    /**
+     * Time since the item is not relevant anymore. It allows the storage to expire the items by itself instead of
+     * the eviction. The value of rule is a timestamp, the value of token is JSON of {@link AccessTokenContainer}.
+     *
+     * @param value value of the item
+     * @return time of expiration (in milliseconds) or null if the value is not recognized (the item is kept)
+     */
+    public Long getExpiration(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        if (value.chars().allMatch(Character::isDigit)) {
+            try {
+                return Long.parseLong(value) + TimeUnit.DAYS.toMillis(RULES_RETENTION_DAYS + 1);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        try {
+            AccessTokenContainer c = objectMapper.readValue(value, AccessTokenContainer.class);
+            if (c.getExpiresAt() == null) {
+                return null;
+            }
+            return c.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (JsonProcessingException e) {
+            log.debug("The value of map item is neither a rule nor a token, it does not expire", e);
+            return null;
+        }
+    }
+
+}
@@ -10,9 +10,11 @@
 
 package org.zowe.apiml.caching.service;
 
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 
-import java.util.Map;
+import java.util.*;
 
 /**
  * Every supported storage backend needs to have an implementation of the Storage.
@@ -53,6 +55,20 @@ public interface Storage {
      */
     Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException;
 
+    /**
+     * Return the changes in the specific map since the given revision. The storage without the journal of changes
+     * derives the revision from the content (see {@link MapChanges#ofContent(long, Map)}), so it returns no change
+     * while the map is the same and the full content once it was changed.
+     *
+     * @param serviceId Id of the service to load the changes for
+     * @param mapKey key of the specific map
+     * @param sinceRevision the last revision known by the client
+     * @return Added, updated and removed items since the revision or the full content of the map
+     */
+    default MapChanges getMapItemsSince(String serviceId, String mapKey, long sinceRevision) throws StorageException {
+        return MapChanges.ofContent(sinceRevision, getAllMapItems(serviceId, mapKey));
+    }
+
     /**
      * Returns the keys associated with the provided keys.
      *
@@ -71,6 +87,88 @@ public interface Storage {
      */
     KeyValue update(String serviceId, KeyValue toUpdate);
 
+    /**
+     * Returns the key/value pairs of the given keys. The keys which are not in the storage are omitted. The storage
+     * should override it to read all keys at once.
+     *
+     * @param serviceId Id of the service to read values for
+     * @param keys      keys to lookup
+     * @return Map with the found key/value pairs
+     */
+    default Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        Map<String, KeyValue> result = new HashMap<>();
+        for (String key : keys) {
+            try {
+                result.put(key, read(serviceId, key));
+            } catch (StorageException e) {
+                if (e.getStatus() != Messages.KEY_NOT_IN_CACHE.getStatus()) {
+                    throw e;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Store the key/value pair regardless it exists or not (create or update). The default implementation is not
+     * atomic, the storage should override it.
+     *
+     * @param serviceId Id of the service to store the value for
+     * @param toUpsert  Key/value pair to store
+     * @return true if the key was created, false if it was updated
+     */
+    default boolean upsert(String serviceId, KeyValue toUpsert) {
+        try {
+            update(serviceId, toUpsert);
+            return false;
+        } catch (StorageException e) {
+            if (e.getStatus() != Messages.KEY_NOT_IN_CACHE.getStatus()) {
+                throw e;
+            }
+        }
+        create(serviceId, toUpsert);
+        return true;
+    }
+
+    /**
+     * Store all the key/value pairs (see {@link #upsert(String, KeyValue)}). A failure of one item does not stop
+     * the others.
+     *
+     * @param serviceId Id of the service to store the values for
+     * @param toUpsert  Key/value pairs to store
+     * @return Result of each item in the same order
+     */
+    default List<ItemResult> upsertAll(String serviceId, List<KeyValue> toUpsert) {
+        List<ItemResult> results = new ArrayList<>(toUpsert.size());
+        for (KeyValue keyValue : toUpsert) {
+            try {
+                results.add(upsert(serviceId, keyValue) ? ItemResult.created(keyValue.getKey()) : ItemResult.updated(keyValue.getKey()));
+            } catch (StorageException e) {
+                results.add(ItemResult.failed(keyValue.getKey(), e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Replace the value only if the current value is the expected one. The default implementation is not atomic,
+     * the storage should override it.
+     *
+     * @param serviceId     Id of the service to store the value for
+     * @param toUpdate      Key/value pair to store
+     * @param expectedValue Value which has to be stored now
+     * @return true if the value was replaced, false if the current value is different
+     * @throws StorageException if the key is not in the storage
+     */
+    default boolean compareAndSet(String serviceId, KeyValue toUpdate, String expectedValue) {
+        KeyValue current = read(serviceId, toUpdate.getKey());
+        if (!Objects.equals(current.getValue(), expectedValue)) {
+            return false;
+        }
+        update(serviceId, toUpdate);
+        return true;
+    }
+
     /**
      * Delete the key/value pair if it exists within the context of the service. If there is none existing null
      * is returned.
@@ -10,40 +10,68 @@
 
 package org.zowe.apiml.caching.service.infinispan.storage;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
-import org.infinispan.lock.api.ClusteredLock;
+import org.infinispan.commons.api.BasicCache;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChangeLog;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.service.MapItemsRetention;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
-import org.zowe.apiml.models.AccessTokenContainer;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * Storage based on replicated Infinispan caches. Each item of a cache map is stored as a separate entry (see
+ * {@link MapItemKey}), so writes of different items run in parallel without any cluster-wide lock. The journal
+ * of changes of each map is replaced optimistically (compare and set). The journal also holds the keys of the map,
+ * so a map is read by the keys without a scan of the whole cache.
+ * <p>
+ * The entry with a ttl is stored with the lifespan, so it is expired by Infinispan itself in the whole cluster.
+ */
 @Slf4j
 public class InfinispanStorage implements Storage {
 
 
     private final ConcurrentMap<String, KeyValue> cache;
-    private final ConcurrentMap<String, Map<String, String>> tokenCache;
-    private final ClusteredLock lock;
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentMap<MapItemKey, String> mapItemCache;
+    private final ConcurrentMap<String, MapChangeLog> changeLogCache;
 
-    public InfinispanStorage(ConcurrentMap<String, KeyValue> cache, ConcurrentMap<String, Map<String, String>> tokenCache, ClusteredLock lock) {
+    public InfinispanStorage(
+        ConcurrentMap<String, KeyValue> cache,
+        ConcurrentMap<MapItemKey, String> mapItemCache,
+        ConcurrentMap<String, MapChangeLog> changeLogCache
+    ) {
         this.cache = cache;
-        this.tokenCache = tokenCache;
-        this.lock = lock;
+        this.mapItemCache = mapItemCache;
+        this.changeLogCache = changeLogCache;
     }
 
-    static {
-        objectMapper.registerModule(new JavaTimeModule());
+    /**
+     * Move the maps stored by previous versions as a single entry per map into separate items. The method could
+     * be called by more instances at once, the items are only added if they don't exist yet.
+     *
+     * @param legacyCache cache with whole maps, the migrated maps are removed from there
+     */
+    public void migrateMaps(ConcurrentMap<String, Map<String, String>> legacyCache) {
+        legacyCache.forEach((mapId, items) -> {
+            if (items != null && !items.isEmpty()) {
+                Map<String, String> stored = new HashMap<>();
+                items.forEach((key, value) -> {
+                    String current = mapItemCache.putIfAbsent(new MapItemKey(mapId, key), value);
+                    stored.put(key, current == null ? value : current);
+                });
+                recordChanges(mapId, changeLog -> stored.forEach(changeLog::put));
+            }
+            legacyCache.remove(mapId, items);
+            log.info("The cache map {} was migrated to separate items", mapId);
+        });
     }
 
     @Override
@@ -51,7 +79,10 @@ public class InfinispanStorage implements Storage {
         toCreate.setServiceId(serviceId);
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
-        KeyValue serviceCache = cache.putIfAbsent(serviceId + toCreate.getKey(), toCreate);
+        Long lifespan = lifespan(toCreate);
+        KeyValue serviceCache = lifespan == null ?
+            cache.putIfAbsent(serviceId + toCreate.getKey(), toCreate) :
+            basicCache().putIfAbsent(serviceId + toCreate.getKey(), toCreate, lifespan, TimeUnit.MILLISECONDS);
 
         if (serviceCache != null) {
             throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
@@ -61,39 +92,111 @@ public class InfinispanStorage implements Storage {
 
     @Override
     public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) {
-        CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
-            if (Boolean.TRUE.equals(r)) {
-                try {
-                    String cacheKey = serviceId + mapKey;
-                    log.info("Storing the item into token cache: {} -> {}|{}", cacheKey, toCreate.getKey(), toCreate.getValue());
-                    Map<String, String> tokenCacheItem = tokenCache.get(cacheKey);
-                    if (tokenCacheItem == null) {
-                        tokenCacheItem = new HashMap<>();
-                    }
-                    tokenCacheItem.put(toCreate.getKey(), toCreate.getValue());
-                    tokenCache.put(cacheKey, tokenCacheItem);
-                } finally {
-                    lock.unlock();
-                }
-            }
-        });
-        completeJoin(complete);
+        String mapId = serviceId + mapKey;
+        log.info("Storing the item into token cache: {} -> {}|{}", mapId, toCreate.getKey(), toCreate.getValue());
+        // the item has to be stored before the journal, see getMapItemsSince
+        mapItemCache.put(new MapItemKey(mapId, toCreate.getKey()), toCreate.getValue());
+        recordChanges(mapId, changeLog -> changeLog.put(toCreate.getKey(), toCreate.getValue()));
         return null;
     }
 
     @Override
     public Map<String, String> getAllMapItems(String serviceId, String mapKey) {
         log.info("Reading all records from token cache for service {} under the {} key.", serviceId, mapKey);
-        return tokenCache.get(serviceId + mapKey);
+        return readMap(serviceId + mapKey);
+    }
+
+    private Map<String, String> readMap(String mapId) {
+        return readMap(mapId, changeLogCache.get(mapId));
+    }
+
+    private Map<String, String> readMap(String mapId, MapChangeLog changeLog) {
+        if (changeLog == null) {
+            return null;
+        }
+
+        Map<String, String> items = new HashMap<>();
+        for (String key : itemKeys(mapId, changeLog)) {
+            String value = mapItemCache.get(new MapItemKey(mapId, key));
+            if (value != null) {
+                items.put(key, value);
+            }
+        }
+        return items.isEmpty() ? null : items;
+    }
+
+    /**
+     * Keys of the map according to its journal. The journal stored without the keys (by a previous version) gets
+     * them by a single scan of the cache.
+     */
+    private Set<String> itemKeys(String mapId, MapChangeLog changeLog) {
+        Set<String> keys = changeLog.getKeys();
+        if (keys != null) {
+            return keys;
+        }
+
+        log.debug("The journal of the map {} does not contain the keys, the keys are loaded from the cache", mapId);
+        // the items are stored before the journal, so the scan done after a concurrent change contains its item
+        recordChanges(mapId, current -> {
+            if (current.getKeys() == null) {
+                current.setKeys(mapItemCache.keySet().stream()
+                    .filter(itemKey -> mapId.equals(itemKey.getMapId()))
+                    .map(MapItemKey::getKey)
+                    .collect(Collectors.toSet()));
+            }
+        });
+        return changeLogCache.get(mapId).getKeys();
+    }
+
+    @Override
+    public MapChanges getMapItemsSince(String serviceId, String mapKey, long sinceRevision) {
+        log.debug("Reading changes from token cache for service {} under the {} key since revision {}.", serviceId, mapKey, sinceRevision);
+        String mapId = serviceId + mapKey;
+        // the journal has to be read before the map, the map could then contain newer changes, but not older ones
+        MapChangeLog changeLog = changeLogCache.get(mapId);
+        if (changeLog == null) {
+            // no item was stored yet, the client waits for the first one
+            return MapChanges.ofContent(sinceRevision, null);
+        }
+        return changeLog.changesSince(sinceRevision, () -> readMap(mapId, changeLog));
+    }
+
+    /**
+     * Write changes of the map into its journal. The journal is replaced only if nobody else changed it in the
+     * meantime, otherwise the changes are applied again on the current journal.
+     */
+    private void recordChanges(String mapId, Consumer<MapChangeLog> changes) {
+        while (true) {
+            MapChangeLog current = changeLogCache.get(mapId);
+            MapChangeLog changed = current == null ? new MapChangeLog() : current.copy();
+            changes.accept(changed);
+
+            boolean stored = current == null
+                ? changeLogCache.putIfAbsent(mapId, changed) == null
+                : changeLogCache.replace(mapId, current, changed);
+            if (stored) {
+                return;
+            }
+            log.debug("The journal of the map {} was changed concurrently, retrying", mapId);
+        }
     }
 
     @Override
     public Map<String, Map<String, String>> getAllMaps(String serviceId) {
         log.info("Reading all records from token cache for service {} ", serviceId);
         // filter all maps which belong given service and remove the service name from key names.
-        return tokenCache.entrySet().stream().filter(
-            entry -> entry.getKey().startsWith(serviceId))
-            .collect(Collectors.toMap(e -> e.getKey().substring(serviceId.length()), Map.Entry::getValue));
+        Map<String, Map<String, String>> result = new HashMap<>();
+        // there is a journal for each map, the scan goes over the maps, not over their items
+        List<String> mapIds = changeLogCache.keySet().stream()
+            .filter(mapId -> mapId.startsWith(serviceId))
+            .collect(Collectors.toList());
+        for (String mapId : mapIds) {
+            Map<String, String> items = readMap(mapId);
+            if (items != null) {
+                result.put(mapId.substring(serviceId.length()), items);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -111,7 +214,7 @@ public class InfinispanStorage implements Storage {
     public KeyValue update(String serviceId, KeyValue toUpdate) {
         toUpdate.setServiceId(serviceId);
         log.info("Updating record for service {} under key {}", serviceId, toUpdate);
-        KeyValue serviceCache = cache.put(serviceId + toUpdate.getKey(), toUpdate);
+        KeyValue serviceCache = put(serviceId + toUpdate.getKey(), toUpdate);
         if (serviceCache == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
         }
@@ -119,6 +222,75 @@ public class InfinispanStorage implements Storage {
 
     }
 
+    @Override
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading records for service {} under keys {}", serviceId, keys);
+        Map<String, KeyValue> result = new HashMap<>();
+        for (String key : keys) {
+            KeyValue keyValue = cache.get(serviceId + key);
+            if (keyValue != null) {
+                result.put(key, keyValue);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean upsert(String serviceId, KeyValue toUpsert) {
+        toUpsert.setServiceId(serviceId);
+        log.info("Upserting record for service {} under key {}", serviceId, toUpsert);
+        return put(serviceId + toUpsert.getKey(), toUpsert) == null;
+    }
+
+    /**
+     * The value is replaced by the conditional replace of the cache, so it is atomic in the whole cluster.
+     */
+    @Override
+    public boolean compareAndSet(String serviceId, KeyValue toUpdate, String expectedValue) {
+        toUpdate.setServiceId(serviceId);
+        log.info("Replacing record for service {} under key {} if the value is {}", serviceId, toUpdate, expectedValue);
+        String key = serviceId + toUpdate.getKey();
+        KeyValue current = cache.get(key);
+        if (current == null) {
+            throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+        }
+        if (!Objects.equals(current.getValue(), expectedValue)) {
+            return false;
+        }
+
+        Long lifespan = lifespan(toUpdate);
+        return lifespan == null ?
+            cache.replace(key, current, toUpdate) :
+            basicCache().replace(key, current, toUpdate, lifespan, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Store the entry, the entry without ttl is stored without any lifespan (the previous one is removed).
+     */
+    private KeyValue put(String key, KeyValue keyValue) {
+        Long lifespan = lifespan(keyValue);
+        return lifespan == null ? cache.put(key, keyValue) : basicCache().put(key, keyValue, lifespan, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the remaining time to live in milliseconds or null if the entry does not expire
+     */
+    private Long lifespan(KeyValue keyValue) {
+        Long expiresAt = keyValue.getExpiresAt();
+        if (expiresAt == null) {
+            return null;
+        }
+        if (!(cache instanceof BasicCache)) {
+            throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        }
+        return Math.max(1, expiresAt - System.currentTimeMillis());
+    }
+
+    @SuppressWarnings("unchecked")
+    private BasicCache<String, KeyValue> basicCache() {
+        return (BasicCache<String, KeyValue>) cache;
+    }
+
     @Override
     public KeyValue delete(String serviceId, String toDelete) {
         log.info("Removing record for service {} under key {}", serviceId, toDelete);
@@ -154,67 +326,38 @@ public class InfinispanStorage implements Storage {
 
     @Override
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
-        CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
-            if (Boolean.TRUE.equals(r)) {
-                try {
-                    removeToken(serviceId, mapKey);
-                } finally {
-                    lock.unlock();
-                }
-            }
-        });
-        completeJoin(complete);
-    }
-
-    private void removeToken(String serviceId, String mapKey) {
-        Map<String, String> map = tokenCache.get(serviceId + mapKey);
-        if (map != null && !map.isEmpty()) {
-            Map<String,String> result = map.entrySet().stream().filter(entry -> {
-                try {
-                    AccessTokenContainer c = objectMapper.readValue(entry.getValue(), AccessTokenContainer.class);
-                    return !c.getExpiresAt().isBefore(LocalDateTime.now());
-                } catch (JsonProcessingException e) {
-                    log.error("Not able to parse invalidToken json value.", e);
-                    return true;
-                }
-            }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            tokenCache.put(serviceId + mapKey, result);
-        }
+        removeItems(serviceId + mapKey, value -> !MapItemsRetention.isTokenRelevant(value));
     }
 
     @Override
     public void removeNonRelevantRules(String serviceId, String mapKey) {
-        CompletableFuture<Boolean> complete = lock.tryLock(4, TimeUnit.SECONDS).whenComplete((r, ex) -> {
-            if (Boolean.TRUE.equals(r)) {
-                try {
-                    long timestamp = System.currentTimeMillis();
-                    Map<String, String> map = tokenCache.get(serviceId + mapKey);
-                    if (map != null && !map.isEmpty()) {
-                        Map<String,String> result = map.entrySet().stream().filter(entry -> {
-                            long delta = timestamp - Long.parseLong(entry.getValue());
-                            long deltaToDays = TimeUnit.MILLISECONDS.toDays(delta);
-                            return deltaToDays <= 90;
-                        }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-                        tokenCache.put(serviceId + mapKey, result);
-                    }
-                } finally {
-                    lock.unlock();
-                }
-            }
-        });
-        completeJoin(complete);
-    }
-
-    private void completeJoin(CompletableFuture<Boolean> complete) {
-        try {
-            complete.join();
-        } catch (CompletionException e) {
-            if (e.getCause() instanceof StorageException) {
-                throw (StorageException) e.getCause();
-            } else {
-                log.error("Unexpected error while acquiring the lock ", e);
-                throw e;
+        long timestamp = System.currentTimeMillis();
+        removeItems(serviceId + mapKey, value -> !MapItemsRetention.isRuleRelevant(value, timestamp));
+    }
+
+    /**
+     * Remove the items of the map, only the keys of the map are visited. An item is removed only if its value was
+     * not changed in the meantime.
+     */
+    private void removeItems(String mapId, Predicate<String> toRemove) {
+        MapChangeLog changeLog = changeLogCache.get(mapId);
+        if (changeLog == null) {
+            return;
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String key : itemKeys(mapId, changeLog)) {
+            MapItemKey itemKey = new MapItemKey(mapId, key);
+            String value = mapItemCache.get(itemKey);
+            if (value != null && toRemove.test(value) && mapItemCache.remove(itemKey, value)) {
+                removed.add(key);
             }
         }
+
+        if (!removed.isEmpty()) {
+            log.debug("Removed {} items from the map {}", removed.size(), mapId);
+            recordChanges(mapId, changeLog -> removed.forEach(changeLog::remove));
+        }
     }
+
 }
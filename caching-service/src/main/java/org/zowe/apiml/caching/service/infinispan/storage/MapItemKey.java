@@ -0,0 +1,32 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.infinispan.storage;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * Key of a single item of a cache map. Each item is stored as a separate cache entry, so the changes of different
+ * items don't block each other.
+ */
+@Value
+public class MapItemKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Concatenation of the serviceId and the name of the map
+     */
+    String mapId;
+    String key;
+
+}
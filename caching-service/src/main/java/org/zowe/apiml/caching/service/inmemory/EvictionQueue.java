@@ -0,0 +1,47 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+/**
+ * Order of the stored entries used for the eviction. It also keeps the number of stored entries, so there is no
+ * need to iterate the storage. The implementations are not thread-safe, the caller has
+ * to synchronize the access.
+ */
+interface EvictionQueue {
+
+    /**
+     * Register a newly stored entry
+     */
+    void add(EntryKey entry);
+
+    /**
+     * Record an access (read or update) of the entry. It is ignored if the entry is unknown.
+     */
+    void touch(EntryKey entry);
+
+    /**
+     * Forget the removed entry. It is ignored if the entry is unknown.
+     */
+    void remove(EntryKey entry);
+
+    /**
+     * Remove and return the entry which should be evicted
+     *
+     * @return the entry to evict or null if the queue is empty
+     */
+    EntryKey poll();
+
+    int size();
+
+    record EntryKey(String serviceId, String key) {
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import java.util.*;
+
+/**
+ * Eviction queue which evicts the least frequently used entry. If there are more such entries, the oldest one is
+ * evicted. The entries are kept in buckets by the number of accesses, the cost of the operations depends only on
+ * the number of distinct frequencies, not on the number of entries.
+ */
+class FrequencyEvictionQueue implements EvictionQueue {
+
+    private final Map<EntryKey, Integer> frequencies = new HashMap<>();
+    private final TreeMap<Integer, LinkedHashSet<EntryKey>> buckets = new TreeMap<>();
+
+    @Override
+    public void add(EntryKey entry) {
+        if (frequencies.containsKey(entry)) {
+            touch(entry);
+            return;
+        }
+        frequencies.put(entry, 1);
+        buckets.computeIfAbsent(1, k -> new LinkedHashSet<>()).add(entry);
+    }
+
+    @Override
+    public void touch(EntryKey entry) {
+        Integer frequency = frequencies.get(entry);
+        if (frequency == null) {
+            return;
+        }
+
+        removeFromBucket(entry, frequency);
+        frequencies.put(entry, frequency + 1);
+        buckets.computeIfAbsent(frequency + 1, k -> new LinkedHashSet<>()).add(entry);
+    }
+
+    @Override
+    public void remove(EntryKey entry) {
+        Integer frequency = frequencies.remove(entry);
+        if (frequency != null) {
+            removeFromBucket(entry, frequency);
+        }
+    }
+
+    @Override
+    public EntryKey poll() {
+        Map.Entry<Integer, LinkedHashSet<EntryKey>> leastFrequent = buckets.firstEntry();
+        if (leastFrequent == null) {
+            return null;
+        }
+
+        EntryKey victim = leastFrequent.getValue().iterator().next();
+        remove(victim);
+        return victim;
+    }
+
+    private void removeFromBucket(EntryKey entry, int frequency) {
+        LinkedHashSet<EntryKey> bucket = buckets.get(frequency);
+        bucket.remove(entry);
+        if (bucket.isEmpty()) {
+            buckets.remove(frequency);
+        }
+    }
+
+    @Override
+    public int size() {
+        return frequencies.size();
+    }
+
+}
@@ -11,44 +11,82 @@
 package org.zowe.apiml.caching.service.inmemory;
 
 import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChangeLog;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.*;
 import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.function.Predicate;
+
+/**
+ * Storage of the values in the memory of the service. The values are stored in concurrent maps, the reads are
+ * without any lock, the writes are serialized. The number of the entries and their order for the eviction are
+ * tracked by {@link EvictionQueue}, so neither the size check nor the eviction iterates the stored values.
+ * <p>
+ * The entries with a ttl are removed by {@link ExpirySweeper}. The expired entry which was not swept yet is not
+ * returned, it is removed by the next write of the same key.
+ */
 @Slf4j
 public class InMemoryStorage implements Storage {
-    private Map<String, Map<String, KeyValue>> storage;
+    private final Map<String, Map<String, KeyValue>> storage;
+    private final Map<String, Map<String, Map<String, String>>> mapStorage = new ConcurrentHashMap<>();
+    private final Map<EvictionQueue.EntryKey, MapChangeLog> changeLogs = new HashMap<>();
+    private final EvictionQueue queue;
+    private final boolean accessTracked;
     private EvictionStrategy strategy = new DefaultEvictionStrategy();
-    private InMemoryConfig config;
+    private final InMemoryConfig config;
+    private final ExpirySweeper sweeper;
 
     public InMemoryStorage(InMemoryConfig inMemoryConfig, MessageService messageService) {
-        this(inMemoryConfig, new ConcurrentHashMap<>(), ApimlLogger.of(RejectStrategy.class, messageService));
+        this(inMemoryConfig, messageService, ExpirySweeper.manual("inMemory"));
+    }
+
+    public InMemoryStorage(InMemoryConfig inMemoryConfig, MessageService messageService, ExpirySweeper sweeper) {
+        this(inMemoryConfig, new ConcurrentHashMap<>(), ApimlLogger.of(RejectStrategy.class, messageService), sweeper);
     }
 
     protected InMemoryStorage(InMemoryConfig inMemoryConfig, Map<String, Map<String, KeyValue>> storage, ApimlLogger apimlLogger) {
+        this(inMemoryConfig, storage, apimlLogger, ExpirySweeper.manual("inMemory"));
+    }
+
+    protected InMemoryStorage(InMemoryConfig inMemoryConfig, Map<String, Map<String, KeyValue>> storage, ApimlLogger apimlLogger, ExpirySweeper sweeper) {
         this.storage = storage;
         this.config = inMemoryConfig;
+        this.sweeper = sweeper;
 
         String evictionStrategy = inMemoryConfig.getGeneralConfig().getEvictionStrategy();
+        if (evictionStrategy.equals(Strategies.REMOVE_LEAST_RECENTLY_USED.getKey())) {
+            queue = new LinkedEvictionQueue(true);
+            accessTracked = true;
+        } else if (evictionStrategy.equals(Strategies.REMOVE_LEAST_FREQUENTLY_USED.getKey())) {
+            queue = new FrequencyEvictionQueue();
+            accessTracked = true;
+        } else {
+            queue = new LinkedEvictionQueue(false);
+            accessTracked = false;
+        }
+
         if (evictionStrategy.equals(Strategies.REJECT.getKey())) {
             strategy = new RejectStrategy(apimlLogger);
-        } else if (evictionStrategy.equals(Strategies.REMOVE_OLDEST.getKey())) {
-            strategy = new RemoveOldestStrategy(storage);
+        } else if (evictionStrategy.equals(Strategies.REMOVE_OLDEST.getKey()) || accessTracked) {
+            strategy = new RemoveOldestStrategy(storage, queue);
         }
+
+        sweeper.start(this::expire);
     }
 
     @Override
-    public KeyValue create(String serviceId, KeyValue toCreate) {
+    public synchronized KeyValue create(String serviceId, KeyValue toCreate) {
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
 
-        storage.computeIfAbsent(serviceId, k -> new HashMap<>());
-        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        removeIfExpired(serviceId, toCreate.getKey());
+        Map<String, KeyValue> serviceStorage = storage.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>());
         if (serviceStorage.containsKey(toCreate.getKey())) {
             throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey());
         }
@@ -58,42 +96,66 @@ public class InMemoryStorage implements Storage {
         }
 
         serviceStorage.put(toCreate.getKey(), toCreate);
+        queue.add(new EvictionQueue.EntryKey(serviceId, toCreate.getKey()));
+        sweeper.schedule(serviceId, toCreate.getKey(), toCreate.getExpiresAt());
 
         return toCreate;
     }
 
     @Override
-    public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) throws StorageException {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    public synchronized KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) throws StorageException {
+        log.info("Storing the item into map: {}|{} -> {}|{}", serviceId, mapKey, toCreate.getKey(), toCreate.getValue());
+
+        mapStorage.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(mapKey, k -> new ConcurrentHashMap<>())
+            .put(toCreate.getKey(), toCreate.getValue());
+        changeLogs.computeIfAbsent(new EvictionQueue.EntryKey(serviceId, mapKey), k -> new MapChangeLog())
+            .put(toCreate.getKey(), toCreate.getValue());
+        return null;
     }
 
     @Override
     public Map<String, String> getAllMapItems(String serviceId, String mapKey) throws StorageException {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        log.info("Reading all records from map for service {} under the {} key.", serviceId, mapKey);
+        return mapStorage.getOrDefault(serviceId, Collections.emptyMap()).get(mapKey);
     }
 
     @Override
     public Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        log.info("Reading all records from maps for service {} ", serviceId);
+        return mapStorage.getOrDefault(serviceId, Collections.emptyMap());
+    }
+
+    @Override
+    public synchronized MapChanges getMapItemsSince(String serviceId, String mapKey, long sinceRevision) throws StorageException {
+        Map<String, String> items = getAllMapItems(serviceId, mapKey);
+        Map<String, String> snapshot = items == null ? null : new HashMap<>(items);
+        MapChangeLog changeLog = changeLogs.get(new EvictionQueue.EntryKey(serviceId, mapKey));
+        if (changeLog == null) {
+            return MapChanges.ofContent(sinceRevision, snapshot);
+        }
+        return changeLog.changesSince(sinceRevision, snapshot);
     }
 
     @Override
     public KeyValue read(String serviceId, String key) {
         log.info("Reading Record: {}|{}|{}", serviceId, key, "-");
 
-        Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
-        if (serviceSpecificStorage == null || !serviceSpecificStorage.containsKey(key)) {
+        KeyValue keyValue = get(serviceId, key);
+        if (keyValue == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
 
-        return serviceSpecificStorage.get(key);
+        touch(serviceId, key);
+        return keyValue;
     }
 
     @Override
-    public KeyValue update(String serviceId, KeyValue toUpdate) {
+    public synchronized KeyValue update(String serviceId, KeyValue toUpdate) {
         log.info("Updating Record: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
 
         String key = toUpdate.getKey();
+        removeIfExpired(serviceId, key);
         if (isKeyNotInCache(serviceId, key)) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
@@ -101,39 +163,158 @@ public class InMemoryStorage implements Storage {
         Map<String, KeyValue> serviceStorage = storage.get(serviceId);
 
         serviceStorage.put(key, toUpdate);
+        queue.touch(new EvictionQueue.EntryKey(serviceId, key));
+        sweeper.schedule(serviceId, key, toUpdate.getExpiresAt());
         return toUpdate;
     }
 
     @Override
-    public KeyValue delete(String serviceId, String key) {
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        Map<String, KeyValue> result = new HashMap<>();
+        for (String key : keys) {
+            KeyValue keyValue = get(serviceId, key);
+            if (keyValue != null) {
+                result.put(key, keyValue);
+                touch(serviceId, key);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean upsert(String serviceId, KeyValue toUpsert) {
+        log.info("Upserting Record: {}|{}|{}", serviceId, toUpsert.getKey(), toUpsert.getValue());
+
+        removeIfExpired(serviceId, toUpsert.getKey());
+        Map<String, KeyValue> serviceStorage = storage.computeIfAbsent(serviceId, k -> new ConcurrentHashMap<>());
+        EvictionQueue.EntryKey entryKey = new EvictionQueue.EntryKey(serviceId, toUpsert.getKey());
+        boolean created = !serviceStorage.containsKey(toUpsert.getKey());
+        if (created && aboveThreshold()) {
+            strategy.evict(toUpsert.getKey());
+        }
+
+        serviceStorage.put(toUpsert.getKey(), toUpsert);
+        if (created) {
+            queue.add(entryKey);
+        } else {
+            queue.touch(entryKey);
+        }
+        sweeper.schedule(serviceId, toUpsert.getKey(), toUpsert.getExpiresAt());
+        return created;
+    }
+
+    @Override
+    public synchronized List<ItemResult> upsertAll(String serviceId, List<KeyValue> toUpsert) {
+        return Storage.super.upsertAll(serviceId, toUpsert);
+    }
+
+    @Override
+    public synchronized boolean compareAndSet(String serviceId, KeyValue toUpdate, String expectedValue) {
+        return Storage.super.compareAndSet(serviceId, toUpdate, expectedValue);
+    }
+
+    @Override
+    public synchronized KeyValue delete(String serviceId, String key) {
         log.info("Deleting Record: {}|{}|{}", serviceId, key, "-");
 
+        removeIfExpired(serviceId, key);
         if (isKeyNotInCache(serviceId, key)) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
 
         Map<String, KeyValue> serviceSpecificStorage = storage.get(serviceId);
+        queue.remove(new EvictionQueue.EntryKey(serviceId, key));
         return serviceSpecificStorage.remove(key);
     }
 
     @Override
     public Map<String, KeyValue> readForService(String serviceId) {
-        return storage.get(serviceId);
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        long now = System.currentTimeMillis();
+        if (serviceStorage == null || serviceStorage.values().stream().noneMatch(keyValue -> keyValue.isExpired(now))) {
+            return serviceStorage;
+        }
+
+        Map<String, KeyValue> result = new HashMap<>(serviceStorage);
+        result.values().removeIf(keyValue -> keyValue.isExpired(now));
+        return result;
     }
 
     @Override
-    public void deleteForService(String serviceId) {
-        storage.remove(serviceId);
+    public synchronized void deleteForService(String serviceId) {
+        Map<String, KeyValue> removed = storage.remove(serviceId);
+        if (removed != null) {
+            removed.keySet().forEach(key -> queue.remove(new EvictionQueue.EntryKey(serviceId, key)));
+        }
     }
 
     @Override
-    public void removeNonRelevantTokens(String serviceId, String mapKey) {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    public synchronized void removeNonRelevantTokens(String serviceId, String mapKey) {
+        removeMapItems(serviceId, mapKey, value -> !MapItemsRetention.isTokenRelevant(value));
     }
 
     @Override
-    public void removeNonRelevantRules(String serviceId, String mapKey) {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+    public synchronized void removeNonRelevantRules(String serviceId, String mapKey) {
+        long timestamp = System.currentTimeMillis();
+        removeMapItems(serviceId, mapKey, value -> !MapItemsRetention.isRuleRelevant(value, timestamp));
+    }
+
+    private void removeMapItems(String serviceId, String mapKey, Predicate<String> toRemove) {
+        Map<String, String> items = mapStorage.getOrDefault(serviceId, Collections.emptyMap()).get(mapKey);
+        if (items == null) {
+            return;
+        }
+
+        MapChangeLog changeLog = changeLogs.computeIfAbsent(new EvictionQueue.EntryKey(serviceId, mapKey), k -> new MapChangeLog());
+        items.entrySet().removeIf(entry -> {
+            if (toRemove.test(entry.getValue())) {
+                changeLog.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Remove the entry if it is stored with the same time of the expiration and it is expired, it is called by
+     * {@link ExpirySweeper}.
+     */
+    synchronized boolean expire(String serviceId, String key, long expiresAt) {
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        KeyValue keyValue = serviceStorage == null ? null : serviceStorage.get(key);
+        if (keyValue == null || !Objects.equals(keyValue.getExpiresAt(), expiresAt) || !keyValue.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+
+        serviceStorage.remove(key);
+        queue.remove(new EvictionQueue.EntryKey(serviceId, key));
+        return true;
+    }
+
+    private void removeIfExpired(String serviceId, String key) {
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        KeyValue keyValue = serviceStorage == null ? null : serviceStorage.get(key);
+        Long expiresAt = keyValue == null ? null : keyValue.getExpiresAt();
+        if (expiresAt != null && expire(serviceId, key, expiresAt)) {
+            sweeper.expired();
+        }
+    }
+
+    /**
+     * @return the stored entry or null if it is missing or expired
+     */
+    private KeyValue get(String serviceId, String key) {
+        Map<String, KeyValue> serviceStorage = storage.get(serviceId);
+        KeyValue keyValue = serviceStorage == null ? null : serviceStorage.get(key);
+        return keyValue == null || keyValue.isExpired(System.currentTimeMillis()) ? null : keyValue;
+    }
+
+    private void touch(String serviceId, String key) {
+        if (accessTracked) {
+            synchronized (this) {
+                queue.touch(new EvictionQueue.EntryKey(serviceId, key));
+            }
+        }
     }
 
     private boolean isKeyNotInCache(String serviceId, String keyToTest) {
@@ -142,12 +323,8 @@ public class InMemoryStorage implements Storage {
     }
 
     private boolean aboveThreshold() {
-        int currentSize = 0;
-        for (Map.Entry<String, Map<String, KeyValue>> serviceStorage: storage.entrySet()) {
-            currentSize += serviceStorage.getValue().size();
-        }
-
-        log.info("Current Size {}.", currentSize);
+        int currentSize = queue.size();
+        log.debug("Current Size {}.", currentSize);
 
         return currentSize >= config.getGeneralConfig().getMaxDataSize();
     }
@@ -0,0 +1,64 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Eviction queue based on the linked list. It evicts the oldest entry (insertion order) or the least recently used
+ * entry (access order).
+ */
+class LinkedEvictionQueue implements EvictionQueue {
+
+    private final boolean accessOrder;
+    private final LinkedHashMap<EntryKey, Boolean> entries;
+
+    LinkedEvictionQueue(boolean accessOrder) {
+        this.accessOrder = accessOrder;
+        this.entries = new LinkedHashMap<>(16, 0.75f, accessOrder);
+    }
+
+    @Override
+    public void add(EntryKey entry) {
+        entries.put(entry, Boolean.TRUE);
+    }
+
+    @Override
+    public void touch(EntryKey entry) {
+        if (accessOrder) {
+            // get moves the entry to the end in access-ordered map
+            entries.get(entry);
+        }
+    }
+
+    @Override
+    public void remove(EntryKey entry) {
+        entries.remove(entry);
+    }
+
+    @Override
+    public EntryKey poll() {
+        Iterator<EntryKey> iterator = entries.keySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        EntryKey eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+}
@@ -17,37 +17,27 @@ import org.zowe.apiml.caching.service.EvictionStrategy;
 
 import java.util.Map;
 
+/**
+ * Remove the first entry of the eviction queue. Depending on the queue it is the oldest, the least recently used
+ * or the least frequently used entry.
+ */
 @RequiredArgsConstructor
 @Slf4j
 public class RemoveOldestStrategy implements EvictionStrategy {
     private final Map<String, Map<String, KeyValue>> storage;
+    private final EvictionQueue queue;
 
     @Override
     public void evict(String key) {
-        KeyValue oldest = null;
-        Map<String, KeyValue> mapStoringOldest = null;
-        for (Map.Entry<String, Map<String, KeyValue>> serviceStorage: storage.entrySet()) {
-            Map<String, KeyValue> services = serviceStorage.getValue();
-            for (Map.Entry<String, KeyValue> specificValue: services.entrySet()) {
-                KeyValue current = specificValue.getValue();
-                if (oldest == null) {
-                    oldest = current;
-                    mapStoringOldest = services;
-                    continue;
-                }
-
-                long oldestCreated = Long.parseLong(oldest.getCreated());
-                long currentCreated = Long.parseLong(current.getCreated());
-
-                if (oldestCreated > currentCreated) {
-                    oldest = current;
-                    mapStoringOldest = services;
-                }
-            }
+        EvictionQueue.EntryKey victim = queue.poll();
+        if (victim == null) {
+            return;
         }
 
-        if (oldest != null) {
-            mapStoringOldest.remove(oldest.getKey());
+        Map<String, KeyValue> serviceStorage = storage.get(victim.serviceId());
+        if (serviceStorage != null) {
+            log.debug("Evicting record: {}|{}", victim.serviceId(), victim.key());
+            serviceStorage.remove(victim.key());
         }
     }
 }
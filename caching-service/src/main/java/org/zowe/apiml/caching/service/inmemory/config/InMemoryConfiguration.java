@@ -10,10 +10,12 @@
 
 package org.zowe.apiml.caching.service.inmemory.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.zowe.apiml.caching.service.ExpirySweeper;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.inmemory.InMemoryStorage;
 import org.zowe.apiml.message.core.MessageService;
@@ -26,9 +28,15 @@ public class InMemoryConfiguration {
 
     @ConditionalOnProperty(name = "caching.storage.mode", havingValue = "inMemory", matchIfMissing = true)
     @Bean
-    public Storage inMemory(MessageService messageService) {
+    public ExpirySweeper inMemoryExpirySweeper(MeterRegistry meterRegistry) {
+        return new ExpirySweeper("inMemory", inMemoryConfig.getGeneralConfig().getExpirySweepIntervalMs(), meterRegistry);
+    }
+
+    @ConditionalOnProperty(name = "caching.storage.mode", havingValue = "inMemory", matchIfMissing = true)
+    @Bean
+    public Storage inMemory(MessageService messageService, ExpirySweeper inMemoryExpirySweeper) {
         ApimlLogger.of(InMemoryConfig.class, messageService).log("org.zowe.apiml.cache.usingInMemory");
 
-        return new InMemoryStorage(inMemoryConfig, messageService);
+        return new InMemoryStorage(inMemoryConfig, messageService, inMemoryExpirySweeper);
     }
 }
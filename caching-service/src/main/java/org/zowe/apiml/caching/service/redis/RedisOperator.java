@@ -10,20 +10,27 @@
 
 package org.zowe.apiml.caching.service.redis;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.MapScanCursor;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisFuture;
 import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.codec.StringCodec;
 import io.lettuce.core.masterreplica.MasterReplica;
 import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisEntryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
@@ -32,20 +39,107 @@ import org.zowe.apiml.message.log.ApimlLogger;
 import jakarta.annotation.PreDestroy;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
 
 /**
  * Class used to connect to and operate on a Redis instance or cluster.
  * Contains the CRUD operations enacted on Redis with serialized read and write.
+ * <p>
+ * The items of maps are stored in a hash per map ({@link #MAP_PREFIX}), the keys of the maps of a service are in a set
+ * ({@link #MAP_INDEX_PREFIX}). The commands of one operation are sent at once (pipelined) and the result is awaited
+ * after the last one. The items expire on the server (HEXPIREAT, since Redis 7.4), on an older server the expiration
+ * is not supported and the items have to be evicted by {@link #removeMapItems(String, String, Predicate)}.
+ * <p>
+ * Each change of a map item is recorded in the journal of the map: the revision ({@link #MAP_REVISION_PREFIX}) is
+ * increased and the change is added into a sorted set ({@link #MAP_CHANGES_PREFIX}) with the revision as the score.
+ * The item and the journal are changed by one script, so the order of the changes is the same as the order of the
+ * revisions. The journal keeps the last {@link #MAP_CHANGES_CAPACITY} changes. The items expired by the server are
+ * not recorded, the client has to ignore the expired items by itself.
  */
-@AllArgsConstructor
 @NoArgsConstructor
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "caching.storage.mode", havingValue = "redis")
 public class RedisOperator {
+    static final String MAP_PREFIX = "apiml:map:";
+    static final String MAP_INDEX_PREFIX = "apiml:mapIndex:";
+    static final String MAP_REVISION_PREFIX = "apiml:mapRevision:";
+    static final String MAP_CHANGES_PREFIX = "apiml:mapChanges:";
+    static final int SCAN_COUNT = 500;
+    static final int MAP_CHANGES_CAPACITY = 1000;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Replace the entry (KEYS[1] = service ID, ARGV[1] = key) by ARGV[3] only if the current value is ARGV[2]. It returns
+     * -1 if the entry does not exist, 0 if the value is different, 1 if the entry was replaced.
+     */
+    static final String COMPARE_AND_SET_SCRIPT =
+        "local current = redis.call('HGET', KEYS[1], ARGV[1]) " +
+        "if not current then return -1 end " +
+        "if cjson.decode(current)['value'] ~= ARGV[2] then return 0 end " +
+        "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3]) " +
+        "return 1";
+
+    /**
+     * Store the map item (KEYS[1] = map, ARGV[1] = key, ARGV[2] = value) and record the change in the journal
+     * (KEYS[2] = revision, KEYS[3] = changes). The first revision is ARGV[3] (the current time), the journal keeps
+     * ARGV[4] changes. It returns the new revision.
+     */
+    static final String STORE_MAP_ITEM_SCRIPT =
+        "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+        "redis.call('SET', KEYS[2], ARGV[3], 'NX') " +
+        "local revision = redis.call('INCR', KEYS[2]) " +
+        "redis.call('ZADD', KEYS[3], revision, cjson.encode({ARGV[1], ARGV[2]})) " +
+        "redis.call('ZREMRANGEBYRANK', KEYS[3], 0, -tonumber(ARGV[4]) - 1) " +
+        "return revision";
+
+    /**
+     * Remove the map items (KEYS[1] = map, ARGV[3..n] = keys) and record each removal in the journal (KEYS[2] =
+     * revision, KEYS[3] = changes). The first revision is ARGV[1] (the current time), the journal keeps ARGV[2]
+     * changes. It returns the count of removed items.
+     */
+    static final String REMOVE_MAP_ITEMS_SCRIPT =
+        "local removed = 0 " +
+        "for i = 3, #ARGV do " +
+        "  if redis.call('HDEL', KEYS[1], ARGV[i]) == 1 then " +
+        "    removed = removed + 1 " +
+        "    redis.call('SET', KEYS[2], ARGV[1], 'NX') " +
+        "    redis.call('ZADD', KEYS[3], redis.call('INCR', KEYS[2]), cjson.encode({ARGV[i]})) " +
+        "  end " +
+        "end " +
+        "redis.call('ZREMRANGEBYRANK', KEYS[3], 0, -tonumber(ARGV[2]) - 1) " +
+        "return removed";
+
+    /**
+     * Read the journal (KEYS[1] = revision, KEYS[2] = changes) at once. It returns the current revision, the score of
+     * the oldest recorded change and the changes after the revision ARGV[1] with their scores. The result is empty if
+     * there is no journal.
+     */
+    static final String READ_MAP_CHANGES_SCRIPT =
+        "local revision = redis.call('GET', KEYS[1]) " +
+        "if not revision then return {} end " +
+        "local oldest = redis.call('ZRANGE', KEYS[2], 0, 0, 'WITHSCORES') " +
+        "local result = {revision, oldest[2] or ''} " +
+        "for _, item in ipairs(redis.call('ZRANGEBYSCORE', KEYS[2], '(' .. ARGV[1], '+inf', 'WITHSCORES')) do " +
+        "  result[#result + 1] = item " +
+        "end " +
+        "return result";
+
+    public enum CompareAndSetResult {
+        REPLACED, CHANGED, NOT_FOUND
+    }
+
     private RedisClient redisClient;
     private StatefulRedisMasterReplicaConnection<String, String> redisConnection;
     private RedisAsyncCommands<String, String> redis;
+    private volatile boolean fieldExpirySupported = true;
+
+    public RedisOperator(RedisClient redisClient, StatefulRedisMasterReplicaConnection<String, String> redisConnection, RedisAsyncCommands<String, String> redis) {
+        this.redisClient = redisClient;
+        this.redisConnection = redisConnection;
+        this.redis = redis;
+    }
 
     public RedisOperator(RedisClient redisClient, RedisURI redisUri, ApimlLogger apimlLog) {
         try {
@@ -81,7 +175,11 @@ public class RedisOperator {
 
         try {
             RedisFuture<Boolean> result = redis.hsetnx(entryToAdd.getServiceId(), toAdd.getKey(), entryToAdd.getEntryAsString());
-            return result.get();
+            if (!result.get()) {
+                return false;
+            }
+            awaitExpiration(expire(entryToAdd));
+            return true;
         } catch (ExecutionException e) {
             handleWriteOperationExecutionException(e);
         } catch (InterruptedException e) {
@@ -109,8 +207,11 @@ public class RedisOperator {
                 return false;
             }
 
-            boolean result = redis.hset(serviceId, toUpdate.getKey(), entryToUpdate.getEntryAsString()).get();
-            return !result; // hset returns false if field already exists and value was updated
+            RedisFuture<Boolean> result = redis.hset(serviceId, toUpdate.getKey(), entryToUpdate.getEntryAsString());
+            RedisFuture<List<Long>> expiration = expire(entryToUpdate);
+            boolean created = result.get();
+            awaitExpiration(expiration);
+            return !created; // hset returns false if field already exists and value was updated
         } catch (ExecutionException e) {
             handleWriteOperationExecutionException(e);
         } catch (InterruptedException e) {
@@ -122,6 +223,110 @@ public class RedisOperator {
         return false;
     }
 
+    /**
+     * Stores the entry regardless it exists or not.
+     *
+     * @return true if the entry was created, false if it was updated
+     */
+    public boolean upsert(RedisEntry entry) throws RedisOutOfMemoryException {
+        return upsert(List.of(entry)).get(0);
+    }
+
+    /**
+     * Stores the entries regardless they exist or not. The commands are pipelined, the result is awaited after the
+     * last one.
+     *
+     * @return true for each created entry, false for each updated one
+     */
+    public List<Boolean> upsert(List<RedisEntry> entries) throws RedisOutOfMemoryException {
+        try {
+            List<RedisFuture<Boolean>> futures = new ArrayList<>(entries.size());
+            List<RedisFuture<List<Long>>> expirations = new ArrayList<>();
+            for (RedisEntry entry : entries) {
+                futures.add(redis.hset(entry.getServiceId(), entry.getEntry().getKey(), entry.getEntryAsString()));
+                expirations.add(expire(entry));
+            }
+
+            List<Boolean> created = new ArrayList<>(entries.size());
+            for (RedisFuture<Boolean> future : futures) {
+                created.add(future.get());
+            }
+            for (RedisFuture<List<Long>> expiration : expirations) {
+                awaitExpiration(expiration);
+            }
+            return created;
+        } catch (ExecutionException e) {
+            handleWriteOperationExecutionException(e);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (RedisEntryException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Replaces the entry only if the current value is the expected one. The check and the replacement run on the
+     * server in one script, so no other write could interleave.
+     */
+    public CompareAndSetResult compareAndSet(RedisEntry entry, String expectedValue) throws RedisOutOfMemoryException {
+        try {
+            Long result = redis.<Long>eval(COMPARE_AND_SET_SCRIPT, ScriptOutputType.INTEGER,
+                new String[] {entry.getServiceId()},
+                entry.getEntry().getKey(), expectedValue, entry.getEntryAsString()
+            ).get();
+            if (result == null || result < 0) {
+                return CompareAndSetResult.NOT_FOUND;
+            }
+            if (result == 0) {
+                return CompareAndSetResult.CHANGED;
+            }
+            awaitExpiration(expire(entry));
+            return CompareAndSetResult.REPLACED;
+        } catch (ExecutionException e) {
+            handleWriteOperationExecutionException(e);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (RedisEntryException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return CompareAndSetResult.NOT_FOUND;
+    }
+
+    /**
+     * Retrieve the entries of a service with the corresponding keys by one command (HMGET).
+     *
+     * @return found entries by their keys, the missing or invalid entries are omitted
+     */
+    public Map<String, RedisEntry> get(String serviceId, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            List<io.lettuce.core.KeyValue<String, String>> values = redis.hmget(serviceId, keys.toArray(new String[0])).get();
+            Map<String, RedisEntry> result = new HashMap<>();
+            for (io.lettuce.core.KeyValue<String, String> value : values) {
+                if (value.hasValue()) {
+                    try {
+                        result.put(value.getKey(), new RedisEntry(serviceId, value.getValue()));
+                    } catch (RedisEntryException e) {
+                        log.warn("Error retrieving entry: {}|{}. Error: {}", serviceId, value.getKey(), e.getMessage());
+                    }
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return Collections.emptyMap();
+    }
+
     /**
      * Retrieve an entry for a given service with the corresponding key.
      *
@@ -143,14 +348,14 @@ public class RedisOperator {
     }
 
     /**
-     * Retrieves all entries for a given service.
+     * Retrieves all entries for a given service. The hash is iterated by HSCAN, so a service with many entries does
+     * not block the server.
      *
      * @return List of RedisEntry instances. If there are no entries an empty List is returned.
      */
     public List<RedisEntry> get(String serviceId) {
         try {
-            Map<String, String> result = redis.hgetall(serviceId).get();
-            return collectEntries(serviceId, result);
+            return collectEntries(serviceId, scan(serviceId));
         } catch (InterruptedException e) {
             handleInterruptedException(e);
         } catch (ExecutionException e) {
@@ -193,13 +398,13 @@ public class RedisOperator {
     }
 
     /**
-     * Deletes all entries for a given service.
+     * Deletes all entries for a given service. The memory is released by the server in the background (UNLINK).
      *
      * @return true if at least one entry was deleted, otherwise false.
      */
     public boolean delete(String serviceId) {
         try {
-            long recordsDeleted = redis.del(serviceId).get();
+            long recordsDeleted = redis.unlink(serviceId).get();
             return recordsDeleted >= 1;
         } catch (InterruptedException e) {
             handleInterruptedException(e);
@@ -210,6 +415,239 @@ public class RedisOperator {
         return false;
     }
 
+    /**
+     * Stores the item into the map of the service and records the change in the journal. The commands are pipelined.
+     *
+     * @param serviceId service ID of the map
+     * @param mapKey    key of the map
+     * @param item      item to store
+     * @param expiresAt time of the expiration of the item (in milliseconds), null if the item does not expire
+     */
+    public void storeMapItem(String serviceId, String mapKey, KeyValue item, Long expiresAt) throws RedisOutOfMemoryException {
+        String mapId = mapId(serviceId, mapKey);
+        try {
+            RedisFuture<Long> stored = redis.eval(STORE_MAP_ITEM_SCRIPT, ScriptOutputType.INTEGER, journalKeys(mapId),
+                item.getKey(), item.getValue(), String.valueOf(System.currentTimeMillis()), String.valueOf(MAP_CHANGES_CAPACITY));
+            RedisFuture<Long> indexed = redis.sadd(MAP_INDEX_PREFIX + serviceId, mapKey);
+            RedisFuture<List<Long>> expiration = null;
+            if (expiresAt != null && fieldExpirySupported) {
+                expiration = redis.hexpireat(mapId, (expiresAt + 999) / 1000, item.getKey());
+            }
+
+            stored.get();
+            indexed.get();
+            awaitExpiration(expiration);
+        } catch (ExecutionException e) {
+            handleWriteOperationExecutionException(e);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        }
+    }
+
+    /**
+     * Set the expiration of the entry with a ttl. The entry without it has no expiration, because HSET removes
+     * the expiration of the overwritten field.
+     *
+     * @return the result of HEXPIREAT or null if the entry does not expire or the server does not support it
+     */
+    private RedisFuture<List<Long>> expire(RedisEntry entry) {
+        Long expiresAt = entry.getEntry().getExpiresAt();
+        if (expiresAt == null || !fieldExpirySupported) {
+            return null;
+        }
+        return redis.hexpireat(entry.getServiceId(), (expiresAt + 999) / 1000, entry.getEntry().getKey());
+    }
+
+    private void awaitExpiration(RedisFuture<List<Long>> expiration) throws InterruptedException, ExecutionException {
+        if (expiration == null) {
+            return;
+        }
+
+        try {
+            expiration.get();
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof RedisCommandExecutionException)) {
+                throw e;
+            }
+            // the server does not know HEXPIREAT, the items have to be evicted and the expired entries are filtered
+            fieldExpirySupported = false;
+            log.warn("Redis does not support expiration of the hash fields ({}), the items are removed by the eviction", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * @return all items of the map or null if the map does not exist
+     */
+    public Map<String, String> getMapItems(String serviceId, String mapKey) {
+        try {
+            Map<String, String> items = redis.hgetall(mapId(serviceId, mapKey)).get();
+            return items == null || items.isEmpty() ? null : items;
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Retrieves the changes of the map since the revision from the journal. If the changes are not known (the
+     * revision is too old or from another journal), the full content of the map is returned. The map without the
+     * journal (stored by a previous version) has the revision derived from its content.
+     *
+     * @param serviceId     service ID of the map
+     * @param mapKey        key of the map
+     * @param sinceRevision the last revision known by the client
+     * @return the changes since the revision or the full content of the map
+     */
+    public MapChanges getMapItemsSince(String serviceId, String mapKey, long sinceRevision) {
+        String mapId = mapId(serviceId, mapKey);
+        try {
+            List<Object> journal = redis.<List<Object>>eval(READ_MAP_CHANGES_SCRIPT, ScriptOutputType.MULTI,
+                new String[] {MAP_REVISION_PREFIX + mapId, MAP_CHANGES_PREFIX + mapId}, String.valueOf(sinceRevision)).get();
+            if (journal == null || journal.isEmpty()) {
+                return MapChanges.ofContent(sinceRevision, getMapItems(serviceId, mapKey));
+            }
+
+            long revision = Long.parseLong(String.valueOf(journal.get(0)));
+            if (sinceRevision == revision) {
+                return MapChanges.unchanged(revision);
+            }
+            String oldest = String.valueOf(journal.get(1));
+            // all changes after sinceRevision have to be still in the journal
+            if ((sinceRevision > revision) || oldest.isEmpty() || (toRevision(oldest) > sinceRevision + 1)) {
+                return MapChanges.snapshot(revision, getMapItems(serviceId, mapKey));
+            }
+
+            Map<String, String> updated = new HashMap<>();
+            Set<String> removed = new HashSet<>();
+            for (int i = 2; i + 1 < journal.size(); i += 2) {
+                JsonNode change = OBJECT_MAPPER.readTree(String.valueOf(journal.get(i)));
+                String key = change.get(0).asText();
+                if (change.size() > 1) {
+                    removed.remove(key);
+                    updated.put(key, change.get(1).asText());
+                } else {
+                    updated.remove(key);
+                    removed.add(key);
+                }
+            }
+            return new MapChanges(revision, false, updated, removed);
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        } catch (JsonProcessingException e) {
+            log.debug("Invalid change in the journal of the map {}, the full content is returned: {}", mapId, e.getMessage());
+            return MapChanges.snapshot(0, getMapItems(serviceId, mapKey));
+        }
+
+        return null;
+    }
+
+    /**
+     * The score is returned as a floating point number, but the revisions are exact integers.
+     */
+    private static long toRevision(String score) {
+        return (long) Double.parseDouble(score);
+    }
+
+    private static String[] journalKeys(String mapId) {
+        return new String[] {mapId, MAP_REVISION_PREFIX + mapId, MAP_CHANGES_PREFIX + mapId};
+    }
+
+    /**
+     * Retrieves all the maps of the service. The items of all maps are read at once (pipelined), the empty maps (ie.
+     * all items expired) are omitted.
+     *
+     * @return map key to the items of map, empty if the service has no map
+     */
+    public Map<String, Map<String, String>> getAllMaps(String serviceId) {
+        try {
+            Set<String> mapKeys = redis.smembers(MAP_INDEX_PREFIX + serviceId).get();
+            Map<String, RedisFuture<Map<String, String>>> futures = new HashMap<>();
+            for (String mapKey : mapKeys) {
+                futures.put(mapKey, redis.hgetall(mapId(serviceId, mapKey)));
+            }
+
+            Map<String, Map<String, String>> maps = new HashMap<>();
+            for (Map.Entry<String, RedisFuture<Map<String, String>>> future : futures.entrySet()) {
+                Map<String, String> items = future.getValue().get();
+                if (items != null && !items.isEmpty()) {
+                    maps.put(future.getKey(), items);
+                }
+            }
+            return maps;
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Removes the items of the map which match the predicate. The map is iterated by HSCAN and the items are removed
+     * by one script per iteration, the script records the removals in the journal.
+     *
+     * @return count of removed items
+     */
+    public long removeMapItems(String serviceId, String mapKey, Predicate<String> toRemove) {
+        String mapId = mapId(serviceId, mapKey);
+        long removed = 0;
+        try {
+            ScanArgs scanArgs = ScanArgs.Builder.limit(SCAN_COUNT);
+            ScanCursor cursor = ScanCursor.INITIAL;
+            do {
+                MapScanCursor<String, String> scanCursor = redis.hscan(mapId, cursor, scanArgs).get();
+                String[] fields = scanCursor.getMap().entrySet().stream()
+                    .filter(entry -> toRemove.test(entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toArray(String[]::new);
+                if (fields.length > 0) {
+                    String[] args = new String[fields.length + 2];
+                    args[0] = String.valueOf(System.currentTimeMillis());
+                    args[1] = String.valueOf(MAP_CHANGES_CAPACITY);
+                    System.arraycopy(fields, 0, args, 2, fields.length);
+                    Long count = redis.<Long>eval(REMOVE_MAP_ITEMS_SCRIPT, ScriptOutputType.INTEGER, journalKeys(mapId), args).get();
+                    removed += count == null ? 0 : count;
+                }
+                cursor = scanCursor;
+            } while (!cursor.isFinished());
+        } catch (InterruptedException e) {
+            handleInterruptedException(e);
+        } catch (ExecutionException e) {
+            throw new RetryableRedisException(e);
+        }
+
+        return removed;
+    }
+
+    /**
+     * @return true if the server expires the map items, false if they have to be evicted
+     */
+    public boolean isFieldExpirySupported() {
+        return fieldExpirySupported;
+    }
+
+    private Map<String, String> scan(String key) throws ExecutionException, InterruptedException {
+        Map<String, String> result = new HashMap<>();
+        ScanArgs scanArgs = ScanArgs.Builder.limit(SCAN_COUNT);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            MapScanCursor<String, String> scanCursor = redis.hscan(key, cursor, scanArgs).get();
+            result.putAll(scanCursor.getMap());
+            cursor = scanCursor;
+        } while (!cursor.isFinished());
+        return result;
+    }
+
+    static String mapId(String serviceId, String mapKey) {
+        return MAP_PREFIX + serviceId + ":" + mapKey;
+    }
+
     private void handleWriteOperationExecutionException(ExecutionException e) throws RedisOutOfMemoryException {
         Throwable cause = e.getCause();
         if (cause instanceof RedisCommandExecutionException && cause.getMessage().contains("maxmemory")) {
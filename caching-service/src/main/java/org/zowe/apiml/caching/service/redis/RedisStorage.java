@@ -12,16 +12,17 @@ package org.zowe.apiml.caching.service.redis;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.retry.annotation.Retryable;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
+import org.zowe.apiml.caching.service.MapItemsRetention;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Class handles requests from controller and orchestrates operations on the low level RedisOperator class.
@@ -30,6 +31,16 @@ import java.util.Map;
  * configured memory, or there is not enough memory available and a no eviction policy is used, an error message is returned to the user.
  * If another entry will be evicted to make space for a create or update operation, no warning is logged and the eviction
  * is left to Redis.
+ * <p>
+ * The items of maps (ie. invalidated tokens) expire on the server at the time when they stop being relevant (see
+ * {@link MapItemsRetention#getExpiration(String)}), the eviction of them is needed only if Redis does not support the
+ * expiration of hash fields.
+ * <p>
+ * The changes of maps are recorded in a journal in Redis, so a client reads only the changes since its revision
+ * (see {@link RedisOperator#getMapItemsSince(String, String, long)}).
+ * <p>
+ * The entries with a ttl expire on the server the same way. If Redis does not support it, the expired entries are
+ * not returned and they are replaced by the next create.
  */
 @Slf4j
 public class RedisStorage implements Storage {
@@ -49,6 +60,9 @@ public class RedisStorage implements Storage {
         RedisEntry entryToCreate = new RedisEntry(serviceId, toCreate);
         try {
             boolean result = redis.create(entryToCreate);
+            if (!result && removeIfExpired(serviceId, toCreate.getKey())) {
+                result = redis.create(entryToCreate);
+            }
 
             if (!result) {
                 throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey(), serviceId);
@@ -60,18 +74,37 @@ public class RedisStorage implements Storage {
     }
 
     @Override
+    @Retryable(value = RetryableRedisException.class)
     public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) throws StorageException {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        log.info("Storing the item into map: {}|{} -> {}|{}", serviceId, mapKey, toCreate.getKey(), toCreate.getValue());
+
+        try {
+            redis.storeMapItem(serviceId, mapKey, toCreate, MapItemsRetention.getExpiration(toCreate.getValue()));
+        } catch (RedisOutOfMemoryException e) {
+            throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+        }
+        return null;
     }
 
     @Override
+    @Retryable(value = RetryableRedisException.class)
     public Map<String, String> getAllMapItems(String serviceId, String mapKey) throws StorageException {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        log.info("Reading all records from map for service {} under the {} key.", serviceId, mapKey);
+        return redis.getMapItems(serviceId, mapKey);
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public MapChanges getMapItemsSince(String serviceId, String mapKey, long sinceRevision) throws StorageException {
+        log.debug("Reading changes from map for service {} under the {} key since revision {}.", serviceId, mapKey, sinceRevision);
+        return redis.getMapItemsSince(serviceId, mapKey, sinceRevision);
     }
 
     @Override
+    @Retryable(value = RetryableRedisException.class)
     public Map<String, Map<String, String>> getAllMaps(String serviceId) throws StorageException {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        log.info("Reading all records from maps for service {} ", serviceId);
+        return redis.getAllMaps(serviceId);
     }
 
     @Override
@@ -80,7 +113,7 @@ public class RedisStorage implements Storage {
         log.info("Reading entry: {}|{}", serviceId, key);
 
         RedisEntry result = redis.get(serviceId, key);
-        if (result == null) {
+        if (result == null || result.getEntry().isExpired(System.currentTimeMillis())) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
         }
         return result.getEntry();
@@ -104,6 +137,73 @@ public class RedisStorage implements Storage {
         return toUpdate;
     }
 
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading entries: {}|{}", serviceId, keys);
+
+        Map<String, KeyValue> result = new HashMap<>();
+        long now = System.currentTimeMillis();
+        redis.get(serviceId, keys).forEach((key, entry) -> {
+            if (!entry.getEntry().isExpired(now)) {
+                result.put(key, entry.getEntry());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public boolean upsert(String serviceId, KeyValue toUpsert) {
+        log.info("Upserting entry: {}|{}|{}", serviceId, toUpsert.getKey(), toUpsert.getValue());
+
+        try {
+            return redis.upsert(new RedisEntry(serviceId, toUpsert));
+        } catch (RedisOutOfMemoryException e) {
+            throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+        }
+    }
+
+    /**
+     * All the entries are written at once (pipelined). If Redis is out of memory, the result of each entry is
+     * the failure, even if some of them were stored.
+     */
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public List<ItemResult> upsertAll(String serviceId, List<KeyValue> toUpsert) {
+        log.info("Upserting entries: {}|{}", serviceId, toUpsert.size());
+
+        List<RedisEntry> entries = toUpsert.stream().map(keyValue -> new RedisEntry(serviceId, keyValue)).toList();
+        List<ItemResult> results = new ArrayList<>(toUpsert.size());
+        try {
+            List<Boolean> created = redis.upsert(entries);
+            for (int i = 0; i < toUpsert.size(); i++) {
+                String key = toUpsert.get(i).getKey();
+                results.add(Boolean.TRUE.equals(created.get(i)) ? ItemResult.created(key) : ItemResult.updated(key));
+            }
+        } catch (RedisOutOfMemoryException e) {
+            StorageException exception = new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+            toUpsert.forEach(keyValue -> results.add(ItemResult.failed(keyValue.getKey(), exception)));
+        }
+        return results;
+    }
+
+    @Override
+    @Retryable(value = RetryableRedisException.class)
+    public boolean compareAndSet(String serviceId, KeyValue toUpdate, String expectedValue) {
+        log.info("Replacing entry: {}|{}|{} if the value is {}", serviceId, toUpdate.getKey(), toUpdate.getValue(), expectedValue);
+
+        try {
+            RedisOperator.CompareAndSetResult result = redis.compareAndSet(new RedisEntry(serviceId, toUpdate), expectedValue);
+            if (result == RedisOperator.CompareAndSetResult.NOT_FOUND) {
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
+            }
+            return result == RedisOperator.CompareAndSetResult.REPLACED;
+        } catch (RedisOutOfMemoryException e) {
+            throw new StorageException(Messages.INSUFFICIENT_STORAGE.getKey(), Messages.INSUFFICIENT_STORAGE.getStatus());
+        }
+    }
+
     @Override
     @Retryable(value = RetryableRedisException.class)
     public KeyValue delete(String serviceId, String toDelete) {
@@ -126,12 +226,20 @@ public class RedisStorage implements Storage {
         List<RedisEntry> redisResult = redis.get(serviceId);
         Map<String, KeyValue> readResult = new HashMap<>();
 
+        long now = System.currentTimeMillis();
         for (RedisEntry redisEntry : redisResult) {
-            readResult.put(redisEntry.getEntry().getKey(), redisEntry.getEntry());
+            if (!redisEntry.getEntry().isExpired(now)) {
+                readResult.put(redisEntry.getEntry().getKey(), redisEntry.getEntry());
+            }
         }
         return readResult;
     }
 
+    private boolean removeIfExpired(String serviceId, String key) {
+        RedisEntry current = redis.get(serviceId, key);
+        return current != null && current.getEntry().isExpired(System.currentTimeMillis()) && redis.delete(serviceId, key);
+    }
+
     @Override
     public void deleteForService(String serviceId) {
         log.info("Deleting all entries: {}", serviceId);
@@ -144,12 +252,27 @@ public class RedisStorage implements Storage {
     }
 
     @Override
+    @Retryable(value = RetryableRedisException.class)
     public void removeNonRelevantTokens(String serviceId, String mapKey) {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        if (redis.isFieldExpirySupported()) {
+            log.debug("The tokens in map {}|{} are expired by Redis", serviceId, mapKey);
+            return;
+        }
+
+        long removed = redis.removeMapItems(serviceId, mapKey, value -> !MapItemsRetention.isTokenRelevant(value));
+        log.debug("Removed {} tokens from map {}|{}", removed, serviceId, mapKey);
     }
 
     @Override
+    @Retryable(value = RetryableRedisException.class)
     public void removeNonRelevantRules(String serviceId, String mapKey) {
-        throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
+        if (redis.isFieldExpirySupported()) {
+            log.debug("The rules in map {}|{} are expired by Redis", serviceId, mapKey);
+            return;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        long removed = redis.removeMapItems(serviceId, mapKey, value -> !MapItemsRetention.isRuleRelevant(value, timestamp));
+        log.debug("Removed {} rules from map {}|{}", removed, serviceId, mapKey);
     }
 }
@@ -12,15 +12,16 @@ package org.zowe.apiml.caching.service.vsam;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.EvictionStrategy;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
-import org.zowe.apiml.zfile.ZFileConstants;
-import org.zowe.apiml.zfile.ZFileException;
 
-import java.io.UnsupportedEncodingException;
 import java.util.Optional;
 
-
+/**
+ * Remove the record with the oldest creation time. The record is found in {@link VsamRecordIndex}, so there is
+ * no scan of the file with each eviction.
+ */
 @RequiredArgsConstructor
 @Slf4j
 public class RemoveOldestStrategy implements EvictionStrategy {
@@ -28,50 +29,26 @@ public class RemoveOldestStrategy implements EvictionStrategy {
 
     private final VsamFile file;
 
+    private final VsamRecordIndex index;
+
     @Override
     public void evict(String key) {
-        removeOldestRecord();
-    }
-
-    private void removeOldestRecord() {
-        VsamRecord oldest = null;
-        try {
-            byte[] ignoreKey = " ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
-            byte[] recBuf = new byte[vsamConfig.getRecordLength()];
-            Optional<byte[]> readRecord;
-            int overflowProtection = 10000;
-            file.getZfile().locate(ignoreKey, ZFileConstants.LOCATE_KEY_FIRST);
-            while ((readRecord = file.readBytes(recBuf)).isPresent()) {
-                VsamRecord current = new VsamRecord(vsamConfig, readRecord.get());
-                if (oldest == null) {
-                    oldest = current;
-                }
-                long oldestCreated = Long.parseLong(oldest.getKeyValue().getCreated());
-                long currentCreated = Long.parseLong(current.getKeyValue().getCreated());
-
-                if (oldestCreated > currentCreated) {
-                    oldest = current;
-                }
-                overflowProtection--;
-                if (overflowProtection <= 0) {
-                    log.info("Maximum number of records retrieved, stopping the retrieval");
-                    break;
-                }
-            }
-        } catch (ZFileException | VsamRecordException | UnsupportedEncodingException e) {
-            log.info(e.toString());
+        Optional<VsamRecordIndex.Entry> oldest = index.oldest(file);
+        if (oldest.isEmpty()) {
+            log.info("There is no record to remove.");
+            return;
         }
-        checkAndRemoveRecord(oldest);
-    }
 
-    private void checkAndRemoveRecord(VsamRecord oldest) {
-        if (oldest != null) {
-            log.info("Removing the oldest record {}", oldest.getKeyValue().getKey());
-            Optional<VsamRecord> returned = file.delete(oldest);
-            if (returned.isPresent()) {
-                log.info("The oldest record has been successfully removed!");
-            }
+        String serviceId = oldest.get().serviceId();
+        String oldestKey = oldest.get().key();
+        log.info("Removing the oldest record {}", oldestKey);
+        Optional<VsamRecord> returned = file.delete(new VsamRecord(vsamConfig, serviceId, new KeyValue(oldestKey, "", serviceId)));
+        // the record could be already removed by another instance, the index has to be fixed anyway
+        index.removed(serviceId, oldestKey);
+        if (returned.isPresent()) {
+            log.info("The oldest record has been successfully removed!");
+        } else {
+            log.info("It was not possible to delete the record.");
         }
-        log.info("It was not possible to delete the record.");
     }
 }
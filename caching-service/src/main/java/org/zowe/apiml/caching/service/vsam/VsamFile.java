@@ -212,11 +212,17 @@ public class VsamFile implements Closeable {
         return returned;
     }
 
-    public void deleteForService(String serviceId) {
+    /**
+     * @return number of deleted records
+     */
+    public int deleteForService(String serviceId) {
+        int[] deleted = new int[1];
         serviceWideOperation(serviceId, (zfile, vsamRec) -> {
             log.debug("Delete the record");
             zfile.delrec();
+            deleted[0]++;
         });
+        return deleted[0];
     }
 
     private void serviceWideOperation(String serviceId, ServiceWideOperation operation) {
@@ -294,6 +300,8 @@ public class VsamFile implements Closeable {
 
         try {
             byte[] recBuf = new byte[vsamConfig.getRecordLength()];
+            // the handle could be reused, start always from the beginning
+            zfile.locate(" ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE), ZFileConstants.LOCATE_KEY_FIRST);
 
             int overflowProtection = 10000;
             while (zfile.read(recBuf) != -1) {
@@ -310,10 +318,37 @@ public class VsamFile implements Closeable {
             }
         } catch (ZFileException e) {
             log.info(e.toString());
+        } catch (UnsupportedEncodingException e) {
+            log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
         }
         return recordsCounter;
     }
 
+    /**
+     * Read all records in the file. The records which cannot be parsed are skipped.
+     */
+    public List<VsamRecord> readAllRecords() {
+        List<VsamRecord> returned = new ArrayList<>();
+
+        try {
+            byte[] recBuf = new byte[vsamConfig.getRecordLength()];
+            zfile.locate(" ".getBytes(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE), ZFileConstants.LOCATE_KEY_FIRST);
+            while (zfile.read(recBuf) != -1) {
+                try {
+                    returned.add(new VsamRecord(vsamConfig, recBuf));
+                } catch (VsamRecordException e) {
+                    log.info(VSAM_RECORD_ERROR_MESSAGE, e.toString());
+                }
+            }
+        } catch (ZFileException e) {
+            log.info(e.toString());
+            throw new RetryableVsamException(e);
+        } catch (UnsupportedEncodingException e) {
+            log.info(UNSUPPORTED_ENCODING_MESSAGE, ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
+        }
+        return returned;
+    }
+
     @SuppressWarnings({"squid:S1130", "squid:S1192"})
     private ZFile openZfile() throws VsamRecordException {
         return zFileProducer.openZfile();
@@ -0,0 +1,149 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+
+import java.io.Closeable;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Pool of long-lived handles of the VSAM file. Opening of the ZFile is expensive, so the handles are reused
+ * between the requests.
+ * <p>
+ * There could be more read handles (see caching.storage.vsam.readHandles), but only one write handle. All writes
+ * are therefore serialized and the caller could keep state related to the write handle without any other
+ * synchronization.
+ * <p>
+ * A handle is closed and opened again with the next request if the operation fails (except {@link StorageException}
+ * which is a valid response) or if the handle is older than caching.storage.vsam.handleMaxAgeSeconds. A read handle
+ * could keep buffered records, so it is also opened again if there was any write since it was opened.
+ */
+@Slf4j
+public class VsamFilePool implements Closeable {
+
+    private final VsamConfig vsamConfig;
+    private final VsamFileProducer producer;
+    private final ApimlLogger apimlLog;
+    private final long maxAgeMs;
+
+    private final Map<VsamConfig.VsamOptions, Handles> handles = new EnumMap<>(VsamConfig.VsamOptions.class);
+    private final AtomicLong writes = new AtomicLong();
+
+    public VsamFilePool(VsamConfig vsamConfig, VsamFileProducer producer, ApimlLogger apimlLog) {
+        this.vsamConfig = vsamConfig;
+        this.producer = producer;
+        this.apimlLog = apimlLog;
+        this.maxAgeMs = TimeUnit.SECONDS.toMillis(vsamConfig.getHandleMaxAgeSeconds());
+
+        handles.put(VsamConfig.VsamOptions.READ, new Handles(Math.max(1, vsamConfig.getReadHandles())));
+        handles.put(VsamConfig.VsamOptions.WRITE, new Handles(1));
+    }
+
+    /**
+     * Run the operation with a handle opened in the requested mode. The call waits if all handles are used.
+     *
+     * @param options   mode of the handle
+     * @param operation operation with the file
+     * @return result of the operation
+     */
+    public <T> T execute(VsamConfig.VsamOptions options, Function<VsamFile, T> operation) {
+        Handles pool = handles.get(options);
+        pool.permits.acquireUninterruptibly();
+        try {
+            PooledFile handle = borrow(options, pool);
+            boolean healthy = false;
+            try {
+                T result = operation.apply(handle.file());
+                healthy = true;
+                return result;
+            } catch (StorageException e) {
+                healthy = true;
+                throw e;
+            } finally {
+                if (options == VsamConfig.VsamOptions.WRITE) {
+                    writes.incrementAndGet();
+                }
+                if (healthy) {
+                    pool.idle.push(handle);
+                } else {
+                    log.debug("The VSAM handle in mode {} failed, it will be opened again", options);
+                    handle.file().close();
+                }
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    private PooledFile borrow(VsamConfig.VsamOptions options, Handles pool) {
+        PooledFile handle = pool.idle.poll();
+        if ((handle != null) && isExpired(handle)) {
+            log.debug("The VSAM handle in mode {} is expired, it will be opened again", options);
+            handle.file().close();
+            handle = null;
+        }
+        if ((handle != null) && isOutdated(options, handle)) {
+            log.debug("The VSAM handle in mode {} was opened before the last write, it will be opened again", options);
+            handle.file().close();
+            handle = null;
+        }
+        if (handle == null) {
+            // the number of writes is taken before the opening, a concurrent write makes the handle outdated
+            long openedAfterWrites = writes.get();
+            handle = new PooledFile(producer.newVsamFile(vsamConfig, options, apimlLog), System.currentTimeMillis(), openedAfterWrites);
+        }
+        return handle;
+    }
+
+    private boolean isOutdated(VsamConfig.VsamOptions options, PooledFile handle) {
+        return (options == VsamConfig.VsamOptions.READ) && (handle.openedAfterWrites() != writes.get());
+    }
+
+    private boolean isExpired(PooledFile handle) {
+        return (maxAgeMs > 0) && (System.currentTimeMillis() - handle.openedAt() > maxAgeMs);
+    }
+
+    @Override
+    public void close() {
+        handles.values().forEach(pool -> {
+            PooledFile handle;
+            while ((handle = pool.idle.poll()) != null) {
+                handle.file().close();
+            }
+        });
+    }
+
+    private static class Handles {
+
+        private final Semaphore permits;
+        private final Deque<PooledFile> idle = new ConcurrentLinkedDeque<>();
+
+        Handles(int size) {
+            this.permits = new Semaphore(size, true);
+        }
+
+    }
+
+    private record PooledFile(VsamFile file, long openedAt, long openedAfterWrites) {
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.caching.model.KeyValue;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Number of records in the VSAM file and their order by the creation time. The number is counted by the scan of
+ * the file with a new write handle (ie. after an error or when the handle reached its maximum age), then it is
+ * updated with each change. The tracked number could drift from the file (ie. by the changes of other instances
+ * sharing the file), so it is counted again once it is older than caching.storage.vsam.recountSeconds or when
+ * a change does not match it. The order is loaded with the first eviction and it is updated the same way.
+ * <p>
+ * The class is not thread-safe, it should be used only with the write handle (see {@link VsamFilePool}).
+ */
+@Slf4j
+public class VsamRecordIndex {
+
+    private final long recountMs;
+    private final LongSupplier clock;
+
+    private VsamFile loadedWith;
+    private int count;
+    private long countedAt;
+
+    private TreeSet<Entry> byAge;
+    private Map<RecordId, Entry> byId;
+
+    public VsamRecordIndex() {
+        this(0);
+    }
+
+    /**
+     * @param recountMs the age of the tracked number after which the records are counted again, 0 to count them
+     *                  only with a new write handle
+     */
+    public VsamRecordIndex(long recountMs) {
+        this(recountMs, System::currentTimeMillis);
+    }
+
+    VsamRecordIndex(long recountMs, LongSupplier clock) {
+        this.recountMs = recountMs;
+        this.clock = clock;
+    }
+
+    /**
+     * @param file the write handle
+     * @return number of records in the file
+     */
+    public int size(VsamFile file) {
+        if (file != loadedWith) {
+            byAge = null;
+            byId = null;
+            recount(file);
+        } else if ((recountMs > 0) && (clock.getAsLong() - countedAt >= recountMs)) {
+            recount(file);
+        }
+        return count;
+    }
+
+    private void recount(VsamFile file) {
+        int counted = file.countAllRecords();
+        if ((file == loadedWith) && (counted != count)) {
+            log.debug("The tracked number of VSAM records {} was reconciled to {}", count, counted);
+        }
+        count = counted;
+        countedAt = clock.getAsLong();
+        loadedWith = file;
+    }
+
+    /**
+     * The tracked number does not match the file, it will be counted again with the next call of {@link #size}.
+     */
+    private void invalidateCount() {
+        log.debug("The tracked number of VSAM records does not match the file, the records will be counted again");
+        loadedWith = null;
+    }
+
+    /**
+     * @param file the write handle
+     * @return the record with the oldest creation time or empty if the file is empty
+     */
+    public Optional<Entry> oldest(VsamFile file) {
+        size(file);
+        if (byAge == null) {
+            load(file);
+        }
+        return byAge.isEmpty() ? Optional.empty() : Optional.of(byAge.first());
+    }
+
+    private void load(VsamFile file) {
+        byAge = new TreeSet<>();
+        byId = new HashMap<>();
+        file.readAllRecords().forEach(this::addEntry);
+        log.debug("The index of VSAM records was loaded with {} records", byId.size());
+    }
+
+    public void added(VsamRecord vsamRecord) {
+        count++;
+        addEntry(vsamRecord);
+    }
+
+    public void updated(VsamRecord vsamRecord) {
+        addEntry(vsamRecord);
+    }
+
+    public void removed(String serviceId, String key) {
+        if (count == 0) {
+            invalidateCount();
+        }
+        count = Math.max(0, count - 1);
+        if (byId != null) {
+            Entry entry = byId.remove(new RecordId(serviceId, key));
+            if (entry != null) {
+                byAge.remove(entry);
+            }
+        }
+    }
+
+    public void removedService(int removedRecords) {
+        if (removedRecords > count) {
+            invalidateCount();
+        }
+        count = Math.max(0, count - removedRecords);
+        // it is a rare operation, the order will be loaded again with the next eviction
+        byAge = null;
+        byId = null;
+    }
+
+    private void addEntry(VsamRecord vsamRecord) {
+        if (byId == null) {
+            return;
+        }
+
+        KeyValue keyValue = vsamRecord.getKeyValue();
+        Entry entry = new Entry(parseCreated(keyValue.getCreated()), vsamRecord.getServiceId(), keyValue.getKey());
+        Entry previous = byId.put(new RecordId(entry.serviceId(), entry.key()), entry);
+        if (previous != null) {
+            byAge.remove(previous);
+        }
+        byAge.add(entry);
+    }
+
+    private long parseCreated(String created) {
+        try {
+            return Long.parseLong(created);
+        } catch (NumberFormatException e) {
+            // the record without valid time is considered as the oldest one
+            return 0;
+        }
+    }
+
+    private record RecordId(String serviceId, String key) {
+    }
+
+    public record Entry(long created, String serviceId, String key) implements Comparable<Entry> {
+
+        private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::created)
+            .thenComparing(Entry::serviceId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Entry::key, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        @Override
+        public int compareTo(Entry o) {
+            return ORDER.compare(this, o);
+        }
+
+    }
+
+}
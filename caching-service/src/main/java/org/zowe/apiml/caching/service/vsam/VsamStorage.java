@@ -12,31 +12,51 @@ package org.zowe.apiml.caching.service.vsam;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.retry.annotation.Retryable;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.EvictionStrategy;
+import org.zowe.apiml.caching.service.ExpirySweeper;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
 import org.zowe.apiml.message.log.ApimlLogger;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Class handles requests from controller and orchestrates operations on the low level VSAM File class
+ * Class handles requests from controller and orchestrates operations on the low level VSAM File class.
+ * The files are taken from {@link VsamFilePool}, the number and the order of records are kept in
+ * {@link VsamRecordIndex}.
+ * <p>
+ * The records with a ttl are removed by {@link ExpirySweeper}, the records stored before the start are scheduled
+ * by one scan of the file. The expired record which was not swept yet is not returned by the reads, but it could
+ * be updated (it would cost one more read of each update).
  */
 @Slf4j
 public class VsamStorage implements Storage {
 
     private VsamConfig vsamConfig;
     private EvictionStrategyProducer evictionStrategyProducer;
-    private VsamFileProducer producer = new VsamFileProducer();
+    private VsamFilePool pool;
+    private VsamRecordIndex index;
     private ApimlLogger apimlLog;
+    private ExpirySweeper sweeper;
 
     public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, ApimlLogger apimlLog, EvictionStrategyProducer evictionStrategyProducer) {
+        this(vsamConfig, vsamInitializer, apimlLog, evictionStrategyProducer, ExpirySweeper.manual("vsam"));
+    }
+
+    public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, ApimlLogger apimlLog, EvictionStrategyProducer evictionStrategyProducer, ExpirySweeper sweeper) {
+        this(vsamConfig, vsamInitializer, new VsamFileProducer(), apimlLog, evictionStrategyProducer, sweeper);
+    }
+
+    public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, VsamFileProducer producer, ApimlLogger apimlLogger, EvictionStrategyProducer evictionStrategyProducer) {
+        this(vsamConfig, vsamInitializer, producer, apimlLogger, evictionStrategyProducer, ExpirySweeper.manual("vsam"));
+    }
+
+    public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, VsamFileProducer producer, ApimlLogger apimlLog, EvictionStrategyProducer evictionStrategyProducer, ExpirySweeper sweeper) {
         log.info("Using VSAM storage for the cached data");
 
         this.apimlLog = apimlLog;
@@ -53,40 +73,35 @@ public class VsamStorage implements Storage {
 
         log.info("Using Vsam configuration: {}", vsamConfig);
         vsamInitializer.storageWarmup(vsamConfig, apimlLog);
-    }
-
-    public VsamStorage(VsamConfig vsamConfig, VsamInitializer vsamInitializer, VsamFileProducer producer, ApimlLogger apimlLogger, EvictionStrategyProducer evictionStrategyProducer) {
-        this(vsamConfig, vsamInitializer, apimlLogger, evictionStrategyProducer);
+        this.pool = new VsamFilePool(vsamConfig, producer, apimlLog);
+        this.index = new VsamRecordIndex(TimeUnit.SECONDS.toMillis(vsamConfig.getRecountSeconds()));
 
-        this.producer = producer;
+        this.sweeper = sweeper;
+        sweeper.start(this::expire);
+        sweeper.execute(this::scheduleStoredRecords);
     }
 
     private EvictionStrategy provideStrategy(VsamFile file) {
-        return evictionStrategyProducer.evictionStrategy(file);
+        return evictionStrategyProducer.evictionStrategy(file, index);
+    }
+
+    /**
+     * Close all opened handles of the VSAM file, it is called by Spring on the shutdown
+     */
+    public void close() {
+        sweeper.close();
+        pool.close();
     }
 
     @Override
     @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
     public KeyValue create(String serviceId, KeyValue toCreate) {
         log.info("Writing record: {}|{}|{}", serviceId, toCreate.getKey(), toCreate.getValue());
-        KeyValue result = null;
 
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+        KeyValue result = pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
             toCreate.setServiceId(serviceId);
-            VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toCreate);
-            int currentSize = file.countAllRecords();
-            log.info("Current Size {}.", currentSize);
-
-            if (aboveThreshold(currentSize)) {
-                EvictionStrategy strategy = provideStrategy(file);
-                log.info("Evicting record using the {} strategy", vsamConfig.getGeneralConfig().getEvictionStrategy());
-                strategy.evict(toCreate.getKey());
-            }
-            Optional<VsamRecord> returned = file.create(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            return create(file, new VsamRecord(vsamConfig, serviceId, toCreate)).map(VsamRecord::getKeyValue).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toCreate.getKey(), serviceId);
@@ -95,6 +110,82 @@ public class VsamStorage implements Storage {
         return result;
     }
 
+    private Optional<VsamRecord> create(VsamFile file, VsamRecord vsamRec) {
+        int currentSize = index.size(file);
+        log.info("Current Size {}.", currentSize);
+
+        if (aboveThreshold(currentSize)) {
+            EvictionStrategy strategy = provideStrategy(file);
+            log.info("Evicting record using the {} strategy", vsamConfig.getGeneralConfig().getEvictionStrategy());
+            strategy.evict(vsamRec.getKeyValue().getKey());
+        }
+        Optional<VsamRecord> returned = file.create(vsamRec);
+        if (returned.isEmpty() && removeIfExpired(file, vsamRec.getServiceId(), vsamRec.getKeyValue().getKey())) {
+            // the key was taken by the expired record
+            returned = file.create(vsamRec);
+        }
+        returned.ifPresent(this::added);
+        return returned;
+    }
+
+    private void added(VsamRecord vsamRecord) {
+        index.added(vsamRecord);
+        scheduleExpiration(vsamRecord);
+    }
+
+    private void updated(VsamRecord vsamRecord) {
+        index.updated(vsamRecord);
+        scheduleExpiration(vsamRecord);
+    }
+
+    private void scheduleExpiration(VsamRecord vsamRecord) {
+        sweeper.schedule(vsamRecord.getServiceId(), vsamRecord.getKeyValue().getKey(), vsamRecord.getKeyValue().getExpiresAt());
+    }
+
+    private void scheduleStoredRecords() {
+        List<VsamRecord> records = pool.execute(VsamConfig.VsamOptions.READ, VsamFile::readAllRecords);
+        records.forEach(this::scheduleExpiration);
+        log.debug("The expiration of stored VSAM records was scheduled, {} records are waiting", sweeper.getScheduled());
+    }
+
+    /**
+     * Remove the record if it is stored with the same time of the expiration and it is expired, it is called by
+     * {@link ExpirySweeper}.
+     */
+    boolean expire(String serviceId, String key, long expiresAt) {
+        return pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
+            VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
+            Optional<VsamRecord> current = file.read(vsamRec);
+            if (current.isEmpty() || !Objects.equals(current.get().getKeyValue().getExpiresAt(), expiresAt)
+                || !current.get().getKeyValue().isExpired(System.currentTimeMillis())) {
+                return false;
+            }
+
+            return delete(file, serviceId, key);
+        });
+    }
+
+    private boolean removeIfExpired(VsamFile file, String serviceId, String key) {
+        VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
+        Optional<VsamRecord> current = file.read(vsamRec);
+        if (current.isPresent() && current.get().getKeyValue().isExpired(System.currentTimeMillis()) && delete(file, serviceId, key)) {
+            sweeper.expired();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean delete(VsamFile file, String serviceId, String key) {
+        Optional<VsamRecord> deleted = file.delete(new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId)));
+        deleted.ifPresent(vsamRecord -> index.removed(serviceId, key));
+        return deleted.isPresent();
+    }
+
+    private static KeyValue notExpired(VsamRecord vsamRecord) {
+        KeyValue keyValue = vsamRecord.getKeyValue();
+        return keyValue.isExpired(System.currentTimeMillis()) ? null : keyValue;
+    }
+
     @Override
     public KeyValue storeMapItem(String serviceId, String mapKey, KeyValue toCreate) throws StorageException {
         throw new StorageException(Messages.INCOMPATIBLE_STORAGE_METHOD.getKey(), Messages.INCOMPATIBLE_STORAGE_METHOD.getStatus());
@@ -118,17 +209,12 @@ public class VsamStorage implements Storage {
     @Retryable(value = {RetryableVsamException.class})
     public KeyValue read(String serviceId, String key) {
         log.info("Reading Record: {}|{}|{}", serviceId, key, "-");
-        KeyValue result = null;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.READ, apimlLog)) {
 
+        KeyValue result = pool.execute(VsamConfig.VsamOptions.READ, file -> {
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
 
-            Optional<VsamRecord> returned = file.read(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            return file.read(vsamRec).map(VsamStorage::notExpired).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), key, serviceId);
@@ -141,17 +227,15 @@ public class VsamStorage implements Storage {
     @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
     public KeyValue update(String serviceId, KeyValue toUpdate) {
         log.info("Updating Record: {}|{}|{}", serviceId, toUpdate.getKey(), toUpdate.getValue());
-        KeyValue result = null;
 
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
+        KeyValue result = pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
             toUpdate.setServiceId(serviceId);
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toUpdate);
 
             Optional<VsamRecord> returned = file.update(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            returned.ifPresent(this::updated);
+            return returned.map(VsamRecord::getKeyValue).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId);
@@ -165,17 +249,14 @@ public class VsamStorage implements Storage {
     public KeyValue delete(String serviceId, String toDelete) {
 
         log.info("Deleting Record: {}|{}|{}", serviceId, toDelete, "-");
-        KeyValue result = null;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
 
+        KeyValue result = pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
             VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(toDelete, "", serviceId));
 
             Optional<VsamRecord> returned = file.delete(vsamRec);
-            if (returned.isPresent()) {
-                result = returned.get().getKeyValue();
-            }
-        }
+            returned.ifPresent(deleted -> index.removed(serviceId, toDelete));
+            return returned.map(VsamRecord::getKeyValue).orElse(null);
+        });
 
         if (result == null) {
             throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toDelete, serviceId);
@@ -184,18 +265,104 @@ public class VsamStorage implements Storage {
         return result;
     }
 
+    /**
+     * All the records are read by one handle of the file.
+     */
+    @Override
+    @Retryable(value = {RetryableVsamException.class})
+    public Map<String, KeyValue> readAll(String serviceId, Collection<String> keys) {
+        log.info("Reading Records: {}|{}|{}", serviceId, keys, "-");
+
+        return pool.execute(VsamConfig.VsamOptions.READ, file -> {
+            Map<String, KeyValue> result = new HashMap<>();
+            for (String key : keys) {
+                VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, new KeyValue(key, "", serviceId));
+                file.read(vsamRec).map(VsamStorage::notExpired).ifPresent(found -> result.put(key, found));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public boolean upsert(String serviceId, KeyValue toUpsert) {
+        log.info("Upserting Record: {}|{}|{}", serviceId, toUpsert.getKey(), toUpsert.getValue());
+
+        return pool.execute(VsamConfig.VsamOptions.WRITE, file -> upsert(file, serviceId, toUpsert));
+    }
+
+    /**
+     * All the records are written by one handle of the file (the only write handle), so the batch is not
+     * interleaved with any other write.
+     */
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public List<ItemResult> upsertAll(String serviceId, List<KeyValue> toUpsert) {
+        log.info("Upserting Records: {}|{}", serviceId, toUpsert.size());
+
+        return pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
+            List<ItemResult> results = new ArrayList<>(toUpsert.size());
+            for (KeyValue keyValue : toUpsert) {
+                try {
+                    results.add(upsert(file, serviceId, keyValue) ? ItemResult.created(keyValue.getKey()) : ItemResult.updated(keyValue.getKey()));
+                } catch (StorageException e) {
+                    results.add(ItemResult.failed(keyValue.getKey(), e));
+                }
+            }
+            return results;
+        });
+    }
+
+    private boolean upsert(VsamFile file, String serviceId, KeyValue toUpsert) {
+        toUpsert.setServiceId(serviceId);
+        VsamRecord vsamRec = new VsamRecord(vsamConfig, serviceId, toUpsert);
+
+        Optional<VsamRecord> updated = file.update(vsamRec);
+        if (updated.isPresent()) {
+            updated(updated.get());
+            return false;
+        }
+
+        if (create(file, vsamRec).isEmpty()) {
+            throw new StorageException(Messages.DUPLICATE_KEY.getKey(), Messages.DUPLICATE_KEY.getStatus(), toUpsert.getKey(), serviceId);
+        }
+        return true;
+    }
+
+    /**
+     * The record is read and updated by the only write handle, so no other write could change it in the meantime.
+     */
+    @Override
+    @Retryable(value = {RetryableVsamException.class, IllegalStateException.class, UnsupportedOperationException.class})
+    public boolean compareAndSet(String serviceId, KeyValue toUpdate, String expectedValue) {
+        log.info("Replacing Record: {}|{}|{} if the value is {}", serviceId, toUpdate.getKey(), toUpdate.getValue(), expectedValue);
+
+        return pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
+            KeyValue current = file.read(new VsamRecord(vsamConfig, serviceId, new KeyValue(toUpdate.getKey(), "", serviceId)))
+                .map(VsamStorage::notExpired)
+                .orElseThrow(() -> new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), toUpdate.getKey(), serviceId));
+            if (!Objects.equals(current.getValue(), expectedValue)) {
+                return false;
+            }
+
+            toUpdate.setServiceId(serviceId);
+            file.update(new VsamRecord(vsamConfig, serviceId, toUpdate)).ifPresent(this::updated);
+            return true;
+        });
+    }
+
     @Override
     public Map<String, KeyValue> readForService(String serviceId) {
 
         log.info("Reading All Records: {}|{}|{}", serviceId, "-", "-");
         Map<String, KeyValue> result = new HashMap<>();
-        List<VsamRecord> returned;
-
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.READ, apimlLog)) {
-            returned = file.readForService(serviceId);
-        }
+        List<VsamRecord> returned = pool.execute(VsamConfig.VsamOptions.READ, file -> file.readForService(serviceId));
 
-        returned.forEach(vsamRecord -> result.put(vsamRecord.getKeyValue().getKey(), vsamRecord.getKeyValue()));
+        long now = System.currentTimeMillis();
+        returned.stream()
+            .map(VsamRecord::getKeyValue)
+            .filter(keyValue -> !keyValue.isExpired(now))
+            .forEach(keyValue -> result.put(keyValue.getKey(), keyValue));
 
         return result;
     }
@@ -204,9 +371,10 @@ public class VsamStorage implements Storage {
     public void deleteForService(String serviceId) {
         log.info("Deleting All Records: {}|{}|{}", serviceId, "-", "-");
 
-        try (VsamFile file = producer.newVsamFile(vsamConfig, VsamConfig.VsamOptions.WRITE, apimlLog)) {
-            file.deleteForService(serviceId);
-        }
+        pool.execute(VsamConfig.VsamOptions.WRITE, file -> {
+            index.removedService(file.deleteForService(serviceId));
+            return null;
+        });
     }
 
     @Override
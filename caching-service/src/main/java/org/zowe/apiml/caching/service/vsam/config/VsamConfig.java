@@ -37,6 +37,12 @@ public class VsamConfig {
     private int recordLength;
     @Value("${caching.storage.vsam.encoding:" + ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE + "}")
     private String encoding;
+    @Value("${caching.storage.vsam.readHandles:2}")
+    private int readHandles;
+    @Value("${caching.storage.vsam.handleMaxAgeSeconds:300}")
+    private int handleMaxAgeSeconds;
+    @Value("${caching.storage.vsam.recountSeconds:60}")
+    private int recountSeconds;
 
     public enum VsamOptions {
         READ("rb,type=record"),
@@ -10,10 +10,12 @@
 
 package org.zowe.apiml.caching.service.vsam.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.zowe.apiml.caching.service.ExpirySweeper;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.vsam.EvictionStrategyProducer;
 import org.zowe.apiml.caching.service.vsam.VsamInitializer;
@@ -30,9 +32,15 @@ public class VsamConfiguration {
 
     @ConditionalOnProperty(name = "caching.storage.mode", havingValue = "vsam")
     @Bean
-    public Storage vsam(MessageService messageService, EvictionStrategyProducer evictionStrategyProducer) {
+    public ExpirySweeper vsamExpirySweeper(MeterRegistry meterRegistry) {
+        return new ExpirySweeper("vsam", vsamConfig.getGeneralConfig().getExpirySweepIntervalMs(), meterRegistry);
+    }
+
+    @ConditionalOnProperty(name = "caching.storage.mode", havingValue = "vsam")
+    @Bean
+    public Storage vsam(MessageService messageService, EvictionStrategyProducer evictionStrategyProducer, ExpirySweeper vsamExpirySweeper) {
         var logger = ApimlLogger.of(VsamStorage.class, messageService);
         logger.log("org.zowe.apiml.cache.storage.deprecated", "vsam");
-        return new VsamStorage(vsamConfig, vsamInitializer, logger, evictionStrategyProducer);
+        return new VsamStorage(vsamConfig, vsamInitializer, logger, evictionStrategyProducer, vsamExpirySweeper);
     }
 }
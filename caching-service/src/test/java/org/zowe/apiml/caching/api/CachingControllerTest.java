@@ -18,7 +18,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.zowe.apiml.caching.model.CompareAndSet;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.Storage;
 import org.zowe.apiml.caching.service.StorageException;
@@ -27,6 +31,8 @@ import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.yaml.YamlMessageService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import javax.security.auth.x500.X500Principal;
+import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.stream.Stream;
 
@@ -34,6 +40,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class CachingControllerTest {
@@ -55,7 +62,7 @@ class CachingControllerTest {
         when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(SERVICE_ID);
         when(mockRequest.getHeader("X-CS-Service-ID")).thenReturn(null);
         mockStorage = mock(Storage.class);
-        underTest = new CachingController(mockStorage, messageService);
+        underTest = new CachingController(mockStorage, messageService, new MapChangesPoller(10, 1000));
     }
 
     @Nested
@@ -196,6 +203,100 @@ class CachingControllerTest {
         }
     }
 
+    @Nested
+    class WhenGetMoreKeys {
+        @Test
+        void givenStorageReturnsValues_thenReturnThem() {
+            when(mockStorage.readAll(SERVICE_ID, List.of(KEY, "missing"))).thenReturn(Map.of(KEY, KEY_VALUE));
+
+            ResponseEntity<?> response = underTest.getValues(List.of(KEY, "missing"), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(Map.of(KEY, KEY_VALUE)));
+        }
+
+        @Test
+        void givenErrorReadingStorage_thenResponseInternalError() {
+            when(mockStorage.readAll(any(), any())).thenThrow(new RuntimeException());
+
+            ResponseEntity<?> response = underTest.getValues(List.of(KEY), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    @Nested
+    class WhenUpsertKeys {
+        @Test
+        void givenNewKey_thenResponseCreated() {
+            when(mockStorage.upsert(SERVICE_ID, KEY_VALUE)).thenReturn(true);
+
+            ResponseEntity<?> response = underTest.upsert(KEY_VALUE, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.CREATED));
+        }
+
+        @Test
+        void givenExistingKey_thenResponseNoContent() {
+            when(mockStorage.upsert(SERVICE_ID, KEY_VALUE)).thenReturn(false);
+
+            ResponseEntity<?> response = underTest.upsert(KEY_VALUE, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+        }
+
+        @Test
+        void givenInvalidPayload_thenResponseBadRequest() {
+            ResponseEntity<?> response = underTest.upsert(new KeyValue(KEY, null), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            verifyNoInteractions(mockStorage);
+        }
+
+        @Test
+        void givenMoreKeys_thenReturnResultOfEach() {
+            List<KeyValue> keyValues = List.of(KEY_VALUE, new KeyValue("key2", VALUE));
+            List<ItemResult> results = List.of(ItemResult.created(KEY), ItemResult.updated("key2"));
+            when(mockStorage.upsertAll(SERVICE_ID, keyValues)).thenReturn(results);
+
+            ResponseEntity<?> response = underTest.upsertAll(keyValues, mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(results));
+        }
+
+        @Test
+        void givenMoreKeysWithInvalidOne_thenResponseBadRequest() {
+            ResponseEntity<?> response = underTest.upsertAll(List.of(KEY_VALUE, new KeyValue(null, VALUE)), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+            verifyNoInteractions(mockStorage);
+        }
+    }
+
+    @Nested
+    class WhenCompareAndSet {
+        @Test
+        void givenExpectedValue_thenResponseNoContent() {
+            when(mockStorage.compareAndSet(eq(SERVICE_ID), any(), eq("old"))).thenReturn(true);
+
+            ResponseEntity<?> response = underTest.compareAndSet(new CompareAndSet(KEY, "old", VALUE), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NO_CONTENT));
+        }
+
+        @Test
+        void givenDifferentValue_thenResponseConflict() {
+            when(mockStorage.compareAndSet(eq(SERVICE_ID), any(), eq("old"))).thenReturn(false);
+            ApiMessageView expectedBody = messageService.createMessage(Messages.VALUE_CHANGED.getKey(), KEY).mapToView();
+
+            ResponseEntity<?> response = underTest.compareAndSet(new CompareAndSet(KEY, "old", VALUE), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.CONFLICT));
+            assertThat(response.getBody(), is(expectedBody));
+        }
+
+        @Test
+        void givenNoKey_thenResponseNotFound() {
+            when(mockStorage.compareAndSet(eq(SERVICE_ID), any(), eq("old")))
+                .thenThrow(new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), KEY, SERVICE_ID));
+
+            ResponseEntity<?> response = underTest.compareAndSet(new CompareAndSet(KEY, "old", VALUE), mockRequest);
+            assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+        }
+    }
+
     @Nested
     class WhenDeleteKey {
         @Test
@@ -395,6 +496,60 @@ class CachingControllerTest {
         }
     }
 
+    @Nested
+    class WhenRetrieveChangesOfMap {
+        private final MapChanges noChanges = new MapChanges(5, false, Collections.emptyMap(), Collections.emptySet());
+        private final MapChanges changes = new MapChanges(6, false, Collections.singletonMap(KEY, VALUE), Collections.emptySet());
+
+        @Test
+        void givenChanges_thenReturnChanges() {
+            when(mockStorage.getMapItemsSince(SERVICE_ID, MAP_KEY, 5)).thenReturn(changes);
+
+            ResponseEntity<?> response = (ResponseEntity<?>) underTest.getMapItemsSince(MAP_KEY, 5, 0, mockRequest).getResult();
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(changes));
+        }
+
+        @Test
+        void givenNoChangesAndNoWaiting_thenReturnEmptyChanges() {
+            when(mockStorage.getMapItemsSince(SERVICE_ID, MAP_KEY, 5)).thenReturn(noChanges);
+
+            ResponseEntity<?> response = (ResponseEntity<?>) underTest.getMapItemsSince(MAP_KEY, 5, 0, mockRequest).getResult();
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            assertThat(response.getBody(), is(noChanges));
+        }
+
+        @Test
+        void givenChangeDuringWaiting_thenReturnChanges() throws InterruptedException {
+            when(mockStorage.getMapItemsSince(SERVICE_ID, MAP_KEY, 5)).thenReturn(noChanges, noChanges, changes);
+
+            DeferredResult<ResponseEntity<Object>> result = underTest.getMapItemsSince(MAP_KEY, 5, 1000, mockRequest);
+            for (int i = 0; (i < 100) && !result.hasResult(); i++) {
+                Thread.sleep(10);
+            }
+
+            ResponseEntity<?> response = (ResponseEntity<?>) result.getResult();
+            assertThat(response.getBody(), is(changes));
+            verify(mockStorage, times(3)).getMapItemsSince(SERVICE_ID, MAP_KEY, 5);
+        }
+
+        @Test
+        void givenNoCertificateInformation_thenReturnUnauthorized() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+
+            ResponseEntity<?> response = (ResponseEntity<?>) underTest.getMapItemsSince(MAP_KEY, 5, 0, mockRequest).getResult();
+            assertThat(response.getStatusCode(), is(HttpStatus.UNAUTHORIZED));
+        }
+
+        @Test
+        void givenErrorReadingStorage_thenResponseBadRequest() {
+            when(mockStorage.getMapItemsSince(SERVICE_ID, MAP_KEY, 5)).thenThrow(new RuntimeException("error"));
+
+            ResponseEntity<?> response = (ResponseEntity<?>) underTest.getMapItemsSince(MAP_KEY, 5, 1000, mockRequest).getResult();
+            assertThat(response.getStatusCode(), is(HttpStatus.BAD_REQUEST));
+        }
+    }
+
     @Nested
     class WhenEvictRecord {
         @Test
@@ -417,4 +572,37 @@ class CachingControllerTest {
             assertThat(responseScopesEviction.getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
         }
     }
+
+    @Nested
+    class WhenCalledDirectly {
+
+        @BeforeEach
+        @SuppressWarnings("deprecation")
+        void setUp() {
+            X509Certificate certificate = mock(X509Certificate.class);
+            when(certificate.getSubjectDN()).thenReturn(new X500Principal("CN=zaas, OU=API Mediation Layer"));
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(null);
+            when(mockRequest.getAttribute("jakarta.servlet.request.X509Certificate")).thenReturn(new X509Certificate[] {certificate});
+        }
+
+        @Test
+        void givenClientCertificate_thenUseItsDistinguishedNameAsTheGatewayDoes() {
+            String serviceId = new X500Principal("CN=zaas, OU=API Mediation Layer").getName();
+            when(mockStorage.read(anyString(), eq(KEY))).thenReturn(KEY_VALUE);
+
+            ResponseEntity<?> response = underTest.getValue(KEY, mockRequest);
+
+            assertThat(response.getStatusCode(), is(HttpStatus.OK));
+            verify(mockStorage).read(serviceId, KEY);
+        }
+
+        @Test
+        void givenHeader_thenPreferIt() {
+            when(mockRequest.getHeader("X-Certificate-DistinguishedName")).thenReturn(SERVICE_ID);
+            when(mockStorage.read(SERVICE_ID, KEY)).thenReturn(KEY_VALUE);
+
+            assertThat(underTest.getValue(KEY, mockRequest).getStatusCode(), is(HttpStatus.OK));
+        }
+
+    }
 }
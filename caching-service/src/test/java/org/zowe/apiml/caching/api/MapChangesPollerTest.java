@@ -0,0 +1,84 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.zowe.apiml.caching.model.MapChanges;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapChangesPollerTest {
+
+    private static final ResponseEntity<Object> NO_CHANGES =
+        new ResponseEntity<>(new MapChanges(1, false, Collections.emptyMap(), Collections.emptySet()), HttpStatus.OK);
+
+    private MapChangesPoller underTest;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new MapChangesPoller(10, 100);
+        calls = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    private void await(DeferredResult<?> result) throws InterruptedException {
+        for (int i = 0; (i < 100) && !result.hasResult(); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void givenNoWaiting_thenCheckOnce() {
+        DeferredResult<ResponseEntity<Object>> result = underTest.poll(() -> {
+            calls.incrementAndGet();
+            return NO_CHANGES;
+        }, 0);
+
+        assertSame(NO_CHANGES, result.getResult());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void givenNoChanges_whenWaitingTimeRunsOut_thenReturnLastCheck() throws InterruptedException {
+        DeferredResult<ResponseEntity<Object>> result = underTest.poll(() -> {
+            calls.incrementAndGet();
+            return NO_CHANGES;
+        }, 50);
+
+        await(result);
+        assertSame(NO_CHANGES, result.getResult());
+        assertTrue(calls.get() > 1);
+    }
+
+    @Test
+    void givenLongWaiting_thenItIsLimitedByConfiguration() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        DeferredResult<ResponseEntity<Object>> result = underTest.poll(() -> NO_CHANGES, 60_000);
+
+        await(result);
+        assertTrue(result.hasResult());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+}
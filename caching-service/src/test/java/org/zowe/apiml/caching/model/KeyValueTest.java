@@ -0,0 +1,51 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyValueTest {
+
+    @Test
+    void givenTtl_thenExpireAfterItSinceCreation() {
+        KeyValue keyValue = new KeyValue("key", "value", "1000");
+        keyValue.setTtl(5L);
+
+        assertEquals(6000L, keyValue.getExpiresAt());
+        assertFalse(keyValue.isExpired(5999));
+        assertTrue(keyValue.isExpired(6000));
+    }
+
+    @Test
+    void givenNoOrZeroTtl_thenNeverExpire() {
+        KeyValue keyValue = new KeyValue("key", "value", "1000");
+        assertNull(keyValue.getExpiresAt());
+
+        keyValue.setTtl(0L);
+        assertFalse(keyValue.isExpired(Long.MAX_VALUE));
+    }
+
+    @Test
+    void givenTtl_thenItIsSerializedWithoutExpiration() throws JsonProcessingException {
+        ObjectMapper mapper = new ObjectMapper();
+        KeyValue keyValue = mapper.readValue("{\"key\":\"key\",\"value\":\"value\",\"ttl\":60}", KeyValue.class);
+
+        assertEquals(60L, keyValue.getTtl());
+        String json = mapper.writeValueAsString(keyValue);
+        assertTrue(json.contains("\"ttl\":60"));
+        assertFalse(json.contains("expiresAt"));
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapChangeLogTest {
+
+    private static final Map<String, String> ITEMS = Map.of("key", "value");
+
+    private MapChangeLog changeLog;
+    private long initialRevision;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new MapChangeLog(3);
+        initialRevision = changeLog.getRevision();
+    }
+
+    @Nested
+    class GivenKnownRevision {
+
+        @Test
+        void whenNoChanges_thenReturnEmpty() {
+            MapChanges changes = changeLog.changesSince(initialRevision, ITEMS);
+
+            assertTrue(changes.isEmpty());
+            assertEquals(initialRevision, changes.getRevision());
+        }
+
+        @Test
+        void whenKeyIsUpdatedTwice_thenReturnLastValue() {
+            changeLog.put("key", "value1");
+            changeLog.put("key", "value2");
+
+            MapChanges changes = changeLog.changesSince(initialRevision, ITEMS);
+            assertFalse(changes.isFull());
+            assertEquals(Map.of("key", "value2"), changes.getUpdated());
+            assertEquals(initialRevision + 2, changes.getRevision());
+        }
+
+        @Test
+        void whenKeyIsRemovedAfterUpdate_thenReturnOnlyRemoval() {
+            changeLog.put("key", "value1");
+            changeLog.remove("key");
+
+            MapChanges changes = changeLog.changesSince(initialRevision, ITEMS);
+            assertTrue(changes.getUpdated().isEmpty());
+            assertEquals(Collections.singleton("key"), changes.getRemoved());
+        }
+
+        @Test
+        void whenOlderChangesAreKnown_thenReturnOnlyNewer() {
+            changeLog.put("key1", "value1");
+            changeLog.put("key2", "value2");
+
+            MapChanges changes = changeLog.changesSince(initialRevision + 1, ITEMS);
+            assertEquals(Map.of("key2", "value2"), changes.getUpdated());
+        }
+
+    }
+
+    @Nested
+    class GivenUnknownRevision {
+
+        @Test
+        void whenJournalIsOverflowed_thenReturnFullContent() {
+            for (int i = 0; i < 5; i++) {
+                changeLog.put("key" + i, "value");
+            }
+
+            MapChanges changes = changeLog.changesSince(initialRevision, ITEMS);
+            assertTrue(changes.isFull());
+            assertEquals(ITEMS, changes.getUpdated());
+            assertEquals(initialRevision + 5, changes.getRevision());
+        }
+
+        @Test
+        void whenRevisionIsFromFuture_thenReturnFullContent() {
+            assertTrue(changeLog.changesSince(initialRevision + 10, ITEMS).isFull());
+        }
+
+    }
+
+    @Nested
+    class WhenCopied {
+
+        @Test
+        void thenCopyIsIndependent() {
+            changeLog.put("key1", "value");
+            MapChangeLog copy = changeLog.copy();
+            assertEquals(changeLog, copy);
+
+            copy.put("key2", "value");
+
+            assertNotEquals(changeLog, copy);
+            assertEquals(initialRevision + 1, changeLog.getRevision());
+            assertEquals(Map.of("key2", "value"), copy.changesSince(initialRevision + 1, ITEMS).getUpdated());
+            assertEquals(Set.of("key1"), changeLog.getKeys());
+            assertEquals(Set.of("key1", "key2"), copy.getKeys());
+        }
+
+    }
+
+    @Nested
+    class WhenKeysAreTracked {
+
+        @Test
+        void thenContainOnlyPresentKeys() {
+            changeLog.put("key1", "value");
+            changeLog.put("key2", "value");
+            changeLog.put("key1", "value2");
+            changeLog.remove("key2");
+            changeLog.remove("unknown");
+
+            assertEquals(Set.of("key1"), changeLog.getKeys());
+        }
+
+        @Test
+        void givenKeysSetLater_thenTrackFurtherChanges() {
+            changeLog.setKeys(Set.of("key1", "key2"));
+            changeLog.remove("key1");
+
+            assertEquals(Set.of("key2"), changeLog.getKeys());
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpirySweeperTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpirySweeper underTest;
+    private final List<String> expired = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new ExpirySweeper("test", 0, meterRegistry);
+        underTest.start((serviceId, key, expiresAt) -> expired.add(serviceId + "|" + key));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.close();
+    }
+
+    private double expiredCount() {
+        return meterRegistry.get(ExpirySweeper.METRIC_NAME + ".expired").tag("storage", "test").counter().count();
+    }
+
+    @Test
+    void givenEntries_whenSweep_thenExpireOnlyTheExpiredOnesInOrder() {
+        underTest.schedule("service", "later", 300L);
+        underTest.schedule("service", "first", 100L);
+        underTest.schedule("service", "second", 200L);
+        underTest.schedule("service", "never", null);
+
+        assertEquals(2, underTest.sweep(200));
+
+        assertEquals(List.of("service|first", "service|second"), expired);
+        assertEquals(1, underTest.getScheduled());
+        assertEquals(2, expiredCount());
+        assertEquals(1, meterRegistry.get(ExpirySweeper.METRIC_NAME + ".scheduled").gauge().value());
+    }
+
+    @Test
+    void givenChangedEntry_whenSweep_thenItIsNotCounted() {
+        underTest.start((serviceId, key, expiresAt) -> false);
+        underTest.schedule("service", "updated", 100L);
+
+        assertEquals(0, underTest.sweep(200));
+        assertEquals(0, underTest.getScheduled());
+        assertEquals(0, expiredCount());
+    }
+
+    @Test
+    void givenFailingStorage_whenSweep_thenTryItAgainNextTime() {
+        underTest.start((serviceId, key, expiresAt) -> {
+            throw new IllegalStateException("unavailable");
+        });
+        underTest.schedule("service", "key", 100L);
+
+        assertEquals(0, underTest.sweep(200));
+        assertEquals(1, underTest.getScheduled());
+
+        underTest.start((serviceId, key, expiresAt) -> true);
+        assertEquals(1, underTest.sweep(200));
+    }
+
+    @Test
+    void givenEntryRemovedByStorage_thenItIsCounted() {
+        underTest.expired();
+
+        assertEquals(1, expiredCount());
+    }
+
+    @Test
+    void givenInterval_thenSweepInBackground() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (ExpirySweeper sweeper = new ExpirySweeper("background", 10, meterRegistry)) {
+            sweeper.start((serviceId, key, expiresAt) -> {
+                latch.countDown();
+                return true;
+            });
+            sweeper.schedule("service", "key", System.currentTimeMillis());
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+}
@@ -10,22 +10,18 @@
 
 package org.zowe.apiml.caching.service.infinispan.storage;
 
-import org.infinispan.AdvancedCache;
 import org.infinispan.Cache;
-import org.infinispan.lock.api.ClusteredLock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChangeLog;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.StorageException;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,19 +31,17 @@ class InfinispanStorageTest {
     public static final KeyValue TO_CREATE = new KeyValue("key1", "val1");
     public static final KeyValue TO_UPDATE = new KeyValue("key1", "val2");
     Cache<String, KeyValue> cache;
-    AdvancedCache<String, Map<String,String>> tokenCache;
+    ConcurrentMap<MapItemKey, String> mapItemCache;
     InfinispanStorage storage;
     String serviceId1 = "service1";
 
     String serviceId2 = "service2";
-    ClusteredLock lock;
 
     @BeforeEach
     void setup() {
         cache = mock(Cache.class);
-        tokenCache = mock(AdvancedCache.class);
-        storage = new InfinispanStorage(cache, tokenCache, lock);
-        lock = mock(ClusteredLock.class);
+        mapItemCache = new ConcurrentHashMap<>();
+        storage = new InfinispanStorage(cache, mapItemCache, new ConcurrentHashMap<>());
     }
 
     @Nested
@@ -124,7 +118,7 @@ class InfinispanStorageTest {
         @Test
         void itemIsDeleted() {
             ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, mapItemCache, new ConcurrentHashMap<>());
             assertNull(storage.create(serviceId1, TO_CREATE));
             assertEquals(TO_CREATE, storage.delete(serviceId1, TO_CREATE.getKey()));
         }
@@ -132,7 +126,7 @@ class InfinispanStorageTest {
         @Test
         void returnAll() {
             ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, mapItemCache, new ConcurrentHashMap<>());
             storage.create(serviceId1, new KeyValue("key", "value"));
             storage.create(serviceId1, new KeyValue("key2", "value2"));
             assertEquals(2, storage.readForService(serviceId1).size());
@@ -141,7 +135,7 @@ class InfinispanStorageTest {
         @Test
         void removeAll() {
             ConcurrentMap<String, KeyValue> cache = new ConcurrentHashMap<>();
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
+            InfinispanStorage storage = new InfinispanStorage(cache, mapItemCache, new ConcurrentHashMap<>());
             storage.create(serviceId1, new KeyValue("key", "value"));
             storage.create(serviceId1, new KeyValue("key2", "value2"));
             assertEquals(2, storage.readForService(serviceId1).size());
@@ -152,42 +146,139 @@ class InfinispanStorageTest {
     }
 
     @Nested
-    class WhenStoreToken {
-        KeyValue keyValue;
+    class WhenEntryHasTtl {
+
+        KeyValue withTtl;
 
         @BeforeEach
-        void createEmptyStore() {
-            keyValue = null;
+        void createEntry() {
+            withTtl = new KeyValue("key", "value");
+            withTtl.setTtl(60L);
         }
 
-        @BeforeEach
-        void createStoreWithEntry() {
-            when(tokenCache.getAdvancedCache()).thenReturn(tokenCache);
-            CompletableFuture<Boolean> cmpl = new CompletableFuture<>();
-            cmpl.complete(true);
-            when(lock.tryLock(4, TimeUnit.SECONDS)).thenReturn(cmpl);
-            when(tokenCache.computeIfAbsent(anyString(), any())).thenAnswer(k -> new ArrayList<>());
+        @Test
+        void whenCreated_thenItIsStoredWithLifespan() {
+            assertNull(storage.create(serviceId1, withTtl));
+
+            verify(cache).putIfAbsent(eq(serviceId1 + "key"), eq(withTtl), longThat(lifespan -> lifespan > 0 && lifespan <= 60_000), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenUpserted_thenItIsStoredWithLifespan() {
+            assertTrue(storage.upsert(serviceId1, withTtl));
+
+            verify(cache).put(eq(serviceId1 + "key"), eq(withTtl), longThat(lifespan -> lifespan > 0 && lifespan <= 60_000), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        void whenUpdatedWithoutTtl_thenItIsStoredWithoutLifespan() {
+            when(cache.put(serviceId1 + TO_UPDATE.getKey(), TO_UPDATE)).thenReturn(TO_CREATE);
+
+            storage.update(serviceId1, TO_UPDATE);
+
+            verify(cache, never()).put(anyString(), any(KeyValue.class), anyLong(), any(TimeUnit.class));
+        }
+
+    }
+
+    @Nested
+    class WhenBatchOperationsAreUsed {
+
+        @Test
+        void whenReadAll_thenReturnOnlyExisting() {
+            when(cache.get(serviceId1 + TO_CREATE.getKey())).thenReturn(TO_CREATE);
+
+            assertEquals(Map.of(TO_CREATE.getKey(), TO_CREATE), storage.readAll(serviceId1, List.of(TO_CREATE.getKey(), "missing")));
+        }
+
+        @Test
+        void whenUpsertNewKey_thenReturnTrue() {
+            when(cache.put(serviceId1 + TO_CREATE.getKey(), TO_CREATE)).thenReturn(null);
+
+            assertTrue(storage.upsert(serviceId1, TO_CREATE));
+        }
+
+        @Test
+        void whenUpsertExistingKey_thenReturnFalse() {
+            when(cache.put(serviceId1 + TO_UPDATE.getKey(), TO_UPDATE)).thenReturn(TO_CREATE);
+
+            assertFalse(storage.upsert(serviceId1, TO_UPDATE));
+        }
+
+        @Test
+        void whenCompareAndSetExpectedValue_thenReplaceConditionally() {
+            when(cache.get(serviceId1 + TO_CREATE.getKey())).thenReturn(TO_CREATE);
+            when(cache.replace(serviceId1 + TO_CREATE.getKey(), TO_CREATE, TO_UPDATE)).thenReturn(true);
+
+            assertTrue(storage.compareAndSet(serviceId1, TO_UPDATE, TO_CREATE.getValue()));
+        }
+
+        @Test
+        void whenCompareAndSetChangedValue_thenDoNotReplace() {
+            when(cache.get(serviceId1 + TO_CREATE.getKey())).thenReturn(TO_CREATE);
+
+            assertFalse(storage.compareAndSet(serviceId1, TO_UPDATE, "anotherValue"));
+            verify(cache, never()).replace(anyString(), any(KeyValue.class), any(KeyValue.class));
         }
 
+        @Test
+        void whenCompareAndSetMissingKey_thenExceptionIsThrown() {
+            assertThrows(StorageException.class, () -> storage.compareAndSet(serviceId1, TO_UPDATE, TO_CREATE.getValue()));
+        }
+
+    }
+
+    @Nested
+    class WhenStoreToken {
+
         @Test
         void addToken() {
-            HashMap<String, String> hashMap = new HashMap<>();
-            hashMap.put("key", "token");
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
-            when(tokenCache.get(anyString())).thenAnswer(invocation -> hashMap);
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key", "token"));
+
             assertNull(storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("newkey", "newvalue")));
-            verify(tokenCache, times(1)).put(serviceId1 + "invalidTokens", hashMap);
+
+            assertEquals(Map.of("key", "token", "newkey", "newvalue"), storage.getAllMapItems(serviceId1, "invalidTokens"));
         }
 
         @Test
         void updateToken() {
-            HashMap<String, String> hashMap = new HashMap();
-            hashMap.put("key", "token");
-            InfinispanStorage storage = new InfinispanStorage(cache, tokenCache, lock);
-            when(tokenCache.get(serviceId1 + "invalidTokens")).thenReturn(hashMap);
-            KeyValue keyValue = new KeyValue("key", "token2");
-            assertNull(storage.storeMapItem(serviceId1, "invalidTokens", keyValue));
-            verify(tokenCache, times(1)).put(serviceId1 + "invalidTokens", hashMap);
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key", "token"));
+
+            assertNull(storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key", "token2")));
+
+            assertEquals("token2", mapItemCache.get(new MapItemKey(serviceId1 + "invalidTokens", "key")));
+        }
+
+        @Test
+        void givenConcurrentWrites_thenAllItemsAndChangesAreStored() throws Exception {
+            int threads = 8;
+            int itemsPerThread = 50;
+            long revision = storage.getMapItemsSince(serviceId1, "invalidTokens", 0).getRevision();
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("first", "token"));
+            revision = storage.getMapItemsSince(serviceId1, "invalidTokens", revision).getRevision();
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < itemsPerThread; i++) {
+                            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key-" + thread + "-" + i, "token"));
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(threads * itemsPerThread + 1, storage.getAllMapItems(serviceId1, "invalidTokens").size());
+            MapChanges changes = storage.getMapItemsSince(serviceId1, "invalidTokens", revision);
+            assertEquals(revision + threads * itemsPerThread, changes.getRevision());
+            assertEquals(threads * itemsPerThread, changes.getUpdated().size());
         }
     }
 
@@ -196,19 +287,63 @@ class InfinispanStorageTest {
 
         @Test
         void returnTokenList() {
-            HashMap<String, String> expectedMap = new HashMap();
-            expectedMap.put("key1", "token1");
-            expectedMap.put("key2", "token2");
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", "token1"));
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key2", "token2"));
+            storage.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key3", "rule3"));
 
-            when(tokenCache.get(serviceId1 + "invalidTokens")).thenReturn(expectedMap);
             assertEquals(2, storage.getAllMapItems(serviceId1, "invalidTokens").size());
         }
+
+        @Test
+        void givenManyMaps_thenReadWithoutScanOfAllItems() {
+            ConcurrentMap<MapItemKey, String> notScannable = new ConcurrentHashMap<>() {
+                @Override
+                public Set<Map.Entry<MapItemKey, String>> entrySet() {
+                    throw new UnsupportedOperationException("scan of all items");
+                }
+
+                @Override
+                public KeySetView<MapItemKey, String> keySet() {
+                    throw new UnsupportedOperationException("scan of all items");
+                }
+            };
+            InfinispanStorage underTest = new InfinispanStorage(cache, notScannable, new ConcurrentHashMap<>());
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", "token1"));
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key2", "1595282400000"));
+            underTest.storeMapItem(serviceId2, "invalidTokens", new KeyValue("key3", "token3"));
+
+            assertEquals(Map.of("key1", "token1", "key2", "1595282400000"), underTest.getAllMapItems(serviceId1, "invalidTokens"));
+            assertEquals(Map.of("invalidTokens", Map.of("key3", "token3")), underTest.getAllMaps(serviceId2));
+            underTest.removeNonRelevantRules(serviceId1, "invalidTokens");
+            assertEquals(Map.of("key1", "token1"), underTest.getAllMapItems(serviceId1, "invalidTokens"));
+        }
+
+        @Test
+        void givenJournalWithoutKeys_thenLoadTheKeysOnce() {
+            ConcurrentMap<String, MapChangeLog> changeLogCache = new ConcurrentHashMap<>();
+            InfinispanStorage underTest = new InfinispanStorage(cache, mapItemCache, changeLogCache);
+            mapItemCache.put(new MapItemKey(serviceId1 + "invalidTokens", "key1"), "token1");
+            mapItemCache.put(new MapItemKey(serviceId1 + "invalidUsers", "key2"), "rule2");
+            MapChangeLog legacyChangeLog = new MapChangeLog();
+            ReflectionTestUtils.setField(legacyChangeLog, "keys", null);
+            changeLogCache.put(serviceId1 + "invalidTokens", legacyChangeLog);
+
+            assertEquals(Map.of("key1", "token1"), underTest.getAllMapItems(serviceId1, "invalidTokens"));
+            assertEquals(Set.of("key1"), changeLogCache.get(serviceId1 + "invalidTokens").getKeys());
+        }
+
+        @Test
+        void givenUnknownMap_thenReturnNull() {
+            assertNull(storage.getAllMapItems(serviceId1, "invalidTokens"));
+        }
     }
 
     @Nested
     class WhenRetrieveInvalidTokensAndRules {
 
         InfinispanStorage underTest;
+        ConcurrentMap<String, Map<String, String>> legacyCache;
+
         @BeforeEach
         void createStorage() {
             Map<String, String> tokensService1 = new HashMap();
@@ -219,13 +354,18 @@ class InfinispanStorageTest {
             Map<String, String> rulesService1 = new HashMap();
             rulesService1.put("key1", "rule1");
             rulesService1.put("key2", "rule2");
-            ConcurrentMap<String, Map<String, String>> tokenCache = new ConcurrentHashMap<>();
-            tokenCache.put(serviceId1 + "invalidTokens", tokensService1);
-            tokenCache.put(serviceId1 + "invalidTokenRules", rulesService1);
-            tokenCache.put(serviceId2 + "invalidTokens", tokensService2);
-            underTest = new InfinispanStorage(cache, tokenCache, lock);
+            legacyCache = new ConcurrentHashMap<>();
+            legacyCache.put(serviceId1 + "invalidTokens", tokensService1);
+            legacyCache.put(serviceId1 + "invalidTokenRules", rulesService1);
+            legacyCache.put(serviceId2 + "invalidTokens", tokensService2);
+            underTest = new InfinispanStorage(cache, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+            underTest.migrateMaps(legacyCache);
         }
 
+        @Test
+        void migratedMapsAreRemoved() {
+            assertTrue(legacyCache.isEmpty());
+        }
 
         @Test
         void returnAllForGivenService() {
@@ -259,38 +399,81 @@ class InfinispanStorageTest {
 
     @Nested
     class WhenEvictNonRelevantTokensAndRules {
-        InfinispanStorage underTest;
 
         @BeforeEach
         void createStorage() {
-            Map<String, String> tokensService = new HashMap();
             String value = "{\"userId\":null,\"tokenValue\":\"hashedKey\",\"issuedAt\":[2022,8,17,16,13,18],\"expiresAt\":[2021,11,15,15,13,18],\"scopes\":null,\"tokenProvider\":null}";
-            tokensService.put("key1", value);
-            tokensService.put("key2", "token");
-            Map<String, String> rulesService = new HashMap();
-            rulesService.put("key1", "1595282400000");
-            Map<String, String> rulesUsers = new HashMap();
-            rulesUsers.put("key1", "1595282400000");
-            ConcurrentMap<String, Map<String, String>> tokenCache = new ConcurrentHashMap<>();
-            tokenCache.put(serviceId1 + "invalidTokens", tokensService);
-            tokenCache.put(serviceId1 + "invalidScopes", rulesService);
-            tokenCache.put(serviceId1 + "invalidUsers", rulesUsers);
-            underTest = new InfinispanStorage(cache, tokenCache, lock);
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", value));
+            storage.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key2", "token"));
+            storage.storeMapItem(serviceId1, "invalidScopes", new KeyValue("key1", "1595282400000"));
+            storage.storeMapItem(serviceId1, "invalidUsers", new KeyValue("key1", "1595282400000"));
         }
+
         @Test
         void thenEvictItems() {
-            CompletableFuture<Boolean> cmpl = new CompletableFuture<>();
-            cmpl.complete(true);
-            when(lock.tryLock(4, TimeUnit.SECONDS)).thenReturn(cmpl);
-            underTest.removeNonRelevantTokens(serviceId1, "invalidTokens");
-            underTest.removeNonRelevantRules(serviceId1, "invalidScopes");
-            underTest.removeNonRelevantRules(serviceId1, "invalidUsers");
-            Map<String, Map<String, String>> result = underTest.getAllMaps(serviceId1);
+            storage.removeNonRelevantTokens(serviceId1, "invalidTokens");
+            storage.removeNonRelevantRules(serviceId1, "invalidScopes");
+            storage.removeNonRelevantRules(serviceId1, "invalidUsers");
+            Map<String, Map<String, String>> result = storage.getAllMaps(serviceId1);
             assertEquals(1, result.get("invalidTokens").size());
-            assertEquals(0, result.get("invalidScopes").size());
-            assertEquals(0, result.get("invalidUsers").size());
+            // maps without any item don't exist
+            assertNull(result.get("invalidScopes"));
+            assertNull(result.get("invalidUsers"));
         }
 
+        @Test
+        void givenOtherService_thenKeepItsItems() {
+            storage.storeMapItem(serviceId2, "invalidScopes", new KeyValue("key1", "1595282400000"));
+
+            storage.removeNonRelevantRules(serviceId1, "invalidScopes");
+
+            assertEquals(1, storage.getAllMapItems(serviceId2, "invalidScopes").size());
+        }
+
+    }
+
+    @Nested
+    class WhenReadChangesOfMap {
+        InfinispanStorage underTest;
+
+        @BeforeEach
+        void createStorage() {
+            underTest = new InfinispanStorage(cache, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        @Test
+        void givenNoJournal_thenReturnFullContent() {
+            MapChanges changes = underTest.getMapItemsSince(serviceId1, "invalidTokens", 0);
+
+            assertTrue(changes.isFull());
+            assertTrue(changes.getUpdated().isEmpty());
+        }
+
+        @Test
+        void givenStoredItems_thenReturnOnlyNewOnes() {
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key1", "token1"));
+            long revision = underTest.getMapItemsSince(serviceId1, "invalidTokens", 0).getRevision();
+            underTest.storeMapItem(serviceId1, "invalidTokens", new KeyValue("key2", "token2"));
+
+            MapChanges changes = underTest.getMapItemsSince(serviceId1, "invalidTokens", revision);
+            assertFalse(changes.isFull());
+            assertEquals(revision + 1, changes.getRevision());
+            assertEquals(Map.of("key2", "token2"), changes.getUpdated());
+            assertTrue(underTest.getMapItemsSince(serviceId1, "invalidTokens", changes.getRevision()).isEmpty());
+        }
+
+        @Test
+        void givenEvictedRules_thenReturnRemovedKeys() {
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("old", "1595282400000"));
+            underTest.storeMapItem(serviceId1, "invalidUsers", new KeyValue("new", String.valueOf(System.currentTimeMillis())));
+            long revision = underTest.getMapItemsSince(serviceId1, "invalidUsers", 0).getRevision();
+
+            underTest.removeNonRelevantRules(serviceId1, "invalidUsers");
+
+            MapChanges changes = underTest.getMapItemsSince(serviceId1, "invalidUsers", revision);
+            assertEquals(Collections.singleton("old"), changes.getRemoved());
+            assertTrue(changes.getUpdated().isEmpty());
+        }
     }
 
 }
@@ -0,0 +1,62 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.inmemory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencyEvictionQueueTest {
+
+    private static final EvictionQueue.EntryKey FIRST = new EvictionQueue.EntryKey("service", "first");
+    private static final EvictionQueue.EntryKey SECOND = new EvictionQueue.EntryKey("service", "second");
+    private static final EvictionQueue.EntryKey THIRD = new EvictionQueue.EntryKey("service", "third");
+
+    private FrequencyEvictionQueue underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new FrequencyEvictionQueue();
+        underTest.add(FIRST);
+        underTest.add(SECOND);
+        underTest.add(THIRD);
+    }
+
+    @Test
+    void givenSameFrequency_thenOldestIsPolled() {
+        assertEquals(FIRST, underTest.poll());
+        assertEquals(SECOND, underTest.poll());
+        assertEquals(THIRD, underTest.poll());
+        assertNull(underTest.poll());
+    }
+
+    @Test
+    void givenTouchedEntries_thenLeastFrequentIsPolled() {
+        underTest.touch(FIRST);
+        underTest.touch(FIRST);
+        underTest.touch(SECOND);
+
+        assertEquals(THIRD, underTest.poll());
+        assertEquals(SECOND, underTest.poll());
+        assertEquals(FIRST, underTest.poll());
+    }
+
+    @Test
+    void givenRemovedEntry_thenItIsNotPolled() {
+        underTest.remove(FIRST);
+        underTest.touch(FIRST);
+
+        assertEquals(2, underTest.size());
+        assertEquals(SECOND, underTest.poll());
+    }
+
+}
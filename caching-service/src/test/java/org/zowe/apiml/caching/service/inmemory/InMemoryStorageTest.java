@@ -14,18 +14,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.zowe.apiml.caching.config.GeneralConfig;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.ExpirySweeper;
+import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.Strategies;
 import org.zowe.apiml.caching.service.inmemory.config.InMemoryConfig;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.message.log.ApimlLogger;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
@@ -218,53 +221,216 @@ class InMemoryStorageTest {
     }
 
     @Nested
-    class WhenTryingToStoreToken {
+    class WhenEntryHasTtl {
+        private ExpirySweeper sweeper;
+        private KeyValue expired;
+
+        @BeforeEach
+        void setUp() {
+            sweeper = ExpirySweeper.manual("inMemory");
+            underTest = new InMemoryStorage(config, testingStorage, ApimlLogger.empty(), sweeper);
+            expired = new KeyValue("key", "value", String.valueOf(System.currentTimeMillis() - 10_000));
+            expired.setTtl(5L);
+        }
+
         @Test
-        void thenThrowException() {
-            KeyValue keyValue = new KeyValue("key", "value");
-            assertThrows(StorageException.class, () -> {
-                underTest.storeMapItem(serviceId, "mapKey", keyValue);
-            });
+        void givenExpiredEntry_thenItIsNotReturned() {
+            underTest.create(serviceId, expired);
+
+            assertThrows(StorageException.class, () -> underTest.read(serviceId, "key"));
+            assertThat(underTest.readAll(serviceId, List.of("key")).isEmpty(), is(true));
+            assertThat(underTest.readForService(serviceId).isEmpty(), is(true));
+        }
+
+        @Test
+        void givenExpiredEntry_whenSwept_thenItIsRemoved() {
+            underTest.create(serviceId, expired);
+            KeyValue living = new KeyValue("living", "value");
+            living.setTtl(60L);
+            underTest.create(serviceId, living);
+
+            assertThat(sweeper.sweep(), is(1));
+            assertThat(testingStorage.get(serviceId).keySet(), is(Set.of("living")));
+            assertThat(sweeper.getScheduled(), is(1));
+        }
+
+        @Test
+        void givenUpdatedEntry_whenSwept_thenItIsKept() {
+            underTest.create(serviceId, expired);
+            underTest.upsert(serviceId, new KeyValue("key", "new value"));
+
+            assertThat(sweeper.sweep(), is(0));
+            assertThat(underTest.read(serviceId, "key").getValue(), is("new value"));
+        }
+
+        @Test
+        void givenExpiredEntry_whenCreated_thenItIsReplaced() {
+            config.getGeneralConfig().setMaxDataSize(1);
+            underTest.create(serviceId, expired);
+
+            underTest.create(serviceId, new KeyValue("key", "new value"));
+
+            assertThat(underTest.read(serviceId, "key").getValue(), is("new value"));
         }
     }
 
     @Nested
-    class WhenTryingToGetTokens {
+    class WhenBatchOperationsAreUsed {
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.getAllMapItems(serviceId, "key");
-            });
+        void givenMoreKeys_thenOnlyStoredAreReturned() {
+            underTest.create(serviceId, new KeyValue("a", "1"));
+            underTest.create(serviceId, new KeyValue("b", "2"));
+
+            Map<String, KeyValue> result = underTest.readAll(serviceId, List.of("a", "c"));
+            assertThat(result.keySet(), is(Set.of("a")));
+            assertThat(result.get("a").getValue(), is("1"));
+        }
+
+        @Test
+        void givenNewAndExistingKeys_thenTheyAreUpserted() {
+            underTest.create(serviceId, new KeyValue("a", "1"));
+
+            List<ItemResult> results = underTest.upsertAll(serviceId, List.of(new KeyValue("a", "2"), new KeyValue("b", "3")));
+
+            assertThat(results, is(List.of(ItemResult.updated("a"), ItemResult.created("b"))));
+            assertThat(underTest.read(serviceId, "a").getValue(), is("2"));
+            assertThat(underTest.read(serviceId, "b").getValue(), is("3"));
+        }
+
+        @Test
+        void givenFullStorageAndStrategyIsReject_thenOnlyNewKeyFails() {
+            config.getGeneralConfig().setMaxDataSize(1);
+            underTest.create(serviceId, new KeyValue("a", "1"));
+
+            List<ItemResult> results = underTest.upsertAll(serviceId, List.of(new KeyValue("a", "2"), new KeyValue("b", "3")));
+
+            assertThat(results.get(0), is(ItemResult.updated("a")));
+            assertThat(results.get(1).getStatus(), is(Messages.INSUFFICIENT_STORAGE.getStatus().value()));
+        }
+
+        @Test
+        void givenExpectedValue_thenValueIsReplaced() {
+            underTest.create(serviceId, new KeyValue("a", "1"));
+
+            assertThat(underTest.compareAndSet(serviceId, new KeyValue("a", "2"), "1"), is(true));
+            assertThat(underTest.compareAndSet(serviceId, new KeyValue("a", "3"), "1"), is(false));
+            assertThat(underTest.read(serviceId, "a").getValue(), is("2"));
+        }
+
+        @Test
+        void givenNoKey_thenCompareAndSetFails() {
+            KeyValue keyValue = new KeyValue("a", "2");
+            assertThrows(StorageException.class, () -> underTest.compareAndSet(serviceId, keyValue, "1"));
         }
     }
 
     @Nested
-    class WhenTryingToGetAllMaps {
+    class WhenStorageIsFullAndStrategyIsLeastRecentlyUsed {
+        @BeforeEach
+        void setUp() {
+            GeneralConfig generalConfig = new GeneralConfig();
+            generalConfig.setEvictionStrategy(Strategies.REMOVE_LEAST_RECENTLY_USED.getKey());
+            generalConfig.setMaxDataSize(2);
+            underTest = new InMemoryStorage(new InMemoryConfig(generalConfig), testingStorage, ApimlLogger.empty());
+            underTest.create(serviceId, new KeyValue("first", "value"));
+            underTest.create(serviceId, new KeyValue("second", "value"));
+        }
+
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.getAllMaps(serviceId);
-            });
+        void givenOldestWasRead_thenTheOtherIsEvicted() {
+            underTest.read(serviceId, "first");
+            underTest.create(serviceId, new KeyValue("third", "value"));
+
+            assertThat(testingStorage.get(serviceId).containsKey("first"), is(true));
+            assertThat(testingStorage.get(serviceId).containsKey("second"), is(false));
+        }
+
+        @Test
+        void givenDeletedEntry_thenNothingIsEvicted() {
+            underTest.delete(serviceId, "first");
+            underTest.create(serviceId, new KeyValue("third", "value"));
+
+            assertThat(testingStorage.get(serviceId).size(), is(2));
         }
     }
 
     @Nested
-    class WhenTryingToDeleteTokens {
+    class WhenStorageIsFullAndStrategyIsLeastFrequentlyUsed {
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.removeNonRelevantTokens(serviceId, "key");
-            });
+        void givenMoreOftenReadEntry_thenTheOtherIsEvicted() {
+            GeneralConfig generalConfig = new GeneralConfig();
+            generalConfig.setEvictionStrategy(Strategies.REMOVE_LEAST_FREQUENTLY_USED.getKey());
+            generalConfig.setMaxDataSize(2);
+            underTest = new InMemoryStorage(new InMemoryConfig(generalConfig), testingStorage, ApimlLogger.empty());
+            underTest.create(serviceId, new KeyValue("first", "value"));
+            underTest.create(serviceId, new KeyValue("second", "value"));
+            underTest.read(serviceId, "first");
+            underTest.read(serviceId, "first");
+            underTest.read(serviceId, "second");
+
+            underTest.create(serviceId, new KeyValue("third", "value"));
+
+            assertThat(testingStorage.get(serviceId).containsKey("first"), is(true));
+            assertThat(testingStorage.get(serviceId).containsKey("second"), is(false));
         }
     }
 
     @Nested
-    class WhenTryingToDeleteRules {
+    class WhenMapItemsAreStored {
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.removeNonRelevantRules(serviceId, "key");
-            });
+        void givenStoredItems_thenTheyAreReturned() {
+            underTest.storeMapItem(serviceId, "invalidTokens", new KeyValue("key", "token"));
+            underTest.storeMapItem(serviceId, "invalidUsers", new KeyValue("user", "1"));
+
+            assertThat(underTest.getAllMapItems(serviceId, "invalidTokens"), is(Collections.singletonMap("key", "token")));
+            assertThat(underTest.getAllMaps(serviceId).size(), is(2));
+            assertThat(underTest.getAllMaps("unknown").size(), is(0));
+        }
+
+        @Test
+        void givenNoItems_thenNullIsReturned() {
+            assertThat(underTest.getAllMapItems(serviceId, "invalidTokens"), is(nullValue()));
+        }
+
+        @Test
+        void givenMapItems_thenTheyAreNotCountedToStorageSize() {
+            config.getGeneralConfig().setMaxDataSize(1);
+            underTest.storeMapItem(serviceId, "invalidTokens", new KeyValue("key", "token"));
+
+            KeyValue keyValue = new KeyValue("key", "value");
+            underTest.create(serviceId, keyValue);
+            assertThat(underTest.read(serviceId, "key"), is(keyValue));
+        }
+
+        @Test
+        void givenOldRules_thenTheyAreRemoved() {
+            underTest.storeMapItem(serviceId, "invalidUsers", new KeyValue("old", "1595282400000"));
+            underTest.storeMapItem(serviceId, "invalidUsers", new KeyValue("new", String.valueOf(System.currentTimeMillis())));
+            long revision = underTest.getMapItemsSince(serviceId, "invalidUsers", 0).getRevision();
+
+            underTest.removeNonRelevantRules(serviceId, "invalidUsers");
+
+            assertThat(underTest.getAllMapItems(serviceId, "invalidUsers").keySet(), is(Collections.singleton("new")));
+            assertThat(underTest.getMapItemsSince(serviceId, "invalidUsers", revision).getRemoved(), is(Collections.singleton("old")));
+        }
+
+        @Test
+        void givenExpiredTokens_thenTheyAreRemoved() {
+            String expired = "{\"userId\":null,\"tokenValue\":\"hashedKey\",\"issuedAt\":[2022,8,17,16,13,18],\"expiresAt\":[2021,11,15,15,13,18],\"scopes\":null,\"tokenProvider\":null}";
+            underTest.storeMapItem(serviceId, "invalidTokens", new KeyValue("expired", expired));
+            underTest.storeMapItem(serviceId, "invalidTokens", new KeyValue("invalid", "token"));
+
+            underTest.removeNonRelevantTokens(serviceId, "invalidTokens");
+
+            assertThat(underTest.getAllMapItems(serviceId, "invalidTokens").keySet(), is(Collections.singleton("invalid")));
+        }
+
+        @Test
+        void givenNoMap_thenEvictionDoesNothing() {
+            underTest.removeNonRelevantTokens(serviceId, "invalidTokens");
+            underTest.removeNonRelevantRules(serviceId, "invalidUsers");
+
+            assertThat(underTest.getAllMaps(serviceId).size(), is(0));
         }
     }
 }
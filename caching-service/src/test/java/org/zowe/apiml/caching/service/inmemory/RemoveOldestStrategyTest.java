@@ -23,6 +23,7 @@ import static org.hamcrest.Matchers.is;
 class RemoveOldestStrategyTest {
     private RemoveOldestStrategy underTest;
     private Map<String, KeyValue> dataForStorage;
+    private EvictionQueue queue;
 
     @BeforeEach
     void setUp() {
@@ -38,7 +39,11 @@ class RemoveOldestStrategyTest {
         dataForStorage.put("key1", keyValue1);
         dataForStorage.put("key2", keyValue2);
 
-        underTest = new RemoveOldestStrategy(storage);
+        queue = new LinkedEvictionQueue(false);
+        queue.add(new EvictionQueue.EntryKey("test-service", "key1"));
+        queue.add(new EvictionQueue.EntryKey("test-service", "key2"));
+
+        underTest = new RemoveOldestStrategy(storage, queue);
     }
 
     @Test
@@ -46,5 +51,17 @@ class RemoveOldestStrategyTest {
         underTest.evict("key3");
 
         assertThat(dataForStorage.containsKey("key1"), is(false));
+        assertThat(dataForStorage.containsKey("key2"), is(true));
+        assertThat(queue.size(), is(1));
+    }
+
+    @Test
+    void givenEmptyQueue_thenNothingIsRemoved() {
+        queue.poll();
+        queue.poll();
+
+        underTest.evict("key3");
+
+        assertThat(dataForStorage.size(), is(2));
     }
 }
@@ -10,9 +10,12 @@
 
 package org.zowe.apiml.caching.service.redis;
 
+import io.lettuce.core.MapScanCursor;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,13 +25,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisEntryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
 import org.zowe.apiml.caching.service.redis.exceptions.RetryableRedisException;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -36,6 +40,7 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -263,19 +268,17 @@ class RedisOperatorTest {
     @Nested
     class whenGettingAllEntries {
 
-        @Mock
-        private RedisFuture<Map<String, String>> future;
+        private RedisStandIn redisStandIn;
 
         @BeforeEach
-        void mockRedisCommand() {
-            when(redisCommands.hgetall(any())).thenReturn(future);
+        void setUpRedis() {
+            redisStandIn = new RedisStandIn();
+            underTest = new RedisOperator(redisClient, redisConnection, redisStandIn.commands());
         }
 
         @Test
-        void givenEntries_thenReturnListOfEntries() throws ExecutionException, InterruptedException {
-            Map<String, String> entries = new HashMap<>();
-            entries.put(KEY, VALID_SERIALIZED_ENTRY);
-            when(future.get()).thenReturn(entries);
+        void givenEntries_thenReturnListOfEntries() throws RedisOutOfMemoryException {
+            underTest.create(REDIS_ENTRY);
 
             List<RedisEntry> result = underTest.get(SERVICE_ID);
             assertThat(result.size(), is(1));
@@ -286,19 +289,26 @@ class RedisOperatorTest {
         }
 
         @Test
-        void givenNoEntries_thenReturnEmptyList() throws ExecutionException, InterruptedException {
-            when(future.get()).thenReturn(new HashMap<>());
+        void givenMoreEntriesThanOneScan_thenReturnAllEntries() throws RedisOutOfMemoryException {
+            for (int i = 0; i < RedisStandIn.PAGE_SIZE * 2 + 1; i++) {
+                underTest.create(new RedisEntry(SERVICE_ID, new KeyValue(KEY + i, VALUE)));
+            }
 
+            List<RedisEntry> result = underTest.get(SERVICE_ID);
+            assertThat(result.size(), is(RedisStandIn.PAGE_SIZE * 2 + 1));
+        }
+
+        @Test
+        void givenNoEntries_thenReturnEmptyList() {
             List<RedisEntry> result = underTest.get(SERVICE_ID);
             assertTrue(result.isEmpty());
         }
 
         @Test
-        void givenEntryWithInvalidSerializedValue_thenReturnValidEntries() throws ExecutionException, InterruptedException {
-            Map<String, String> entries = new HashMap<>();
-            entries.put(KEY, VALID_SERIALIZED_ENTRY);
-            entries.put("key2", "invalid serialized value");
-            when(future.get()).thenReturn(entries);
+        void givenEntryWithInvalidSerializedValue_thenReturnValidEntries() throws RedisOutOfMemoryException {
+            underTest.create(REDIS_ENTRY);
+            underTest.storeMapItem(SERVICE_ID, "map", KEY_VALUE, null);
+            redisStandIn.commands().hset(SERVICE_ID, "key2", "invalid serialized value");
 
             List<RedisEntry> result = underTest.get(SERVICE_ID);
             assertThat(result.size(), is(1));
@@ -307,6 +317,18 @@ class RedisOperatorTest {
             assertThat(entry.getServiceId(), is(SERVICE_ID));
             assertThat(entry.getEntry(), is(KEY_VALUE));
         }
+    }
+
+    @Nested
+    class whenScanFails {
+
+        @Mock
+        private RedisFuture<MapScanCursor<String, String>> future;
+
+        @BeforeEach
+        void mockRedisCommand() {
+            when(redisCommands.hscan(any(), any(ScanCursor.class), any(ScanArgs.class))).thenReturn(future);
+        }
 
         @Test
         void givenInterruptedException_thenThrowRetryException() throws ExecutionException, InterruptedException {
@@ -323,6 +345,216 @@ class RedisOperatorTest {
         }
     }
 
+    @Nested
+    class whenUsingMaps {
+
+        private static final String MAP_KEY = "invalidTokens";
+
+        private RedisStandIn redisStandIn;
+
+        @BeforeEach
+        void setUpRedis() {
+            redisStandIn = new RedisStandIn();
+            underTest = new RedisOperator(redisClient, redisConnection, redisStandIn.commands());
+        }
+
+        @Test
+        void givenStoredItems_thenReturnThem() throws RedisOutOfMemoryException {
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", "1"), null);
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("b", "2"), null);
+
+            assertEquals(Map.of("a", "1", "b", "2"), underTest.getMapItems(SERVICE_ID, MAP_KEY));
+            assertEquals(Map.of("a", "1", "b", "2"), redisStandIn.hash(RedisOperator.mapId(SERVICE_ID, MAP_KEY)));
+        }
+
+        @Test
+        void givenNoMap_thenReturnNull() {
+            assertNull(underTest.getMapItems(SERVICE_ID, MAP_KEY));
+            assertTrue(underTest.getAllMaps(SERVICE_ID).isEmpty());
+        }
+
+        @Test
+        void givenMoreMaps_thenReturnAllOfThem() throws RedisOutOfMemoryException {
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", "1"), null);
+            underTest.storeMapItem(SERVICE_ID, "invalidUsers", new KeyValue("b", "2"), null);
+            underTest.storeMapItem("anotherService", MAP_KEY, new KeyValue("c", "3"), null);
+
+            assertEquals(Map.of(
+                MAP_KEY, Map.of("a", "1"),
+                "invalidUsers", Map.of("b", "2")
+            ), underTest.getAllMaps(SERVICE_ID));
+        }
+
+        @Test
+        void givenExpiration_thenItemIsExpiredByServer() throws RedisOutOfMemoryException {
+            long now = System.currentTimeMillis();
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", "1"), now + 60_000);
+            underTest.storeMapItem(SERVICE_ID, "invalidUsers", new KeyValue("b", "2"), null);
+
+            redisStandIn.moveTime(120_000);
+
+            assertTrue(underTest.isFieldExpirySupported());
+            assertNull(underTest.getMapItems(SERVICE_ID, MAP_KEY));
+            assertEquals(Map.of("invalidUsers", Map.of("b", "2")), underTest.getAllMaps(SERVICE_ID));
+        }
+
+        @Test
+        void givenServerWithoutFieldExpiration_thenItemIsStoredWithoutExpiration() throws RedisOutOfMemoryException {
+            redisStandIn.withoutFieldExpiry();
+
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", "1"), System.currentTimeMillis());
+
+            assertFalse(underTest.isFieldExpirySupported());
+            assertEquals(Map.of("a", "1"), underTest.getMapItems(SERVICE_ID, MAP_KEY));
+        }
+
+        @Test
+        void givenItemsToRemove_thenRemoveThemInAllScans() throws RedisOutOfMemoryException {
+            for (int i = 0; i < RedisStandIn.PAGE_SIZE * 3; i++) {
+                underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("key" + i, String.valueOf(i % 2)), null);
+            }
+
+            long removed = underTest.removeMapItems(SERVICE_ID, MAP_KEY, "0"::equals);
+
+            assertEquals(RedisStandIn.PAGE_SIZE * 3 / 2, removed);
+            assertTrue(underTest.getMapItems(SERVICE_ID, MAP_KEY).values().stream().allMatch("1"::equals));
+        }
+
+        @Test
+        void givenNoJournal_thenReturnNoChangeWhileTheContentIsTheSame() {
+            MapChanges first = underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, -1);
+            assertTrue(first.isFull());
+
+            assertTrue(underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, first.getRevision()).isEmpty());
+        }
+
+        @Test
+        void givenStoredAndRemovedItems_thenReturnOnlyTheChanges() throws RedisOutOfMemoryException {
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", "1"), null);
+            MapChanges first = underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, -1);
+            assertTrue(first.isFull());
+            assertEquals(Map.of("a", "1"), first.getUpdated());
+
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("b", "2"), null);
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("c", "3"), null);
+            underTest.removeMapItems(SERVICE_ID, MAP_KEY, "2"::equals);
+
+            MapChanges changes = underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, first.getRevision());
+            assertFalse(changes.isFull());
+            assertEquals(first.getRevision() + 3, changes.getRevision());
+            assertEquals(Map.of("c", "3"), changes.getUpdated());
+            assertEquals(Set.of("b"), changes.getRemoved());
+            assertTrue(underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, changes.getRevision()).isEmpty());
+        }
+
+        @Test
+        void givenTooOldRevision_thenReturnFullContent() throws RedisOutOfMemoryException {
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", "1"), null);
+            long revision = underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, -1).getRevision();
+            for (int i = 0; i <= RedisOperator.MAP_CHANGES_CAPACITY; i++) {
+                underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("a", String.valueOf(i)), null);
+            }
+            underTest.storeMapItem(SERVICE_ID, MAP_KEY, new KeyValue("b", "2"), null);
+
+            MapChanges changes = underTest.getMapItemsSince(SERVICE_ID, MAP_KEY, revision);
+            assertTrue(changes.isFull());
+            assertEquals(Map.of("a", String.valueOf(RedisOperator.MAP_CHANGES_CAPACITY), "b", "2"), changes.getUpdated());
+            assertEquals(RedisOperator.MAP_CHANGES_CAPACITY, redisStandIn.journalSize(RedisOperator.MAP_CHANGES_PREFIX + RedisOperator.mapId(SERVICE_ID, MAP_KEY)));
+        }
+
+        @Test
+        void givenRedisOutOfMemory_thenThrowOutOfMemoryException() throws ExecutionException, InterruptedException {
+            RedisFuture<Long> future = (RedisFuture<Long>) mock(RedisFuture.class);
+            RedisFuture<Long> indexFuture = (RedisFuture<Long>) mock(RedisFuture.class);
+            when(redisCommands.<Long>eval(anyString(), any(), any(String[].class), any(String[].class))).thenReturn(future);
+            when(redisCommands.sadd(any(), any())).thenReturn(indexFuture);
+            when(future.get()).thenThrow(new ExecutionException(new RedisCommandExecutionException("maxmemory")));
+            underTest = new RedisOperator(redisClient, redisConnection, redisCommands);
+
+            assertThrows(RedisOutOfMemoryException.class, () -> underTest.storeMapItem(SERVICE_ID, MAP_KEY, KEY_VALUE, null));
+        }
+    }
+
+    @Nested
+    class whenUsingBatchOperations {
+
+        @BeforeEach
+        void setUpRedis() {
+            underTest = new RedisOperator(redisClient, redisConnection, new RedisStandIn().commands());
+        }
+
+        @Test
+        void givenMoreKeys_thenReturnOnlyExisting() throws RedisOutOfMemoryException {
+            underTest.create(REDIS_ENTRY);
+
+            Map<String, RedisEntry> result = underTest.get(SERVICE_ID, List.of(KEY, "missing"));
+
+            assertThat(result.keySet(), is(Set.of(KEY)));
+            assertThat(result.get(KEY).getEntry(), is(KEY_VALUE));
+            assertTrue(underTest.get(SERVICE_ID, List.of()).isEmpty());
+        }
+
+        @Test
+        void givenNewAndExistingEntries_thenUpsertThem() throws RedisOutOfMemoryException {
+            underTest.create(REDIS_ENTRY);
+
+            List<Boolean> result = underTest.upsert(List.of(
+                new RedisEntry(SERVICE_ID, new KeyValue(KEY, "newValue")),
+                new RedisEntry(SERVICE_ID, new KeyValue("key2", VALUE))
+            ));
+
+            assertEquals(List.of(false, true), result);
+            assertEquals("newValue", underTest.get(SERVICE_ID, KEY).getEntry().getValue());
+            assertEquals(VALUE, underTest.get(SERVICE_ID, "key2").getEntry().getValue());
+        }
+
+        @Test
+        void givenExpectedValue_thenReplaceIt() throws RedisOutOfMemoryException {
+            underTest.create(REDIS_ENTRY);
+            RedisEntry newEntry = new RedisEntry(SERVICE_ID, new KeyValue(KEY, "newValue"));
+
+            assertEquals(RedisOperator.CompareAndSetResult.REPLACED, underTest.compareAndSet(newEntry, VALUE));
+            assertEquals(RedisOperator.CompareAndSetResult.CHANGED, underTest.compareAndSet(newEntry, VALUE));
+            assertEquals("newValue", underTest.get(SERVICE_ID, KEY).getEntry().getValue());
+        }
+
+        @Test
+        void givenEntriesWithTtl_thenTheyExpireOnServer() throws RedisOutOfMemoryException {
+            RedisStandIn redisStandIn = new RedisStandIn();
+            underTest = new RedisOperator(redisClient, redisConnection, redisStandIn.commands());
+            KeyValue created = new KeyValue("created", VALUE);
+            created.setTtl(60L);
+            KeyValue upserted = new KeyValue("upserted", VALUE);
+            upserted.setTtl(60L);
+
+            underTest.create(new RedisEntry(SERVICE_ID, created));
+            underTest.upsert(List.of(new RedisEntry(SERVICE_ID, upserted)));
+            underTest.create(REDIS_ENTRY);
+            redisStandIn.moveTime(120_000);
+
+            assertThat(redisStandIn.hash(SERVICE_ID).keySet(), is(Set.of(KEY)));
+        }
+
+        @Test
+        void givenEntryUpdatedWithoutTtl_thenItDoesNotExpire() throws RedisOutOfMemoryException {
+            RedisStandIn redisStandIn = new RedisStandIn();
+            underTest = new RedisOperator(redisClient, redisConnection, redisStandIn.commands());
+            KeyValue withTtl = new KeyValue(KEY, VALUE);
+            withTtl.setTtl(60L);
+
+            underTest.create(new RedisEntry(SERVICE_ID, withTtl));
+            underTest.update(REDIS_ENTRY);
+            redisStandIn.moveTime(120_000);
+
+            assertThat(redisStandIn.hash(SERVICE_ID).keySet(), is(Set.of(KEY)));
+        }
+
+        @Test
+        void givenMissingKey_thenReturnNotFound() throws RedisOutOfMemoryException {
+            assertEquals(RedisOperator.CompareAndSetResult.NOT_FOUND, underTest.compareAndSet(REDIS_ENTRY, VALUE));
+        }
+    }
+
     @Nested
     class whenDeleting {
 
@@ -371,7 +603,7 @@ class RedisOperatorTest {
 
         @BeforeEach
         void mockRedisCommand() {
-            when(redisCommands.del(any())).thenReturn(future);
+            when(redisCommands.unlink(any())).thenReturn(future);
         }
 
         @Test
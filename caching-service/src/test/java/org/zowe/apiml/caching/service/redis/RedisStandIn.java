@@ -0,0 +1,275 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.MapScanCursor;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * In-process stand-in of Redis for the tests. It implements the hash and set commands used by {@link RedisOperator}
+ * on top of the maps, including the expiration of hash fields, the compare-and-set script and the scripts of the
+ * journal of maps. The HSCAN returns {@link #PAGE_SIZE} fields at once to verify the iteration.
+ */
+class RedisStandIn implements Answer<Object> {
+
+    static final int PAGE_SIZE = 2;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private final Map<String, Map<String, Long>> expirations = new HashMap<>();
+    private final Map<String, Long> counters = new HashMap<>();
+    private final Map<String, Map<String, Long>> sortedSets = new HashMap<>();
+
+    private boolean fieldExpirySupported = true;
+    private long now = System.currentTimeMillis();
+
+    @SuppressWarnings("unchecked")
+    RedisAsyncCommands<String, String> commands() {
+        return mock(RedisAsyncCommands.class, this);
+    }
+
+    Map<String, String> hash(String key) {
+        expire();
+        return hashes.getOrDefault(key, Collections.emptyMap());
+    }
+
+    void withoutFieldExpiry() {
+        fieldExpirySupported = false;
+    }
+
+    void moveTime(long millis) {
+        now += millis;
+    }
+
+    int journalSize(String key) {
+        return sortedSets.getOrDefault(key, Collections.emptyMap()).size();
+    }
+
+    @Override
+    public Object answer(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        String name = invocation.getMethod().getName();
+        switch (name) {
+            case "toString":
+                return "RedisStandIn";
+            case "hashCode":
+                return System.identityHashCode(invocation.getMock());
+            case "equals":
+                return invocation.getMock() == args[0];
+            default:
+                break;
+        }
+
+        expire();
+        return switch (name) {
+            case "hset" -> completed(hset((String) args[0], (String) args[1], (String) args[2]));
+            case "hsetnx" -> completed(hashes.computeIfAbsent((String) args[0], k -> new LinkedHashMap<>()).putIfAbsent((String) args[1], (String) args[2]) == null);
+            case "hget" -> completed(hash((String) args[0]).get((String) args[1]));
+            case "hexists" -> completed(hash((String) args[0]).containsKey((String) args[1]));
+            case "hgetall" -> completed(new HashMap<>(hash((String) args[0])));
+            case "hdel" -> completed(hdel(args));
+            case "unlink", "del" -> completed(Arrays.stream(args).filter(key -> hashes.remove(key) != null | sets.remove(key) != null).count());
+            case "sadd" -> completed(Arrays.stream(args, 1, args.length).filter(member -> sets.computeIfAbsent((String) args[0], k -> new HashSet<>()).add((String) member)).count());
+            case "smembers" -> completed(new HashSet<>(sets.getOrDefault((String) args[0], Collections.emptySet())));
+            case "hscan" -> completed(hscan((String) args[0], (ScanCursor) args[1]));
+            case "hexpireat" -> hexpireat(args);
+            case "hmget" -> completed(Arrays.stream(args, 1, args.length)
+                .map(field -> io.lettuce.core.KeyValue.fromNullable((String) field, hash((String) args[0]).get(field)))
+                .toList());
+            case "eval" -> completed(eval(args));
+            default -> throw new UnsupportedOperationException("The command " + name + " is not supported by the stand-in");
+        };
+    }
+
+    /**
+     * The overwritten field loses its expiration, as it does in Redis.
+     */
+    private boolean hset(String key, String field, String value) {
+        expirations.getOrDefault(key, new HashMap<>()).remove(field);
+        return hashes.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(field, value) == null;
+    }
+
+    private long hdel(Object[] args) {
+        Map<String, String> hash = hashes.getOrDefault((String) args[0], new HashMap<>());
+        long removed = Arrays.stream(args, 1, args.length).filter(field -> hash.remove(field) != null).count();
+        if (hash.isEmpty()) {
+            hashes.remove((String) args[0]);
+        }
+        return removed;
+    }
+
+    private MapScanCursor<String, String> hscan(String key, ScanCursor cursor) {
+        // the cursor is the last returned field, so the fields removed during the iteration do not cause skipping
+        String last = "0".equals(cursor.getCursor()) ? null : cursor.getCursor().substring(1);
+        List<Map.Entry<String, String>> entries = new TreeMap<>(hash(key)).tailMap(last == null ? "" : last, last == null)
+            .entrySet().stream().limit(PAGE_SIZE + 1L).toList();
+
+        MapScanCursor<String, String> result = new MapScanCursor<>();
+        entries.stream().limit(PAGE_SIZE).forEach(entry -> result.getMap().put(entry.getKey(), entry.getValue()));
+        boolean finished = entries.size() <= PAGE_SIZE;
+        result.setCursor(finished ? "0" : "_" + entries.get(PAGE_SIZE - 1).getKey());
+        result.setFinished(finished);
+        return result;
+    }
+
+    /**
+     * Only the scripts of {@link RedisOperator} are supported. The arguments are the script, the output type, the keys
+     * and the values.
+     */
+    private Object eval(Object[] args) {
+        String[] keys = (String[]) args[2];
+        Object[] values = args.length == 4 && args[3] instanceof Object[] array ? array : Arrays.copyOfRange(args, 3, args.length);
+        if (RedisOperator.COMPARE_AND_SET_SCRIPT.equals(args[0])) {
+            return compareAndSet(keys, values);
+        }
+        if (RedisOperator.STORE_MAP_ITEM_SCRIPT.equals(args[0])) {
+            hset(keys[0], (String) values[0], (String) values[1]);
+            return recordChange(keys, (String) values[2], (String) values[3], List.of((String) values[0], (String) values[1]));
+        }
+        if (RedisOperator.REMOVE_MAP_ITEMS_SCRIPT.equals(args[0])) {
+            long removed = 0;
+            for (int i = 2; i < values.length; i++) {
+                if (hdel(new Object[] {keys[0], values[i]}) == 1) {
+                    removed++;
+                    recordChange(keys, (String) values[0], (String) values[1], List.of((String) values[i]));
+                }
+            }
+            return removed;
+        }
+        if (RedisOperator.READ_MAP_CHANGES_SCRIPT.equals(args[0])) {
+            return readChanges(keys, Long.parseLong((String) values[0]));
+        }
+        throw new UnsupportedOperationException("The script is not supported by the stand-in");
+    }
+
+    private long recordChange(String[] keys, String initialRevision, String capacity, List<String> change) {
+        long revision = counters.merge(keys[1], Long.parseLong(initialRevision) + 1, (current, initial) -> current + 1);
+        Map<String, Long> changes = sortedSets.computeIfAbsent(keys[2], k -> new HashMap<>());
+        try {
+            changes.put(OBJECT_MAPPER.writeValueAsString(change), revision);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        changes.entrySet().stream()
+            .sorted(Map.Entry.comparingByValue())
+            .limit(Math.max(0, changes.size() - Long.parseLong(capacity)))
+            .map(Map.Entry::getKey)
+            .toList()
+            .forEach(changes::remove);
+        return revision;
+    }
+
+    private List<Object> readChanges(String[] keys, long sinceRevision) {
+        Long revision = counters.get(keys[0]);
+        if (revision == null) {
+            return Collections.emptyList();
+        }
+
+        List<Map.Entry<String, Long>> changes = sortedSets.getOrDefault(keys[1], Collections.emptyMap()).entrySet().stream()
+            .sorted(Map.Entry.comparingByValue())
+            .toList();
+        List<Object> result = new ArrayList<>();
+        result.add(String.valueOf(revision));
+        // Redis returns the score as a floating point number
+        result.add(changes.isEmpty() ? "" : String.valueOf((double) changes.get(0).getValue()));
+        changes.stream().filter(change -> change.getValue() > sinceRevision).forEach(change -> {
+            result.add(change.getKey());
+            result.add(String.valueOf((double) change.getValue()));
+        });
+        return result;
+    }
+
+    private Long compareAndSet(String[] keys, Object[] values) {
+        String key = keys[0];
+        String field = (String) values[0];
+        String current = hash(key).get(field);
+        if (current == null) {
+            return -1L;
+        }
+        try {
+            if (!Objects.equals(OBJECT_MAPPER.readTree(current).path("value").asText(null), values[1])) {
+                return 0L;
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        hset(key, field, (String) values[2]);
+        return 1L;
+    }
+
+    private RedisFuture<List<Long>> hexpireat(Object[] args) {
+        if (!fieldExpirySupported) {
+            CompletedRedisFuture<List<Long>> future = new CompletedRedisFuture<>();
+            future.completeExceptionally(new RedisCommandExecutionException("ERR unknown command 'HEXPIREAT'"));
+            return future;
+        }
+
+        long expiresAt = TimeUnit.SECONDS.toMillis((Long) args[1]);
+        List<Long> result = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            expirations.computeIfAbsent((String) args[0], k -> new HashMap<>()).put((String) args[i], expiresAt);
+            result.add(1L);
+        }
+        return completed(result);
+    }
+
+    private void expire() {
+        expirations.forEach((key, fields) -> fields.entrySet().removeIf(field -> {
+            if (field.getValue() > now) {
+                return false;
+            }
+            Map<String, String> hash = hashes.get(key);
+            if (hash != null) {
+                hash.remove(field.getKey());
+                if (hash.isEmpty()) {
+                    hashes.remove(key);
+                }
+            }
+            return true;
+        }));
+    }
+
+    private static <T> RedisFuture<T> completed(T value) {
+        CompletedRedisFuture<T> future = new CompletedRedisFuture<>();
+        future.complete(value);
+        return future;
+    }
+
+    static class CompletedRedisFuture<T> extends CompletableFuture<T> implements RedisFuture<T> {
+
+        @Override
+        public String getError() {
+            return null;
+        }
+
+        @Override
+        public boolean await(long timeout, TimeUnit unit) {
+            return true;
+        }
+
+    }
+
+}
@@ -13,7 +13,10 @@ package org.zowe.apiml.caching.service.redis;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.model.MapChanges;
 import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.redis.exceptions.RedisOutOfMemoryException;
@@ -22,13 +25,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class RedisStorageTest {
@@ -118,6 +125,82 @@ public class RedisStorageTest {
         }
     }
 
+    @Nested
+    class WhenEntryIsExpired {
+        private RedisEntry expired;
+
+        @BeforeEach
+        void setUp() {
+            KeyValue keyValue = new KeyValue(KEY, VALUE, String.valueOf(System.currentTimeMillis() - 10_000));
+            keyValue.setTtl(5L);
+            expired = new RedisEntry(SERVICE_ID, keyValue);
+        }
+
+        @Test
+        void givenServerWithoutFieldExpiry_thenEntryIsNotReturned() {
+            when(redisOperator.get(SERVICE_ID, KEY)).thenReturn(expired);
+            when(redisOperator.get(SERVICE_ID)).thenReturn(List.of(expired));
+            when(redisOperator.get(SERVICE_ID, List.of(KEY))).thenReturn(Map.of(KEY, expired));
+
+            assertThrows(StorageException.class, () -> underTest.read(SERVICE_ID, KEY));
+            assertTrue(underTest.readForService(SERVICE_ID).isEmpty());
+            assertTrue(underTest.readAll(SERVICE_ID, List.of(KEY)).isEmpty());
+        }
+
+        @Test
+        void givenServerWithoutFieldExpiry_thenEntryIsReplacedByCreate() throws RedisOutOfMemoryException {
+            when(redisOperator.create(any())).thenReturn(false, true);
+            when(redisOperator.get(SERVICE_ID, KEY)).thenReturn(expired);
+            when(redisOperator.delete(SERVICE_ID, KEY)).thenReturn(true);
+
+            assertThat(underTest.create(SERVICE_ID, KEY_VALUE), is(KEY_VALUE));
+            verify(redisOperator).delete(SERVICE_ID, KEY);
+        }
+    }
+
+    @Nested
+    class WhenUsingBatchOperations {
+        @Test
+        void givenKeys_thenReturnFoundEntries() {
+            when(redisOperator.get(SERVICE_ID, List.of(KEY, "missing"))).thenReturn(Map.of(KEY, REDIS_ENTRY));
+
+            assertThat(underTest.readAll(SERVICE_ID, List.of(KEY, "missing")), is(Map.of(KEY, KEY_VALUE)));
+        }
+
+        @Test
+        void givenEntries_thenReturnResultOfEach() throws RedisOutOfMemoryException {
+            when(redisOperator.upsert(anyList())).thenReturn(List.of(true, false));
+
+            List<ItemResult> results = underTest.upsertAll(SERVICE_ID, List.of(new KeyValue("a", VALUE), new KeyValue("b", VALUE)));
+
+            assertThat(results, is(List.of(ItemResult.created("a"), ItemResult.updated("b"))));
+        }
+
+        @Test
+        void givenRedisOutOfMemory_thenAllEntriesFail() throws RedisOutOfMemoryException {
+            when(redisOperator.upsert(anyList())).thenThrow(new RedisOutOfMemoryException(new Exception()));
+
+            List<ItemResult> results = underTest.upsertAll(SERVICE_ID, List.of(KEY_VALUE));
+
+            assertThat(results.get(0).getMessageKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
+        }
+
+        @Test
+        void givenChangedValue_thenCompareAndSetFails() throws RedisOutOfMemoryException {
+            when(redisOperator.compareAndSet(any(), eq("expected"))).thenReturn(RedisOperator.CompareAndSetResult.CHANGED);
+
+            assertFalse(underTest.compareAndSet(SERVICE_ID, KEY_VALUE, "expected"));
+        }
+
+        @Test
+        void givenMissingKey_thenCompareAndSetThrowsException() throws RedisOutOfMemoryException {
+            when(redisOperator.compareAndSet(any(), any())).thenReturn(RedisOperator.CompareAndSetResult.NOT_FOUND);
+
+            StorageException e = assertThrows(StorageException.class, () -> underTest.compareAndSet(SERVICE_ID, KEY_VALUE, "expected"));
+            assertThat(e.getKey(), is(Messages.KEY_NOT_IN_CACHE.getKey()));
+        }
+    }
+
     @Nested
     class whenDelete {
         @Test
@@ -179,53 +262,87 @@ public class RedisStorageTest {
     }
 
     @Nested
-    class WhenTryingToStoreToken {
+    class WhenStoringMapItem {
+        @Test
+        void givenRule_thenStoreWithExpiration() throws RedisOutOfMemoryException {
+            long timestamp = System.currentTimeMillis();
+            KeyValue keyValue = new KeyValue("user", String.valueOf(timestamp));
+
+            assertNull(underTest.storeMapItem(SERVICE_ID, "invalidUsers", keyValue));
+            verify(redisOperator).storeMapItem(SERVICE_ID, "invalidUsers", keyValue, timestamp + TimeUnit.DAYS.toMillis(91));
+        }
+
         @Test
-        void thenThrowException() {
+        void givenUnknownValue_thenStoreWithoutExpiration() throws RedisOutOfMemoryException {
             KeyValue keyValue = new KeyValue("key", "value");
-            assertThrows(StorageException.class, () -> {
-                underTest.storeMapItem(SERVICE_ID, "mapKey", keyValue);
-            });
+
+            underTest.storeMapItem(SERVICE_ID, "mapKey", keyValue);
+            verify(redisOperator).storeMapItem(SERVICE_ID, "mapKey", keyValue, null);
         }
-    }
 
-    @Nested
-    class WhenTryingToGetTokens {
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.getAllMapItems(SERVICE_ID, "key");
-            });
+        void givenRedisOutOfMemory_thenThrowException() throws RedisOutOfMemoryException {
+            doThrow(new RedisOutOfMemoryException(new Exception())).when(redisOperator).storeMapItem(any(), any(), any(), any());
+            KeyValue keyValue = new KeyValue("key", "value");
+
+            StorageException e = assertThrows(StorageException.class, () -> underTest.storeMapItem(SERVICE_ID, "mapKey", keyValue));
+            assertThat(e.getKey(), is(Messages.INSUFFICIENT_STORAGE.getKey()));
         }
     }
 
     @Nested
-    class WhenTryingToGetAllMaps {
+    class WhenReadingMaps {
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.getAllMaps(SERVICE_ID);
-            });
+        void givenMap_thenReturnItems() {
+            when(redisOperator.getMapItems(SERVICE_ID, "key")).thenReturn(Map.of("a", "1"));
+            assertThat(underTest.getAllMapItems(SERVICE_ID, "key"), is(Map.of("a", "1")));
+        }
+
+        @Test
+        void givenMaps_thenReturnAllOfThem() {
+            when(redisOperator.getAllMaps(SERVICE_ID)).thenReturn(Map.of("key", Map.of("a", "1")));
+            assertThat(underTest.getAllMaps(SERVICE_ID), is(Map.of("key", Map.of("a", "1"))));
         }
-    }
 
-    @Nested
-    class WhenTryingToDeleteTokens {
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.removeNonRelevantTokens(SERVICE_ID, "key");
-            });
+        void givenRevision_thenReturnChangesFromJournal() {
+            MapChanges changes = new MapChanges(11, false, Map.of("a", "1"), Set.of());
+            when(redisOperator.getMapItemsSince(SERVICE_ID, "key", 10)).thenReturn(changes);
+            assertThat(underTest.getMapItemsSince(SERVICE_ID, "key", 10), is(changes));
         }
     }
 
     @Nested
-    class WhenTryingToDeleteRules {
+    class WhenEvictingMapItems {
+        @Test
+        void givenFieldExpiry_thenLeaveItToRedis() {
+            when(redisOperator.isFieldExpirySupported()).thenReturn(true);
+
+            underTest.removeNonRelevantTokens(SERVICE_ID, "key");
+            underTest.removeNonRelevantRules(SERVICE_ID, "key");
+
+            verify(redisOperator, never()).removeMapItems(any(), any(), any());
+        }
+
+        @Test
+        void givenNoFieldExpiry_thenRemoveOldRules() {
+            when(redisOperator.isFieldExpirySupported()).thenReturn(false);
+
+            underTest.removeNonRelevantRules(SERVICE_ID, "key");
+
+            ArgumentCaptor<Predicate<String>> toRemove = ArgumentCaptor.forClass(Predicate.class);
+            verify(redisOperator).removeMapItems(eq(SERVICE_ID), eq("key"), toRemove.capture());
+            assertTrue(toRemove.getValue().test("0"));
+            assertFalse(toRemove.getValue().test(String.valueOf(System.currentTimeMillis())));
+        }
+
         @Test
-        void thenThrowException() {
-            assertThrows(StorageException.class, () -> {
-                underTest.removeNonRelevantRules(SERVICE_ID, "key");
-            });
+        void givenNoFieldExpiry_thenRemoveExpiredTokens() {
+            when(redisOperator.isFieldExpirySupported()).thenReturn(false);
+
+            underTest.removeNonRelevantTokens(SERVICE_ID, "key");
+
+            verify(redisOperator).removeMapItems(eq(SERVICE_ID), eq("key"), any());
         }
     }
 }
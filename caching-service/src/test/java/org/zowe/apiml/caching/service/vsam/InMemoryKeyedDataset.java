@@ -0,0 +1,193 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+import org.zowe.apiml.zfile.ZFile;
+import org.zowe.apiml.zfile.ZFileConstants;
+import org.zowe.apiml.zfile.ZFileException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keyed dataset stand-in for tests off the mainframe. Records are ordered by the key (the first keyLength bytes).
+ * Each opened handle has its own position, as the ZFile does.
+ */
+class InMemoryKeyedDataset {
+
+    private final TreeMap<String, byte[]> records = new TreeMap<>();
+    private final int keyLength;
+
+    final AtomicInteger opened = new AtomicInteger();
+    final AtomicInteger closed = new AtomicInteger();
+    final AtomicInteger fullScans = new AtomicInteger();
+    volatile boolean failNextLocate;
+
+    InMemoryKeyedDataset(VsamConfig config) {
+        this.keyLength = config.getKeyLength();
+    }
+
+    synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * @return the producer of VsamFile instances which work with this dataset
+     */
+    VsamFileProducer producer() {
+        return new VsamFileProducer() {
+            @Override
+            public VsamFile newVsamFile(VsamConfig config, VsamConfig.VsamOptions options, ApimlLogger apimlLogger) {
+                ZFileProducer zFileProducer = new ZFileProducer(config, options, apimlLogger) {
+                    @Override
+                    public ZFile openZfile() {
+                        return open();
+                    }
+                };
+                return new VsamFile(config, options, false, zFileProducer, new VsamInitializer(), apimlLogger);
+            }
+        };
+    }
+
+    ZFile open() {
+        opened.incrementAndGet();
+        return new Handle();
+    }
+
+    private static String toKey(byte[] bytes, int length) {
+        // ISO-8859-1 keeps the order of unsigned bytes
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static ZFileException zFileException(String message) {
+        return new ZFileException("", message, "", 0, 0, 0, new byte[]{}, 0, 0, 0, 0, 0);
+    }
+
+    private class Handle implements ZFile {
+
+        private String position;
+        private String lastRead;
+
+        @Override
+        public void close() {
+            closed.incrementAndGet();
+        }
+
+        @Override
+        public void delrec() throws ZFileException {
+            synchronized (InMemoryKeyedDataset.this) {
+                if (lastRead == null || records.remove(lastRead) == null) {
+                    throw zFileException("No record to delete");
+                }
+                lastRead = null;
+            }
+        }
+
+        @Override
+        public boolean locate(byte[] key, int options) throws ZFileException {
+            if (failNextLocate) {
+                failNextLocate = false;
+                throw zFileException("Simulated failure");
+            }
+
+            synchronized (InMemoryKeyedDataset.this) {
+                String searched = toKey(key, Math.min(key.length, keyLength));
+                switch (options) {
+                    case ZFileConstants.LOCATE_KEY_FIRST:
+                        fullScans.incrementAndGet();
+                        position = records.isEmpty() ? null : records.firstKey();
+                        break;
+                    case ZFileConstants.LOCATE_KEY_EQ:
+                        position = records.containsKey(searched) ? searched : null;
+                        break;
+                    case ZFileConstants.LOCATE_KEY_GE:
+                        position = records.ceilingKey(searched);
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("Not supported locate option " + options);
+                }
+                return position != null;
+            }
+        }
+
+        @Override
+        public boolean locate(byte[] key, int offset, int length, int options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean locate(long recordNumberOrRBA, int options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] buf) {
+            synchronized (InMemoryKeyedDataset.this) {
+                byte[] data = position == null ? null : records.get(position);
+                if (data == null) {
+                    return -1;
+                }
+                Arrays.fill(buf, (byte) 0);
+                System.arraycopy(data, 0, buf, 0, Math.min(data.length, buf.length));
+                lastRead = position;
+                position = records.higherKey(position);
+                return data.length;
+            }
+        }
+
+        @Override
+        public int read(byte[] buf, int offset, int len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int update(byte[] buf) throws ZFileException {
+            synchronized (InMemoryKeyedDataset.this) {
+                if (lastRead == null || !records.containsKey(lastRead)) {
+                    throw zFileException("No record to update");
+                }
+                records.put(lastRead, buf.clone());
+                return 1;
+            }
+        }
+
+        @Override
+        public int update(byte[] buf, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(byte[] buf) throws ZFileException {
+            synchronized (InMemoryKeyedDataset.this) {
+                String key = toKey(buf, keyLength);
+                if (records.putIfAbsent(key, buf.clone()) != null) {
+                    throw zFileException("Duplicate key");
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] buf, int offset, int len) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getActualFilename() {
+            return "DATASET.NAME";
+        }
+
+    }
+
+}
@@ -18,10 +18,10 @@ import org.zowe.apiml.caching.config.GeneralConfig;
 import org.zowe.apiml.caching.model.KeyValue;
 import org.zowe.apiml.caching.service.Strategies;
 import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
-import org.zowe.apiml.zfile.ZFile;
 import org.zowe.apiml.zfile.ZFileConstants;
-import org.zowe.apiml.zfile.ZFileException;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -33,6 +33,7 @@ class RemoveOldestStrategyTest {
 
     private VsamConfig vsamConfiguration;
     private VsamFile file;
+    private VsamRecordIndex index;
     private final ArgumentCaptor<VsamRecord> recordArgumentCaptor = ArgumentCaptor.forClass(VsamRecord.class);
 
     private final String VALID_SERVICE_ID = "test-service-id";
@@ -49,27 +50,31 @@ class RemoveOldestStrategyTest {
         vsamConfiguration.setEncoding(ZFileConstants.DEFAULT_EBCDIC_CODE_PAGE);
 
         file = mock(VsamFile.class);
-        when(file.getZfile()).thenReturn(mock(ZFile.class));
-        underTest = new RemoveOldestStrategy(vsamConfiguration, file);
+        index = new VsamRecordIndex();
+        underTest = new RemoveOldestStrategy(vsamConfiguration, file, index);
+    }
+
+    private VsamRecord vsamRecord(String key, String created) {
+        KeyValue keyValue = new KeyValue(key, "value", created);
+        keyValue.setServiceId(VALID_SERVICE_ID);
+        return new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, keyValue);
     }
 
     @Nested
     class WhenEvictIsCalled {
         @Test
-        void givenThereAreNoItems_thenNothingIsRemoved() throws ZFileException {
-            when(file.readBytes(any())).thenReturn(Optional.empty());
+        void givenThereAreNoItems_thenNothingIsRemoved() {
+            when(file.readAllRecords()).thenReturn(Collections.emptyList());
 
             underTest.evict("new-key");
             verify(file, times(0)).delete(recordArgumentCaptor.capture());
         }
 
         @Test
-        void givenThereIsOneItem_thenItIsRemoved() throws ZFileException, VsamRecordException {
-            KeyValue record1 = new KeyValue("key-1", "value-1", "1");
-            record1.setServiceId(VALID_SERVICE_ID);
-
-            VsamRecord fullRecord1 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record1);
-            when(file.readBytes(any())).thenReturn(Optional.of(fullRecord1.getBytes()));
+        void givenThereIsOneItem_thenItIsRemoved() {
+            VsamRecord fullRecord1 = vsamRecord("key-1", "1");
+            when(file.countAllRecords()).thenReturn(1);
+            when(file.readAllRecords()).thenReturn(Collections.singletonList(fullRecord1));
             when(file.delete(any())).thenReturn(Optional.of(fullRecord1));
 
             underTest.evict("new-key");
@@ -77,27 +82,32 @@ class RemoveOldestStrategyTest {
 
             VsamRecord deleted = recordArgumentCaptor.getValue();
             assertThat(deleted.getKeyValue().getKey(), is("key-1"));
+            assertThat(index.size(file), is(0));
         }
 
         @Test
-        void givenThereIsMoreItems_thenTheOlderOneIsRemoved() throws ZFileException, VsamRecordException {
-            KeyValue record1 = new KeyValue("key-1", "value-1", "1");
-            record1.setServiceId(VALID_SERVICE_ID);
-            KeyValue record2 = new KeyValue("key-2", "value-2", "2");
-            record2.setServiceId(VALID_SERVICE_ID);
-
-            VsamRecord fullRecord1 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record1);
-            VsamRecord fullRecord2 = new VsamRecord(vsamConfiguration, VALID_SERVICE_ID, record2);
-            when(file.readBytes(any()))
-                .thenReturn(Optional.of(fullRecord2.getBytes()))
-                .thenReturn(Optional.of(fullRecord1.getBytes()));
+        void givenThereIsMoreItems_thenTheOlderOneIsRemoved() {
+            when(file.countAllRecords()).thenReturn(2);
+            when(file.readAllRecords()).thenReturn(Arrays.asList(vsamRecord("key-2", "2"), vsamRecord("key-1", "1")));
 
             underTest.evict("new-key");
             verify(file).delete(recordArgumentCaptor.capture());
 
             VsamRecord deleted = recordArgumentCaptor.getValue();
             assertThat(deleted.getKeyValue().getKey(), is("key-1"));
+        }
+
+        @Test
+        void givenRepeatedEviction_thenFileIsScannedOnce() {
+            when(file.countAllRecords()).thenReturn(3);
+            when(file.readAllRecords()).thenReturn(Arrays.asList(vsamRecord("key-2", "2"), vsamRecord("key-1", "1"), vsamRecord("key-3", "3")));
+
+            underTest.evict("new-key");
+            underTest.evict("new-key");
+            verify(file, times(2)).delete(recordArgumentCaptor.capture());
+            verify(file, times(1)).readAllRecords();
 
+            assertThat(recordArgumentCaptor.getAllValues().get(1).getKeyValue().getKey(), is("key-2"));
         }
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.caching.service.Messages;
+import org.zowe.apiml.caching.service.StorageException;
+import org.zowe.apiml.caching.service.vsam.config.VsamConfig;
+import org.zowe.apiml.message.log.ApimlLogger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class VsamFilePoolTest {
+
+    private VsamConfig config;
+    private VsamFileProducer producer;
+    private VsamFilePool underTest;
+
+    @BeforeEach
+    void setUp() {
+        config = DefaultVsamConfiguration.defaultConfiguration();
+        producer = mock(VsamFileProducer.class);
+        when(producer.newVsamFile(any(), any(), any())).thenAnswer(invocation -> mock(VsamFile.class));
+        underTest = new VsamFilePool(config, producer, ApimlLogger.empty());
+    }
+
+    @Nested
+    class WhenOperationSucceeds {
+
+        @Test
+        void thenHandleIsReused() {
+            VsamFile first = underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file);
+            VsamFile second = underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file);
+
+            assertSame(first, second);
+            verify(producer, times(1)).newVsamFile(any(), eq(VsamConfig.VsamOptions.WRITE), any());
+            verify(first, never()).close();
+        }
+
+        @Test
+        void thenReadAndWriteHandlesAreSeparated() {
+            VsamFile read = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+            VsamFile write = underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file);
+
+            assertNotSame(read, write);
+        }
+
+        @Test
+        void givenNoWrite_thenReadHandleIsReused() {
+            VsamFile first = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+            VsamFile second = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+
+            assertSame(first, second);
+        }
+
+        @Test
+        void givenWrite_thenReadHandleIsOpenedAgain() {
+            VsamFile first = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+            underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file);
+            VsamFile second = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+
+            assertNotSame(first, second);
+            verify(first).close();
+            assertSame(second, underTest.execute(VsamConfig.VsamOptions.READ, file -> file));
+        }
+
+        @Test
+        void whenPoolIsClosed_thenIdleHandlesAreClosed() {
+            VsamFile read = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+            VsamFile write = underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file);
+
+            underTest.close();
+
+            verify(read).close();
+            verify(write).close();
+        }
+
+    }
+
+    @Nested
+    class WhenOperationFails {
+
+        @Test
+        void givenStorageException_thenHandleIsReused() {
+            VsamFile[] used = new VsamFile[1];
+            assertThrows(StorageException.class, () -> underTest.execute(VsamConfig.VsamOptions.WRITE, file -> {
+                used[0] = file;
+                throw new StorageException(Messages.KEY_NOT_IN_CACHE.getKey(), Messages.KEY_NOT_IN_CACHE.getStatus(), "key", "serviceId");
+            }));
+
+            assertSame(used[0], underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file));
+            verify(used[0], never()).close();
+        }
+
+        @Test
+        void givenOtherException_thenHandleIsOpenedAgain() {
+            VsamFile[] used = new VsamFile[1];
+            assertThrows(RetryableVsamException.class, () -> underTest.execute(VsamConfig.VsamOptions.WRITE, file -> {
+                used[0] = file;
+                throw new RetryableVsamException(new IllegalStateException("failure"));
+            }));
+
+            verify(used[0]).close();
+            assertNotSame(used[0], underTest.execute(VsamConfig.VsamOptions.WRITE, file -> file));
+        }
+
+    }
+
+    @Nested
+    class WhenHandleIsExpired {
+
+        @Test
+        void thenItIsOpenedAgain() throws InterruptedException {
+            config.setHandleMaxAgeSeconds(1);
+            underTest = new VsamFilePool(config, producer, ApimlLogger.empty());
+
+            VsamFile first = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+            TimeUnit.MILLISECONDS.sleep(1100);
+            VsamFile second = underTest.execute(VsamConfig.VsamOptions.READ, file -> file);
+
+            assertNotSame(first, second);
+            verify(first).close();
+        }
+
+    }
+
+    @Nested
+    class WhenCalledConcurrently {
+
+        @Test
+        void thenWriteHandleIsUsedExclusively() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> blocking = executor.submit(() -> underTest.execute(VsamConfig.VsamOptions.WRITE, file -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return file;
+                }));
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+
+                // read handles are still available
+                assertNotNull(underTest.execute(VsamConfig.VsamOptions.READ, file -> file));
+
+                release.countDown();
+                blocking.get(5, TimeUnit.SECONDS);
+                verify(producer, times(1)).newVsamFile(any(), eq(VsamConfig.VsamOptions.WRITE), any());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.caching.service.vsam;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class VsamRecordIndexTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private VsamFile file;
+    private VsamRecordIndex underTest;
+
+    @BeforeEach
+    void setUp() {
+        file = mock(VsamFile.class);
+        underTest = new VsamRecordIndex(100, now::get);
+    }
+
+    @Test
+    void givenSameHandle_thenCountOnlyOnce() {
+        when(file.countAllRecords()).thenReturn(5);
+
+        assertEquals(5, underTest.size(file));
+        underTest.removed("service", "key");
+        assertEquals(4, underTest.size(file));
+
+        verify(file, times(1)).countAllRecords();
+    }
+
+    @Nested
+    class GivenDriftedCount {
+
+        @Test
+        void whenRecountIntervalElapses_thenReconcileTheCount() {
+            when(file.countAllRecords()).thenReturn(5, 2);
+            underTest.size(file);
+
+            now.addAndGet(100);
+            assertEquals(2, underTest.size(file));
+            verify(file, times(2)).countAllRecords();
+        }
+
+        @Test
+        void whenMoreRecordsAreRemovedThanCounted_thenCountAgain() {
+            when(file.countAllRecords()).thenReturn(0, 3);
+            assertEquals(0, underTest.size(file));
+
+            underTest.removed("service", "key");
+            assertEquals(3, underTest.size(file));
+        }
+
+        @Test
+        void whenServiceRemovesMoreRecordsThanCounted_thenCountAgain() {
+            when(file.countAllRecords()).thenReturn(1, 0);
+            underTest.size(file);
+
+            underTest.removedService(2);
+            assertEquals(0, underTest.size(file));
+            verify(file, times(2)).countAllRecords();
+        }
+
+    }
+
+}
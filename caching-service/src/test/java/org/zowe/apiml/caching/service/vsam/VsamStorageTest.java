@@ -14,7 +14,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.zowe.apiml.caching.config.GeneralConfig;
+import org.zowe.apiml.caching.model.ItemResult;
 import org.zowe.apiml.caching.model.KeyValue;
+import org.zowe.apiml.caching.service.ExpirySweeper;
+import org.zowe.apiml.caching.service.Messages;
 import org.zowe.apiml.caching.service.RejectStrategy;
 import org.zowe.apiml.caching.service.StorageException;
 import org.zowe.apiml.caching.service.Strategies;
@@ -25,6 +28,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -54,7 +58,7 @@ class VsamStorageTest {
         producer = mock(VsamFileProducer.class);
 
         EvictionStrategyProducer evictionStrategyProducer = mock(EvictionStrategyProducer.class);
-        when(evictionStrategyProducer.evictionStrategy(any())).thenReturn(new RejectStrategy(apimlLogger));
+        when(evictionStrategyProducer.evictionStrategy(any(), any())).thenReturn(new RejectStrategy(apimlLogger));
         underTest = new VsamStorage(vsamConfiguration, initializer, producer, apimlLogger, evictionStrategyProducer);
     }
 
@@ -62,7 +66,7 @@ class VsamStorageTest {
     void givenNoInvalidFilename_whenCreateVsamStorage_thenThrowException() {
         VsamInitializer initializer = mock(VsamInitializer.class);
         EvictionStrategyProducer evictionStrategyProducer = mock(EvictionStrategyProducer.class);
-        when(evictionStrategyProducer.evictionStrategy(any())).thenReturn(new RejectStrategy(apimlLogger));
+        when(evictionStrategyProducer.evictionStrategy(any(), any())).thenReturn(new RejectStrategy(apimlLogger));
         VsamConfig vsamConfig = new VsamConfig(new GeneralConfig());
 
         vsamConfig.setFileName(null);
@@ -252,6 +256,202 @@ class VsamStorageTest {
         }
     }
 
+    @Nested
+    class GivenKeyedDataset {
+
+        private InMemoryKeyedDataset dataset;
+        private VsamFileProducer datasetProducer;
+        private VsamConfig config;
+
+        @BeforeEach
+        void setUp() {
+            config = DefaultVsamConfiguration.defaultConfiguration();
+            config.getGeneralConfig().setMaxDataSize(3);
+            dataset = new InMemoryKeyedDataset(config);
+            datasetProducer = spy(dataset.producer());
+        }
+
+        private VsamStorage storage(Strategies strategy) {
+            config.getGeneralConfig().setEvictionStrategy(strategy.getKey());
+            EvictionStrategyProducer evictionStrategyProducer = new EvictionStrategyProducer(config.getGeneralConfig(), config, null);
+            return new VsamStorage(config, mock(VsamInitializer.class), datasetProducer, apimlLogger, evictionStrategyProducer);
+        }
+
+        @Test
+        void whenRecordsAreChanged_thenTheyAreReadFromTheDataset() {
+            VsamStorage storage = storage(Strategies.REJECT);
+
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value-1", "1"));
+            storage.create("other-service", new KeyValue("key-1", "value-2", "2"));
+            storage.update(VALID_SERVICE_ID, new KeyValue("key-1", "updated", "1"));
+
+            assertThat(storage.read(VALID_SERVICE_ID, "key-1").getValue(), is("updated"));
+            assertThat(storage.readForService("other-service").size(), is(1));
+
+            storage.delete(VALID_SERVICE_ID, "key-1");
+            assertThrows(StorageException.class, () -> storage.read(VALID_SERVICE_ID, "key-1"));
+            assertThat(dataset.size(), is(1));
+        }
+
+        @Test
+        void whenMoreOperationsAreCalled_thenHandlesAreReused() {
+            VsamStorage storage = storage(Strategies.REJECT);
+
+            for (int i = 0; i < 3; i++) {
+                storage.create(VALID_SERVICE_ID, new KeyValue("key-" + i, "value", "1"));
+                storage.read(VALID_SERVICE_ID, "key-" + i);
+            }
+
+            verify(datasetProducer, times(1)).newVsamFile(any(), eq(VsamConfig.VsamOptions.WRITE), any());
+            // the read handle is opened again after each write to see the new record
+            verify(datasetProducer, times(3)).newVsamFile(any(), eq(VsamConfig.VsamOptions.READ), any());
+            // the number of records is counted only once, then it is tracked
+            assertThat(dataset.fullScans.get(), is(1));
+
+            storage.close();
+            assertThat(dataset.closed.get(), is(4));
+        }
+
+        @Test
+        void whenOnlyReadsAreCalled_thenReadHandleIsReused() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value", "1"));
+
+            for (int i = 0; i < 3; i++) {
+                storage.read(VALID_SERVICE_ID, "key-1");
+            }
+
+            verify(datasetProducer, times(1)).newVsamFile(any(), eq(VsamConfig.VsamOptions.READ), any());
+        }
+
+        @Test
+        void whenDatasetIsFull_thenRejectNewRecord() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            for (int i = 0; i < 3; i++) {
+                storage.create(VALID_SERVICE_ID, new KeyValue("key-" + i, "value", "1"));
+            }
+
+            KeyValue next = new KeyValue("key-3", "value", "1");
+            assertThrows(StorageException.class, () -> storage.create(VALID_SERVICE_ID, next));
+        }
+
+        @Test
+        void whenDatasetIsFull_thenRemoveTheOldestRecord() {
+            VsamStorage storage = storage(Strategies.REMOVE_OLDEST);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-a", "value", "30"));
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-b", "value", "10"));
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-c", "value", "20"));
+
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-d", "value", "40"));
+            assertThrows(StorageException.class, () -> storage.read(VALID_SERVICE_ID, "key-b"));
+
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-e", "value", "50"));
+            assertThrows(StorageException.class, () -> storage.read(VALID_SERVICE_ID, "key-c"));
+
+            assertThat(dataset.size(), is(3));
+            // one scan to count the records and one to load their order
+            assertThat(dataset.fullScans.get(), is(2));
+        }
+
+        @Test
+        void whenServiceIsRemoved_thenCountIsUpdated() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value", "1"));
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-2", "value", "1"));
+            storage.create("other-service", new KeyValue("key-1", "value", "1"));
+
+            storage.deleteForService(VALID_SERVICE_ID);
+
+            storage.create("other-service", new KeyValue("key-2", "value", "1"));
+            storage.create("other-service", new KeyValue("key-3", "value", "1"));
+            assertThat(dataset.size(), is(3));
+        }
+
+        @Test
+        void whenBatchOperationsAreCalled_thenTheyUseOneHandle() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value", "1"));
+
+            List<ItemResult> results = storage.upsertAll(VALID_SERVICE_ID, List.of(
+                new KeyValue("key-1", "updated", "1"),
+                new KeyValue("key-2", "value", "1"),
+                new KeyValue("key-3", "value", "1"),
+                new KeyValue("key-4", "value", "1")
+            ));
+
+            assertThat(results.get(0), is(ItemResult.updated("key-1")));
+            assertThat(results.get(1), is(ItemResult.created("key-2")));
+            assertThat(results.get(2), is(ItemResult.created("key-3")));
+            assertThat(results.get(3).getStatus(), is(Messages.INSUFFICIENT_STORAGE.getStatus().value()));
+
+            Map<String, KeyValue> read = storage.readAll(VALID_SERVICE_ID, List.of("key-1", "key-2", "key-4"));
+            assertThat(read.keySet(), is(Set.of("key-1", "key-2")));
+            assertThat(read.get("key-1").getValue(), is("updated"));
+            verify(datasetProducer, times(1)).newVsamFile(any(), eq(VsamConfig.VsamOptions.WRITE), any());
+        }
+
+        @Test
+        void whenCompareAndSetIsCalled_thenValueIsReplacedOnlyIfExpected() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value", "1"));
+
+            assertThat(storage.compareAndSet(VALID_SERVICE_ID, new KeyValue("key-1", "updated", "1"), "value"), is(true));
+            assertThat(storage.compareAndSet(VALID_SERVICE_ID, new KeyValue("key-1", "again", "1"), "value"), is(false));
+            assertThat(storage.read(VALID_SERVICE_ID, "key-1").getValue(), is("updated"));
+
+            KeyValue missing = new KeyValue("key-2", "value", "1");
+            assertThrows(StorageException.class, () -> storage.compareAndSet(VALID_SERVICE_ID, missing, "value"));
+        }
+
+        @Test
+        void whenRecordIsExpired_thenItIsHiddenAndSwept() {
+            ExpirySweeper sweeper = ExpirySweeper.manual("vsam");
+            config.getGeneralConfig().setEvictionStrategy(Strategies.REJECT.getKey());
+            EvictionStrategyProducer evictionStrategyProducer = new EvictionStrategyProducer(config.getGeneralConfig(), config, null);
+            VsamStorage storage = new VsamStorage(config, mock(VsamInitializer.class), datasetProducer, apimlLogger, evictionStrategyProducer, sweeper);
+
+            KeyValue expired = new KeyValue("key-1", "value", String.valueOf(System.currentTimeMillis() - 10_000));
+            expired.setTtl(5L);
+            storage.create(VALID_SERVICE_ID, expired);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-2", "value", "1"));
+
+            assertThrows(StorageException.class, () -> storage.read(VALID_SERVICE_ID, "key-1"));
+            assertThat(storage.readForService(VALID_SERVICE_ID).keySet(), is(Set.of("key-2")));
+
+            assertThat(sweeper.sweep(), is(1));
+            assertThat(dataset.size(), is(1));
+        }
+
+        @Test
+        void whenRecordIsExpired_thenItIsReplacedByCreate() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            KeyValue expired = new KeyValue("key-1", "value", String.valueOf(System.currentTimeMillis() - 10_000));
+            expired.setTtl(5L);
+            storage.create(VALID_SERVICE_ID, expired);
+
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "new value", "1"));
+
+            assertThat(storage.read(VALID_SERVICE_ID, "key-1").getValue(), is("new value"));
+            assertThat(dataset.size(), is(1));
+        }
+
+        @Test
+        void whenHandleFails_thenItIsOpenedAgainAndRecordsAreCounted() {
+            VsamStorage storage = storage(Strategies.REJECT);
+            storage.create(VALID_SERVICE_ID, new KeyValue("key-1", "value", "1"));
+
+            dataset.failNextLocate = true;
+            KeyValue next = new KeyValue("key-2", "value", "1");
+            assertThrows(RetryableVsamException.class, () -> storage.create(VALID_SERVICE_ID, next));
+
+            storage.create(VALID_SERVICE_ID, next);
+            verify(datasetProducer, times(2)).newVsamFile(any(), eq(VsamConfig.VsamOptions.WRITE), any());
+            assertThat(dataset.fullScans.get(), is(2));
+            assertThat(dataset.size(), is(2));
+        }
+
+    }
+
     @Nested
     class WhenTryingToStoreToken {
         @Test
@@ -10,6 +10,8 @@
 
 package org.zowe.apiml.passticket;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.zowe.apiml.util.ClassOrDefaultProxyUtils;
 import org.zowe.apiml.util.ObjectUtil;
 import lombok.AllArgsConstructor;
@@ -17,21 +19,96 @@ import lombok.Value;
 
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * This class allows to get a PassTicket from SAF.
+ * <p>
+ * IRRPassTicket is not thread-safe, therefore each call uses an instance from a pool exclusively. The pool is
+ * created lazily up to poolSize instances, a call waits only if all of them are in use, at most for maxWait. The dummy
+ * implementation (outside of z/OS) is thread-safe and it is shared without any pool.
+ * <p>
+ * Optionally, the generated PassTicket could be reused for the same user and application for reuseTtl. It should
+ * be enabled only if the applications accept the replay of PassTickets (see APPL class option REPLAY), otherwise
+ * each PassTicket could be used just once.
  */
 public class PassTicketService {
 
+    static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+    private final Supplier<IRRPassTicket> factory;
+    // the first instance, it decides if the SAF implementation is available
     private final IRRPassTicket irrPassTicket;
+    private final boolean pooled;
+    private final int poolSize;
+    private final Duration maxWait;
+    private final BlockingQueue<IRRPassTicket> idle;
+    private final AtomicInteger created = new AtomicInteger(1);
+    private final Cache<TicketKey, String> reusedTickets;
+
+    private final LongAdder generatedCount = new LongAdder();
+    private final LongAdder reusedCount = new LongAdder();
+    private final LongAdder evaluatedCount = new LongAdder();
+    private final LongAdder contendedCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder callNanos = new LongAdder();
 
     public PassTicketService() {
-        this.irrPassTicket = ClassOrDefaultProxyUtils.createProxy(IRRPassTicket.class,
-            "com.ibm.eserver.zos.racf.IRRPassTicket", DefaultPassTicketImpl::new,
+        this(Runtime.getRuntime().availableProcessors(), Duration.ZERO);
+    }
+
+    /**
+     * @param poolSize maximum number of SAF instances used concurrently
+     * @param reuseTtl how long the generated PassTicket could be reused, zero disables the reuse
+     */
+    public PassTicketService(int poolSize, Duration reuseTtl) {
+        this(poolSize, reuseTtl, DEFAULT_MAX_WAIT);
+    }
+
+    /**
+     * @param poolSize maximum number of SAF instances used concurrently
+     * @param reuseTtl how long the generated PassTicket could be reused, zero disables the reuse
+     * @param maxWait  how long a call waits for an instance if all of them are in use
+     */
+    public PassTicketService(int poolSize, Duration reuseTtl, Duration maxWait) {
+        this(createFactory(new DefaultPassTicketImpl()), poolSize, reuseTtl, maxWait);
+    }
+
+    PassTicketService(Supplier<IRRPassTicket> factory, int poolSize, Duration reuseTtl) {
+        this(factory, poolSize, reuseTtl, DEFAULT_MAX_WAIT);
+    }
+
+    PassTicketService(Supplier<IRRPassTicket> factory, int poolSize, Duration reuseTtl, Duration maxWait) {
+        this.factory = factory;
+        this.irrPassTicket = factory.get();
+        this.pooled = !(irrPassTicket instanceof ClassOrDefaultProxyUtils.ClassOrDefaultProxyState state) || state.isUsingBaseImplementation();
+        this.poolSize = Math.max(1, poolSize);
+        this.maxWait = maxWait;
+        this.idle = new ArrayBlockingQueue<>(this.poolSize);
+        this.idle.add(irrPassTicket);
+
+        if (reuseTtl.isZero() || reuseTtl.isNegative()) {
+            this.reusedTickets = null;
+        } else {
+            this.reusedTickets = CacheBuilder.newBuilder()
+                .expireAfterWrite(reuseTtl)
+                .maximumSize(10_000)
+                .build();
+        }
+    }
+
+    private static Supplier<IRRPassTicket> createFactory(DefaultPassTicketImpl defaultImplementation) {
+        return () -> ClassOrDefaultProxyUtils.createProxy(IRRPassTicket.class,
+            "com.ibm.eserver.zos.racf.IRRPassTicket", () -> defaultImplementation,
             new ClassOrDefaultProxyUtils.ByMethodName<>(
                 "com.ibm.eserver.zos.racf.IRRPassTicketEvaluationException",
                 IRRPassTicketEvaluationException.class, "getSafRc", "getRacfRc", "getRacfRsn"),
@@ -40,14 +117,93 @@ public class PassTicketService {
                 IRRPassTicketGenerationException.class, "getSafRc", "getRacfRc", "getRacfRsn"));
     }
 
-    // IRRPassTicket is not thread-safe, must be synchronized
-    public synchronized void evaluate(String userId, String applId, String passTicket) throws IRRPassTicketEvaluationException {
-        irrPassTicket.evaluate(userId.toUpperCase(), applId.toUpperCase(), passTicket.toUpperCase());
+    public void evaluate(String userId, String applId, String passTicket) throws IRRPassTicketEvaluationException {
+        String user = userId.toUpperCase();
+        String appl = applId.toUpperCase();
+        String ticket = passTicket.toUpperCase();
+        this.<Void, IRRPassTicketEvaluationException>call(instance -> {
+            instance.evaluate(user, appl, ticket);
+            return null;
+        });
+        evaluatedCount.increment();
     }
 
-    // IRRPassTicket is not thread-safe, must be synchronized
-    public synchronized String generate(String userId, String applId) throws IRRPassTicketGenerationException {
-        return irrPassTicket.generate(userId.toUpperCase(), applId.toUpperCase());
+    public String generate(String userId, String applId) throws IRRPassTicketGenerationException {
+        TicketKey key = new TicketKey(userId.toUpperCase(), applId.toUpperCase());
+        if (reusedTickets != null) {
+            String ticket = reusedTickets.getIfPresent(key);
+            if (ticket != null) {
+                reusedCount.increment();
+                return ticket;
+            }
+        }
+
+        String ticket = this.<String, IRRPassTicketGenerationException>call(instance -> instance.generate(key.getUserId(), key.getApplId()));
+        generatedCount.increment();
+        if (reusedTickets != null) {
+            reusedTickets.put(key, ticket);
+        }
+        return ticket;
+    }
+
+    private <T, E extends Exception> T call(PassTicketCall<T, E> call) throws E {
+        if (!pooled) {
+            return measure(irrPassTicket, call);
+        }
+
+        IRRPassTicket instance = borrow();
+        try {
+            return measure(instance, call);
+        } finally {
+            idle.add(instance);
+        }
+    }
+
+    private <T, E extends Exception> T measure(IRRPassTicket instance, PassTicketCall<T, E> call) throws E {
+        long start = System.nanoTime();
+        try {
+            return call.apply(instance);
+        } finally {
+            callNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private IRRPassTicket borrow() {
+        IRRPassTicket instance = idle.poll();
+        if (instance != null) {
+            return instance;
+        }
+
+        if (created.incrementAndGet() <= poolSize) {
+            boolean success = false;
+            try {
+                instance = factory.get();
+                success = true;
+                return instance;
+            } finally {
+                if (!success) {
+                    // the slot is released, so the next call could try to create the instance again
+                    created.decrementAndGet();
+                }
+            }
+        }
+        created.decrementAndGet();
+
+        // all instances are in use
+        contendedCount.increment();
+        long start = System.nanoTime();
+        try {
+            instance = idle.poll(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            if (instance == null) {
+                throw new IllegalStateException("No instance of IRRPassTicket was available in " + maxWait.toMillis() + " ms");
+            }
+            return instance;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for IRRPassTicket", e);
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
     }
 
     public boolean isUsingSafImplementation() {
@@ -55,9 +211,68 @@ public class PassTicketService {
         return stateInterface.isUsingBaseImplementation();
     }
 
+    public long getGeneratedCount() {
+        return generatedCount.sum();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.sum();
+    }
+
+    public long getEvaluatedCount() {
+        return evaluatedCount.sum();
+    }
+
+    /**
+     * @return number of calls which waited for an instance of IRRPassTicket
+     */
+    public long getContendedCount() {
+        return contendedCount.sum();
+    }
+
+    /**
+     * @return total time of waiting for an instance of IRRPassTicket in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * @return total time of calls of IRRPassTicket in nanoseconds
+     */
+    public long getCallNanos() {
+        return callNanos.sum();
+    }
+
+    /**
+     * @return number of created instances of IRRPassTicket
+     */
+    public int getPoolSize() {
+        return pooled ? created.get() : 1;
+    }
+
+    @FunctionalInterface
+    private interface PassTicketCall<T, E extends Exception> {
+
+        T apply(IRRPassTicket irrPassTicket) throws E;
+
+    }
+
+    @AllArgsConstructor
+    @Value
+    private static class TicketKey {
+
+        String userId;
+        String applId;
+
+    }
+
+    /**
+     * Dummy implementation used outside of z/OS, it is thread-safe
+     */
     public static class DefaultPassTicketImpl implements IRRPassTicket {
 
-        private static int id = 0;
+        private static final AtomicInteger id = new AtomicInteger();
 
         public static final String ZOWE_DUMMY_USERID = "USER";
         public static final String ZOWE_DUMMY_PASS_TICKET_PREFIX = "ZOWE_DUMMY_PASS_TICKET";
@@ -66,7 +281,7 @@ public class PassTicketService {
         public static final String UNKNOWN_USER = "UNKNOWN_USER";
         public static final String UNKNOWN_APPLID = "XBADAPPL";
 
-        private final Map<UserApp, Set<String>> userAppToPasstickets = new HashMap<>();
+        private final Map<UserApp, Set<String>> userAppToPasstickets = new ConcurrentHashMap<>();
 
         @Override
         public void evaluate(String userId, String applId, String passTicket) throws IRRPassTicketEvaluationException {
@@ -104,13 +319,10 @@ public class PassTicketService {
             }
 
             final UserApp userApp = new UserApp(userId, applId);
-            final int currentId;
-            synchronized (DefaultPassTicketImpl.class) {
-                currentId = DefaultPassTicketImpl.id++;
-            }
+            final int currentId = id.getAndIncrement();
             final String passTicket = ZOWE_DUMMY_PASS_TICKET_PREFIX + "_" + applId + "_" + userId + "_" + currentId;
 
-            final Set<String> passTickets = userAppToPasstickets.computeIfAbsent(userApp, x -> new HashSet<>());
+            final Set<String> passTickets = userAppToPasstickets.computeIfAbsent(userApp, x -> ConcurrentHashMap.newKeySet());
             passTickets.add(passTicket);
 
             return passTicket;
@@ -11,9 +11,13 @@
 package org.zowe.apiml.util;
 
 import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -31,6 +35,10 @@ import java.util.function.Supplier;
  * class name or create a local (dummy) implementation. Outside this library it will be used and programmer don't
  * need test if class exists or not.
  *
+ * Calls of the proxy are dispatched via method handles, which are bound to the target during creation of the proxy.
+ * It avoids reflective lookups and access checks on each call. The method is invoked reflectively only if the handle
+ * cannot be created (the method is not accessible via lookup of this class).
+ *
  * Created proxy offer also interface @link #MethodInvocationHandler to check state of created proxy. This is the
  * reason exclude method names getImplementationClass and isUsingBaseImplementation from proxied object. Any object
  * cannot have methods with the names without attributes. In case of conflict methods for checking state of proxy
@@ -283,9 +291,8 @@ public final class ClassOrDefaultProxyUtils {
 
             try {
                 return endPoint.invoke(args);
-            } catch (InvocationTargetException ite) {
+            } catch (Throwable t) {
                 // thrown exception in proxied object
-                Throwable t = ite.getCause();
                 // if there is a mapping of exceptions, apply it to use custom Exception
                 for (ExceptionMapping<?> em : exceptionMappings) {
                     em.apply(t);
@@ -306,16 +313,60 @@ public final class ClassOrDefaultProxyUtils {
 
         /**
          * Object define instance of object where should be invoked the method and contains also method instance. It is
-         * prepare before to make invoke in the fastest way.
+         * prepare before to make invoke in the fastest way - the method handle is bound to the target and accepts
+         * arguments as an array (the same as the proxy provides).
          */
-        @Data
+        @Getter
         public static final class EndPoint {
 
+            private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
             private final Object target;
             private final Method method;
+            private final MethodHandle handle;
+
+            public EndPoint(Object target, Method method) {
+                this.target = target;
+                this.method = method;
+                this.handle = createHandle(target, method);
+            }
+
+            private static MethodHandle createHandle(Object target, Method method) {
+                try {
+                    MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+                    if (!Modifier.isStatic(method.getModifiers())) {
+                        methodHandle = methodHandle.bindTo(target);
+                    }
+                    return methodHandle
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(INVOKER_TYPE);
+                } catch (IllegalAccessException | RuntimeException e) {
+                    log.debug("Method {} cannot be bound, it will be invoked reflectively : " + e.getLocalizedMessage(), method);
+                    return null;
+                }
+            }
+
+            /**
+             * Invoke the method
+             * @param args arguments of the call (could be null for methods without arguments)
+             * @return result of the method, null for void methods
+             * @throws Throwable the original exception thrown by the method (not wrapped)
+             */
+            public Object invoke(Object[] args) throws Throwable {
+                if (handle != null) {
+                    return (Object) handle.invokeExact(args);
+                }
+
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException ite) {
+                    throw ite.getCause();
+                }
+            }
 
-            public Object invoke(Object[] args) throws InvocationTargetException, IllegalAccessException {
-                return method.invoke(target, args);
+            @Override
+            public String toString() {
+                return "EndPoint(target=" + target + ", method=" + method + ", bound=" + (handle != null) + ")";
             }
 
         }
@@ -14,14 +14,27 @@ import org.zowe.apiml.passticket.PassTicketService.DefaultPassTicketImpl;
 import org.zowe.apiml.util.ClassOrDefaultProxyUtils;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.zowe.apiml.passticket.PassTicketService.DefaultPassTicketImpl.*;
 
@@ -48,8 +61,7 @@ class PassTicketServiceTest {
 
     @Test
     void testInit() throws IRRPassTicketEvaluationException, IRRPassTicketGenerationException {
-        PassTicketService passTicketService = new PassTicketService();
-        ReflectionTestUtils.setField(passTicketService, "irrPassTicket", new IRRPassTicket() {
+        PassTicketService passTicketService = new PassTicketService(() -> new IRRPassTicket() {
             @Override
             public void evaluate(String userId, String applId, String passTicket) {
                 evaluated = userId + "-" + applId + "-" + passTicket;
@@ -59,7 +71,7 @@ class PassTicketServiceTest {
             public String generate(String userId, String applId) {
                 return userId + "-" + applId;
             }
-        });
+        }, 1, Duration.ZERO);
 
         evaluated = null;
         passTicketService.evaluate("userId", "applId", "passTicket");
@@ -71,6 +83,183 @@ class PassTicketServiceTest {
         assertEquals("1-2", passTicketService.generate("1", "2"));
     }
 
+    @Nested
+    class GivenPool {
+
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+        private final AtomicInteger generated = new AtomicInteger();
+
+        private IRRPassTicket createNotThreadSafe() {
+            return new IRRPassTicket() {
+                private final AtomicBoolean inUse = new AtomicBoolean();
+
+                @Override
+                public void evaluate(String userId, String applId, String passTicket) {
+                    // not used
+                }
+
+                @Override
+                public String generate(String userId, String applId) {
+                    assertTrue(inUse.compareAndSet(false, true), "The instance is used concurrently");
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    active.decrementAndGet();
+                    inUse.set(false);
+                    return "TICKET" + generated.incrementAndGet();
+                }
+            };
+        }
+
+        private void generateConcurrently(PassTicketService service, int threads) throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> service.generate("user", "applid")));
+                }
+                for (Future<String> result : results) {
+                    assertNotNull(result.get(5, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void whenConcurrentCalls_thenUseInstancesExclusively() throws Exception {
+            PassTicketService service = new PassTicketService(this::createNotThreadSafe, 4, Duration.ZERO);
+
+            generateConcurrently(service, 16);
+
+            assertEquals(16, service.getGeneratedCount());
+            assertTrue(maxActive.get() <= 4);
+            assertTrue(service.getPoolSize() <= 4);
+        }
+
+        @Test
+        void whenPoolIsExhausted_thenWaitAndCountContention() throws Exception {
+            PassTicketService service = new PassTicketService(this::createNotThreadSafe, 1, Duration.ZERO);
+
+            generateConcurrently(service, 4);
+
+            assertEquals(1, maxActive.get());
+            assertEquals(1, service.getPoolSize());
+            assertTrue(service.getContendedCount() > 0);
+            assertTrue(service.getWaitNanos() > 0);
+        }
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private IRRPassTicket createBlocking() {
+            return new IRRPassTicket() {
+                @Override
+                public void evaluate(String userId, String applId, String passTicket) {
+                    // not used
+                }
+
+                @Override
+                public String generate(String userId, String applId) {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "BLOCKED";
+                }
+            };
+        }
+
+        private Future<String> occupy(PassTicketService service, ExecutorService executor) throws InterruptedException {
+            Future<String> result = executor.submit(() -> service.generate("user", "applid"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            return result;
+        }
+
+        @Test
+        void whenPoolIsExhaustedLongerThanMaxWait_thenFail() throws Exception {
+            PassTicketService service = new PassTicketService(this::createBlocking, 1, Duration.ZERO, Duration.ofMillis(50));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<String> blocked = occupy(service, executor);
+
+                assertThrows(IllegalStateException.class, () -> service.generate("user", "applid"));
+                release.countDown();
+                assertEquals("BLOCKED", blocked.get(5, TimeUnit.SECONDS));
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void whenCreationOfInstanceFails_thenCreateItAgainLater() throws Exception {
+            AtomicInteger created = new AtomicInteger();
+            PassTicketService service = new PassTicketService(() -> switch (created.incrementAndGet()) {
+                case 1 -> createBlocking();
+                case 2 -> throw new IllegalStateException("SAF is not available");
+                default -> createNotThreadSafe();
+            }, 2, Duration.ZERO, Duration.ofMillis(50));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                occupy(service, executor);
+
+                assertThrows(IllegalStateException.class, () -> service.generate("user", "applid"));
+                assertEquals("TICKET1", service.generate("user", "applid"));
+                assertEquals(2, service.getPoolSize());
+                assertEquals(0, service.getContendedCount());
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void givenReuseEnabled_whenGenerateForSameUserAndApplication_thenReuseTicket() throws IRRPassTicketGenerationException {
+            PassTicketService service = new PassTicketService(this::createNotThreadSafe, 1, Duration.ofSeconds(60));
+
+            String ticket = service.generate("user", "applid");
+            assertEquals(ticket, service.generate("USER", "APPLID"));
+            assertNotEquals(ticket, service.generate("user", "other"));
+
+            assertEquals(2, service.getGeneratedCount());
+            assertEquals(1, service.getReusedCount());
+        }
+
+        @Test
+        void givenReuseDisabled_whenGenerate_thenGenerateEachTime() throws IRRPassTicketGenerationException {
+            PassTicketService service = new PassTicketService(this::createNotThreadSafe, 1, Duration.ZERO);
+
+            assertNotEquals(service.generate("user", "applid"), service.generate("user", "applid"));
+            assertEquals(0, service.getReusedCount());
+        }
+
+    }
+
+    @Test
+    void givenDefaultImplementation_whenConcurrentCalls_thenEvaluateTicketsOfAllThreads() throws Exception {
+        PassTicketService service = new PassTicketService(4, Duration.ZERO);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> service.generate(TEST_USERID, "applId")));
+            }
+            for (Future<String> result : results) {
+                String ticket = result.get(5, TimeUnit.SECONDS);
+                assertDoesNotThrow(() -> service.evaluate(TEST_USERID, "applId", ticket));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void testProxy() throws IRRPassTicketGenerationException {
         IRRPassTicket irrPassTicket = ClassOrDefaultProxyUtils.createProxy(
@@ -276,6 +276,55 @@ class ClassOrDefaultProxyUtilsTest {
 
     }
 
+    @Nested
+    class GivenMethodHandles {
+
+        @SuppressWarnings("unchecked")
+        private Map<Method, Object> getMapping(Object proxy) {
+            return (Map<Method, Object>) ReflectionTestUtils.getField(ReflectionTestUtils.getField(proxy, "h"), "mapping");
+        }
+
+        @Test
+        void whenProxyIsCreated_thenAllMethodsAreBound() {
+            TestInterface1 ti = ClassOrDefaultProxyUtils.createProxy(TestInterface1.class, TestImplementation1A.class.getName(), TestImplementation1B::new);
+
+            Map<Method, Object> mapping = getMapping(ti);
+            assertFalse(mapping.isEmpty());
+            mapping.values().forEach(endPoint -> assertNotNull(ReflectionTestUtils.getField(endPoint, "handle"), endPoint.toString()));
+        }
+
+        @Test
+        void whenCalledWithPrimitivesAndNull_thenConvertArguments() {
+            TestInterface1 ti = ClassOrDefaultProxyUtils.createProxy(TestInterface1.class, TestImplementation1A.class.getName(), TestImplementation1B::new);
+
+            assertEquals("response_1a_2_null_7", ti.method2(null, 7));
+        }
+
+        @Test
+        void whenTargetThrowsRuntimeException_thenRethrowTheSameInstance() {
+            IllegalStateException exception = new IllegalStateException("failed");
+            StaticMethods staticMethods = ClassOrDefaultProxyUtils.createProxy(StaticMethods.class, "unknown.Class", () -> new StaticMethodsMockClass() {
+                @Override
+                public String getValue() {
+                    throw exception;
+                }
+            });
+
+            assertSame(exception, assertThrows(IllegalStateException.class, staticMethods::getValue));
+        }
+
+        @Test
+        void whenMethodIsNotAccessible_thenInvokeReflectively() throws Throwable {
+            Method method = TestImplementation1B.class.getMethod("method1");
+            Class<?> endPointClass = Class.forName(ClassOrDefaultProxyUtils.class.getName() + "$MethodInvocationHandler$EndPoint");
+            Object endPoint = endPointClass.getConstructor(Object.class, Method.class).newInstance(new TestImplementation1B(), method);
+            ReflectionTestUtils.setField(endPoint, "handle", null);
+
+            assertEquals("response_1b_1", endPointClass.getMethod("invoke", Object[].class).invoke(endPoint, (Object) null));
+        }
+
+    }
+
     interface StaticMethods {
 
         String getValue();
@@ -21,7 +21,10 @@ import com.netflix.eureka.transport.EurekaServerHttpClientFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.netflix.eureka.server.InstanceRegistry;
 import org.springframework.cloud.netflix.eureka.server.InstanceRegistryProperties;
-import org.springframework.context.ApplicationContext;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRenewedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.zowe.apiml.discovery.config.EurekaConfig;
 
 import java.lang.invoke.MethodHandle;
@@ -29,7 +32,6 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.regex.Pattern;
 
@@ -41,23 +43,26 @@ import java.util.regex.Pattern;
  * <p>
  * #2659 Race condition with registration events in Eureka server
  * https://github.com/spring-cloud/spring-cloud-netflix/issues/2659
+ * <p>
+ * The overridden methods of the parent classes are called via method handles. They are exact-typed and stored in
+ * static final fields, so the call is linked once and it can be inlined, without boxing of the arguments. The events
+ * are published by {@link ApplicationEventPublisher} given in the constructor, see {@link BatchingEventPublisher}.
  */
 @Slf4j
 public class ApimlInstanceRegistry extends InstanceRegistry {
 
     private static final String EXCEPTION_MESSAGE = "Implementation of InstanceRegistry changed, please verify fix of order sending events";
 
-    private MethodHandle handleRegistrationMethod;
-    private MethodHandle handlerResolveInstanceLeaseDurationMethod;
-    private MethodHandle handleCancellationMethod;
-
-    private MethodHandle register2ArgsMethodHandle;
-    private MethodHandle register3ArgsMethodHandle;
-    private MethodHandle cancelMethodHandle;
+    private SuperCalls superCalls;
 
-    private final ApplicationContext appCntx;
+    private final ApplicationEventPublisher eventPublisher;
     private final EurekaConfig.Tuple tuple;
 
+    private final Pattern appNamePattern;
+    private final Pattern instanceIdPattern;
+    private final Pattern servicePrefixPattern;
+    private final String targetValue;
+
     public ApimlInstanceRegistry(
         EurekaServerConfig serverConfig,
         EurekaClientConfig clientConfig,
@@ -65,7 +70,7 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
         EurekaClient eurekaClient,
         EurekaServerHttpClientFactory eurekaServerHttpClientFactory,
         InstanceRegistryProperties instanceRegistryProperties,
-        ApplicationContext appCntx,
+        ApplicationEventPublisher eventPublisher,
         EurekaConfig.Tuple tuple
     ) {
 
@@ -73,76 +78,41 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
             instanceRegistryProperties.getExpectedNumberOfClientsSendingRenews(),
             instanceRegistryProperties.getDefaultOpenForTrafficCount()
         );
-        this.appCntx = appCntx;
+        this.eventPublisher = eventPublisher;
         this.tuple = tuple;
-        init();
-    }
+        this.superCalls = createSuperCalls();
 
+        if (tuple.isValid()) {
+            // the patterns are compiled once, they are used on each renewal
+            String servicePrefix = tuple.getOldPrefix();
+            if (!servicePrefix.contains("*")) {
+                servicePrefix = servicePrefix + "*";
+            }
+            this.appNamePattern = Pattern.compile("(?i)^" + tuple.getOldPrefix());
+            this.instanceIdPattern = Pattern.compile("(?i):" + tuple.getOldPrefix());
+            this.servicePrefixPattern = Pattern.compile("(?i)^" + servicePrefix);
+            this.targetValue = tuple.getNewPrefix().replace("*", "");
+        } else {
+            this.appNamePattern = null;
+            this.instanceIdPattern = null;
+            this.servicePrefixPattern = null;
+            this.targetValue = null;
+        }
+    }
 
-    /**
-     * Prepare method handlers to overridden methods to reimplement methods in InstanceRegistry, which contains a race
-     * condition problem. Handlers are faster than reflection, close to bytecode.
-     */
-    private void init() {
+    private static SuperCalls createSuperCalls() {
         try {
-            Method registrationMethod =
-                InstanceRegistry.class.getDeclaredMethod("handleRegistration",
-                    InstanceInfo.class, int.class, boolean.class
-                );
-            registrationMethod.setAccessible(true);
-            handleRegistrationMethod = MethodHandles.lookup().unreflect(registrationMethod);
-
-            Method cancelationMethod =
-                InstanceRegistry.class.getDeclaredMethod("handleCancelation",
-                    String.class, String.class, boolean.class
-                );
-            cancelationMethod.setAccessible(true);
-            handleCancellationMethod = MethodHandles.lookup().unreflect(cancelationMethod);
-
-            Method resolveInstanceLeaseDurationMethod =
-                InstanceRegistry.class.getDeclaredMethod("resolveInstanceLeaseDuration",
-                    InstanceInfo.class
-                );
-            resolveInstanceLeaseDurationMethod.setAccessible(true);
-            handlerResolveInstanceLeaseDurationMethod = MethodHandles.lookup().unreflect(resolveInstanceLeaseDurationMethod);
-
-            Constructor<MethodHandles.Lookup> lookupConstructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class);
-            lookupConstructor.setAccessible(true);
-            MethodHandles.Lookup lookup = lookupConstructor.newInstance(PeerAwareInstanceRegistryImpl.class);
-
-            register2ArgsMethodHandle =
-                lookup.findSpecial(
-                    PeerAwareInstanceRegistryImpl.class,
-                    "register",
-                    MethodType.methodType(void.class, InstanceInfo.class, boolean.class),
-                    PeerAwareInstanceRegistryImpl.class
-                );
-
-            cancelMethodHandle =
-                lookup.findSpecial(
-                    PeerAwareInstanceRegistryImpl.class,
-                    "cancel",
-                    MethodType.methodType(boolean.class, String.class, String.class, boolean.class),
-                    PeerAwareInstanceRegistryImpl.class
-                );
-
-            lookup = lookupConstructor.newInstance(AbstractInstanceRegistry.class);
-
-            register3ArgsMethodHandle =
-                lookup.findSpecial(
-                    AbstractInstanceRegistry.class,
-                    "register",
-                    MethodType.methodType(void.class, InstanceInfo.class, int.class, boolean.class),
-                    AbstractInstanceRegistry.class
-                );
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e) {
+            return new MethodHandleSuperCalls();
+        } catch (ExceptionInInitializerError e) {
+            throw new IllegalArgumentException(EXCEPTION_MESSAGE, e.getCause());
+        } catch (NoClassDefFoundError e) {
             throw new IllegalArgumentException(EXCEPTION_MESSAGE, e);
         }
     }
 
-    protected int resolveInstanceLeaseDurationRewritten(final InstanceInfo info) {
+    private static <T> T invoke(SuperCall<T> call) {
         try {
-            return (int) handlerResolveInstanceLeaseDurationMethod.invokeWithArguments(this, info);
+            return call.call();
         } catch (ClassCastException | WrongMethodTypeException e) {
             throw new IllegalArgumentException(EXCEPTION_MESSAGE, e);
         } catch (RuntimeException re) {
@@ -152,79 +122,74 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
         }
     }
 
+    protected int resolveInstanceLeaseDurationRewritten(final InstanceInfo info) {
+        return invoke(() -> superCalls.resolveInstanceLeaseDuration(this, info));
+    }
+
     @Override
     public void register(InstanceInfo info, int leaseDuration, boolean isReplication) {
-            info = changeServiceId(info);
-        try {
-            register3ArgsMethodHandle.invokeWithArguments(this, info, leaseDuration, isReplication);
-            handleRegistrationMethod.invokeWithArguments(this, info, leaseDuration, isReplication);
-        } catch (ClassCastException | WrongMethodTypeException e) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE, e);
-        } catch (RuntimeException re) {
-            throw re;
-        } catch (Throwable t) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE, t);
-        }
+        final InstanceInfo changedInfo = changeServiceId(info);
+        invoke(() -> {
+            superCalls.register(this, changedInfo, leaseDuration, isReplication);
+            return null;
+        });
+        handleRegistration(changedInfo, leaseDuration, isReplication);
     }
 
     @Override
     public void register(InstanceInfo info, final boolean isReplication) {
-            info = changeServiceId(info);
-        try {
-            register2ArgsMethodHandle.invokeWithArguments(this, info, isReplication);
-            handleRegistrationMethod.invokeWithArguments(this, info, resolveInstanceLeaseDurationRewritten(info), isReplication);
-        } catch (ClassCastException | WrongMethodTypeException e) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE, e);
-        } catch (RuntimeException re) {
-            throw re;
-        } catch (Throwable t) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE, t);
-        }
+        final InstanceInfo changedInfo = changeServiceId(info);
+        invoke(() -> {
+            superCalls.register(this, changedInfo, isReplication);
+            return null;
+        });
+        handleRegistration(changedInfo, resolveInstanceLeaseDurationRewritten(changedInfo), isReplication);
     }
 
     @Override
     public boolean cancel(String appName, String serverId, boolean isReplication) {
-        try {
-            String[] updatedValues = replaceValues(appName, serverId);
-            final boolean out = (boolean) cancelMethodHandle.invokeWithArguments(this, updatedValues[0], updatedValues[1], isReplication);
-            handleCancellationMethod.invokeWithArguments(this, updatedValues[0], updatedValues[1], isReplication);
-            return out;
-        } catch (ClassCastException | WrongMethodTypeException e) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE, e);
-        } catch (RuntimeException re) {
-            throw re;
-        } catch (Throwable t) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE, t);
-        }
+        String[] updatedValues = replaceValues(appName, serverId);
+        final boolean out = invoke(() -> superCalls.cancel(this, updatedValues[0], updatedValues[1], isReplication));
+        log.debug("cancel {}, serverId {}, isReplication {}", updatedValues[0], updatedValues[1], isReplication);
+        eventPublisher.publishEvent(new EurekaInstanceCanceledEvent(this, updatedValues[0], updatedValues[1], isReplication));
+        return out;
     }
 
+    /**
+     * Renew the lease. The event is published after the renewal (the same as for registration), the instance is found
+     * directly by its ID instead of the scan of all applications in {@link InstanceRegistry#renew(String, String, boolean)}.
+     */
     @Override
     public boolean renew(String appName, String serverId, boolean isReplication) {
         String[] updatedValues = replaceValues(appName, serverId);
-        return super.renew(updatedValues[0], updatedValues[1], isReplication);
+        final boolean out = invoke(() -> superCalls.renew(this, updatedValues[0], updatedValues[1], isReplication));
+        InstanceInfo instance = getInstanceByAppAndId(updatedValues[0], updatedValues[1], false);
+        if (instance != null) {
+            eventPublisher.publishEvent(new EurekaInstanceRenewedEvent(this, updatedValues[0], updatedValues[1], instance, isReplication));
+        }
+        return out;
     }
 
     @Override
     public boolean statusUpdate(String appName, String instanceId, InstanceInfo.InstanceStatus newStatus, String lastDirtyTimestamp, boolean isReplication) {
         String[] updatedValues = replaceValues(appName, instanceId);
         boolean isUpdated = super.statusUpdate(updatedValues[0], updatedValues[1], newStatus, lastDirtyTimestamp, isReplication);
-        this.appCntx.publishEvent(new EurekaStatusUpdateEvent(this, appName, instanceId));
+        eventPublisher.publishEvent(new EurekaStatusUpdateEvent(this, appName, instanceId));
         return isUpdated;
     }
 
+    private void handleRegistration(InstanceInfo info, int leaseDuration, boolean isReplication) {
+        log.debug("register {}, vip {}, leaseDuration {}, isReplication {}", info.getAppName(), info.getVIPAddress(), leaseDuration, isReplication);
+        eventPublisher.publishEvent(new EurekaInstanceRegisteredEvent(this, info, leaseDuration, isReplication));
+    }
+
     private String[] replaceValues(String appName, String instanceId) {
         if (tuple.isValid()) {
-            String appNameRegex = "(?i)^" + tuple.getOldPrefix();
-            String instanceIdRegex = "(?i):" + tuple.getOldPrefix();
-            String targetValue = tuple.getNewPrefix();
-            if (targetValue.contains("*")) {
-                targetValue = targetValue.replace("*", "");
-            }
-            appName = appName.replaceAll(appNameRegex, targetValue).toUpperCase();
+            appName = appNamePattern.matcher(appName).replaceAll(targetValue).toUpperCase();
             if (instanceId.contains(":")) {
-                instanceId = instanceId.replaceAll(instanceIdRegex, ":" + targetValue);
+                instanceId = instanceIdPattern.matcher(instanceId).replaceAll(":" + targetValue);
             } else {
-                instanceId = instanceId.replaceAll(appNameRegex, targetValue);
+                instanceId = appNamePattern.matcher(instanceId).replaceAll(targetValue);
             }
         }
         return new String[]{appName,instanceId};
@@ -237,14 +202,9 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
      */
     protected InstanceInfo changeServiceId(final InstanceInfo info) {
         if (tuple.isValid()) {
-            String servicePrefix = tuple.getOldPrefix();
-            if (!servicePrefix.contains("*")) {
-                servicePrefix = servicePrefix + "*";
-            }
             String instanceId = info.getInstanceId();
             String appName = info.getAppName();
-            Pattern p = Pattern.compile("(?i)^" + servicePrefix);
-            if (p.matcher(appName).find()) {
+            if (servicePrefixPattern.matcher(appName).find()) {
                 String[] updatedValues = replaceValues(appName, instanceId);
                 log.debug("The instance ID of {} service has been changed to {}.", info.getAppName(), updatedValues[1]);
                 return new InstanceInfo.Builder(info)
@@ -259,4 +219,122 @@ public class ApimlInstanceRegistry extends InstanceRegistry {
         return info;
     }
 
+    /**
+     * Call of an overridden method of a parent class
+     */
+    @FunctionalInterface
+    private interface SuperCall<T> {
+
+        T call() throws Throwable;
+
+    }
+
+    /**
+     * Calls of the overridden methods of the parent classes (the implementation without the event).
+     */
+    interface SuperCalls {
+
+        void register(ApimlInstanceRegistry registry, InstanceInfo info, boolean isReplication) throws Throwable;
+
+        void register(ApimlInstanceRegistry registry, InstanceInfo info, int leaseDuration, boolean isReplication) throws Throwable;
+
+        boolean cancel(ApimlInstanceRegistry registry, String appName, String serverId, boolean isReplication) throws Throwable;
+
+        boolean renew(ApimlInstanceRegistry registry, String appName, String serverId, boolean isReplication) throws Throwable;
+
+        int resolveInstanceLeaseDuration(ApimlInstanceRegistry registry, InstanceInfo info) throws Throwable;
+
+    }
+
+    /**
+     * Implementation of the calls by exact-typed method handles. The handles are created once, when the class is
+     * initialized.
+     */
+    static final class MethodHandleSuperCalls implements SuperCalls {
+
+        private static final MethodHandle REGISTER_2_ARGS;
+        private static final MethodHandle REGISTER_3_ARGS;
+        private static final MethodHandle CANCEL;
+        private static final MethodHandle RENEW;
+        private static final MethodHandle RESOLVE_INSTANCE_LEASE_DURATION;
+
+        static {
+            try {
+                Method resolveInstanceLeaseDurationMethod =
+                    InstanceRegistry.class.getDeclaredMethod("resolveInstanceLeaseDuration",
+                        InstanceInfo.class
+                    );
+                resolveInstanceLeaseDurationMethod.setAccessible(true);
+                RESOLVE_INSTANCE_LEASE_DURATION = MethodHandles.lookup().unreflect(resolveInstanceLeaseDurationMethod)
+                    .asType(MethodType.methodType(int.class, ApimlInstanceRegistry.class, InstanceInfo.class));
+
+                Constructor<MethodHandles.Lookup> lookupConstructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class);
+                lookupConstructor.setAccessible(true);
+                MethodHandles.Lookup lookup = lookupConstructor.newInstance(PeerAwareInstanceRegistryImpl.class);
+
+                REGISTER_2_ARGS = lookup.findSpecial(
+                        PeerAwareInstanceRegistryImpl.class,
+                        "register",
+                        MethodType.methodType(void.class, InstanceInfo.class, boolean.class),
+                        PeerAwareInstanceRegistryImpl.class
+                    )
+                    .asType(MethodType.methodType(void.class, ApimlInstanceRegistry.class, InstanceInfo.class, boolean.class));
+
+                CANCEL = lookup.findSpecial(
+                        PeerAwareInstanceRegistryImpl.class,
+                        "cancel",
+                        MethodType.methodType(boolean.class, String.class, String.class, boolean.class),
+                        PeerAwareInstanceRegistryImpl.class
+                    )
+                    .asType(MethodType.methodType(boolean.class, ApimlInstanceRegistry.class, String.class, String.class, boolean.class));
+
+                RENEW = lookup.findSpecial(
+                        PeerAwareInstanceRegistryImpl.class,
+                        "renew",
+                        MethodType.methodType(boolean.class, String.class, String.class, boolean.class),
+                        PeerAwareInstanceRegistryImpl.class
+                    )
+                    .asType(MethodType.methodType(boolean.class, ApimlInstanceRegistry.class, String.class, String.class, boolean.class));
+
+                lookup = lookupConstructor.newInstance(AbstractInstanceRegistry.class);
+
+                REGISTER_3_ARGS = lookup.findSpecial(
+                        AbstractInstanceRegistry.class,
+                        "register",
+                        MethodType.methodType(void.class, InstanceInfo.class, int.class, boolean.class),
+                        AbstractInstanceRegistry.class
+                    )
+                    .asType(MethodType.methodType(void.class, ApimlInstanceRegistry.class, InstanceInfo.class, int.class, boolean.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException(EXCEPTION_MESSAGE, e);
+            }
+        }
+
+        @Override
+        public void register(ApimlInstanceRegistry registry, InstanceInfo info, boolean isReplication) throws Throwable {
+            REGISTER_2_ARGS.invokeExact(registry, info, isReplication);
+        }
+
+        @Override
+        public void register(ApimlInstanceRegistry registry, InstanceInfo info, int leaseDuration, boolean isReplication) throws Throwable {
+            REGISTER_3_ARGS.invokeExact(registry, info, leaseDuration, isReplication);
+        }
+
+        @Override
+        public boolean cancel(ApimlInstanceRegistry registry, String appName, String serverId, boolean isReplication) throws Throwable {
+            return (boolean) CANCEL.invokeExact(registry, appName, serverId, isReplication);
+        }
+
+        @Override
+        public boolean renew(ApimlInstanceRegistry registry, String appName, String serverId, boolean isReplication) throws Throwable {
+            return (boolean) RENEW.invokeExact(registry, appName, serverId, isReplication);
+        }
+
+        @Override
+        public int resolveInstanceLeaseDuration(ApimlInstanceRegistry registry, InstanceInfo info) throws Throwable {
+            return (int) RESOLVE_INSTANCE_LEASE_DURATION.invokeExact(registry, info);
+        }
+
+    }
+
 }
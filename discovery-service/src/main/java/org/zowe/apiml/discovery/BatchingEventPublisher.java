@@ -0,0 +1,135 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publisher of the registry events in the background. The events are queued and a single thread publishes them in
+ * the order they were received. The thread takes up to {@code batchSize} queued events at once, but the listeners
+ * still get the events one by one. The registration (and the replication from peers) does not wait for the
+ * listeners, so a mass registration (ie. after a restart of Discovery Service) is not slowed down by them.
+ * <p>
+ * If the queue is full, the caller waits until there is a space in the queue. It slows down the caller, but no event
+ * is lost and the order of the events is kept. After the publisher is closed, the events are published in the
+ * calling thread, once the queued ones are published.
+ */
+@Slf4j
+public class BatchingEventPublisher implements ApplicationEventPublisher, AutoCloseable {
+
+    private static final long OFFER_TIMEOUT_MS = 1000;
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    private final ApplicationEventPublisher delegate;
+    private final BlockingQueue<Object> queue;
+    private final int batchSize;
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    public BatchingEventPublisher(ApplicationEventPublisher delegate, int queueSize, int batchSize) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+
+        this.thread = new Thread(this::run, "Registry events publisher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void publishEvent(Object event) {
+        boolean queued = false;
+        boolean interrupted = false;
+        while (!closed && !queued) {
+            try {
+                queued = queue.offer(event, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (!queued) {
+                    log.debug("The queue of registry events is full, waiting for the publisher");
+                }
+            } catch (InterruptedException e) {
+                // the event cannot be skipped, the interruption is restored once it is queued
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (closed) {
+            // the publisher thread could be already finished, the queued events are published first
+            synchronized (this) {
+                publishQueued();
+                if (!queued) {
+                    publish(event);
+                }
+            }
+        }
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                batch.forEach(this::publish);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // publish the rest to not lose any event on shutdown
+        publishQueued();
+    }
+
+    private synchronized void publishQueued() {
+        Object event;
+        while ((event = queue.poll()) != null) {
+            publish(event);
+        }
+    }
+
+    private void publish(Object event) {
+        try {
+            delegate.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Cannot publish the registry event {}", event, e);
+        }
+    }
+
+    /**
+     * Stop the publisher thread, the queued events are published before the method returns.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
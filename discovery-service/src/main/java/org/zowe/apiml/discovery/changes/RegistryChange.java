@@ -0,0 +1,34 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery.changes;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Change in the registry sent to the subscribers
+ *
+ * @param action     type of the change
+ * @param serviceId  service of the changed instance
+ * @param instanceId the changed instance
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RegistryChange(Action action, String serviceId, String instanceId) {
+
+    public enum Action {
+
+        SUBSCRIBED,
+        REGISTERED,
+        CANCELED,
+        STATUS_UPDATED
+
+    }
+
+}
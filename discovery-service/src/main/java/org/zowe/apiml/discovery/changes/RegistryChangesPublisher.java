@@ -0,0 +1,145 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery.changes;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.zowe.apiml.discovery.EurekaStatusUpdateEvent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publisher of the changes in the registry as server-sent events. The subscribers (ie. API Catalog) are notified
+ * about each registration, cancellation and change of status, so they do not need to wait for the next poll of the
+ * delta. The event contains just the identification of the instance, the subscriber should read the delta then.
+ * <p>
+ * The events are sent by a single background thread, so a slow subscriber does not block the registration. The
+ * subscription is closed after apiml.discovery.changes.timeoutSeconds, the subscriber should reconnect. A heartbeat
+ * (comment) is sent each heartbeatSeconds to keep the connection open and to release disconnected subscribers.
+ */
+@Slf4j
+@Component
+public class RegistryChangesPublisher {
+
+    static final String EVENT_NAME = "change";
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final long timeoutMs;
+    private final ScheduledExecutorService executor;
+
+    @Autowired
+    public RegistryChangesPublisher(
+        @Value("${apiml.discovery.changes.timeoutSeconds:300}") long timeoutSeconds,
+        @Value("${apiml.discovery.changes.heartbeatSeconds:15}") long heartbeatSeconds
+    ) {
+        this(TimeUnit.SECONDS.toMillis(timeoutSeconds), Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Registry changes publisher");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        if (heartbeatSeconds > 0) {
+            executor.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    RegistryChangesPublisher(long timeoutMs, ScheduledExecutorService executor) {
+        this.timeoutMs = timeoutMs;
+        this.executor = executor;
+    }
+
+    /**
+     * Create a new subscription. The first event is sent immediately, the subscriber should read the whole delta to
+     * get changes missed while it was not connected.
+     *
+     * @return emitter of the events
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        send(emitter, new RegistryChange(RegistryChange.Action.SUBSCRIBED, null, null));
+        return emitter;
+    }
+
+    @EventListener
+    public void listen(EurekaInstanceRegisteredEvent event) {
+        publish(new RegistryChange(RegistryChange.Action.REGISTERED, event.getInstanceInfo().getAppName(), event.getInstanceInfo().getInstanceId()));
+    }
+
+    @EventListener
+    public void listen(EurekaInstanceCanceledEvent event) {
+        publish(new RegistryChange(RegistryChange.Action.CANCELED, event.getAppName(), event.getServerId()));
+    }
+
+    @EventListener
+    public void listen(EurekaStatusUpdateEvent event) {
+        publish(new RegistryChange(RegistryChange.Action.STATUS_UPDATED, event.getServiceId(), event.getInstanceId()));
+    }
+
+    int getSubscribers() {
+        return emitters.size();
+    }
+
+    void publish(RegistryChange change) {
+        emitters.forEach(emitter -> send(emitter, change));
+    }
+
+    private void send(SseEmitter emitter, RegistryChange change) {
+        execute(emitter, SseEmitter.event().name(EVENT_NAME).data(change, MediaType.APPLICATION_JSON));
+    }
+
+    void heartbeat() {
+        emitters.forEach(emitter -> execute(emitter, SseEmitter.event().comment("heartbeat")));
+    }
+
+    private void execute(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            executor.execute(() -> {
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("The subscriber of registry changes is not available: {}", e.getMessage());
+                    emitters.remove(emitter);
+                    emitter.completeWithError(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("The publisher of registry changes is stopped");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+        emitters.clear();
+    }
+
+}
@@ -28,6 +28,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.zowe.apiml.discovery.ApimlInstanceRegistry;
+import org.zowe.apiml.discovery.BatchingEventPublisher;
 import org.zowe.apiml.discovery.eureka.RefreshablePeerEurekaNodes;
 
 import javax.net.ssl.SSLContext;
@@ -45,6 +46,17 @@ public class EurekaConfig {
     @Value("${apiml.discovery.maxPeerRetries:10}")
     private int maxPeerRetries;
 
+    @Value("${apiml.discovery.events.queueSize:10000}")
+    private int eventsQueueSize;
+
+    @Value("${apiml.discovery.events.batchSize:500}")
+    private int eventsBatchSize;
+
+    @Bean
+    public BatchingEventPublisher registryEventPublisher(ApplicationContext appCntx) {
+        return new BatchingEventPublisher(appCntx, eventsQueueSize, eventsBatchSize);
+    }
+
     @Bean
     @Primary
     public ApimlInstanceRegistry getApimlInstanceRegistry(
@@ -54,9 +66,9 @@ public class EurekaConfig {
         EurekaClient eurekaClient,
         EurekaServerHttpClientFactory eurekaServerHttpClientFactory,
         InstanceRegistryProperties instanceRegistryProperties,
-        ApplicationContext appCntx) {
+        BatchingEventPublisher registryEventPublisher) {
         eurekaClient.getApplications(); // force initialization
-        return new ApimlInstanceRegistry(serverConfig, clientConfig, serverCodecs, eurekaClient, eurekaServerHttpClientFactory, instanceRegistryProperties, appCntx, new Tuple(tuple));
+        return new ApimlInstanceRegistry(serverConfig, clientConfig, serverCodecs, eurekaClient, eurekaServerHttpClientFactory, instanceRegistryProperties, registryEventPublisher, new Tuple(tuple));
     }
 
     @Bean
@@ -27,11 +27,13 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.cloud.netflix.eureka.server.InstanceRegistryProperties;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRenewedEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.zowe.apiml.discovery.config.EurekaConfig;
 
-import java.lang.invoke.MethodHandle;
 import java.lang.invoke.WrongMethodTypeException;
 import java.util.stream.Stream;
 
@@ -69,12 +71,7 @@ class ApimlInstanceRegistryTest {
             appCntx,
             new EurekaConfig.Tuple("service*,hello")));
 
-        MethodHandle methodHandle = mock(MethodHandle.class);
-
-        ReflectionTestUtils.setField(apimlInstanceRegistry, "handleRegistrationMethod", methodHandle);
-        ReflectionTestUtils.setField(apimlInstanceRegistry, "register2ArgsMethodHandle", methodHandle);
-        ReflectionTestUtils.setField(apimlInstanceRegistry, "register3ArgsMethodHandle", methodHandle);
-        ReflectionTestUtils.setField(apimlInstanceRegistry, "handleCancellationMethod", methodHandle);
+        ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", mock(ApimlInstanceRegistry.SuperCalls.class));
     }
 
     @Nested
@@ -121,9 +118,7 @@ class ApimlInstanceRegistryTest {
             instanceRegistryProperties,
             appCntx,
             new EurekaConfig.Tuple(tuple)));
-        MethodHandle methodHandle = mock(MethodHandle.class);
-        ReflectionTestUtils.setField(apimlInstanceRegistry,"register2ArgsMethodHandle",methodHandle);
-        ReflectionTestUtils.setField(apimlInstanceRegistry,"handleRegistrationMethod",methodHandle);
+        ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", mock(ApimlInstanceRegistry.SuperCalls.class));
         apimlInstanceRegistry.register(standardInstance, false);
         assertEquals(expectedServiceIdInResult, standardInstance.getInstanceId());
     }
@@ -140,9 +135,7 @@ class ApimlInstanceRegistryTest {
             instanceRegistryProperties,
             appCntx,
             new EurekaConfig.Tuple(tuple)));
-        MethodHandle methodHandle = mock(MethodHandle.class);
-        ReflectionTestUtils.setField(apimlInstanceRegistry,"register3ArgsMethodHandle",methodHandle);
-        ReflectionTestUtils.setField(apimlInstanceRegistry,"handleRegistrationMethod",methodHandle);
+        ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", mock(ApimlInstanceRegistry.SuperCalls.class));
         apimlInstanceRegistry.register(standardInstance, 1, false);
         assertEquals(expectedServiceIdInResult, standardInstance.getInstanceId());
     }
@@ -163,9 +156,9 @@ class ApimlInstanceRegistryTest {
                     instanceRegistryProperties,
                     appCntx,
                     new EurekaConfig.Tuple(tuple)));
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "register2ArgsMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any())).thenThrow(exception);
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                doThrow(exception).when(superCalls).register(any(), any(), anyBoolean());
                 assertThrows(IllegalArgumentException.class, () -> {
                     apimlInstanceRegistry.register(standardInstance, false);
                 });
@@ -182,9 +175,9 @@ class ApimlInstanceRegistryTest {
                     instanceRegistryProperties,
                     appCntx,
                     new EurekaConfig.Tuple("service*,hello")));
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "register2ArgsMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any())).thenThrow(new RuntimeException());
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                doThrow(new RuntimeException()).when(superCalls).register(any(), any(), anyBoolean());
                 assertThrows(RuntimeException.class, () -> {
                     apimlInstanceRegistry.register(standardInstance, false);
                 });
@@ -202,9 +195,9 @@ class ApimlInstanceRegistryTest {
                     instanceRegistryProperties,
                     appCntx,
                     new EurekaConfig.Tuple(tuple)));
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "register3ArgsMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any(), any())).thenThrow(exception);
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                doThrow(exception).when(superCalls).register(any(), any(), anyInt(), anyBoolean());
                 assertThrows(IllegalArgumentException.class, () -> {
                     apimlInstanceRegistry.register(standardInstance, 1, false);
                 });
@@ -221,9 +214,9 @@ class ApimlInstanceRegistryTest {
                     instanceRegistryProperties,
                     appCntx,
                     new EurekaConfig.Tuple("service*,hello")));
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "register3ArgsMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any())).thenThrow(new RuntimeException());
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                doThrow(new RuntimeException()).when(superCalls).register(any(), any(), anyInt(), anyBoolean());
                 assertThrows(RuntimeException.class, () -> {
                     apimlInstanceRegistry.register(standardInstance, 1, false);
                 });
@@ -243,9 +236,9 @@ class ApimlInstanceRegistryTest {
             @ParameterizedTest
             @MethodSource("exceptions")
             void thenThrowIllegalArgumentException(Exception exception) throws Throwable {
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "handlerResolveInstanceLeaseDurationMethod", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any())).thenThrow(exception);
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                when(superCalls.resolveInstanceLeaseDuration(any(), any())).thenThrow(exception);
                 assertThrows(IllegalArgumentException.class, () -> {
                     apimlInstanceRegistry.resolveInstanceLeaseDurationRewritten(standardInstance);
                 });
@@ -253,9 +246,9 @@ class ApimlInstanceRegistryTest {
 
             @Test
             void thenThrowRuntimeException() throws Throwable {
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "handlerResolveInstanceLeaseDurationMethod", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any())).thenThrow(new RuntimeException());
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                when(superCalls.resolveInstanceLeaseDuration(any(), any())).thenThrow(new RuntimeException());
                 assertThrows(RuntimeException.class, () -> {
                     apimlInstanceRegistry.resolveInstanceLeaseDurationRewritten(standardInstance);
                 });
@@ -274,9 +267,9 @@ class ApimlInstanceRegistryTest {
         class WhenCancelRegistration {
             @Test
             void thenIsSuccessful() throws Throwable {
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "cancelMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any(), any())).thenReturn(true);
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                when(superCalls.cancel(any(), any(), any(), anyBoolean())).thenReturn(true);
                 apimlInstanceRegistry.register(standardInstance, false);
                 verify(apimlInstanceRegistry, times(1)).changeServiceId(any());
                 boolean isCancelled = apimlInstanceRegistry.cancel("HELLO", "hello", false);
@@ -286,9 +279,9 @@ class ApimlInstanceRegistryTest {
             @ParameterizedTest
             @MethodSource("exceptions")
             void thenThrowIllegalArgumentException(Exception exception) throws Throwable {
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "cancelMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any(), any())).thenThrow(exception);
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                when(superCalls.cancel(any(), any(), any(), anyBoolean())).thenThrow(exception);
                 assertThrows(IllegalArgumentException.class, () -> {
                     apimlInstanceRegistry.cancel("HELLO", "hello", false);
                 });
@@ -296,9 +289,9 @@ class ApimlInstanceRegistryTest {
 
             @Test
             void thenThrowRuntimeException() throws Throwable {
-                MethodHandle methodHandle = mock(MethodHandle.class);
-                ReflectionTestUtils.setField(apimlInstanceRegistry, "cancelMethodHandle", methodHandle);
-                when(methodHandle.invokeWithArguments(any(), any(), any(), any())).thenThrow(new RuntimeException());
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                when(superCalls.cancel(any(), any(), any(), anyBoolean())).thenThrow(new RuntimeException());
                 assertThrows(RuntimeException.class, () -> {
                     apimlInstanceRegistry.cancel("HELLO", "hello", false);
                 });
@@ -312,6 +305,46 @@ class ApimlInstanceRegistryTest {
             }
         }
 
+        @Nested
+        class WhenRegistryIsChanged {
+            @Test
+            void thenSuperCallsAreInitialized() {
+                assertInstanceOf(ApimlInstanceRegistry.MethodHandleSuperCalls.class, ReflectionTestUtils.getField(
+                    new ApimlInstanceRegistry(serverConfig, clientConfig, serverCodecs, eurekaClient,
+                        eurekaServerHttpClientFactory, instanceRegistryProperties, appCntx, new EurekaConfig.Tuple(null)),
+                    "superCalls"
+                ));
+            }
+
+            @Test
+            void thenRegisteredEventIsPublished() {
+                apimlInstanceRegistry.register(standardInstance, 90, false);
+                verify(appCntx).publishEvent(any(EurekaInstanceRegisteredEvent.class));
+            }
+
+            @Test
+            void thenCanceledEventIsPublished() throws Throwable {
+                apimlInstanceRegistry.cancel("SERVICECLIENT", "host:serviceclient:9090", false);
+                verify(appCntx).publishEvent(any(EurekaInstanceCanceledEvent.class));
+            }
+
+            @Test
+            void thenRenewUsesChangedServiceId() throws Throwable {
+                ApimlInstanceRegistry.SuperCalls superCalls = mock(ApimlInstanceRegistry.SuperCalls.class);
+                ReflectionTestUtils.setField(apimlInstanceRegistry, "superCalls", superCalls);
+                when(superCalls.renew(any(), any(), any(), anyBoolean())).thenReturn(true);
+
+                assertTrue(apimlInstanceRegistry.renew("SERVICECLIENT", "host:serviceclient:9090", false));
+                verify(superCalls).renew(apimlInstanceRegistry, "HELLOCLIENT", "host:helloclient:9090", false);
+            }
+
+            @Test
+            void thenRenewOfUnknownInstanceDoesNotPublishEvent() {
+                apimlInstanceRegistry.renew("SERVICECLIENT", "host:serviceclient:9090", false);
+                verify(appCntx, never()).publishEvent(any(EurekaInstanceRenewedEvent.class));
+            }
+        }
+
 
     private InstanceInfo getStandardInstance() {
 
@@ -0,0 +1,141 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchingEventPublisherTest {
+
+    private final List<Object> published = new CopyOnWriteArrayList<>();
+    private BatchingEventPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    @Test
+    void givenEvents_whenPublished_thenDelegateInOrder() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        publisher = new BatchingEventPublisher(event -> {
+            published.add(event);
+            latch.countDown();
+        }, 10, 2);
+
+        publisher.publishEvent("a");
+        publisher.publishEvent("b");
+        publisher.publishEvent("c");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b", "c"), published);
+    }
+
+    @Test
+    void givenFullQueue_whenPublished_thenWaitAndKeepTheOrder() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch all = new CountDownLatch(3);
+        publisher = new BatchingEventPublisher(event -> {
+            if ("blocking".equals(event)) {
+                blocked.countDown();
+                awaitQuietly(release);
+            }
+            published.add(event);
+            all.countDown();
+        }, 1, 1);
+
+        publisher.publishEvent("blocking");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        publisher.publishEvent("queued");
+
+        Thread caller = new Thread(() -> publisher.publishEvent("waiting"));
+        caller.start();
+        caller.join(200);
+        assertTrue(caller.isAlive());
+        assertTrue(published.isEmpty());
+
+        release.countDown();
+        caller.join(5000);
+        assertTrue(all.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("blocking", "queued", "waiting"), published);
+    }
+
+    @Test
+    void givenQueuedEvents_whenClosed_thenPublishThemBeforeTheNewOnes() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        publisher = new BatchingEventPublisher(event -> {
+            if ("blocking".equals(event)) {
+                blocked.countDown();
+                awaitQuietly(release);
+            }
+            published.add(event);
+        }, 10, 1);
+
+        publisher.publishEvent("blocking");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        publisher.publishEvent("queued");
+        release.countDown();
+        publisher.close();
+
+        publisher.publishEvent("synchronous");
+
+        assertEquals(List.of("blocking", "queued", "synchronous"), published);
+    }
+
+    @Test
+    void givenClosedPublisher_whenPublished_thenPublishInCallingThread() {
+        publisher = new BatchingEventPublisher(published::add, 10, 10);
+        publisher.close();
+
+        publisher.publishEvent("event");
+
+        assertEquals(List.of("event"), published);
+    }
+
+    @Test
+    void givenFailingListener_whenPublished_thenContinue() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        ApplicationEventPublisher delegate = event -> {
+            if ("failing".equals(event)) {
+                throw new IllegalStateException("error");
+            }
+            latch.countDown();
+        };
+        publisher = new BatchingEventPublisher(delegate, 10, 10);
+
+        publisher.publishEvent("failing");
+        publisher.publishEvent("next");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.discovery.changes;
+
+import com.netflix.appinfo.InstanceInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceCanceledEvent;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaInstanceRegisteredEvent;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.zowe.apiml.discovery.EurekaStatusUpdateEvent;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
+
+class RegistryChangesPublisherTest {
+
+    private ScheduledExecutorService executor;
+    private RegistryChangesPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        executor = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any());
+
+        publisher = new RegistryChangesPublisher(60_000, executor);
+    }
+
+    private InstanceInfo instance() {
+        return InstanceInfo.Builder.newBuilder()
+            .setAppName("SERVICE")
+            .setInstanceId("host:service:10000")
+            .build();
+    }
+
+    @Nested
+    class GivenSubscriber {
+
+        private SseEmitter emitter;
+
+        @BeforeEach
+        void setUp() {
+            emitter = mock(SseEmitter.class);
+            publisher.subscribe(emitter);
+        }
+
+        @Test
+        void whenSubscribed_thenSendFirstEvent() throws IOException {
+            verify(emitter).send(any(SseEmitter.SseEventBuilder.class));
+            assertEquals(1, publisher.getSubscribers());
+        }
+
+        @Test
+        void whenInstanceIsChanged_thenSendEvent() throws IOException {
+            publisher.listen(new EurekaInstanceRegisteredEvent(this, instance(), 90, false));
+            publisher.listen(new EurekaInstanceCanceledEvent(this, "SERVICE", "host:service:10000", false));
+            publisher.listen(new EurekaStatusUpdateEvent(this, "SERVICE", "host:service:10000"));
+
+            verify(emitter, times(4)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        @Test
+        void whenHeartbeat_thenSendComment() throws IOException {
+            publisher.heartbeat();
+
+            verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        @Test
+        void whenSubscriberIsDisconnected_thenRemoveIt() throws IOException {
+            doThrow(new IOException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+            publisher.publish(new RegistryChange(RegistryChange.Action.REGISTERED, "SERVICE", "host:service:10000"));
+            publisher.publish(new RegistryChange(RegistryChange.Action.REGISTERED, "SERVICE", "host:service:10000"));
+
+            assertEquals(0, publisher.getSubscribers());
+            verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+            verify(emitter).completeWithError(any());
+        }
+
+        @Test
+        void whenShutdown_thenCompleteSubscriptions() {
+            publisher.shutdown();
+
+            verify(executor).shutdownNow();
+            verify(emitter).complete();
+            assertEquals(0, publisher.getSubscribers());
+        }
+
+    }
+
+    @Nested
+    class GivenController {
+
+        @Test
+        void whenSubscribed_thenStartEventStream() throws Exception {
+            MockMvc mockMvc = standaloneSetup(new RegistryChangesController(publisher)).build();
+
+            mockMvc.perform(get("/discovery/api/v1/registry/changes"))
+                .andExpect(request().asyncStarted());
+
+            assertEquals(1, publisher.getSubscribers());
+        }
+
+        @Test
+        void whenSubscribed_thenFirstEventIsInTheStream() throws Exception {
+            MockMvc mockMvc = standaloneSetup(new RegistryChangesController(publisher)).build();
+
+            String content = mockMvc.perform(get("/discovery/api/v1/registry/changes"))
+                .andReturn().getResponse().getContentAsString();
+
+            assertTrue(content.contains("event:" + RegistryChangesPublisher.EVENT_NAME));
+            assertTrue(content.contains("\"action\":\"SUBSCRIBED\""));
+        }
+
+    }
+
+}
@@ -15,18 +15,33 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.zowe.apiml.product.gateway.GatewayClient;
+import org.zowe.apiml.product.instance.ServiceInstanceUrls;
 import reactor.core.publisher.Mono;
 
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
 import static reactor.core.publisher.Mono.empty;
 import static reactor.core.publisher.Mono.error;
 
+/**
+ * Client of Caching Service. If the instances of Caching Service are available, they are called directly (with
+ * the load balancing and failover among them) and the route via the Gateway is used only if none of them is reachable.
+ */
 @Component
 @Slf4j
 public class CachingServiceClient {
@@ -45,19 +60,72 @@ public class CachingServiceClient {
     }
 
     private final WebClient webClient;
+    private final ServiceInstanceUrls cachingServiceInstances;
 
     public CachingServiceClient(
         @Qualifier("webClientClientCert") WebClient webClientClientCert,
         GatewayClient gatewayClient
+    ) {
+        this(webClientClientCert, gatewayClient, null);
+    }
+
+    @Autowired
+    public CachingServiceClient(
+        @Qualifier("webClientClientCert") WebClient webClientClientCert,
+        GatewayClient gatewayClient,
+        @Nullable ServiceInstanceUrls cachingServiceInstances
     ) {
         this.cachingBalancerUrl = String.format("%s://%s/%s", gatewayClient.getGatewayConfigProperties().getScheme(), gatewayClient.getGatewayConfigProperties().getHostname(), CACHING_API_PATH);
         this.webClient = webClientClientCert;
+        this.cachingServiceInstances = cachingServiceInstances;
+    }
+
+    /**
+     * Call the instances of Caching Service one by one and then the route via the Gateway. The next one is tried
+     * only if the previous one was not reachable, any response (including the errors) is final. The request which
+     * is not idempotent is repeated only if the connection was not established, so it could not be processed.
+     *
+     * @param suffix     part of the URL after the path of the API (ie. the key)
+     * @param idempotent whether the request could be repeated after a failure of an established connection
+     * @param request    call of the full URL
+     */
+    private <T> Mono<T> call(String suffix, boolean idempotent, Function<String, Mono<T>> request) {
+        List<String> instanceUrls = cachingServiceInstances == null ? Collections.emptyList() : cachingServiceInstances.getUrls();
+        return call(instanceUrls, 0, suffix, idempotent, request);
+    }
+
+    private <T> Mono<T> call(List<String> instanceUrls, int index, String suffix, boolean idempotent, Function<String, Mono<T>> request) {
+        if (index >= instanceUrls.size()) {
+            return request.apply(cachingBalancerUrl + suffix);
+        }
+
+        String instanceUrl = instanceUrls.get(index);
+        return request.apply(instanceUrl + CACHING_API_PATH + suffix)
+            .doOnSuccess(result -> cachingServiceInstances.succeeded(instanceUrl))
+            .onErrorResume(WebClientRequestException.class, e -> {
+                cachingServiceInstances.failed(instanceUrl);
+                if (!idempotent && !isConnectionFailure(e)) {
+                    return error(e);
+                }
+                log.debug("Caching Service instance {} is not reachable: {}", instanceUrl, e.getMessage());
+                return call(instanceUrls, index + 1, suffix, idempotent, request);
+            });
+    }
+
+    private static boolean isConnectionFailure(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            // the timeouts of the connection (ie. of Netty) are subclasses of ConnectException
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
     public Mono<Void> create(KeyValue keyValue) {
-        return webClient.post()
-            .uri(cachingBalancerUrl)
+        return call("", false, url -> webClient.post()
+            .uri(url)
             .bodyValue(keyValue)
             .headers(c -> c.addAll(defaultHeaders))
             .exchangeToMono(handler -> {
@@ -66,12 +134,12 @@ public class CachingServiceClient {
                 } else {
                     return error(new CachingServiceClientException(handler.statusCode().value(), "Unable to create caching key " + keyValue.getKey() + CACHING_SERVICE_RETURNED + handler.statusCode()));
                 }
-            });
+            }));
     }
 
     public Mono<Void> update(KeyValue keyValue) {
-        return webClient.put()
-            .uri(cachingBalancerUrl)
+        return call("", true, url -> webClient.put()
+            .uri(url)
             .bodyValue(keyValue)
             .headers(c -> c.addAll(defaultHeaders))
             .exchangeToMono(handler -> {
@@ -80,12 +148,53 @@ public class CachingServiceClient {
                 } else {
                     return error(new CachingServiceClientException(handler.statusCode().value(), "Unable to update caching key " + keyValue.getKey() + CACHING_SERVICE_RETURNED + handler.statusCode()));
                 }
-            });
+            }));
+    }
+
+    /**
+     * Creates the {@link KeyValue} in Caching Service or replaces the existing value of the key in a single request.
+     *
+     * @param keyValue key and value to store
+     * @return mono with status success / error
+     */
+    public Mono<Void> upsert(KeyValue keyValue) {
+        return call("/upsert", true, url -> webClient.put()
+            .uri(url)
+            .bodyValue(keyValue)
+            .headers(c -> c.addAll(defaultHeaders))
+            .exchangeToMono(handler -> {
+                if (handler.statusCode().is2xxSuccessful()) {
+                    return empty();
+                } else {
+                    return error(new CachingServiceClientException(handler.statusCode().value(), "Unable to upsert caching key " + keyValue.getKey() + CACHING_SERVICE_RETURNED + handler.statusCode()));
+                }
+            }));
+    }
+
+    /**
+     * Replaces the value of the key only if it has not been changed since it was read.
+     *
+     * @param keyValue      key and the new value
+     * @param expectedValue the value as it was read
+     * @return mono with status success / error, {@link CachingServiceClientException} with status 409 if the value was changed
+     */
+    public Mono<Void> compareAndSet(KeyValue keyValue, String expectedValue) {
+        return call("/compare-and-set", true, url -> webClient.put()
+            .uri(url)
+            .bodyValue(new CompareAndSet(keyValue.getKey(), expectedValue, keyValue.getValue()))
+            .headers(c -> c.addAll(defaultHeaders))
+            .exchangeToMono(handler -> {
+                if (handler.statusCode().is2xxSuccessful()) {
+                    return empty();
+                } else {
+                    return error(new CachingServiceClientException(handler.statusCode().value(), "Unable to compare and set caching key " + keyValue.getKey() + CACHING_SERVICE_RETURNED + handler.statusCode()));
+                }
+            }));
     }
 
     public Mono<KeyValue> read(String key) {
-        return webClient.get()
-            .uri(cachingBalancerUrl + "/" + key)
+        return call("/" + key, true, url -> webClient.get()
+            .uri(url)
             .headers(c -> c.addAll(defaultHeaders))
             .exchangeToMono(handler -> {
                 if (handler.statusCode().is2xxSuccessful()) {
@@ -98,7 +207,7 @@ public class CachingServiceClient {
                 } else {
                     return error(new CachingServiceClientException(handler.statusCode().value(), "Unable to read caching key " + key + CACHING_SERVICE_RETURNED + handler.statusCode()));
                 }
-            });
+            }));
     }
 
     /**
@@ -108,8 +217,8 @@ public class CachingServiceClient {
      * @return mono with status success / error
      */
     public Mono<Void> delete(String key) {
-        return webClient.delete()
-            .uri(cachingBalancerUrl + "/" + key)
+        return call("/" + key, true, url -> webClient.delete()
+            .uri(url)
             .headers(c -> c.addAll(defaultHeaders))
             .exchangeToMono(handler -> {
                 if (handler.statusCode().is2xxSuccessful()) {
@@ -117,7 +226,18 @@ public class CachingServiceClient {
                 } else {
                     return error(new CachingServiceClientException(handler.statusCode().value(), "Unable to delete caching key " + key + CACHING_SERVICE_RETURNED + handler.statusCode()));
                 }
-            });
+            }));
+    }
+
+    /**
+     * Data POJO of the request to replace the value only if it was not changed
+     */
+    @RequiredArgsConstructor
+    @Data
+    public static class CompareAndSet {
+        private final String key;
+        private final String expectedValue;
+        private final String value;
     }
 
     /**
@@ -15,23 +15,45 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.CacheRefreshedEvent;
 import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import jakarta.annotation.PostConstruct;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.hc.core5.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 import org.zowe.apiml.gateway.caching.CachingServiceClient.KeyValue;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static reactor.core.publisher.Mono.empty;
 import static reactor.core.publisher.Mono.error;
 import static reactor.core.publisher.Mono.just;
 
+/**
+ * Cache of instances selected for users by the sticky session load balancer. If the Caching Service is available,
+ * the records are shared by all Gateways through it. Otherwise they are stored only in the local memory.
+ * <p>
+ * With the Caching Service there is also a bounded near cache in memory with the same validity as the records.
+ * Records found there don't need any call of the Caching Service. New records are written to the Caching Service
+ * in the background (write-behind). A repeated record with the same instance is written again only when the
+ * remote copy is older than apiml.gateway.loadBalancer.nearCache.remoteRefreshSeconds. Records of instances
+ * which disappear from the discovery are removed from the near cache.
+ */
 @Component
 @Slf4j
 public class LoadBalancerCache {
@@ -39,6 +61,8 @@ public class LoadBalancerCache {
     private static final String CACHING_SERVICE_ID = "cachingservice";
 
     private final Map<String, LoadBalancerCacheRecord> localCache;
+    private final Cache<String, NearCacheEntry> nearCache;
+    private final Duration remoteRefresh;
     private final CachingServiceClient remoteCache;
     private final EurekaClient eurekaClient;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -48,12 +72,58 @@ public class LoadBalancerCache {
     public LoadBalancerCache(
         EurekaClient eurekaClient,
         CachingServiceClient cachingServiceClient) {
+        this(eurekaClient, cachingServiceClient, 8, 10000, 300);
+    }
+
+    @Autowired
+    public LoadBalancerCache(
+        EurekaClient eurekaClient,
+        CachingServiceClient cachingServiceClient,
+        @Value("${instance.metadata.apiml.lb.cacheRecordExpirationTimeInHours:8}") int expirationTime,
+        @Value("${apiml.gateway.loadBalancer.nearCache.maxSize:10000}") long nearCacheMaxSize,
+        @Value("${apiml.gateway.loadBalancer.nearCache.remoteRefreshSeconds:300}") long remoteRefreshSeconds) {
         this.remoteCache = cachingServiceClient;
         this.eurekaClient = eurekaClient;
         localCache = new ConcurrentHashMap<>();
+        nearCache = Caffeine.newBuilder()
+            .maximumSize(nearCacheMaxSize)
+            .expireAfterWrite(Duration.ofHours(expirationTime))
+            .build();
+        remoteRefresh = Duration.ofSeconds(remoteRefreshSeconds);
         mapper.registerModule(new JavaTimeModule());
     }
 
+    @PostConstruct
+    void registerDiscoveryListener() {
+        eurekaClient.registerEventListener(event -> {
+            if (event instanceof CacheRefreshedEvent) {
+                evictMissingInstances();
+            }
+        });
+    }
+
+    /**
+     * Remove records from the near cache if the selected instance is not registered anymore
+     */
+    void evictMissingInstances() {
+        if (nearCache.estimatedSize() == 0) {
+            return;
+        }
+
+        Applications applications = eurekaClient.getApplications();
+        if (applications == null) {
+            return;
+        }
+
+        Set<String> registered = new HashSet<>();
+        for (Application application : applications.getRegisteredApplications()) {
+            for (InstanceInfo instance : application.getInstances()) {
+                registered.add(instance.getInstanceId());
+            }
+        }
+        nearCache.asMap().values().removeIf(entry -> !registered.contains(entry.loadBalancerCacheRecord().getInstanceId()));
+    }
+
     @Cacheable
     private Mono<Boolean> cachingServiceAvailavility() {
         return Mono.fromCallable(() -> eurekaClient.getApplication(CACHING_SERVICE_ID))
@@ -63,7 +133,8 @@ public class LoadBalancerCache {
 
     /**
      * Store information about instance the user is balanced towards.
-     * If there is already existing record, it will be updated
+     * If there is already existing record, it will be updated. The Caching Service is updated in the background,
+     * its failure is not returned.
      *
      * @param user     User being routed towards southbound service
      * @param service  Service towards which is the user routed
@@ -74,7 +145,7 @@ public class LoadBalancerCache {
         return cachingServiceAvailavility()
             .flatMap(available -> {
                 if (Boolean.TRUE.equals(available)) {
-                    return storeToRemoteCache(user, service, loadBalancerCacheRecord);
+                    return storeToNearCache(user, service, loadBalancerCacheRecord);
                 } else {
                     localCache.put(getKey(user, service), loadBalancerCacheRecord);
                     log.debug("Stored record to local cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
@@ -83,38 +154,40 @@ public class LoadBalancerCache {
             });
     }
 
+    private Mono<Void> storeToNearCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord) {
+        String key = getKey(user, service);
+        NearCacheEntry previous = nearCache.getIfPresent(key);
+        if (previous != null && previous.isSameInstance(loadBalancerCacheRecord) && !previous.isRemoteOlderThan(remoteRefresh)) {
+            nearCache.put(key, new NearCacheEntry(loadBalancerCacheRecord, previous.remoteCreationTime()));
+            log.debug("Stored record to near cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
+            return empty();
+        }
+
+        nearCache.put(key, new NearCacheEntry(loadBalancerCacheRecord, loadBalancerCacheRecord.getCreationTime()));
+        storeToRemoteCache(user, service, loadBalancerCacheRecord)
+            .subscribe(null, e -> {
+                // the next record will be written again to the Caching Service
+                nearCache.asMap().computeIfPresent(key, (k, entry) -> new NearCacheEntry(entry.loadBalancerCacheRecord(), LocalDateTime.MIN));
+                log.debug("Failed to write record to remote cache for user: {}, service: {}", user, service, e);
+            });
+        return empty();
+    }
+
     private Mono<Void> storeToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord) {
         try {
             String serializedRecord = mapper.writeValueAsString(loadBalancerCacheRecord);
             CachingServiceClient.KeyValue toStore = new KeyValue(getKey(user, service), serializedRecord);
-            return createToRemoteCache(user, service, loadBalancerCacheRecord, toStore);
+            return upsertToRemoteCache(user, service, loadBalancerCacheRecord, toStore);
         } catch (JsonProcessingException e) {
             log.debug("Failed to serialize record for user: {}, service: {}, record {},  with exception: {}", user, service, loadBalancerCacheRecord, e);
             return error(e);
         }
     }
 
-    private Mono<Void> createToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord, CachingServiceClient.KeyValue toStore) {
-        return remoteCache.create(toStore)
-            .onErrorResume(createException -> {
-                if (isCausedByCacheConflict(createException)) {
-                    return updateToRemoteCache(user, service, loadBalancerCacheRecord, toStore);
-                } else {
-                    log.debug("Failed to create record for user: {}, service: {}, record {}, with exception: {}", user, service, loadBalancerCacheRecord, createException);
-                    return error(createException);
-                }
-            })
-            .doOnSuccess(v -> log.debug("Created record to remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord));
-    }
-
-    private Mono<Void> updateToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord, CachingServiceClient.KeyValue toStore) {
-        return remoteCache.update(toStore)
-            .doOnSuccess(v -> log.debug("Updated record to remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord))
-            .doOnError(updateException -> log.debug("Failed to update record for user: {}, service: {}, record {}, with exception: {}", user, service, loadBalancerCacheRecord, updateException));
-    }
-
-    private boolean isCausedByCacheConflict(Throwable e) {
-        return e instanceof CachingServiceClientException ex && ex.getStatusCode() == HttpStatus.SC_CONFLICT;
+    private Mono<Void> upsertToRemoteCache(String user, String service, LoadBalancerCacheRecord loadBalancerCacheRecord, CachingServiceClient.KeyValue toStore) {
+        return remoteCache.upsert(toStore)
+            .doOnSuccess(v -> log.debug("Stored record to remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord))
+            .doOnError(e -> log.debug("Failed to store record for user: {}, service: {}, record {}, with exception: {}", user, service, loadBalancerCacheRecord, e));
     }
 
     /**
@@ -128,7 +201,14 @@ public class LoadBalancerCache {
         return cachingServiceAvailavility()
             .flatMap(available -> {
                 if (Boolean.TRUE.equals(available)) {
-                    return remoteCache.read(getKey(user, service))
+                    String key = getKey(user, service);
+                    NearCacheEntry nearCacheEntry = nearCache.getIfPresent(key);
+                    if (nearCacheEntry != null) {
+                        log.debug("Retrieved record from near cache for user: {}, service: {}, record: {}", user, service, nearCacheEntry.loadBalancerCacheRecord());
+                        return just(nearCacheEntry.loadBalancerCacheRecord());
+                    }
+
+                    return remoteCache.read(key)
                     .map(kv -> {
                         LoadBalancerCacheRecord loadBalancerCacheRecord;
                         try {
@@ -137,6 +217,7 @@ public class LoadBalancerCache {
                             throw new LoadBalancerCacheException(e);
                         }
                         log.debug("Retrieved record from remote cache for user: {}, service: {}, record: {}", user, service, loadBalancerCacheRecord);
+                        nearCache.put(key, new NearCacheEntry(loadBalancerCacheRecord, loadBalancerCacheRecord.getCreationTime()));
                         return loadBalancerCacheRecord;
                     });
                 } else {
@@ -157,6 +238,7 @@ public class LoadBalancerCache {
         return cachingServiceAvailavility()
             .flatMap(available -> {
                 if (Boolean.TRUE.equals(available)) {
+                    nearCache.invalidate(getKey(user, service));
                     return remoteCache.delete(getKey(user, service))
                         .doOnSuccess(v -> log.debug("Deleted record from remote cache for user: {}, service: {}", user, service));
                 } else {
@@ -171,6 +253,21 @@ public class LoadBalancerCache {
         return LOAD_BALANCER_KEY_PREFIX + user.toLowerCase() + ":" + service.toLowerCase();
     }
 
+    /**
+     * Record in the near cache with the creation time of the record written in the Caching Service
+     */
+    private record NearCacheEntry(LoadBalancerCacheRecord loadBalancerCacheRecord, LocalDateTime remoteCreationTime) {
+
+        boolean isSameInstance(LoadBalancerCacheRecord other) {
+            return Objects.equals(loadBalancerCacheRecord.getInstanceId(), other.getInstanceId());
+        }
+
+        boolean isRemoteOlderThan(Duration duration) {
+            return remoteCreationTime == null || remoteCreationTime.isBefore(LocalDateTime.now().minus(duration));
+        }
+
+    }
+
     /**
      * Data POJO that represents entry in load balancing service cache
      */
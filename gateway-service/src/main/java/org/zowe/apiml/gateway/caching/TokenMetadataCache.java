@@ -0,0 +1,200 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Clock;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.impl.DefaultClock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Metadata (subject, expiration and scopes) read from JWT tokens of the users. The token is parsed only once, then
+ * the metadata is taken from the cache until the token expires (at most apiml.gateway.tokenMetadataCache.maxTtlSeconds).
+ * <p>
+ * The signature of the token is not verified (the Gateway doesn't have the keys of all token providers). The
+ * metadata could be used only for decisions which don't need a verified identity (ie. routing) or which limit
+ * already verified data (ie. validity of a cached response).
+ * <p>
+ * The tokens are stored by SHA-256 digest, never in plain text. A cache hit costs the digest of the token (with
+ * a digest instance reused by the thread), the token is not parsed again.
+ */
+@Slf4j
+@Component
+public class TokenMetadataCache {
+
+    private static final String HEADER_NONE_SIGNATURE = Base64.getEncoder().encodeToString("{\"typ\":\"JWT\",\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+    private static final String SCOPES_CLAIM = "scopes";
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final Cache<TokenDigest, TokenMetadata> cache;
+
+    @Autowired
+    public TokenMetadataCache(
+        @Value("${apiml.gateway.tokenMetadataCache.maxSize:10000}") long maxSize,
+        @Value("${apiml.gateway.tokenMetadataCache.maxTtlSeconds:600}") long maxTtlSeconds
+    ) {
+        this(new DefaultClock(), maxSize, maxTtlSeconds);
+    }
+
+    public TokenMetadataCache(Clock clock, long maxSize, long maxTtlSeconds) {
+        this.parser = Jwts.parser()
+            .unsecured()
+            .clock(clock)
+            .build();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new MetadataExpiry(clock, Duration.ofSeconds(maxTtlSeconds)))
+            .build();
+    }
+
+    /**
+     * @param token JWT token
+     * @return metadata of the token, or {@link TokenMetadata#NONE} if the token is missing, invalid or expired
+     */
+    public TokenMetadata get(String token) {
+        if (token == null || token.isEmpty()) {
+            return TokenMetadata.NONE;
+        }
+        return cache.get(digest(token), key -> parse(token));
+    }
+
+    static TokenDigest digest(String token) {
+        return new TokenDigest(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private TokenMetadata parse(String token) {
+        Claims claims = getJwtClaims(token);
+        if (claims == null) {
+            return TokenMetadata.NONE;
+        }
+
+        return new TokenMetadata(
+            claims.getSubject() == null ? "" : claims.getSubject(),
+            claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+            getScopes(claims)
+        );
+    }
+
+    private Set<String> getScopes(Claims claims) {
+        Object scopes = claims.get(SCOPES_CLAIM);
+        if (scopes instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).collect(Collectors.toUnmodifiableSet());
+        }
+        return Collections.emptySet();
+    }
+
+    private String removeJwtSign(String jwtToken) {
+        int firstDot = jwtToken.indexOf('.');
+        int lastDot = jwtToken.lastIndexOf('.');
+        if ((firstDot < 0) || (firstDot >= lastDot)) throw new MalformedJwtException("Invalid JWT format");
+
+        return HEADER_NONE_SIGNATURE + jwtToken.substring(firstDot, lastDot + 1);
+    }
+
+    private Claims getJwtClaims(String jwt) {
+        /*
+         * Removes signature, because we don't have key to verify z/OS tokens, and we just need to read claim.
+         * Verification is done by SAF itself. JWT library doesn't parse signed key without verification.
+         */
+        try {
+            String withoutSign = removeJwtSign(jwt);
+            return parser.parseUnsecuredClaims(withoutSign).getPayload();
+        } catch (RuntimeException exception) {
+            log.debug("Exception when trying to parse the JWT token: {}", exception.getClass().getSimpleName());
+            return null; // NOSONAR
+        }
+    }
+
+    /**
+     * Data of the token. The subject is empty if the token is not valid.
+     */
+    public record TokenMetadata(String subject, Instant expiration, Set<String> scopes) {
+
+        public static final TokenMetadata NONE = new TokenMetadata("", null, Collections.emptySet());
+
+    }
+
+    /**
+     * Key of the cache, the raw SHA-256 digest of the token.
+     */
+    record TokenDigest(byte[] value) {
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof TokenDigest other) && Arrays.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return HexFormat.of().formatHex(value);
+        }
+
+    }
+
+    private record MetadataExpiry(Clock clock, Duration maxTtl) implements Expiry<TokenDigest, TokenMetadata> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, TokenMetadata value, long currentTime) {
+            if (value.expiration() == null) {
+                return maxTtl.toNanos();
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(value.expiration().toEpochMilli() - clock.now().getTime());
+            return Math.max(0, Math.min(remaining, maxTtl.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, TokenMetadata value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, TokenMetadata value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
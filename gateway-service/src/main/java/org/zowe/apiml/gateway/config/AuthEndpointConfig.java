@@ -24,6 +24,7 @@ import org.springframework.web.reactive.function.server.HandlerFunction;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.zowe.apiml.gateway.filters.ZaasSchemeResponseCache;
 import org.zowe.apiml.gateway.x509.X509Util;
 import reactor.core.publisher.Mono;
 
@@ -59,14 +60,17 @@ public class AuthEndpointConfig {
 
     private final WebClient webClient;
     private final WebClient webClientClientCert;
+    private final ZaasSchemeResponseCache zaasSchemeResponseCache;
 
     public AuthEndpointConfig(
         WebClient webClient,
         @Qualifier("webClientClientCert") WebClient webClientClientCert,
-        ReactiveLoadBalancer.Factory<ServiceInstance> serviceInstanceFactory
+        ReactiveLoadBalancer.Factory<ServiceInstance> serviceInstanceFactory,
+        ZaasSchemeResponseCache zaasSchemeResponseCache
     ) {
         this.webClient = createLoadBalanced(webClient, serviceInstanceFactory);
         this.webClientClientCert = createLoadBalanced(webClientClientCert, serviceInstanceFactory);
+        this.zaasSchemeResponseCache = zaasSchemeResponseCache;
     }
 
     private WebClient createLoadBalanced(WebClient webClient, ReactiveLoadBalancer.Factory<ServiceInstance> serviceInstanceFactory) {
@@ -123,19 +127,33 @@ public class AuthEndpointConfig {
             .doOnError(e -> log.debug("Cannot resend authentication call to the ZAAS", e));
     }
 
+    /**
+     * Resend the call invalidating tokens. The cached responses of ZAAS for the authentication schemes could belong
+     * to the invalidated token, therefore the cache is cleared after a successful call.
+     */
+    private HandlerFunction<ServerResponse> resendInvalidationTo(String path) {
+        HandlerFunction<ServerResponse> resend = resendTo(path);
+        return request -> resend.handle(request)
+            .doOnNext(response -> {
+                if (response.statusCode().is2xxSuccessful()) {
+                    zaasSchemeResponseCache.invalidateAll();
+                }
+            });
+    }
+
     @Bean
     public RouterFunction<ServerResponse> routes() {
         return route(path("/gateway/api/v1/auth/login"), resendTo("/api/v1/auth/login"))
-            .andRoute(path("/gateway/api/v1/auth/logout"), resendTo("/api/v1/auth/logout"))
+            .andRoute(path("/gateway/api/v1/auth/logout"), resendInvalidationTo("/api/v1/auth/logout"))
             .andRoute(path("/gateway/api/v1/auth/query"), resendTo("/api/v1/auth/query"))
             .andRoute(path("/gateway/api/v1/auth/refresh"), resendTo("/api/v1/auth/refresh"))
             .andRoute(path("/gateway/api/v1/auth/ticket"), resendTo("/api/v1/auth/ticket"))
-            .andRoute(path("/gateway/api/v1/auth/access-token/revoke"), resendTo("/api/v1/auth/access-token/revoke"))
+            .andRoute(path("/gateway/api/v1/auth/access-token/revoke"), resendInvalidationTo("/api/v1/auth/access-token/revoke"))
             .andRoute(path("/gateway/api/v1/auth/access-token/validate"), resendTo("/api/v1/auth/access-token/validate"))
             .andRoute(path("/gateway/api/v1/auth/access-token/generate"), resendTo("/api/v1/auth/access-token/generate"))
-            .andRoute(path("/gateway/api/v1/auth/access-token/revoke/tokens/user"), resendTo("/api/v1/auth/access-token/revoke/tokens/user"))
-            .andRoute(path("/gateway/api/v1/auth/access-token/revoke/tokens"), resendTo("/api/v1/auth/access-token/revoke/tokens"))
-            .andRoute(path("/gateway/api/v1/auth/access-token/revoke/tokens/scope"), resendTo("/api/v1/auth/access-token/revoke/tokens/scope"))
+            .andRoute(path("/gateway/api/v1/auth/access-token/revoke/tokens/user"), resendInvalidationTo("/api/v1/auth/access-token/revoke/tokens/user"))
+            .andRoute(path("/gateway/api/v1/auth/access-token/revoke/tokens"), resendInvalidationTo("/api/v1/auth/access-token/revoke/tokens"))
+            .andRoute(path("/gateway/api/v1/auth/access-token/revoke/tokens/scope"), resendInvalidationTo("/api/v1/auth/access-token/revoke/tokens/scope"))
             .andRoute(path("/gateway/api/v1/auth/access-token/evict"), resendTo("/api/v1/auth/access-token/evict"))
             .andRoute(path("/gateway/api/v1/auth/keys/public"), resendTo("/api/v1/auth/keys/public"))
             .andRoute(path("/gateway/api/v1/auth/keys/public/all"), resendTo("/api/v1/auth/keys/public/all"))
@@ -12,10 +12,12 @@ package org.zowe.apiml.gateway.config;
 
 import com.netflix.discovery.EurekaClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.zowe.apiml.eurekaservice.client.util.EurekaMetadataParser;
 import org.zowe.apiml.product.instance.ServiceAddress;
+import org.zowe.apiml.product.instance.ServiceInstanceUrls;
 import org.zowe.apiml.services.BasicInfoService;
 
 import java.net.URI;
@@ -29,6 +31,19 @@ public class RegistryConfig {
         return new BasicInfoService(eurekaClient, eurekaMetadataParser);
     }
 
+    /**
+     * Instances of Caching Service to be called directly by {@link org.zowe.apiml.gateway.caching.CachingServiceClient}
+     * instead of the route via the Gateway itself.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "apiml.cachingServiceClient.direct.enabled", havingValue = "true", matchIfMissing = true)
+    public ServiceInstanceUrls cachingServiceInstances(
+        EurekaClient eurekaClient,
+        @Value("${apiml.cachingServiceClient.direct.failureCooldownMs:30000}") long failureCooldownMs
+    ) {
+        return new ServiceInstanceUrls(eurekaClient, "cachingservice", failureCooldownMs);
+    }
+
     @Bean
     public ServiceAddress gatewayServiceAddress(
         @Value("${apiml.service.externalUrl:#{null}}") String externalUrl,
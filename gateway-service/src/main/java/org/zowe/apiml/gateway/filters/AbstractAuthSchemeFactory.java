@@ -15,6 +15,7 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -26,6 +27,7 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import org.zowe.apiml.constants.ApimlConstants;
+import org.zowe.apiml.gateway.caching.TokenMetadataCache;
 import org.zowe.apiml.gateway.service.InstanceInfoService;
 import org.zowe.apiml.gateway.x509.X509Util;
 import org.zowe.apiml.message.core.MessageService;
@@ -34,7 +36,12 @@ import org.zowe.apiml.util.CookieUtil;
 import reactor.core.publisher.Mono;
 
 import java.net.HttpCookie;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateEncodingException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -154,6 +161,12 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
     protected final InstanceInfoService instanceInfoService;
     protected final MessageService messageService;
 
+    @Autowired(required = false)
+    protected ZaasSchemeResponseCache responseCache;
+
+    @Autowired(required = false)
+    protected TokenMetadataCache tokenMetadataCache;
+
     protected AbstractAuthSchemeFactory(Class<T> configClazz, WebClient webClient, InstanceInfoService instanceInfoService, MessageService messageService) {
         super(configClazz);
         this.webClient = webClient;
@@ -207,17 +220,161 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
         List<ServiceInstance> serviceInstances,
         Function<ServiceInstance, WebClient.RequestHeadersSpec<?>> requestCreator,
         Function<? super AuthorizationResponse<R>, ? extends Mono<Void>> responseProcessor
+    ) {
+        return invoke(serviceInstances, requestCreator, responseProcessor, null);
+    }
+
+    protected Mono<Void> invoke(
+        List<ServiceInstance> serviceInstances,
+        Function<ServiceInstance, WebClient.RequestHeadersSpec<?>> requestCreator,
+        Function<? super AuthorizationResponse<R>, ? extends Mono<Void>> responseProcessor,
+        String cacheKey
+    ) {
+        return invoke(serviceInstances, requestCreator, responseProcessor, cacheKey, null);
+    }
+
+    /**
+     * Call ZAAS, the successful response could be cached with the given key.
+     *
+     * @param cacheKey              key of the cached response, null to not cache the response
+     * @param credentialsExpiration expiration of the credentials in the request, the response is not cached longer
+     */
+    protected Mono<Void> invoke(
+        List<ServiceInstance> serviceInstances,
+        Function<ServiceInstance, WebClient.RequestHeadersSpec<?>> requestCreator,
+        Function<? super AuthorizationResponse<R>, ? extends Mono<Void>> responseProcessor,
+        String cacheKey,
+        Instant credentialsExpiration
     ) {
         Iterator<ServiceInstance> i = robinRound.getIterator(serviceInstances);
         if (!i.hasNext()) {
             throw new ServiceNotAccessibleException(SERVICE_IS_UNAVAILABLE_MESSAGE);
         }
 
-        return requestWithHa(i, requestCreator,  new AtomicReference<>(Optional.empty()))
+        Mono<AuthorizationResponse<R>> zaasCall = requestWithHa(i, requestCreator,  new AtomicReference<>(Optional.empty()));
+        if ((responseCache != null) && (cacheKey != null)) {
+            zaasCall = responseCache.getOrLoad(cacheKey, zaasCall.map(this::stripIfCacheable),
+                response -> limitValidity(getValidityIfCacheable(response), credentialsExpiration));
+        }
+
+        return zaasCall
             .switchIfEmpty(Mono.just(new AuthorizationResponse<>(null,null)))
             .flatMap(responseProcessor);
     }
 
+    /**
+     * Define how long could be the response from ZAAS reused for the same credentials. The default implementation
+     * does not allow caching. The method is called only for successful responses (with body and without
+     * authentication failure header).
+     *
+     * @param response the successful response from ZAAS
+     * @return the validity of the response, zero to do not cache it
+     */
+    protected Duration getCacheValidity(AuthorizationResponse<R> response) {
+        return Duration.ZERO;
+    }
+
+    private boolean isCacheable(AuthorizationResponse<R> response) {
+        if (response.getBody() == null) {
+            return false;
+        }
+        return Optional.ofNullable(response.getHeaders())
+            .map(headers -> headers.header(ApimlConstants.AUTH_FAIL_HEADER.toLowerCase()))
+            .map(List::isEmpty)
+            .orElse(true);
+    }
+
+    private AuthorizationResponse<R> stripIfCacheable(AuthorizationResponse<R> response) {
+        // the cached response should not hold the headers of the original ZAAS response (they are not used on success)
+        return isCacheable(response) ? new AuthorizationResponse<>(null, response.getBody()) : response;
+    }
+
+    private Duration getValidityIfCacheable(AuthorizationResponse<R> response) {
+        return isCacheable(response) ? getCacheValidity(response) : Duration.ZERO;
+    }
+
+    private Duration limitValidity(Duration validity, Instant credentialsExpiration) {
+        if (credentialsExpiration == null) {
+            return validity;
+        }
+        Duration remaining = Duration.between(Instant.now(), credentialsExpiration);
+        return remaining.compareTo(validity) < 0 ? remaining : validity;
+    }
+
+    /**
+     * Find the expiration of the JWT token in the request (cookie or bearer authorization header)
+     *
+     * @param request the original request of the client
+     * @return the expiration or null if there is no token or its expiration is not known
+     */
+    protected Instant getCredentialsExpiration(ServerHttpRequest request) {
+        if (tokenMetadataCache == null) {
+            return null;
+        }
+
+        String token = CookieUtil.readCookies(request.getHeaders())
+            .filter(cookie -> StringUtils.equalsIgnoreCase(cookie.getName(), COOKIE_AUTH_NAME))
+            .map(HttpCookie::getValue)
+            .findFirst()
+            .orElseGet(() -> {
+                String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+                return StringUtils.startsWithIgnoreCase(authorization, ApimlConstants.BEARER_AUTHENTICATION_PREFIX) ?
+                    authorization.substring(ApimlConstants.BEARER_AUTHENTICATION_PREFIX.length()).trim() : null;
+            });
+        return tokenMetadataCache.get(token).expiration();
+    }
+
+    /**
+     * Construct the key of the cache of ZAAS responses. The key is a hash of all values sent to ZAAS and used for the
+     * evaluation: scheme, configuration of the filter, credentials (headers, cookies and client certificate).
+     *
+     * @param config configuration of the filter
+     * @param data   data object set in the call of {@link AbstractAuthSchemeFactory#createGatewayFilter(AbstractConfig, Object)}
+     * @param request the original request of the client
+     * @return the key or null if there is no credential in the request (nothing to cache)
+     */
+    protected String getCacheKey(AbstractConfig config, D data, ServerHttpRequest request) {
+        List<String> credentials = new ArrayList<>();
+        request.getHeaders().entrySet().stream()
+            .filter(e -> CREDENTIALS_HEADER_INPUT.test(e.getKey()))
+            .sorted(Map.Entry.comparingByKey(String.CASE_INSENSITIVE_ORDER))
+            .forEach(e -> credentials.add(e.getKey().toLowerCase() + ":" + String.join(",", e.getValue())));
+        CookieUtil.readCookies(request.getHeaders())
+            .filter(CREDENTIALS_COOKIE_INPUT)
+            .sorted(Comparator.comparing(HttpCookie::getName, String.CASE_INSENSITIVE_ORDER))
+            .forEach(c -> credentials.add(c.getName().toLowerCase() + "=" + c.getValue()));
+        try {
+            String encodedCertificate = X509Util.getEncodedClientCertificate(request.getSslInfo());
+            if (encodedCertificate != null) {
+                credentials.add(encodedCertificate);
+            }
+        } catch (CertificateEncodingException e) {
+            // invalid certificate is reported by the call of ZAAS
+            return null;
+        }
+
+        if (credentials.isEmpty()) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(getClass().getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(config.getServiceId()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(data).getBytes(StandardCharsets.UTF_8));
+            for (String credential : credentials) {
+                digest.update((byte) 0);
+                digest.update(credential.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            log.debug("Cannot create a hash of credentials, the response of ZAAS won't be cached", e);
+            return null;
+        }
+    }
+
     /**
      * This method should construct basic request to the ZAAS (related to the authentication scheme). It should define
      * URL, body and specific headers / cookies (if they are needed). The rest of values are set by
@@ -327,10 +484,13 @@ public abstract class AbstractAuthSchemeFactory<T extends AbstractAuthSchemeFact
         return (exchange, chain) -> getZaasInstances().flatMap(
             instances -> {
                 ServerHttpRequest.Builder clientCallBuilder = exchange.getRequest().mutate();
+                String cacheKey = responseCache != null ? getCacheKey(config, data, exchange.getRequest()) : null;
                 return invoke(
                     instances,
                     instance -> createRequest(config, clientCallBuilder, instance, data, exchange.getRequest()),
-                    response -> processResponse(exchange.mutate().request(clientCallBuilder.build()).build(), chain, response)
+                    response -> processResponse(exchange.mutate().request(clientCallBuilder.build()).build(), chain, response),
+                    cacheKey,
+                    cacheKey != null ? getCredentialsExpiration(exchange.getRequest()) : null
                 );
             }
         );
@@ -10,7 +10,10 @@
 
 package org.zowe.apiml.gateway.filters;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
@@ -27,11 +30,21 @@ import org.zowe.apiml.util.CookieUtil;
 import org.zowe.apiml.zaas.ZaasTokenResponse;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
+@Slf4j
 public abstract class AbstractTokenFilterFactory<T extends AbstractTokenFilterFactory.Config, D> extends AbstractAuthSchemeFactory<T, ZaasTokenResponse, D> {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // the cached token has to be valid also at the moment when the service receives it
+    private static final Duration EXPIRATION_MARGIN = Duration.ofSeconds(5);
+
     protected AbstractTokenFilterFactory(Class<T> configClazz, WebClient webClient, InstanceInfoService instanceInfoService, MessageService messageService) {
         super(configClazz, webClient, instanceInfoService, messageService);
     }
@@ -50,6 +63,58 @@ public abstract class AbstractTokenFilterFactory<T extends AbstractTokenFilterFa
         }
     }
 
+    /**
+     * @return maximum time to reuse the token generated by ZAAS for the same credentials, zero to disable caching
+     */
+    protected Duration getCacheTtl() {
+        return Duration.ZERO;
+    }
+
+    @Override
+    protected Duration getCacheValidity(AuthorizationResponse<ZaasTokenResponse> response) {
+        Duration ttl = getCacheTtl();
+        if (!ttl.isPositive()) {
+            return Duration.ZERO;
+        }
+
+        Long expiration = getExpiration(response.getBody().getToken());
+        if (expiration != null) {
+            Duration remaining = Duration.between(Instant.now(), Instant.ofEpochSecond(expiration)).minus(EXPIRATION_MARGIN);
+            if (remaining.compareTo(ttl) < 0) {
+                return remaining;
+            }
+        }
+        return ttl;
+    }
+
+    /**
+     * Read the expiration of the token if it is a JWT (Zowe JWT, z/OSMF JWT, SAF IDT). The signature is not verified,
+     * the value is used just to limit the caching.
+     *
+     * @param token the token returned by ZAAS
+     * @return expiration (in seconds since epoch) or null if it is not possible to read it (ie. LTPA token)
+     */
+    static Long getExpiration(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if ((firstDot < 0) || (firstDot >= lastDot)) {
+            return null;
+        }
+
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot));
+            JsonNode exp = MAPPER.readTree(payload).get("exp");
+            return (exp != null && exp.canConvertToLong()) ? exp.asLong() : null;
+        } catch (IllegalArgumentException | IOException e) {
+            log.debug("Cannot read expiration of the token: {}", e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     protected Class<ZaasTokenResponse> getResponseClass() {
         return ZaasTokenResponse.class;
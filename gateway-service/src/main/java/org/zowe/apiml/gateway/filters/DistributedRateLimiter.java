@@ -0,0 +1,359 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.stereotype.Component;
+import org.zowe.apiml.gateway.caching.CachingServiceClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rate limiter sharing the consumption of all Gateway instances via the Caching Service.
+ * <p>
+ * The bucket is refilled in fixed windows of refillDuration minutes for each route and key: each window adds tokens
+ * to the bucket up to its capacity (a new bucket is full), as {@link InMemoryRateLimiter} does. Each instance decides
+ * locally, so the latency of the request is not affected by the Caching Service. Once per
+ * apiml.gateway.rateLimiterSyncIntervalMs the instance synchronizes the bucket with a single record in the Caching
+ * Service: it reads the record (the tokens of the window and the consumption of each instance) and writes back its
+ * own consumption by compare-and-set, so the instances never overwrite each other. Therefore, the limit could be
+ * exceeded by the requests received by the other instances since the last synchronization.
+ * <p>
+ * The records don't contain the key itself (the token of the user), but its hash. A bucket which was not used for
+ * apiml.gateway.rateLimiterIdleExpiration minutes is removed, the record in the Caching Service is removed too once its
+ * window is over. If the Caching Service is not available, each instance counts only its own requests.
+ */
+@Slf4j
+@Component
+public class DistributedRateLimiter implements RateLimiter<InMemoryRateLimiter.Config> {
+
+    static final String MODE = "distributed";
+
+    private static final String KEY_PREFIX = "rateLimiter:";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final CachingServiceClient cachingServiceClient;
+    private final InMemoryRateLimiter defaults;
+    private final String instanceId;
+    private final long syncIntervalMs;
+    private final Clock clock;
+
+    private final Cache<BucketId, WindowCounter> buckets;
+    private final RateLimiterMetrics metrics;
+
+    @Autowired
+    public DistributedRateLimiter(
+        CachingServiceClient cachingServiceClient,
+        InMemoryRateLimiter defaults,
+        MeterRegistry meterRegistry,
+        @Value("${eureka.instance.instanceId:}") String instanceId,
+        @Value("${apiml.gateway.rateLimiterSyncIntervalMs:1000}") long syncIntervalMs,
+        @Value("${apiml.gateway.rateLimiterIdleExpiration:10}") int idleExpiration
+    ) {
+        this(cachingServiceClient, defaults, meterRegistry, instanceId, syncIntervalMs, idleExpiration, Clock.systemUTC());
+    }
+
+    DistributedRateLimiter(
+        CachingServiceClient cachingServiceClient,
+        InMemoryRateLimiter defaults,
+        MeterRegistry meterRegistry,
+        String instanceId,
+        long syncIntervalMs,
+        int idleExpiration,
+        Clock clock
+    ) {
+        this.cachingServiceClient = cachingServiceClient;
+        this.defaults = defaults;
+        this.instanceId = instanceId;
+        this.syncIntervalMs = syncIntervalMs;
+        this.clock = clock;
+
+        this.buckets = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(idleExpiration))
+            .removalListener(this::onRemoval)
+            .build();
+        this.metrics = new RateLimiterMetrics(meterRegistry, MODE, buckets::estimatedSize);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        return isAllowed(routeId, id, defaults.newConfig());
+    }
+
+    /**
+     * Verify the request with the limits of the route
+     *
+     * @param routeId identification of the route (serviceId)
+     * @param id      key of the user
+     * @param config  limits of the route, zero values are replaced by the defaults
+     * @return the decision with the remaining number of requests in the current window
+     */
+    public Mono<Response> isAllowed(String routeId, String id, InMemoryRateLimiter.Config config) {
+        InMemoryRateLimiter.Config defaultConfig = defaults.newConfig();
+        long capacity = config.getCapacity() != 0 ? config.getCapacity() : defaultConfig.getCapacity();
+        long tokens = config.getTokens() != 0 ? config.getTokens() : defaultConfig.getTokens();
+        long refillDuration = config.getRefillDuration() != 0 ? config.getRefillDuration() : defaultConfig.getRefillDuration();
+        Limits limits = new Limits(capacity, tokens, Duration.ofMinutes(refillDuration).toMillis());
+
+        long now = clock.millis();
+        BucketId bucketId = new BucketId(routeId, hash(id));
+        WindowCounter counter = buckets.get(bucketId, k -> new WindowCounter());
+        boolean allowed = counter.tryConsume(limits.window(now), limits);
+        metrics.record(routeId, id, allowed);
+
+        if (counter.startSync(now, syncIntervalMs)) {
+            synchronize(bucketId, counter, limits).subscribe();
+        }
+
+        return Mono.just(new Response(allowed, Map.of("X-RateLimit-Remaining", String.valueOf(counter.getRemaining()))));
+    }
+
+    /**
+     * Merge the consumption of this instance into the shared record of the bucket and take over the consumption of
+     * the other instances. It costs one read and one write regardless of the number of instances. A concurrent
+     * change of the record fails the write, the consumption is written by the next synchronization.
+     */
+    Mono<Void> synchronize(BucketId bucketId, WindowCounter counter, Limits limits) {
+        String key = bucketId.toKey();
+        return cachingServiceClient.read(key)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(current -> {
+                BucketState merged = counter.merge(current.map(kv -> parse(kv.getValue())).orElse(null), instanceId, limits);
+                if (merged == null) {
+                    return Mono.<Void>empty();
+                }
+
+                CachingServiceClient.KeyValue toStore = new CachingServiceClient.KeyValue(key, serialize(merged));
+                return current
+                    .map(kv -> cachingServiceClient.compareAndSet(toStore, kv.getValue()))
+                    .orElseGet(() -> cachingServiceClient.create(toStore))
+                    .doOnSuccess(v -> counter.published = true);
+            })
+            .onErrorResume(e -> {
+                log.debug("Cannot synchronize the rate limiter with the Caching Service: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .doFinally(s -> counter.syncing.set(false));
+    }
+
+    static BucketState parse(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return MAPPER.readValue(value, BucketState.class);
+        } catch (JsonProcessingException e) {
+            log.debug("Invalid record of rate limiter: {}", value);
+            return null;
+        }
+    }
+
+    static String serialize(BucketState state) {
+        try {
+            return MAPPER.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the record of rate limiter", e);
+        }
+    }
+
+    private void onRemoval(BucketId bucketId, WindowCounter counter, RemovalCause cause) {
+        if ((bucketId == null) || (counter == null) || !counter.published) {
+            return;
+        }
+
+        // the other instances could still use the record, remove it only if its window is over
+        String key = bucketId.toKey();
+        cachingServiceClient.read(key)
+            .filter(kv -> {
+                BucketState state = parse(kv.getValue());
+                return (state == null) || (counter.isOver(state.getWindow(), clock.millis()));
+            })
+            .flatMap(kv -> cachingServiceClient.delete(key))
+            .onErrorResume(e -> Mono.empty())
+            .subscribe();
+    }
+
+    static String hash(String id) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(id.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    @Override
+    public Map<String, InMemoryRateLimiter.Config> getConfig() {
+        return defaults.getConfig();
+    }
+
+    @Override
+    public Class<InMemoryRateLimiter.Config> getConfigClass() {
+        return InMemoryRateLimiter.Config.class;
+    }
+
+    @Override
+    public InMemoryRateLimiter.Config newConfig() {
+        return defaults.newConfig();
+    }
+
+    record BucketId(String routeId, String keyHash) {
+
+        String toKey() {
+            return KEY_PREFIX + routeId + ":" + keyHash;
+        }
+
+    }
+
+    record Limits(long capacity, long tokens, long windowMs) {
+
+        long window(long now) {
+            return now / windowMs;
+        }
+
+        /**
+         * @param left    tokens left at the end of the last known window
+         * @param windows number of windows since then
+         * @return tokens at the start of the current window
+         */
+        long refill(long left, long windows) {
+            if ((tokens > 0) && (windows >= capacity)) {
+                return capacity;
+            }
+            return Math.min(capacity, Math.max(0, left) + tokens * windows);
+        }
+
+    }
+
+    /**
+     * The shared record of the bucket: the tokens available at the start of the window and the consumption of each
+     * instance in the window
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class BucketState {
+        private long window;
+        private long available;
+        private Map<String, Long> consumed = new HashMap<>();
+    }
+
+    /**
+     * Consumption of a bucket in the current window. The local requests are counted exactly, the requests of the
+     * other instances are known from the last synchronization.
+     */
+    static class WindowCounter {
+
+        private long window = -1;
+        private long windowMs;
+        private long available;
+        private long local;
+        private long peers;
+
+        private volatile long lastSync;
+        private final AtomicBoolean syncing = new AtomicBoolean();
+        private volatile boolean published;
+
+        synchronized boolean tryConsume(long currentWindow, Limits limits) {
+            if (currentWindow != window) {
+                available = window < 0 ? limits.capacity() : limits.refill(available - local - peers, currentWindow - window);
+                window = currentWindow;
+                local = 0;
+                peers = 0;
+            }
+            windowMs = limits.windowMs();
+            if (local + peers >= available) {
+                return false;
+            }
+            local++;
+            return true;
+        }
+
+        /**
+         * Take over the state of the shared record and return the record with the consumption of this instance.
+         *
+         * @param remote     the shared record, null if there is none
+         * @param instanceId identification of this instance in the record
+         * @param limits     limits of the bucket
+         * @return record to store, null if the record belongs to a newer window than this instance knows
+         */
+        synchronized BucketState merge(BucketState remote, String instanceId, Limits limits) {
+            Map<String, Long> consumed = new HashMap<>();
+            // without a valid record this instance starts a new one
+            if ((remote != null) && (remote.getConsumed() != null)) {
+                if (remote.getWindow() > window) {
+                    return null;
+                }
+
+                if (remote.getWindow() == window) {
+                    consumed.putAll(remote.getConsumed());
+                    consumed.remove(instanceId);
+                    available = remote.getAvailable();
+                    peers = consumed.values().stream().mapToLong(Long::longValue).sum();
+                } else {
+                    long used = remote.getConsumed().values().stream().mapToLong(Long::longValue).sum();
+                    available = limits.refill(remote.getAvailable() - used, window - remote.getWindow());
+                    peers = 0;
+                }
+            }
+
+            consumed.put(instanceId, local);
+            return new BucketState(window, available, consumed);
+        }
+
+        synchronized long getRemaining() {
+            return Math.max(0, available - local - peers);
+        }
+
+        synchronized boolean isOver(long recordWindow, long now) {
+            return (windowMs > 0) && (now / windowMs > recordWindow);
+        }
+
+        boolean startSync(long now, long interval) {
+            if ((now - lastSync < interval) || !syncing.compareAndSet(false, true)) {
+                return false;
+            }
+            lastSync = now;
+            return true;
+        }
+
+    }
+
+}
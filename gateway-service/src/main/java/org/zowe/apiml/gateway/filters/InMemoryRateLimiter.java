@@ -10,8 +10,11 @@
 
 package org.zowe.apiml.gateway.filters;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,10 +26,19 @@ import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Rate limiter with buckets stored in the memory of this instance. Each instance of the Gateway counts the requests
+ * separately. A bucket which was not used for apiml.gateway.rateLimiterIdleExpiration minutes is removed.
+ *
+ * @see DistributedRateLimiter
+ */
 @Component
 public class InMemoryRateLimiter implements RateLimiter<InMemoryRateLimiter.Config> {
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    static final String MODE = "inMemory";
+
+    private final Cache<String, Bucket> cache;
+    private final RateLimiterMetrics metrics;
 
     @Value("${apiml.gateway.rateLimiterCapacity:20}")
     int capacity;
@@ -37,14 +49,22 @@ public class InMemoryRateLimiter implements RateLimiter<InMemoryRateLimiter.Conf
     @Value("${apiml.gateway.rateLimiterRefillDuration:1}")
     int refillDuration;
 
+    public InMemoryRateLimiter(
+        MeterRegistry meterRegistry,
+        @Value("${apiml.gateway.rateLimiterIdleExpiration:10}") int idleExpiration
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(idleExpiration))
+            .build();
+        this.metrics = new RateLimiterMetrics(meterRegistry, MODE, cache::estimatedSize);
+    }
+
     @Override
     public Mono<Response> isAllowed(String routeId, String id) {
-        Bucket bucket = cache.computeIfAbsent(id, this::newBucket);
-        if (bucket.tryConsume(1)) {
-            return Mono.just(new Response(true, getHeaders(bucket)));
-        } else {
-            return Mono.just(new Response(false, getHeaders(bucket)));
-        }
+        Bucket bucket = cache.get(id, this::newBucket);
+        boolean allowed = bucket.tryConsume(1);
+        metrics.record(routeId, id, allowed);
+        return Mono.just(new Response(allowed, getHeaders(bucket)));
     }
 
     private Bucket newBucket(String id) {
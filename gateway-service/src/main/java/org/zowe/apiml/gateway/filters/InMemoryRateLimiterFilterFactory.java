@@ -14,8 +14,11 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.PathContainer;
 import org.springframework.stereotype.Component;
@@ -27,6 +30,14 @@ import reactor.core.publisher.Mono;
 
 import java.util.List;
 
+/**
+ * Filter limiting the number of requests of a user to a service. The mode of the limiter is set by the metadata
+ * apiml.gateway.rateLimiterMode of the service (or the default apiml.gateway.rateLimiterMode of the Gateway):
+ * <ul>
+ *     <li>inMemory - each instance of the Gateway counts the requests separately ({@link InMemoryRateLimiter})</li>
+ *     <li>distributed - the requests are counted by all instances together ({@link DistributedRateLimiter})</li>
+ * </ul>
+ */
 @Component
 public class InMemoryRateLimiterFilterFactory extends AbstractGatewayFilterFactory<InMemoryRateLimiterFilterFactory.Config> {
 
@@ -35,15 +46,28 @@ public class InMemoryRateLimiterFilterFactory extends AbstractGatewayFilterFacto
 
     private InMemoryRateLimiter rateLimiter;
 
+    private final DistributedRateLimiter distributedRateLimiter;
+
+    private final String defaultMode;
+
     private final KeyResolver keyResolver;
 
     private final ObjectMapper mapper;
 
     private final MessageService messageService;
 
-    public InMemoryRateLimiterFilterFactory(InMemoryRateLimiter rateLimiter, KeyResolver keyResolver, ObjectMapper mapper, MessageService messageService) {
+    public InMemoryRateLimiterFilterFactory(
+        InMemoryRateLimiter rateLimiter,
+        DistributedRateLimiter distributedRateLimiter,
+        KeyResolver keyResolver,
+        ObjectMapper mapper,
+        MessageService messageService,
+        @Value("${apiml.gateway.rateLimiterMode:" + InMemoryRateLimiter.MODE + "}") String defaultMode
+    ) {
         super(Config.class);
         this.rateLimiter = rateLimiter;
+        this.distributedRateLimiter = distributedRateLimiter;
+        this.defaultMode = defaultMode;
         this.keyResolver = keyResolver;
         this.mapper = mapper;
         this.messageService = messageService;
@@ -51,7 +75,14 @@ public class InMemoryRateLimiterFilterFactory extends AbstractGatewayFilterFacto
 
     @Override
     public GatewayFilter apply(Config config) {
-        this.rateLimiter.setParameters(config.capacity, config.tokens, config.refillDuration);
+        boolean distributed = DistributedRateLimiter.MODE.equalsIgnoreCase(StringUtils.defaultIfBlank(config.mode, defaultMode));
+        InMemoryRateLimiter.Config limits = new InMemoryRateLimiter.Config();
+        limits.setCapacity(config.capacity);
+        limits.setTokens(config.tokens);
+        limits.setRefillDuration(config.refillDuration);
+        if (!distributed) {
+            this.rateLimiter.setParameters(config.capacity, config.tokens, config.refillDuration);
+        }
         return (exchange, chain) -> {
             List<PathContainer.Element> pathElements = exchange.getRequest().getPath().elements();
             String requestPath = (!pathElements.isEmpty() && pathElements.size() > 1) ? pathElements.get(1).value() : null;
@@ -62,7 +93,9 @@ public class InMemoryRateLimiterFilterFactory extends AbstractGatewayFilterFacto
                 if (key.isEmpty()) {
                     return chain.filter(exchange);
                 }
-                return rateLimiter.isAllowed(requestPath, key).flatMap(response -> {
+                Mono<RateLimiter.Response> decision = distributed ?
+                    distributedRateLimiter.isAllowed(requestPath, key, limits) : rateLimiter.isAllowed(requestPath, key);
+                return decision.flatMap(response -> {
                     if (response.isAllowed()) {
                         return chain.filter(exchange);
                     } else {
@@ -87,5 +120,6 @@ public class InMemoryRateLimiterFilterFactory extends AbstractGatewayFilterFacto
         private int capacity;
         private int tokens;
         private int refillDuration;
+        private String mode;
     }
 }
@@ -36,6 +36,7 @@ import org.zowe.apiml.ticket.TicketResponse;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -45,12 +46,22 @@ public class PassticketFilterFactory extends AbstractAuthSchemeFactory<Passticke
 
     private static final String TICKET_URL = "%s://%s:%d/%s/scheme/ticket";
 
+    // PassTicket is valid for 10 minutes since generation, keep a reserve to be still valid on the service side
+    private static final Duration PASSTICKET_VALIDITY = Duration.ofMinutes(9);
+
     @Value("${apiml.security.auth.passticket.customUserHeader:}")
     private String customUserHeader;
 
     @Value("${apiml.security.auth.passticket.customAuthHeader:}")
     private String customPassTicketHeader;
 
+    /**
+     * PassTicket could be reused only if the application has disabled the replay protection. Therefore, the cache is
+     * disabled by default (value 0).
+     */
+    @Value("${apiml.security.auth.zaasCache.ttl.passticket:0}")
+    int cacheTtlSeconds;
+
     public PassticketFilterFactory(@Qualifier("webClientClientCert") WebClient webClient, InstanceInfoService instanceInfoService, MessageService messageService) {
         super(Config.class, webClient, instanceInfoService, messageService);
     }
@@ -60,6 +71,12 @@ public class PassticketFilterFactory extends AbstractAuthSchemeFactory<Passticke
         return TicketResponse.class;
     }
 
+    @Override
+    protected Duration getCacheValidity(AuthorizationResponse<TicketResponse> response) {
+        Duration ttl = Duration.ofSeconds(cacheTtlSeconds);
+        return ttl.compareTo(PASSTICKET_VALIDITY) < 0 ? ttl : PASSTICKET_VALIDITY;
+    }
+
     @Override
     protected Mono<Void> processResponse(ServerWebExchange exchange, GatewayFilterChain chain, AuthorizationResponse<TicketResponse> ticketResponse) {
         ServerHttpRequest request;
@@ -0,0 +1,53 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.Supplier;
+
+/**
+ * Metrics of the rate limiters. The decisions are counted per route, mode of the limiter and class of the key. The
+ * key itself (the token of the user) is never used as a tag.
+ */
+class RateLimiterMetrics {
+
+    static final String METRIC_NAME = "apiml.gateway.ratelimiter";
+
+    static final String KEY_CLASS_JWT = "jwt";
+    static final String KEY_CLASS_OPAQUE = "opaque";
+
+    private final MeterRegistry meterRegistry;
+    private final String mode;
+
+    RateLimiterMetrics(MeterRegistry meterRegistry, String mode, Supplier<Number> buckets) {
+        this.meterRegistry = meterRegistry;
+        this.mode = mode;
+        Gauge.builder(METRIC_NAME + ".buckets", buckets).tag("mode", mode).register(meterRegistry);
+    }
+
+    void record(String routeId, String key, boolean allowed) {
+        meterRegistry.counter(METRIC_NAME + ".requests",
+            "route", routeId,
+            "mode", mode,
+            "keyClass", getKeyClass(key),
+            "result", allowed ? "allowed" : "rejected"
+        ).increment();
+    }
+
+    static String getKeyClass(String key) {
+        int firstDot = key.indexOf('.');
+        int lastDot = key.lastIndexOf('.');
+        return (firstDot > 0) && (firstDot < lastDot) ? KEY_CLASS_JWT : KEY_CLASS_OPAQUE;
+    }
+
+}
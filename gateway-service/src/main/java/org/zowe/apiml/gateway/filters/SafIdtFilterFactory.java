@@ -17,6 +17,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.apache.http.HttpHeaders;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.http.MediaType;
@@ -27,14 +28,28 @@ import org.zowe.apiml.gateway.service.InstanceInfoService;
 import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.ticket.TicketRequest;
 
+import java.time.Duration;
+
 @Service
 public class SafIdtFilterFactory extends AbstractTokenFilterFactory<SafIdtFilterFactory.Config, String> {
     private static final ObjectWriter WRITER = new ObjectMapper().writer();
 
+    /**
+     * A cached response stays valid until it expires, even if the token is invalidated in the meantime. Therefore,
+     * the cache is disabled by default (value 0).
+     */
+    @Value("${apiml.security.auth.zaasCache.ttl.safIdt:0}")
+    int cacheTtlSeconds;
+
     public SafIdtFilterFactory(@Qualifier("webClientClientCert") WebClient webClient, InstanceInfoService instanceInfoService, MessageService messageService) {
         super(SafIdtFilterFactory.Config.class, webClient, instanceInfoService, messageService);
     }
 
+    @Override
+    protected Duration getCacheTtl() {
+        return Duration.ofSeconds(cacheTtlSeconds);
+    }
+
     @Override
     public String getEndpointUrl(ServiceInstance instance) {
         return String.format("%s://%s:%d/%s/scheme/safIdt", instance.getScheme(), instance.getHost(), instance.getPort(), instance.getServiceId().toLowerCase());
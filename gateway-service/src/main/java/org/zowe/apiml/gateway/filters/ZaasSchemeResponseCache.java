@@ -0,0 +1,146 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of responses from ZAAS for the authentication schemes. The cache is placed in front of the
+ * call to ZAAS in {@link AbstractAuthSchemeFactory} and it is keyed by a hash of the incoming credentials, the
+ * scheme and the scheme configuration (serviceId, applicationName).
+ * <p>
+ * Each entry has its own validity computed by the scheme (see
+ * {@link AbstractAuthSchemeFactory#getCacheValidity(AbstractAuthSchemeFactory.AuthorizationResponse)}). A zero
+ * validity means the response is not stored at all. Concurrent requests with the same key are coalesced, only
+ * the first one calls ZAAS and the others wait for its result.
+ * <p>
+ * The cache is cleared after each logout and revocation of tokens made through this instance (see
+ * {@link org.zowe.apiml.gateway.config.AuthEndpointConfig}).
+ */
+@Slf4j
+@Component
+public class ZaasSchemeResponseCache {
+
+    static final String METRIC_NAME = "apiml.gateway.zaas.scheme.cache";
+
+    private final AsyncCache<String, Entry> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public ZaasSchemeResponseCache(
+        MeterRegistry meterRegistry,
+        @Value("${apiml.security.auth.zaasCache.maxSize:10000}") long maxSize
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new EntryExpiry())
+            .buildAsync();
+
+        this.hits = Counter.builder(METRIC_NAME).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(METRIC_NAME).tag("result", "miss").register(meterRegistry);
+        this.coalesced = Counter.builder(METRIC_NAME).tag("result", "coalesced").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", cache, c -> c.synchronous().estimatedSize()).register(meterRegistry);
+    }
+
+    /**
+     * Return the cached value for the key or subscribe the loader. If there is already a running loader for the same
+     * key, the result of that one is used instead (single-flight).
+     *
+     * @param key      the hash identifying the request, null means the request cannot be cached
+     * @param loader   the call of ZAAS
+     * @param validity function to compute how long the value could be cached, zero or negative to not cache it
+     * @return the cached value or result of the loader
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> getOrLoad(String key, Mono<T> loader, Function<T, Duration> validity) {
+        if (key == null) {
+            return loader;
+        }
+
+        return Mono.defer(() -> {
+            AtomicBoolean loaded = new AtomicBoolean();
+            CompletableFuture<Entry> future = cache.get(key, (k, executor) -> {
+                loaded.set(true);
+                return loader.map(value -> new Entry(value, validity.apply(value))).toFuture();
+            });
+
+            if (loaded.get()) {
+                misses.increment();
+            } else if (future.isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+                log.debug("Request to ZAAS was coalesced with another running request");
+            }
+
+            // do not cancel the shared call if one of the waiting clients disconnects
+            return Mono.fromFuture(future, true).map(entry -> (T) entry.value());
+        });
+    }
+
+    /**
+     * Remove all cached responses, ie. after a token was invalidated.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    long size() {
+        cache.synchronous().cleanUp();
+        return cache.synchronous().estimatedSize();
+    }
+
+    record Entry(Object value, Duration validity) {
+    }
+
+    static class EntryExpiry implements Expiry<String, Entry> {
+
+        private long toNanos(Entry entry) {
+            if ((entry.validity() == null) || entry.validity().isNegative()) {
+                return 0;
+            }
+            return entry.validity().toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return toNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return toNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -11,20 +11,35 @@
 package org.zowe.apiml.gateway.filters;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.zowe.apiml.gateway.service.InstanceInfoService;
 import org.zowe.apiml.message.core.MessageService;
 
+import java.time.Duration;
+
 
 @Service
 public class ZosmfFilterFactory extends AbstractTokenFilterFactory<AbstractTokenFilterFactory.Config, Object> {
 
+    /**
+     * A cached response stays valid until it expires, even if the token is invalidated in the meantime. Therefore,
+     * the cache is disabled by default (value 0).
+     */
+    @Value("${apiml.security.auth.zaasCache.ttl.zosmf:0}")
+    int cacheTtlSeconds;
+
     public ZosmfFilterFactory(@Qualifier("webClientClientCert") WebClient webClient, InstanceInfoService instanceInfoService, MessageService messageService) {
         super(AbstractTokenFilterFactory.Config.class, webClient, instanceInfoService, messageService);
     }
 
+    @Override
+    protected Duration getCacheTtl() {
+        return Duration.ofSeconds(cacheTtlSeconds);
+    }
+
     @Override
     public String getEndpointUrl(ServiceInstance instance) {
         return String.format("%s://%s:%d/%s/scheme/zosmf", instance.getScheme(), instance.getHost(), instance.getPort(), instance.getServiceId().toLowerCase());
@@ -23,10 +23,19 @@ import org.zowe.apiml.message.core.MessageService;
 import org.zowe.apiml.zaas.ZaasTokenResponse;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 
 @Service
 public class ZoweFilterFactory extends AbstractTokenFilterFactory<AbstractTokenFilterFactory.Config, Object> {
 
+    /**
+     * A cached response stays valid until it expires, even if the token is invalidated in the meantime. Therefore,
+     * the cache is disabled by default (value 0).
+     */
+    @Value("${apiml.security.auth.zaasCache.ttl.zoweJwt:0}")
+    int cacheTtlSeconds;
+
     @Value("${apiml.security.auth.jwt.customAuthHeader:}")
     private String customHeader;
 
@@ -34,6 +43,11 @@ public class ZoweFilterFactory extends AbstractTokenFilterFactory<AbstractTokenF
         super(AbstractTokenFilterFactory.Config.class, webClient, instanceInfoService, messageService);
     }
 
+    @Override
+    protected Duration getCacheTtl() {
+        return Duration.ofSeconds(cacheTtlSeconds);
+    }
+
     @Override
     public String getEndpointUrl(ServiceInstance instance) {
         return String.format("%s://%s:%d/%s/scheme/zoweJwt", instance.getScheme(), instance.getHost(), instance.getPort(), instance.getServiceId().toLowerCase());
@@ -10,12 +10,12 @@
 
 package org.zowe.apiml.gateway.loadbalancer;
 
-import io.jsonwebtoken.impl.DefaultClock;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache;
+import org.zowe.apiml.gateway.caching.TokenMetadataCache;
 
 /**
  * Configuration class for setting up the DeterministicRoutingListSupplierBuilder and StickySessionRoutingListSupplierBuilder
@@ -31,11 +31,11 @@ public class CustomLoadBalancerConfiguration {
      */
     @Bean
     public ServiceInstanceListSupplier stickySessionServiceInstanceListSupplier(
-        ConfigurableApplicationContext context, LoadBalancerCache cache,
+        ConfigurableApplicationContext context, LoadBalancerCache cache, TokenMetadataCache tokenMetadataCache,
         @Value("${instance.metadata.apiml.lb.cacheRecordExpirationTimeInHours:8}") int expirationTime) {
         return new DeterministicRoutingListSupplierBuilder(ServiceInstanceListSupplier.builder()
             .withDiscoveryClient())
-            .withStickySessionRouting(cache, expirationTime, new DefaultClock())
+            .withStickySessionRouting(cache, expirationTime, tokenMetadataCache)
             .build(context);
     }
 
@@ -10,10 +10,6 @@
 
 package org.zowe.apiml.gateway.loadbalancer;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Clock;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.cloud.client.ServiceInstance;
@@ -27,12 +23,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache.LoadBalancerCacheRecord;
+import org.zowe.apiml.gateway.caching.TokenMetadataCache;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -51,20 +46,18 @@ import static reactor.core.publisher.Mono.empty;
 @Slf4j
 public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInstanceListSupplier {
 
-    private static final String HEADER_NONE_SIGNATURE = Base64.getEncoder().encodeToString("{\"typ\":\"JWT\",\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
-
     private final LoadBalancerCache cache;
-    private final Clock clock;
+    private final TokenMetadataCache tokenMetadataCache;
     private final int expirationTime;
 
     public DeterministicLoadBalancer(ServiceInstanceListSupplier delegate,
                                      ReactiveLoadBalancer.Factory<ServiceInstance> loadBalancerClientFactory,
                                      LoadBalancerCache cache,
-                                     Clock clock,
+                                     TokenMetadataCache tokenMetadataCache,
                                      int expirationTime) {
         super(delegate, loadBalancerClientFactory);
         this.cache = cache;
-        this.clock = clock;
+        this.tokenMetadataCache = tokenMetadataCache;
         this.expirationTime = expirationTime;
         log.debug("StickySessionLoadBalancer instantiated");
     }
@@ -115,7 +108,7 @@ public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInst
     private Mono<String> getSub(Object requestContext) {
         if (requestContext instanceof RequestDataContext ctx) {
             var token = Optional.ofNullable(ctx.getClientRequest().getCookies().get("apimlAuthenticationToken")).map(list -> list.get(0)).orElse("");
-            return Mono.just(extractSubFromToken(token));
+            return Mono.just(tokenMetadataCache.get(token).subject());
         }
         return Mono.just("");
     }
@@ -242,43 +235,4 @@ public class DeterministicLoadBalancer extends SameInstancePreferenceServiceInst
         }
         return false;
     }
-
-    private String removeJwtSign(String jwtToken) {
-        if (jwtToken == null) return null;
-
-        int firstDot = jwtToken.indexOf('.');
-        int lastDot = jwtToken.lastIndexOf('.');
-        if ((firstDot < 0) || (firstDot >= lastDot)) throw new MalformedJwtException("Invalid JWT format");
-
-        return HEADER_NONE_SIGNATURE + jwtToken.substring(firstDot, lastDot + 1);
-    }
-
-    private Claims getJwtClaims(String jwt) {
-        /*
-         * Removes signature, because we don't have key to verify z/OS tokens, and we just need to read claim.
-         * Verification is done by SAF itself. JWT library doesn't parse signed key without verification.
-         */
-        try {
-            String withoutSign = removeJwtSign(jwt);
-            return Jwts.parser()
-                .unsecured()
-                .clock(clock)
-                .build()
-                .parseUnsecuredClaims(withoutSign)
-                .getPayload();
-        } catch (RuntimeException exception) {
-            log.debug("Exception when trying to parse the JWT token {}", jwt);
-            return null; // NOSONAR
-        }
-    }
-
-    private String extractSubFromToken(String token) {
-        if (!token.isEmpty()) {
-            Claims claims = getJwtClaims(token);
-            if (claims != null) {
-                return claims.getSubject();
-            }
-        }
-        return "";
-    }
 }
@@ -10,21 +10,21 @@
 
 package org.zowe.apiml.gateway.loadbalancer;
 
-import io.jsonwebtoken.Clock;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplierBuilder;
 import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache;
+import org.zowe.apiml.gateway.caching.TokenMetadataCache;
 
 @RequiredArgsConstructor
 public class DeterministicRoutingListSupplierBuilder {
 
     private final ServiceInstanceListSupplierBuilder builder;
 
-    public ServiceInstanceListSupplierBuilder withStickySessionRouting(LoadBalancerCache cache, int expirationTime, Clock clock) {
+    public ServiceInstanceListSupplierBuilder withStickySessionRouting(LoadBalancerCache cache, int expirationTime, TokenMetadataCache tokenMetadataCache) {
         ServiceInstanceListSupplierBuilder.DelegateCreator creator = (context, delegate) -> {
             LoadBalancerClientFactory loadBalancerClientFactory = context.getBean(LoadBalancerClientFactory.class);
-            return new DeterministicLoadBalancer(delegate, loadBalancerClientFactory, cache, clock, expirationTime);
+            return new DeterministicLoadBalancer(delegate, loadBalancerClientFactory, cache, tokenMetadataCache, expirationTime);
         };
         builder.with(creator);
         return builder;
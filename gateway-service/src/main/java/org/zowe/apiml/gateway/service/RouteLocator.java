@@ -10,6 +10,9 @@
 
 package org.zowe.apiml.gateway.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AccessLevel;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
@@ -33,6 +36,7 @@ import org.zowe.apiml.util.StringUtils;
 import reactor.core.publisher.Flux;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -41,6 +45,8 @@ import static org.zowe.apiml.constants.EurekaMetadataDefinition.*;
 @Service
 public class RouteLocator implements RouteDefinitionLocator {
 
+    static final String METRIC_NAME = "apiml.gateway.routes";
+
     private static final EurekaMetadataParser metadataParser = new EurekaMetadataParser();
 
     @Value("${apiml.routing.ignoredServices:}")
@@ -61,6 +67,15 @@ public class RouteLocator implements RouteDefinitionLocator {
     private final List<RouteDefinitionProducer> routeDefinitionProducers;
     private final Map<AuthenticationScheme, SchemeHandler> schemeHandlers = new EnumMap<>(AuthenticationScheme.class);
 
+    /**
+     * Routes generated for each instance. They are generated again only if the instance or its metadata changed.
+     */
+    private final Map<InstanceKey, CompiledInstance> compiledInstances = new ConcurrentHashMap<>();
+
+    private final Timer compilationTimer;
+    private final Counter compiledInstancesCounter;
+    private final Counter reusedInstancesCounter;
+
     @Getter(lazy = true, value = AccessLevel.PRIVATE)
     private final UrlBasedCorsConfigurationSource corsConfigurationSource = context.getBean(UrlBasedCorsConfigurationSource.class);
 
@@ -70,17 +85,27 @@ public class RouteLocator implements RouteDefinitionLocator {
         ReactiveDiscoveryClient discoveryClient,
         List<FilterDefinition> commonFilters,
         List<SchemeHandler> schemeHandlersList,
-        List<RouteDefinitionProducer> routeDefinitionProducers
+        List<RouteDefinitionProducer> routeDefinitionProducers,
+        MeterRegistry meterRegistry
     ) {
         this.context = context;
         this.corsUtils = corsUtils;
         this.discoveryClient = discoveryClient;
         this.commonFilters = commonFilters;
-        this.routeDefinitionProducers = routeDefinitionProducers;
+        this.routeDefinitionProducers = routeDefinitionProducers.stream()
+            .sorted(Comparator.comparingInt(RouteDefinitionProducer::getOrder))
+            .toList();
 
         for (SchemeHandler schemeHandler : schemeHandlersList) {
             schemeHandlers.put(schemeHandler.getAuthenticationScheme(), schemeHandler);
         }
+
+        this.compilationTimer = Timer.builder(METRIC_NAME + ".compilation")
+            .description("Time to generate all route definitions")
+            .register(meterRegistry);
+        this.compiledInstancesCounter = Counter.builder(METRIC_NAME + ".instances").tag("result", "compiled").register(meterRegistry);
+        this.reusedInstancesCounter = Counter.builder(METRIC_NAME + ".instances").tag("result", "reused").register(meterRegistry);
+        meterRegistry.gauge(METRIC_NAME + ".cached", compiledInstances, Map::size);
     }
 
     Flux<List<ServiceInstance>> getServiceInstances() {
@@ -151,6 +176,7 @@ public class RouteLocator implements RouteDefinitionLocator {
             rateLimiterFilter.addArg("capacity", serviceInstance.getMetadata().get("apiml.gateway.rateLimiterCapacity"));
             rateLimiterFilter.addArg("tokens", serviceInstance.getMetadata().get("apiml.gateway.rateLimiterTokens"));
             rateLimiterFilter.addArg("refillDuration", serviceInstance.getMetadata().get("apiml.gateway.rateLimiterRefillDuration"));
+            rateLimiterFilter.addArg("mode", serviceInstance.getMetadata().get("apiml.gateway.rateLimiterMode"));
             serviceRelated.add(rateLimiterFilter);
         } else if (servicesToLimitRequestRate != null && servicesToLimitRequestRate.contains(serviceInstance.getServiceId().toLowerCase())) {
             FilterDefinition rateLimiterFilter = new FilterDefinition();
@@ -177,7 +203,6 @@ public class RouteLocator implements RouteDefinitionLocator {
         return getRoutedService(serviceInstance)
             .map(routedService ->
                 routeDefinitionProducers.stream()
-                    .sorted(Comparator.comparingInt(RouteDefinitionProducer::getOrder))
                     .map(rdp -> {
                         // generate a new routing rule by a specific produces
                         RouteDefinition routeDefinition = rdp.get(serviceInstance, routedService);
@@ -197,25 +222,82 @@ public class RouteLocator implements RouteDefinitionLocator {
      * The routes are sorted by serviceUrl to avoid clashing between multiple levels of paths, ie. / vs. /a.
      * Sorting routes and generators by order allows to redefine order of each rule. There is no possible to have
      * multiple valid rules for the same case at one moment.
+     * <p>
+     * The rules of an instance are generated again only if the instance is new or its metadata changed, otherwise
+     * the rules from the previous call are used (only the order is updated). Rules of removed instances are dropped.
      *
      * @return routing rules
      */
     @Override
     public Flux<RouteDefinition> getRouteDefinitions() {
-        // counter of generated route definition to prevent clashing by the order
-        AtomicInteger order = new AtomicInteger();
-        // iterate over services
-        return getServiceInstances().flatMap(Flux::fromIterable).map(serviceInstance -> {
-            // configure CORS for the service (if necessary)
-            setCors(serviceInstance);
-
-            // generate route definition per services and its routing rules
-            return getAuthFilterPerRoute(order, serviceInstance, getPostRoutingFilters(serviceInstance));
-        })
-        .flatMapIterable(list -> list);
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            // counter of generated route definition to prevent clashing by the order
+            AtomicInteger order = new AtomicInteger();
+            Set<InstanceKey> present = ConcurrentHashMap.newKeySet();
+            // iterate over services
+            return getServiceInstances().flatMap(Flux::fromIterable).map(serviceInstance -> {
+                InstanceKey key = InstanceKey.of(serviceInstance);
+                present.add(key);
+                return getCompiledRoutes(key, serviceInstance).stream()
+                    .map(compiled -> withOrder(compiled, order.getAndIncrement()))
+                    .toList();
+            })
+            .flatMapIterable(list -> list)
+            .doOnComplete(() -> {
+                compiledInstances.keySet().retainAll(present);
+                sample.stop(compilationTimer);
+            });
+        });
+    }
+
+    private List<RouteDefinition> getCompiledRoutes(InstanceKey key, ServiceInstance serviceInstance) {
+        CompiledInstance compiled = compiledInstances.get(key);
+        if ((compiled != null) && compiled.metadata().equals(serviceInstance.getMetadata())) {
+            reusedInstancesCounter.increment();
+            return compiled.routes();
+        }
+
+        // configure CORS for the service (if necessary)
+        setCors(serviceInstance);
+
+        // generate route definition per services and its routing rules
+        List<RouteDefinition> routes = getAuthFilterPerRoute(new AtomicInteger(), serviceInstance, getPostRoutingFilters(serviceInstance));
+        compiledInstances.put(key, new CompiledInstance(new HashMap<>(serviceInstance.getMetadata()), routes));
+        compiledInstancesCounter.increment();
+        return routes;
+    }
+
+    static RouteDefinition withOrder(RouteDefinition compiled, int order) {
+        RouteDefinition routeDefinition = new RouteDefinition();
+        routeDefinition.setId(compiled.getId());
+        routeDefinition.setUri(compiled.getUri());
+        routeDefinition.setPredicates(compiled.getPredicates());
+        routeDefinition.setFilters(compiled.getFilters());
+        routeDefinition.setMetadata(compiled.getMetadata());
+        routeDefinition.setOrder(order);
+        return routeDefinition;
     }
 
     private boolean filterIgnored(String serviceId) {
         return !PatternMatchUtils.simpleMatch(ignoredServices, serviceId);
     }
+
+    record InstanceKey(String serviceId, String instanceId, String host, int port, boolean secure) {
+
+        static InstanceKey of(ServiceInstance serviceInstance) {
+            return new InstanceKey(
+                serviceInstance.getServiceId(),
+                serviceInstance.getInstanceId(),
+                serviceInstance.getHost(),
+                serviceInstance.getPort(),
+                serviceInstance.isSecure()
+            );
+        }
+
+    }
+
+    record CompiledInstance(Map<String, String> metadata, List<RouteDefinition> routes) {
+    }
+
 }
@@ -19,23 +19,37 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.zowe.apiml.gateway.caching.CachingServiceClient.KeyValue;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache.LoadBalancerCacheRecord;
 import org.zowe.apiml.product.gateway.GatewayClient;
 import org.zowe.apiml.product.instance.ServiceAddress;
+import org.zowe.apiml.product.instance.ServiceInstanceUrls;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static reactor.core.publisher.Mono.empty;
 import static reactor.core.publisher.Mono.just;
@@ -225,6 +239,136 @@ class CachingServiceClientTest {
 
         }
 
+        @Nested
+        class WhenCompareAndSet {
+
+            @Test
+            void andServerSuccess_thenSuccess() {
+                mockResponse(204);
+                var kv = new KeyValue("key", "value");
+
+                StepVerifier.create(client.compareAndSet(kv, "previous"))
+                    .expectComplete()
+                    .verify();
+
+                verify(exchangeFunction).exchange(argThat(request ->
+                    request.method() == HttpMethod.PUT && request.url().getPath().endsWith("/cache/compare-and-set")));
+            }
+
+            @Test
+            void andValueChanged_thenConflict() {
+                mockResponse(409);
+                var kv = new KeyValue("key", "value");
+
+                StepVerifier.create(client.compareAndSet(kv, "previous"))
+                    .verifyErrorMatches(e -> e instanceof CachingServiceClientException ex && ex.getStatusCode() == 409);
+            }
+
+        }
+
+        @Nested
+        class WhenUpsert {
+
+            @Test
+            void andCreated_thenSuccess() {
+                mockResponse(201);
+                var kv = new KeyValue("key", "value");
+
+                StepVerifier.create(client.upsert(kv))
+                    .expectComplete()
+                    .verify();
+
+                verify(exchangeFunction).exchange(argThat(request ->
+                    request.method() == HttpMethod.PUT && request.url().getPath().endsWith("/cache/upsert")));
+            }
+
+            @Test
+            void andUpdated_thenSuccess() {
+                mockResponse(204);
+                var kv = new KeyValue("key", "value");
+
+                StepVerifier.create(client.upsert(kv))
+                    .expectComplete()
+                    .verify();
+            }
+
+            @Test
+            void andServerError_thenError() {
+                mockResponse(500);
+                var kv = new KeyValue("key", "value");
+
+                StepVerifier.create(client.upsert(kv))
+                    .verifyErrorMatches(assertCachingServiceClientException(500));
+            }
+
+        }
+
+    }
+
+    @Nested
+    class GivenCachingServiceInstances {
+
+        private static final String INSTANCE1 = "https://cs1:10016";
+        private static final String INSTANCE2 = "https://cs2:10016";
+
+        private final ServiceInstanceUrls instances = mock(ServiceInstanceUrls.class);
+        private final List<String> calledUrls = new ArrayList<>();
+
+        @BeforeEach
+        void setUp() {
+            client = new CachingServiceClient(webClient, new GatewayClient(ServiceAddress.builder().scheme("https").hostname("gateway:10010").build()), instances);
+            lenient().when(instances.getUrls()).thenReturn(List.of(INSTANCE1, INSTANCE2));
+        }
+
+        private void mockResponses(Throwable instance1Failure) {
+            when(exchangeFunction.exchange(any(ClientRequest.class))).thenAnswer(invocation -> {
+                ClientRequest request = invocation.getArgument(0);
+                calledUrls.add(request.url().toString());
+                if (request.url().toString().startsWith(INSTANCE1)) {
+                    return Mono.error(new WebClientRequestException(instance1Failure, request.method(), request.url(), new HttpHeaders()));
+                }
+                return just(clientResponse);
+            });
+            lenient().when(clientResponse.statusCode()).thenReturn(HttpStatusCode.valueOf(200));
+        }
+
+        @Test
+        void whenInstanceIsNotReachable_thenCallTheNextOneDirectly() {
+            mockResponses(new ConnectException("refused"));
+
+            StepVerifier.create(client.delete("key"))
+                .expectComplete()
+                .verify();
+
+            assertEquals(List.of(INSTANCE1 + "/cachingservice/api/v1/cache/key", INSTANCE2 + "/cachingservice/api/v1/cache/key"), calledUrls);
+            verify(instances).failed(INSTANCE1);
+            verify(instances).succeeded(INSTANCE2);
+        }
+
+        @Test
+        void whenNoInstanceIsAvailable_thenCallViaGateway() {
+            when(instances.getUrls()).thenReturn(List.of());
+            mockResponses(new ConnectException("refused"));
+
+            StepVerifier.create(client.delete("key"))
+                .expectComplete()
+                .verify();
+
+            assertEquals(1, calledUrls.size());
+            assertTrue(calledUrls.get(0).startsWith("https://gateway:10010/"));
+        }
+
+        @Test
+        void whenCreateFailsOnEstablishedConnection_thenDoNotRepeatIt() {
+            mockResponses(new IOException("Connection reset"));
+
+            StepVerifier.create(client.create(new KeyValue("key", "value")))
+                .expectError(WebClientRequestException.class)
+                .verify();
+
+            assertEquals(1, calledUrls.size());
+        }
+
     }
 
 }
@@ -16,6 +16,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
 import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -34,7 +35,11 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static reactor.core.publisher.Mono.empty;
@@ -88,7 +93,7 @@ class LoadBalancerCacheTest {
                 @Test
                 void andSuccess_thenSuccess() throws JsonProcessingException {
                     var cacheRecord = new LoadBalancerCacheRecord("instance1");
-                    when(cachingServiceClient.create(new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord))))
+                    when(cachingServiceClient.upsert(new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord))))
                         .thenReturn(empty());
 
                     StepVerifier.create(loadBalancerCache.store("anuser", "aserviceid", cacheRecord))
@@ -97,28 +102,48 @@ class LoadBalancerCacheTest {
                 }
 
                 @Test
-                void andGenericError_thenError() throws JsonProcessingException {
+                void andGenericError_thenStoreToNearCache() throws JsonProcessingException {
                     var cacheRecord = new LoadBalancerCacheRecord("instance1");
-                    when(cachingServiceClient.create(new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord))))
+                    when(cachingServiceClient.upsert(new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord))))
                         .thenReturn(error(new CachingServiceClientException(500, "error")));
 
-                        StepVerifier.create(loadBalancerCache.store("anuser", "aserviceid", cacheRecord))
-                            .expectErrorMatches(exception -> exception.getMessage().equals("error"))
-                            .verify();
+                    StepVerifier.create(loadBalancerCache.store("anuser", "aserviceid", cacheRecord))
+                        .expectComplete()
+                        .verify();
+
+                    StepVerifier.create(loadBalancerCache.retrieve("anuser", "aserviceid"))
+                        .expectNext(cacheRecord)
+                        .verifyComplete();
                 }
 
                 @Test
-                void andErrorCacheConflict_thenError() throws JsonProcessingException {
+                void andSameInstanceIsStoredAgain_thenSkipRemoteWrite() throws JsonProcessingException {
                     var cacheRecord = new LoadBalancerCacheRecord("instance1");
-                    var keyValue = new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord));
-                    when(cachingServiceClient.create(keyValue))
-                        .thenReturn(error(new CachingServiceClientException(409, "error")));
+                    when(cachingServiceClient.upsert(new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord))))
+                        .thenReturn(empty());
+
+                    loadBalancerCache.store("anuser", "aserviceid", cacheRecord).block();
+                    var newerRecord = new LoadBalancerCacheRecord("instance1");
+                    loadBalancerCache.store("anuser", "aserviceid", newerRecord).block();
 
-                    when(cachingServiceClient.update(keyValue)).thenReturn(empty());
+                    verify(cachingServiceClient, times(1)).upsert(any());
+                    assertEquals(newerRecord, loadBalancerCache.retrieve("anuser", "aserviceid").block());
+                    verify(cachingServiceClient, never()).read(any());
+                }
+
+                @Test
+                void andKeyExists_thenStoreItInSingleRequest() throws JsonProcessingException {
+                    var cacheRecord = new LoadBalancerCacheRecord("instance1");
+                    var keyValue = new KeyValue("lb.anuser:aserviceid", mapper.writeValueAsString(cacheRecord));
+                    when(cachingServiceClient.upsert(keyValue)).thenReturn(empty());
 
                     StepVerifier.create(loadBalancerCache.store("anuser", "aserviceid", cacheRecord))
                         .expectComplete()
                         .verify();
+
+                    verify(cachingServiceClient).upsert(keyValue);
+                    verify(cachingServiceClient, never()).create(any());
+                    verify(cachingServiceClient, never()).update(any());
                 }
 
             }
@@ -162,6 +187,47 @@ class LoadBalancerCacheTest {
                         .verifyComplete();
                 }
 
+                @Test
+                void andReadRepeatedly_thenCallRemoteCacheOnce() throws JsonProcessingException {
+                    var key = "lb.anuser:aserviceid";
+                    var cacheRecord = new LoadBalancerCacheRecord("instanceId");
+                    when(cachingServiceClient.read(key)).thenReturn(just(new KeyValue(key, mapper.writeValueAsString(cacheRecord))));
+
+                    for (int i = 0; i < 3; i++) {
+                        assertEquals(cacheRecord, loadBalancerCache.retrieve("anuser", "aserviceid").block());
+                    }
+
+                    verify(cachingServiceClient, times(1)).read(key);
+                }
+
+                @Test
+                void andInstanceDisappears_thenReadRemoteCacheAgain() throws JsonProcessingException {
+                    var key = "lb.anuser:aserviceid";
+                    var cacheRecord = new LoadBalancerCacheRecord("instanceId");
+                    when(cachingServiceClient.read(key)).thenReturn(just(new KeyValue(key, mapper.writeValueAsString(cacheRecord))));
+                    when(eurekaClient.getApplications()).thenReturn(new Applications());
+
+                    loadBalancerCache.retrieve("anuser", "aserviceid").block();
+                    loadBalancerCache.evictMissingInstances();
+                    loadBalancerCache.retrieve("anuser", "aserviceid").block();
+
+                    verify(cachingServiceClient, times(2)).read(key);
+                }
+
+                @Test
+                void andRecordIsDeleted_thenReadRemoteCacheAgain() throws JsonProcessingException {
+                    var key = "lb.anuser:aserviceid";
+                    var cacheRecord = new LoadBalancerCacheRecord("instanceId");
+                    when(cachingServiceClient.read(key)).thenReturn(just(new KeyValue(key, mapper.writeValueAsString(cacheRecord))));
+                    when(cachingServiceClient.delete(key)).thenReturn(empty());
+
+                    loadBalancerCache.retrieve("anuser", "aserviceid").block();
+                    loadBalancerCache.delete("anuser", "aserviceid").block();
+                    loadBalancerCache.retrieve("anuser", "aserviceid").block();
+
+                    verify(cachingServiceClient, times(2)).read(key);
+                }
+
                 @Test
                 void andNotFound_thenReturnEmpty() {
                     var key = "lb.anuser:aserviceid";
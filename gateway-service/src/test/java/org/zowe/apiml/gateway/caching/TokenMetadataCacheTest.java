@@ -0,0 +1,110 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.caching;
+
+import io.jsonwebtoken.Clock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenMetadataCacheTest {
+
+    private static final long NOW = 1721552753L;
+
+    private Clock clock;
+    private TokenMetadataCache tokenMetadataCache;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.now()).thenReturn(Date.from(Instant.ofEpochSecond(NOW)));
+        tokenMetadataCache = new TokenMetadataCache(clock, 100, 600);
+    }
+
+    private String jwt(String payload) {
+        return "eyJhbGciOiJSUzI1NiJ9." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    @Nested
+    class GivenValidToken {
+
+        private final String token = jwt("{\"sub\":\"USER\",\"exp\":" + (NOW + 1800) + ",\"scopes\":[\"service1\",\"service2\"]}");
+
+        @Test
+        void whenGet_thenReturnMetadata() {
+            TokenMetadataCache.TokenMetadata metadata = tokenMetadataCache.get(token);
+
+            assertEquals("USER", metadata.subject());
+            assertEquals(Instant.ofEpochSecond(NOW + 1800), metadata.expiration());
+            assertEquals(Set.of("service1", "service2"), metadata.scopes());
+        }
+
+        @Test
+        void whenGetRepeatedly_thenParseOnce() {
+            assertSame(tokenMetadataCache.get(token), tokenMetadataCache.get(token));
+        }
+
+        @Test
+        void whenDigest_thenTokenIsNotStoredInPlainText() {
+            TokenMetadataCache.TokenDigest digest = TokenMetadataCache.digest(token);
+
+            assertEquals(32, digest.value().length);
+            assertEquals(digest, TokenMetadataCache.digest(token));
+            assertEquals(digest.hashCode(), TokenMetadataCache.digest(token).hashCode());
+            assertNotEquals(digest, TokenMetadataCache.digest(token + "x"));
+        }
+
+        @Test
+        void whenTokenHasNoScopes_thenReturnEmptySet() {
+            TokenMetadataCache.TokenMetadata metadata = tokenMetadataCache.get(jwt("{\"sub\":\"USER\"}"));
+
+            assertEquals("USER", metadata.subject());
+            assertNull(metadata.expiration());
+            assertTrue(metadata.scopes().isEmpty());
+        }
+
+    }
+
+    @Nested
+    class GivenInvalidToken {
+
+        @Test
+        void whenTokenIsMissing_thenReturnNone() {
+            assertSame(TokenMetadataCache.TokenMetadata.NONE, tokenMetadataCache.get(null));
+            assertSame(TokenMetadataCache.TokenMetadata.NONE, tokenMetadataCache.get(""));
+        }
+
+        @Test
+        void whenTokenIsNotJwt_thenReturnNone() {
+            assertSame(TokenMetadataCache.TokenMetadata.NONE, tokenMetadataCache.get("LtpaToken2Value"));
+            assertSame(TokenMetadataCache.TokenMetadata.NONE, tokenMetadataCache.get("a.%%%.c"));
+        }
+
+        @Test
+        void whenTokenIsExpired_thenReturnNone() {
+            String token = jwt("{\"sub\":\"USER\",\"exp\":" + (NOW - 60) + "}");
+
+            assertSame(TokenMetadataCache.TokenMetadata.NONE, tokenMetadataCache.get(token));
+        }
+
+    }
+
+}
@@ -16,13 +16,18 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.zowe.apiml.gateway.acceptance.common.AcceptanceTest;
 import org.zowe.apiml.gateway.acceptance.common.AcceptanceTestWithMockServices;
 import org.zowe.apiml.gateway.acceptance.common.MockService;
+import org.zowe.apiml.gateway.filters.ZaasSchemeResponseCache;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.restassured.RestAssured.given;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
@@ -35,6 +40,9 @@ import static org.junit.jupiter.api.Assertions.fail;
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class AuthEndpointConfigTest extends AcceptanceTestWithMockServices {
 
+    @Autowired
+    private ZaasSchemeResponseCache zaasSchemeResponseCache;
+
     @BeforeAll
     void setup() throws IOException {
         mockService("zaas").scope(MockService.Scope.CLASS)
@@ -49,6 +57,9 @@ class AuthEndpointConfigTest extends AcceptanceTestWithMockServices {
                 .contentType(APPLICATION_JSON)
                 .body("{\"status\":\"valid\"}")
                 .and()
+            .addEndpoint("/zaas/api/v1/auth/logout")
+                .responseCode(204)
+                .and()
             .addEndpoint("/zaas/api/v1/auth/access-token/revoke")
                 .responseCode(405)
                 .assertion(he -> assertEquals("GET", he.getRequestMethod()))
@@ -85,6 +96,22 @@ class AuthEndpointConfigTest extends AcceptanceTestWithMockServices {
             .body("status", is("valid"));
     }
 
+    @Test
+    void givenCachedResponsesOfZaas_whenLogout_thenClearTheCache() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> loader = Mono.fromSupplier(() -> "response" + calls.incrementAndGet());
+        assertEquals("response1", zaasSchemeResponseCache.getOrLoad("key", loader, value -> Duration.ofMinutes(1)).block());
+        assertEquals("response1", zaasSchemeResponseCache.getOrLoad("key", loader, value -> Duration.ofMinutes(1)).block());
+
+        given()
+        .when()
+            .post(basePath + "/gateway/api/v1/auth/logout")
+        .then()
+            .statusCode(Matchers.is(SC_NO_CONTENT));
+
+        assertEquals("response2", zaasSchemeResponseCache.getOrLoad("key", loader, value -> Duration.ofMinutes(1)).block());
+    }
+
     @Test
     void givenUnkwnownAddress_whenCallGateway_thenReturn404() {
         given()
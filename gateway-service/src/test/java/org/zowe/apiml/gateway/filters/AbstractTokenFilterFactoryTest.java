@@ -19,7 +19,13 @@ import org.springframework.mock.web.server.MockServerWebExchange;
 import org.zowe.apiml.constants.ApimlConstants;
 import org.zowe.apiml.zaas.ZaasTokenResponse;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -96,4 +102,71 @@ class AbstractTokenFilterFactoryTest {
 
     }
 
+    @Nested
+    class CacheValidity {
+
+        private String jwt(long exp) {
+            String payload = "{\"sub\":\"user\",\"exp\":" + exp + "}";
+            return "eyJhbGciOiJub25lIn0." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+        }
+
+        private AbstractTokenFilterFactory<AbstractTokenFilterFactory.Config, Object> factory(Duration ttl) {
+            return new AbstractTokenFilterFactory<>(AbstractTokenFilterFactory.Config.class, null, null, null) {
+                @Override
+                public String getEndpointUrl(ServiceInstance instance) {
+                    return null;
+                }
+
+                @Override
+                protected Duration getCacheTtl() {
+                    return ttl;
+                }
+            };
+        }
+
+        private Duration validity(Duration ttl, String token) {
+            return factory(ttl).getCacheValidity(new AbstractAuthSchemeFactory.AuthorizationResponse<>(null, ZaasTokenResponse.builder()
+                .cookieName("cookie")
+                .token(token)
+                .build()
+            ));
+        }
+
+        @Test
+        void givenJwt_whenGetExpiration_thenReturnExpClaim() {
+            assertEquals(1234567890L, AbstractTokenFilterFactory.getExpiration(jwt(1234567890L)));
+        }
+
+        @Test
+        void givenNonJwt_whenGetExpiration_thenReturnNull() {
+            assertNull(AbstractTokenFilterFactory.getExpiration("LtpaToken2Value"));
+            assertNull(AbstractTokenFilterFactory.getExpiration("a.%%%.c"));
+            assertNull(AbstractTokenFilterFactory.getExpiration(null));
+        }
+
+        @Test
+        void givenDisabledCache_whenGetValidity_thenZero() {
+            assertEquals(Duration.ZERO, validity(Duration.ZERO, "LtpaToken2Value"));
+        }
+
+        @Test
+        void givenLongLivingToken_whenGetValidity_thenUseTtl() {
+            long exp = Instant.now().plus(Duration.ofHours(8)).getEpochSecond();
+            assertEquals(Duration.ofSeconds(30), validity(Duration.ofSeconds(30), jwt(exp)));
+        }
+
+        @Test
+        void givenExpiringToken_whenGetValidity_thenLimitedByExpiration() {
+            long exp = Instant.now().plus(Duration.ofSeconds(10)).getEpochSecond();
+            assertTrue(validity(Duration.ofSeconds(30), jwt(exp)).compareTo(Duration.ofSeconds(10)) < 0);
+        }
+
+        @Test
+        void givenExpiredToken_whenGetValidity_thenNotCached() {
+            long exp = Instant.now().minus(Duration.ofMinutes(1)).getEpochSecond();
+            assertTrue(validity(Duration.ofSeconds(30), jwt(exp)).isNegative());
+        }
+
+    }
+
 }
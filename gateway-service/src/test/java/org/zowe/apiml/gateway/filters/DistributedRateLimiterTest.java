@@ -0,0 +1,245 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatcher;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.zowe.apiml.gateway.caching.CachingServiceClient;
+import org.zowe.apiml.gateway.caching.CachingServiceClientException;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DistributedRateLimiterTest {
+
+    private static final String ROUTE_ID = "service";
+    private static final String KEY = "header.payload.signature";
+    private static final String RECORD_KEY = "rateLimiter:" + ROUTE_ID + ":" + DistributedRateLimiter.hash(KEY);
+    private static final long NOW = Duration.ofDays(20000).toMillis();
+    private static final long WINDOW = NOW / Duration.ofMinutes(1).toMillis();
+
+    private CachingServiceClient cachingServiceClient;
+    private Clock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private DistributedRateLimiter rateLimiter;
+    private InMemoryRateLimiter.Config config;
+
+    @BeforeEach
+    void setUp() {
+        cachingServiceClient = mock(CachingServiceClient.class);
+        when(cachingServiceClient.create(any())).thenReturn(Mono.empty());
+        when(cachingServiceClient.compareAndSet(any(), any())).thenReturn(Mono.empty());
+        when(cachingServiceClient.read(any())).thenReturn(Mono.empty());
+        when(cachingServiceClient.delete(any())).thenReturn(Mono.empty());
+
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(NOW);
+
+        meterRegistry = new SimpleMeterRegistry();
+        InMemoryRateLimiter defaults = new InMemoryRateLimiter(meterRegistry, 10);
+        defaults.capacity = 3;
+        defaults.tokens = 3;
+        defaults.refillDuration = 1;
+
+        rateLimiter = new DistributedRateLimiter(cachingServiceClient, defaults, meterRegistry, "self", 1000, 10, clock);
+        config = new InMemoryRateLimiter.Config();
+    }
+
+    private boolean isAllowed() {
+        RateLimiter.Response response = rateLimiter.isAllowed(ROUTE_ID, KEY, config).block();
+        assertNotNull(response);
+        return response.isAllowed();
+    }
+
+    private static String record(long window, long available, Map<String, Long> consumed) {
+        return DistributedRateLimiter.serialize(new DistributedRateLimiter.BucketState(window, available, consumed));
+    }
+
+    private static ArgumentMatcher<CachingServiceClient.KeyValue> isRecord(long window, long available, Map<String, Long> consumed) {
+        return keyValue -> keyValue.getKey().equals(RECORD_KEY) &&
+            new DistributedRateLimiter.BucketState(window, available, consumed).equals(DistributedRateLimiter.parse(keyValue.getValue()));
+    }
+
+    @Nested
+    class GivenNoRequestsOnPeers {
+
+        @Test
+        void whenCapacityIsExhausted_thenReject() {
+            assertTrue(isAllowed());
+            assertTrue(isAllowed());
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+        }
+
+        @Test
+        void whenRouteHasOwnCapacity_thenUseIt() {
+            config.setCapacity(1);
+
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+        }
+
+        @Test
+        void whenNextWindowStarts_thenAllowAgain() {
+            config.setCapacity(1);
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+
+            when(clock.millis()).thenReturn(NOW + Duration.ofMinutes(1).toMillis());
+            assertTrue(isAllowed());
+        }
+
+        @Test
+        void whenTokensAreLowerThanCapacity_thenRefillOnlyTokens() {
+            config.setTokens(1);
+            assertTrue(isAllowed());
+            assertTrue(isAllowed());
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+
+            when(clock.millis()).thenReturn(NOW + Duration.ofMinutes(1).toMillis());
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+        }
+
+        @Test
+        void whenRequested_thenRecordMetrics() {
+            config.setCapacity(1);
+            isAllowed();
+            isAllowed();
+
+            assertEquals(1, meterRegistry.get(RateLimiterMetrics.METRIC_NAME + ".requests")
+                .tag("mode", DistributedRateLimiter.MODE).tag("keyClass", RateLimiterMetrics.KEY_CLASS_JWT).tag("result", "rejected").counter().count());
+            assertEquals(1, rateLimiter.size());
+        }
+
+        @Test
+        void whenThereIsNoRecord_thenCreateItWithHashOfKey() {
+            isAllowed();
+
+            verify(cachingServiceClient).create(argThat(isRecord(WINDOW, 3, Map.of("self", 1L))));
+            verify(cachingServiceClient, never()).compareAndSet(any(), any());
+        }
+
+    }
+
+    @Nested
+    class GivenRequestsOnPeers {
+
+        private final String peersRecord = record(WINDOW, 3, Map.of("peer1", 1L, "peer2", 1L));
+
+        @BeforeEach
+        void setUp() {
+            when(cachingServiceClient.read(RECORD_KEY)).thenReturn(Mono.just(new CachingServiceClient.KeyValue(RECORD_KEY, peersRecord)));
+        }
+
+        @Test
+        void whenSynchronized_thenCountRequestsOfPeers() {
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+        }
+
+        @Test
+        void whenSynchronized_thenReadAndWriteSingleRecord() {
+            isAllowed();
+
+            verify(cachingServiceClient, times(1)).read(any());
+            verify(cachingServiceClient).compareAndSet(argThat(isRecord(WINDOW, 3, Map.of("peer1", 1L, "peer2", 1L, "self", 1L))), eq(peersRecord));
+            verify(cachingServiceClient, never()).create(any());
+        }
+
+        @Test
+        void whenSynchronizedInInterval_thenCallCachingServiceOnce() {
+            config.setCapacity(10);
+            isAllowed();
+            isAllowed();
+
+            verify(cachingServiceClient, times(1)).read(any());
+            verify(cachingServiceClient, times(1)).compareAndSet(any(), any());
+        }
+
+        @Test
+        void whenRecordChangedConcurrently_thenIgnoreTheConflict() {
+            when(cachingServiceClient.compareAndSet(any(), any())).thenReturn(Mono.error(new CachingServiceClientException(409, "conflict")));
+
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+        }
+
+    }
+
+    @Nested
+    class GivenRecordOfOlderWindow {
+
+        @Test
+        void whenSynchronized_thenRefillTheBucketAndStartNewWindow() {
+            config.setTokens(1);
+            String oldRecord = record(WINDOW - 1, 3, Map.of("peer", 3L));
+            when(cachingServiceClient.read(RECORD_KEY)).thenReturn(Mono.just(new CachingServiceClient.KeyValue(RECORD_KEY, oldRecord)));
+
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+
+            verify(cachingServiceClient).compareAndSet(argThat(isRecord(WINDOW, 1, Map.of("self", 1L))), eq(oldRecord));
+        }
+
+    }
+
+    @Nested
+    class GivenCachingServiceIsNotAvailable {
+
+        @Test
+        void whenRequested_thenCountLocalRequests() {
+            when(cachingServiceClient.read(any())).thenReturn(Mono.error(new CachingServiceClientException(500, "error")));
+
+            assertTrue(isAllowed());
+            assertTrue(isAllowed());
+            assertTrue(isAllowed());
+            assertFalse(isAllowed());
+        }
+
+    }
+
+    @Nested
+    class WhenParseRecord {
+
+        @Test
+        void givenValidRecord_thenReturnIt() {
+            DistributedRateLimiter.BucketState state = DistributedRateLimiter.parse(record(WINDOW, 3, Map.of("peer", 2L)));
+
+            assertNotNull(state);
+            assertEquals(WINDOW, state.getWindow());
+            assertEquals(3, state.getAvailable());
+            assertEquals(Map.of("peer", 2L), state.getConsumed());
+        }
+
+        @Test
+        void givenInvalidValue_thenIgnore() {
+            assertNull(DistributedRateLimiter.parse(null));
+            assertNull(DistributedRateLimiter.parse("5"));
+            assertNull(DistributedRateLimiter.parse(WINDOW + ":x"));
+        }
+
+    }
+
+}
@@ -35,6 +35,7 @@ import static org.mockito.Mockito.*;
 public class InMemoryRateLimiterFilterFactoryTest {
 
     private InMemoryRateLimiter rateLimiter;
+    private DistributedRateLimiter distributedRateLimiter;
     private KeyResolver keyResolver;
     private InMemoryRateLimiterFilterFactory filterFactory;
     private ServerWebExchange exchange;
@@ -52,7 +53,8 @@ public class InMemoryRateLimiterFilterFactoryTest {
         messageService = mock(MessageService.class);
         message = mock(Message.class);
         objectMapper = mock(ObjectMapper.class);
-        filterFactory = new InMemoryRateLimiterFilterFactory(rateLimiter, keyResolver,objectMapper, messageService);
+        distributedRateLimiter = mock(DistributedRateLimiter.class);
+        filterFactory = new InMemoryRateLimiterFilterFactory(rateLimiter, distributedRateLimiter, keyResolver, objectMapper, messageService, InMemoryRateLimiter.MODE);
         request = MockServerHttpRequest.get("/" + "serviceId").build();
         exchange = MockServerWebExchange.from(request);
         chain = mock(GatewayFilterChain.class);
@@ -123,5 +125,21 @@ public class InMemoryRateLimiterFilterFactoryTest {
         verify(chain, times(1)).filter(exchange);
     }
 
-}
+    @Test
+    public void apply_shouldUseDistributedLimiter_whenConfigured() {
+        InMemoryRateLimiterFilterFactory.Config distributedConfig = new InMemoryRateLimiterFilterFactory.Config();
+        distributedConfig.setMode(DistributedRateLimiter.MODE);
+        distributedConfig.setCapacity(5);
+        when(keyResolver.resolve(exchange)).thenReturn(Mono.just("testKey"));
+        when(distributedRateLimiter.isAllowed(eq("serviceId"), eq("testKey"), any())).thenReturn(Mono.just(new RateLimiter.Response(true, Map.of())));
+        when(chain.filter(any(ServerWebExchange.class))).thenReturn(Mono.empty());
 
+        StepVerifier.create(filterFactory.apply(distributedConfig).filter(exchange, chain))
+            .expectComplete()
+            .verify();
+        verify(distributedRateLimiter).isAllowed(eq("serviceId"), eq("testKey"), argThat(limits -> limits.getCapacity() == 5));
+        verify(rateLimiter, never()).isAllowed(anyString(), anyString());
+        verify(rateLimiter, never()).setParameters(anyInt(), anyInt(), anyInt());
+    }
+
+}
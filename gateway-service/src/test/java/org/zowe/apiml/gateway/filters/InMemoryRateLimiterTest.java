@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.gateway.filters;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
@@ -22,12 +23,13 @@ import static org.junit.jupiter.api.Assertions.*;
 public class InMemoryRateLimiterTest {
 
     private InMemoryRateLimiter rateLimiter;
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     String userId = "testUser";
     String routeId = "testRoute";
 
     @BeforeEach
     public void setUp() {
-        rateLimiter = new InMemoryRateLimiter();
+        rateLimiter = new InMemoryRateLimiter(meterRegistry, 10);
         rateLimiter.capacity = 3;
         rateLimiter.tokens = 3;
         rateLimiter.refillDuration = 1;
@@ -107,4 +109,18 @@ public class InMemoryRateLimiterTest {
         assertEquals(newCapacity, rateLimiter.capacity);
 
     }
+
+    @Test
+    public void isAllowed_shouldRecordMetrics() {
+        for (int i = 0; i <= rateLimiter.capacity; i++) {
+            rateLimiter.isAllowed(routeId, userId).block();
+        }
+
+        assertEquals(3, meterRegistry.get(RateLimiterMetrics.METRIC_NAME + ".requests")
+            .tag("route", routeId).tag("mode", InMemoryRateLimiter.MODE).tag("result", "allowed").counter().count());
+        assertEquals(1, meterRegistry.get(RateLimiterMetrics.METRIC_NAME + ".requests")
+            .tag("keyClass", RateLimiterMetrics.KEY_CLASS_OPAQUE).tag("result", "rejected").counter().count());
+        assertEquals(1, meterRegistry.get(RateLimiterMetrics.METRIC_NAME + ".buckets").tag("mode", InMemoryRateLimiter.MODE).gauge().value());
+    }
+
 }
@@ -0,0 +1,143 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.gateway.filters;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZaasSchemeResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ZaasSchemeResponseCache cache;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ZaasSchemeResponseCache(meterRegistry, 100);
+        calls = new AtomicInteger();
+    }
+
+    private Mono<String> loader(String value) {
+        return Mono.fromSupplier(() -> {
+            calls.incrementAndGet();
+            return value;
+        });
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(ZaasSchemeResponseCache.METRIC_NAME).tag("result", result).counter().count();
+    }
+
+    @Nested
+    class GivenValidEntry {
+
+        @Test
+        void whenCalledTwice_thenZaasIsCalledOnce() {
+            assertEquals("token", cache.getOrLoad("key", loader("token"), v -> Duration.ofMinutes(1)).block());
+            assertEquals("token", cache.getOrLoad("key", loader("other"), v -> Duration.ofMinutes(1)).block());
+
+            assertEquals(1, calls.get());
+            assertEquals(1, count("miss"));
+            assertEquals(1, count("hit"));
+        }
+
+        @Test
+        void whenDifferentKeys_thenZaasIsCalledForEach() {
+            assertEquals("a", cache.getOrLoad("keyA", loader("a"), v -> Duration.ofMinutes(1)).block());
+            assertEquals("b", cache.getOrLoad("keyB", loader("b"), v -> Duration.ofMinutes(1)).block());
+
+            assertEquals(2, calls.get());
+            assertEquals(2, cache.size());
+        }
+
+    }
+
+    @Nested
+    class GivenNotCacheableEntry {
+
+        @Test
+        void whenZeroValidity_thenValueIsNotStored() {
+            assertEquals("token", cache.getOrLoad("key", loader("token"), v -> Duration.ZERO).block());
+            assertEquals("token", cache.getOrLoad("key", loader("token"), v -> Duration.ZERO).block());
+
+            assertEquals(2, calls.get());
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        void whenNoKey_thenLoaderIsUsedDirectly() {
+            cache.getOrLoad(null, loader("token"), v -> Duration.ofMinutes(1)).block();
+            cache.getOrLoad(null, loader("token"), v -> Duration.ofMinutes(1)).block();
+
+            assertEquals(2, calls.get());
+            assertEquals(0, count("miss"));
+        }
+
+        @Test
+        void whenEmptyResponse_thenNothingIsStored() {
+            assertNull(cache.getOrLoad("key", Mono.<String>empty(), v -> Duration.ofMinutes(1)).block());
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        void whenError_thenNothingIsStored() {
+            Mono<String> failing = Mono.error(new IllegalStateException("failed"));
+            assertThrows(IllegalStateException.class, () -> cache.getOrLoad("key", failing, v -> Duration.ofMinutes(1)).block());
+            assertEquals("token", cache.getOrLoad("key", loader("token"), v -> Duration.ofMinutes(1)).block());
+            assertEquals(1, calls.get());
+        }
+
+    }
+
+    @Nested
+    class GivenConcurrentRequests {
+
+        @Test
+        void whenFirstIsRunning_thenOthersAreCoalesced() {
+            Sinks.One<String> zaasResponse = Sinks.one();
+            Mono<String> pending = zaasResponse.asMono().doOnSubscribe(s -> calls.incrementAndGet());
+
+            Mono<String> first = cache.getOrLoad("key", pending, v -> Duration.ofMinutes(1)).cache();
+            Mono<String> second = cache.getOrLoad("key", pending, v -> Duration.ofMinutes(1)).cache();
+            first.subscribe();
+            second.subscribe();
+
+            zaasResponse.tryEmitValue("token");
+
+            assertEquals("token", first.block());
+            assertEquals("token", second.block());
+            assertEquals(1, calls.get());
+            assertEquals(1, count("miss"));
+            assertEquals(1, count("coalesced"));
+        }
+
+    }
+
+    @Test
+    void givenCachedValues_whenInvalidateAll_thenZaasIsCalledAgain() {
+        cache.getOrLoad("key", loader("token"), v -> Duration.ofMinutes(1)).block();
+        cache.invalidateAll();
+        cache.getOrLoad("key", loader("token"), v -> Duration.ofMinutes(1)).block();
+
+        assertEquals(2, calls.get());
+    }
+
+}
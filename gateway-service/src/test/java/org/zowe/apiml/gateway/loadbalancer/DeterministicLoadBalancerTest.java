@@ -32,6 +32,7 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.server.ResponseStatusException;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache;
 import org.zowe.apiml.gateway.caching.LoadBalancerCache.LoadBalancerCacheRecord;
+import org.zowe.apiml.gateway.caching.TokenMetadataCache;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -101,7 +102,7 @@ class DeterministicLoadBalancerTest {
         when(factory.getProperties(any())).thenReturn(properties);
         when(delegate.getServiceId()).thenReturn("service");
         when(delegate.get(request)).thenReturn(Flux.just(defaultServiceInstancesList));
-        this.loadBalancer = new DeterministicLoadBalancer(delegate, factory, lbCache, clock, DEFAULT_EXPIRATION_HS);
+        this.loadBalancer = new DeterministicLoadBalancer(delegate, factory, lbCache, new TokenMetadataCache(clock, 100, 600), DEFAULT_EXPIRATION_HS);
     }
 
     @Nested
@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.gateway.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.logging.log4j.util.TriConsumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -58,6 +59,8 @@ class RouteLocatorTest {
     private CorsUtils corsUtils = mock(CorsUtils.class);
     private ReactiveDiscoveryClient discoveryClient = mock(ReactiveDiscoveryClient.class);
 
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private RouteLocator routeLocator;
 
     @BeforeEach
@@ -71,7 +74,8 @@ class RouteLocatorTest {
             discoveryClient,
             Arrays.asList(COMMON_FILTERS),
             Arrays.asList(SCHEME_HANDLER_FILTERS),
-            Arrays.asList(PRODUCERS)
+            Arrays.asList(PRODUCERS),
+            meterRegistry
         ));
     }
 
@@ -259,11 +263,72 @@ class RouteLocatorTest {
             }
         }
 
+        @Nested
+        class Incremental {
+
+            private final ServiceInstance service1 = createServiceInstance("service1", "/a");
+            private final ServiceInstance service2 = createServiceInstance("service2", "/b");
+
+            private void discover(ServiceInstance...instances) {
+                doReturn(Flux.just(Arrays.asList(instances))).when(routeLocator).getServiceInstances();
+            }
+
+            private List<RouteDefinition> generate() {
+                return routeLocator.getRouteDefinitions().collectList().block();
+            }
+
+            @Test
+            void givenNoChange_whenGetRouteDefinitionsAgain_thenReuseRoutes() {
+                discover(service1, service2);
+                List<RouteDefinition> first = generate();
+                List<RouteDefinition> second = generate();
+
+                assertEquals(first.size(), second.size());
+                for (int i = 0; i < first.size(); i++) {
+                    assertEquals(first.get(i).getOrder(), second.get(i).getOrder());
+                    assertSame(first.get(i).getFilters(), second.get(i).getFilters());
+                }
+                verify(corsUtils, times(1)).setCorsConfiguration(eq("service1"), any(), any());
+                verify(PRODUCERS[0], times(1)).get(same(service1), any());
+                assertEquals(2, meterRegistry.get(RouteLocator.METRIC_NAME + ".instances").tag("result", "compiled").counter().count());
+                assertEquals(2, meterRegistry.get(RouteLocator.METRIC_NAME + ".instances").tag("result", "reused").counter().count());
+                assertEquals(2, meterRegistry.get(RouteLocator.METRIC_NAME + ".compilation").timer().count());
+            }
+
+            @Test
+            void givenChangedMetadata_whenGetRouteDefinitions_thenGenerateOnlyChangedInstance() {
+                discover(service1, service2);
+                generate();
+
+                service2.getMetadata().put("apiml.routes.api-v1.gatewayUrl", "/c");
+                List<RouteDefinition> routes = generate();
+
+                verify(corsUtils, times(1)).setCorsConfiguration(eq("service1"), any(), any());
+                verify(corsUtils, times(2)).setCorsConfiguration(eq("service2"), any(), any());
+                assertTrue(routes.stream().anyMatch(rd -> "c".equals(rd.getMetadata().get("gatewayUrl"))));
+                assertTrue(routes.stream().noneMatch(rd -> "b".equals(rd.getMetadata().get("gatewayUrl"))));
+            }
+
+            @Test
+            void givenRemovedInstance_whenGetRouteDefinitions_thenDropItsRoutes() {
+                discover(service1, service2);
+                generate();
+
+                discover(service1);
+                List<RouteDefinition> routes = generate();
+
+                assertEquals(PRODUCERS.length, routes.size());
+                assertTrue(routes.stream().allMatch(rd -> "service1".equals(rd.getMetadata().get("serviceId"))));
+                assertEquals(1, meterRegistry.get(RouteLocator.METRIC_NAME + ".cached").gauge().value());
+            }
+
+        }
+
         @Nested
         class PostRoutingFilterDefinition {
 
             private final List<FilterDefinition> COMMON_FILTERS = Collections.singletonList(mock(FilterDefinition.class));
-            private final RouteLocator routeLocator = new RouteLocator(null, null, null, COMMON_FILTERS, Collections.emptyList(), null);
+            private final RouteLocator routeLocator = new RouteLocator(null, null, null, COMMON_FILTERS, Collections.emptyList(), Collections.emptyList(), new SimpleMeterRegistry());
 
             private ServiceInstance createServiceInstance(Boolean forwardingEnabled, Boolean encodedCharactersEnabled, Boolean rateLimiterEnabled) {
                 Map<String, String> metadata = new HashMap<>();
@@ -54,6 +54,7 @@
 # - ZWE_configs_apiml_security_oidc_identityMapperUser
 # - ZWE_configs_apiml_security_oidc_jwks_uri
 # - ZWE_configs_apiml_security_oidc_jwks_refreshInternalHours
+# - ZWE_configs_apiml_security_oidc_jwks_minRefreshIntervalSeconds
 # - ZWE_configs_apiml_security_oidc_userInfo_uri
 # - ZWE_configs_apiml_security_oidc_validationType
 # - ZWE_configs_apiml_service_corsEnabled
@@ -349,6 +350,7 @@ _BPX_JOBNAME=${ZWE_zowe_job_prefix}${ZAAS_CODE} ${JAVA_BIN_DIR}java \
     -Dapiml.security.oidc.identityMapperUser=${ZWE_configs_apiml_security_oidc_identityMapperUser:-${ZWE_components_gateway_apiml_security_oidc_identityMapperUser:-${ZWE_zowe_setup_security_users_zowe:-ZWESVUSR}}} \
     -Dapiml.security.oidc.jwks.uri=${ZWE_configs_apiml_security_oidc_jwks_uri:-${ZWE_components_gateway_apiml_security_oidc_jwks_uri:-}} \
     -Dapiml.security.oidc.jwks.refreshInternalHours=${ZWE_configs_apiml_security_oidc_jwks_refreshInternalHours:-${ZWE_components_gateway_apiml_security_oidc_jwks_refreshInternalHours:-1}} \
+    -Dapiml.security.oidc.jwks.minRefreshIntervalSeconds=${ZWE_configs_apiml_security_oidc_jwks_minRefreshIntervalSeconds:-${ZWE_components_gateway_apiml_security_oidc_jwks_minRefreshIntervalSeconds:-30}} \
     -Dapiml.security.oidc.userInfo.uri=${ZWE_configs_apiml_security_oidc_userInfo_uri:-${ZWE_components_gateway_apiml_security_oidc_userInfo_uri:-}} \
     -Dapiml.security.oidc.validationType=${ZWE_configs_apiml_security_oidc_validationType:-${ZWE_components_gateway_apiml_security_oidc_validationType:-"JWK"}} \
     -Dapiml.security.allowTokenRefresh=${ZWE_configs_apiml_security_allowtokenrefresh:-${ZWE_components_gateway_apiml_security_allowtokenrefresh:-false}} \
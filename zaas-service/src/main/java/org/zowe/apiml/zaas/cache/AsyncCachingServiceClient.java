@@ -0,0 +1,302 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade of {@link CachingServiceClient}. The calls do not run on the thread of the caller, which could
+ * wait for the result with a limited time or continue with the future.
+ * <p>
+ * The calls are protected by:
+ * <ul>
+ *     <li>a bulkhead - limited number of the concurrent calls and of the waiting ones, the others are rejected</li>
+ *     <li>a timeout - the future fails if the Caching Service does not respond in time. The running call is not
+ *     interrupted, so the wrapped client should limit its connection and response timeouts by the same value to
+ *     release the thread</li>
+ *     <li>a circuit breaker - after consecutive failures the calls fail immediately for a while, then a single
+ *     call verifies if the Caching Service is available again</li>
+ * </ul>
+ * All the failures are reported as {@link CachingServiceClientException}. The client errors (ie. a key not found) are
+ * not counted as failures of the Caching Service.
+ */
+@Slf4j
+public class AsyncCachingServiceClient implements AutoCloseable {
+
+    private final CachingServiceClient cachingServiceClient;
+    private final Executor executor;
+    private final long timeoutMs;
+    private final CircuitBreaker circuitBreaker;
+
+    public AsyncCachingServiceClient(
+        CachingServiceClient cachingServiceClient,
+        int maxConcurrentCalls,
+        int maxWaitingCalls,
+        long timeoutMs,
+        int failureThreshold,
+        long openMs
+    ) {
+        this(cachingServiceClient, createExecutor(maxConcurrentCalls, maxWaitingCalls), timeoutMs,
+            new CircuitBreaker(failureThreshold, openMs, System::currentTimeMillis));
+    }
+
+    AsyncCachingServiceClient(CachingServiceClient cachingServiceClient, Executor executor, long timeoutMs, CircuitBreaker circuitBreaker) {
+        this.cachingServiceClient = cachingServiceClient;
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    private static ThreadPoolExecutor createExecutor(int maxConcurrentCalls, int maxWaitingCalls) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+            maxConcurrentCalls, maxConcurrentCalls,
+            60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(maxWaitingCalls),
+            r -> {
+                Thread thread = new Thread(r, "Caching Service client");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return threadPoolExecutor;
+    }
+
+    /**
+     * Wait for the result of the call.
+     *
+     * @param future the call of the client
+     * @return the result of the call
+     * @throws CachingServiceClientException if the call failed
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CachingServiceClientException("Call of Caching Service failed: " + e.getMessage(), e.getCause());
+        }
+    }
+
+    public CompletableFuture<Void> create(CachingServiceClient.KeyValue kv) {
+        return submit("create", () -> {
+            cachingServiceClient.create(kv);
+            return null;
+        });
+    }
+
+    public CompletableFuture<CachingServiceClient.KeyValue> read(String key) {
+        return submit("read", () -> cachingServiceClient.read(key));
+    }
+
+    public CompletableFuture<Void> update(CachingServiceClient.KeyValue kv) {
+        return submit("update", () -> {
+            cachingServiceClient.update(kv);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> upsert(CachingServiceClient.KeyValue kv) {
+        return submit("upsert", () -> {
+            cachingServiceClient.upsert(kv);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Map<String, CachingServiceClient.KeyValue>> readAll(Collection<String> keys) {
+        return submit("readAll", () -> cachingServiceClient.readAll(keys));
+    }
+
+    public CompletableFuture<List<CachingServiceClient.ItemResult>> upsertAll(List<CachingServiceClient.KeyValue> kvs) {
+        return submit("upsertAll", () -> cachingServiceClient.upsertAll(kvs));
+    }
+
+    public CompletableFuture<Void> delete(String key) {
+        return submit("delete", () -> {
+            cachingServiceClient.delete(key);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> appendList(String mapKey, CachingServiceClient.KeyValue kv) {
+        return submit("appendList", () -> {
+            cachingServiceClient.appendList(mapKey, kv);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Map<String, Map<String, String>>> readAllMaps() {
+        return submit("readAllMaps", cachingServiceClient::readAllMaps);
+    }
+
+    public CompletableFuture<CachingServiceClient.MapChanges> readMapChanges(String mapKey, long sinceRevision) {
+        return submit("readMapChanges", () -> cachingServiceClient.readMapChanges(mapKey, sinceRevision, 0));
+    }
+
+    public CompletableFuture<Void> evictTokens(String key) {
+        return submit("evictTokens", () -> {
+            cachingServiceClient.evictTokens(key);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> evictRules(String key) {
+        return submit("evictRules", () -> {
+            cachingServiceClient.evictRules(key);
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> call) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CachingServiceClientException(
+                "Caching Service is not available, the call " + operation + " was not executed"));
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.release();
+            return CompletableFuture.failedFuture(new CachingServiceClientException(
+                "Too many concurrent calls of Caching Service, the call " + operation + " was rejected", e));
+        }
+
+        return future
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .handle((result, throwable) -> {
+                if (throwable == null) {
+                    circuitBreaker.onSuccess();
+                    return result;
+                }
+
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                if (isClientError(cause)) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+
+                if (cause instanceof TimeoutException) {
+                    throw new CachingServiceClientException("Caching Service did not respond to the call " + operation + " in " + timeoutMs + " ms", cause);
+                }
+                if (cause instanceof CachingServiceClientException cachingServiceClientException) {
+                    throw cachingServiceClientException;
+                }
+                throw new CachingServiceClientException("Call " + operation + " of Caching Service failed: " + cause.getMessage(), cause);
+            });
+    }
+
+    private static boolean isClientError(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpClientErrorException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isAvailable() {
+        return !circuitBreaker.isOpen();
+    }
+
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Circuit breaker counting the consecutive failures. If the threshold is reached, the circuit is open and no call is
+     * allowed. After the time in the open state a single call (the probe) is allowed, its result closes the circuit
+     * or opens it again.
+     */
+    static class CircuitBreaker {
+
+        private final int failureThreshold;
+        private final long openMs;
+        private final LongSupplier clock;
+
+        private int failures;
+        private long openedAt = -1;
+        private boolean probing;
+
+        CircuitBreaker(int failureThreshold, long openMs, LongSupplier clock) {
+            this.failureThreshold = failureThreshold;
+            this.openMs = openMs;
+            this.clock = clock;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (openedAt < 0) {
+                return true;
+            }
+            if (!probing && clock.getAsLong() - openedAt >= openMs) {
+                probing = true;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * The acquired call was not executed.
+         */
+        synchronized void release() {
+            probing = false;
+        }
+
+        synchronized void onSuccess() {
+            if (openedAt >= 0) {
+                log.info("Caching Service is available again");
+            }
+            failures = 0;
+            openedAt = -1;
+            probing = false;
+        }
+
+        synchronized void onFailure() {
+            failures++;
+            if (probing || (openedAt < 0 && failures >= failureThreshold)) {
+                if (!probing) {
+                    log.warn("Caching Service is not available, the calls are suspended for {} ms", openMs);
+                }
+                openedAt = clock.getAsLong();
+                probing = false;
+            }
+        }
+
+        synchronized boolean isOpen() {
+            return openedAt >= 0;
+        }
+
+    }
+
+}
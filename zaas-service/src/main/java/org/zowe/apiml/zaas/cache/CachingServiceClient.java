@@ -12,7 +12,9 @@ package org.zowe.apiml.zaas.cache;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,17 +23,32 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.product.gateway.GatewayClient;
 import org.zowe.apiml.product.instance.ServiceAddress;
+import org.zowe.apiml.product.instance.ServiceInstanceUrls;
 
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 /**
  * Client for interaction with Caching Service
  * Supports basic CRUD operations
+ * <p>
+ * If the instances of Caching Service are provided, the client calls them directly (with the load balancing
+ * and failover among them) and the route via the Gateway is used only if none of them is reachable.
  */
 @Slf4j
 @SuppressWarnings({"squid:S1192"}) // literals are repeating in debug logs only
@@ -39,6 +56,7 @@ public class CachingServiceClient {
 
     private final GatewayClient gatewayClient;
     private final RestTemplate restTemplate;
+    private final ServiceInstanceUrls cachingServiceInstances;
     @Value("${apiml.cachingServiceClient.apiPath}")
     private static final String CACHING_API_PATH = "/cachingservice/api/v1/cache"; //NOSONAR parametrization provided by @Value annotation
     @Value("${apiml.cachingServiceClient.list.apiPath}")
@@ -55,11 +73,19 @@ public class CachingServiceClient {
     }
 
     public CachingServiceClient(RestTemplate restTemplate, GatewayClient gatewayClient) {
+        this(restTemplate, gatewayClient, null);
+    }
+
+    /**
+     * @param cachingServiceInstances instances of Caching Service to be called directly, null to call it via the Gateway only
+     */
+    public CachingServiceClient(RestTemplate restTemplate, GatewayClient gatewayClient, ServiceInstanceUrls cachingServiceInstances) {
         this.gatewayClient = gatewayClient;
         if (restTemplate == null) {
             throw new IllegalStateException("RestTemplate instance cannot be null");
         }
         this.restTemplate = restTemplate;
+        this.cachingServiceInstances = cachingServiceInstances;
     }
 
     private String getGatewayAddress() {
@@ -70,6 +96,46 @@ public class CachingServiceClient {
         return String.format("%s://%s", gatewayAddress.getScheme(), gatewayAddress.getHostname());
     }
 
+    /**
+     * Call the path on the instances of Caching Service one by one and then via the Gateway. The next one is tried
+     * only if the previous one was not reachable, any response (including the errors) is final. The request which
+     * is not idempotent is repeated only if the connection was not established, so it could not be processed.
+     *
+     * @param path       path of the endpoint, the same for the instance and the route via the Gateway
+     * @param idempotent whether the request could be repeated after a failure of an established connection
+     * @param request    call of the full URL
+     * @return result of the first reachable instance
+     */
+    private <T> T call(String path, boolean idempotent, Function<String, T> request) {
+        if (cachingServiceInstances != null) {
+            for (String instanceUrl : cachingServiceInstances.getUrls()) {
+                try {
+                    T response = request.apply(instanceUrl + path);
+                    cachingServiceInstances.succeeded(instanceUrl);
+                    return response;
+                } catch (ResourceAccessException e) {
+                    cachingServiceInstances.failed(instanceUrl);
+                    if (!idempotent && !isConnectionFailure(e)) {
+                        throw e;
+                    }
+                    log.debug("Caching Service instance {} is not reachable: {}", instanceUrl, e.getMessage());
+                }
+            }
+        }
+
+        return request.apply(getGatewayAddress() + path);
+    }
+
+    private static boolean isConnectionFailure(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Creates {@link KeyValue} in Caching Service.
      *
@@ -79,7 +145,7 @@ public class CachingServiceClient {
 
     public void create(KeyValue kv) throws CachingServiceClientException {
         try {
-            restTemplate.exchange(getGatewayAddress() + CACHING_API_PATH, HttpMethod.POST, new HttpEntity<>(kv, defaultHeaders), String.class);
+            call(CACHING_API_PATH, false, url -> restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(kv, defaultHeaders), String.class));
         } catch (RestClientException e) {
             throw new CachingServiceClientException("Unable to create keyValue: " + kv.toString() + ", caused by: " + e.getMessage(), e);
         }
@@ -87,9 +153,10 @@ public class CachingServiceClient {
 
     public void appendList(String mapKey, KeyValue kv) throws CachingServiceClientException {
         try {
-            var url = getGatewayAddress() + CACHING_LIST_API_PATH + mapKey;
-            log.debug("append list url: {}", url);
-            restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(kv, defaultHeaders), String.class);
+            call(CACHING_LIST_API_PATH + mapKey, false, url -> {
+                log.debug("append list url: {}", url);
+                return restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(kv, defaultHeaders), String.class);
+            });
         } catch (RestClientException e) {
             throw new CachingServiceClientException("Unable to create keyValue: " + kv.toString() + " in a map under " + mapKey + " key, caused by: " + e.getMessage(), e);
         }
@@ -99,9 +166,10 @@ public class CachingServiceClient {
         try {
             var responseType = new ParameterizedTypeReference<Map<String, Map<String, String>>>() {
             };
-            var url = getGatewayAddress() + CACHING_LIST_API_PATH;
-            log.debug("readAllMaps url: {}", url);
-            var response = restTemplate.exchange(url, HttpMethod.GET, null, responseType);
+            var response = call(CACHING_LIST_API_PATH, true, url -> {
+                log.debug("readAllMaps url: {}", url);
+                return restTemplate.exchange(url, HttpMethod.GET, null, responseType);
+            });
             if (response.getStatusCode().is2xxSuccessful()) {
                 if (response.getBody() != null && !response.getBody().isEmpty()) {     //NOSONAR tests return null
                     return response.getBody();
@@ -115,6 +183,31 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Reads changes of the map since the revision known by the client. If the revision is unknown (ie. -1 at the
+     * start), the full content of the map is returned.
+     *
+     * @param mapKey        the map key
+     * @param sinceRevision the last revision known by the client
+     * @param waitMs        how long the Caching Service could wait for any change before the response
+     * @return changes of the map
+     * @throws CachingServiceClientException when http response from caching is not 2xx or it has no body
+     */
+    public MapChanges readMapChanges(String mapKey, long sinceRevision, long waitMs) throws CachingServiceClientException {
+        try {
+            var response = call(CACHING_LIST_API_PATH + mapKey + "?sinceRevision=" + sinceRevision + "&waitMs=" + waitMs, true, url -> {
+                log.debug("readMapChanges url: {}", url);
+                return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, defaultHeaders), MapChanges.class);
+            });
+            if (response != null && response.hasBody()) { //NOSONAR tests return null
+                return response.getBody();
+            }
+            throw new CachingServiceClientException("Unable to read changes of map " + mapKey + ", caused by response from caching service is null or has no body");
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to read changes of map " + mapKey + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Evict the non-relevant invalidated tokens by deleting the entries in the specified map
      *
@@ -122,7 +215,7 @@ public class CachingServiceClient {
      */
     public void evictTokens(String key) {
         try {
-            restTemplate.exchange(getGatewayAddress() + CACHING_LIST_API_PATH + "evict/tokens/" + key, HttpMethod.DELETE, new HttpEntity<>(null, defaultHeaders), String.class);
+            call(CACHING_LIST_API_PATH + "evict/tokens/" + key, true, url -> restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(null, defaultHeaders), String.class));
         } catch (RestClientException e) {
             throw new CachingServiceClientException("Unable to delete key: " + key + ", caused by: " + e.getMessage(), e);
         }
@@ -135,7 +228,7 @@ public class CachingServiceClient {
      */
     public void evictRules(String key) {
         try {
-            restTemplate.exchange(getGatewayAddress() + CACHING_LIST_API_PATH + "evict/rules/" + key, HttpMethod.DELETE, new HttpEntity<>(null, defaultHeaders), String.class);
+            call(CACHING_LIST_API_PATH + "evict/rules/" + key, true, url -> restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(null, defaultHeaders), String.class));
         } catch (RestClientException e) {
             throw new CachingServiceClientException("Unable to delete key: " + key + ", caused by: " + e.getMessage(), e);
         }
@@ -151,7 +244,7 @@ public class CachingServiceClient {
      */
     public KeyValue read(String key) throws CachingServiceClientException {
         try {
-            ResponseEntity<KeyValue> response = restTemplate.exchange(getGatewayAddress() + CACHING_API_PATH + "/" + key, HttpMethod.GET, new HttpEntity<KeyValue>(null, defaultHeaders), KeyValue.class);
+            ResponseEntity<KeyValue> response = call(CACHING_API_PATH + "/" + key, true, url -> restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<KeyValue>(null, defaultHeaders), KeyValue.class));
             if (response != null && response.hasBody()) { //NOSONAR tests return null
                 return response.getBody();
             } else {
@@ -170,12 +263,74 @@ public class CachingServiceClient {
      */
     public void update(KeyValue kv) throws CachingServiceClientException {
         try {
-            restTemplate.exchange(getGatewayAddress() + CACHING_API_PATH, HttpMethod.PUT, new HttpEntity<>(kv, defaultHeaders), String.class);
+            call(CACHING_API_PATH, true, url -> restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(kv, defaultHeaders), String.class));
         } catch (RestClientException e) {
             throw new CachingServiceClientException("Unable to update keyValue: " + kv.toString() + ", caused by: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Creates {@link KeyValue} in Caching Service or replaces the existing value of the key in a single request.
+     *
+     * @param kv {@link KeyValue} to store
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public void upsert(KeyValue kv) throws CachingServiceClientException {
+        try {
+            call(CACHING_API_PATH + "/upsert", true, url -> restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(kv, defaultHeaders), String.class));
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to upsert keyValue: " + kv.toString() + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads more {@link KeyValue} from Caching Service in a single request
+     *
+     * @param keys keys to read
+     * @return found entries by their keys, the keys which are not in the cache are omitted
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public Map<String, KeyValue> readAll(Collection<String> keys) throws CachingServiceClientException {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            var responseType = new ParameterizedTypeReference<Map<String, KeyValue>>() {
+            };
+            String query = keys.stream().map(key -> "key=" + key).collect(Collectors.joining("&", "?", ""));
+            var response = call(CACHING_API_PATH + query, true, url -> restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(null, defaultHeaders), responseType));
+            if (response != null && response.hasBody()) { //NOSONAR tests return null
+                return response.getBody();
+            }
+            throw new CachingServiceClientException("Unable to read keys: " + keys + ", caused by response from caching service is null or has no body");
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to read keys: " + keys + ", caused by: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates or updates more {@link KeyValue} in Caching Service in a single request. The failure of an item does
+     * not stop the others, check the returned results.
+     *
+     * @param kvs entries to store
+     * @return result of each entry in the same order
+     * @throws CachingServiceClientException when http response from caching is not 2xx, such as connect exception
+     */
+    public List<ItemResult> upsertAll(List<KeyValue> kvs) throws CachingServiceClientException {
+        try {
+            var responseType = new ParameterizedTypeReference<List<ItemResult>>() {
+            };
+            var response = call(CACHING_API_PATH + "/batch", true, url -> restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(kvs, defaultHeaders), responseType));
+            if (response != null && response.hasBody()) { //NOSONAR tests return null
+                return response.getBody();
+            }
+            throw new CachingServiceClientException("Unable to upsert " + kvs.size() + " keyValues, caused by response from caching service is null or has no body");
+        } catch (RestClientException e) {
+            throw new CachingServiceClientException("Unable to upsert " + kvs.size() + " keyValues, caused by: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Deletes {@link KeyValue} from Caching Service
      *
@@ -184,7 +339,7 @@ public class CachingServiceClient {
      */
     public void delete(String key) throws CachingServiceClientException {
         try {
-            restTemplate.exchange(getGatewayAddress() + CACHING_API_PATH + "/" + key, HttpMethod.DELETE, new HttpEntity<KeyValue>(null, defaultHeaders), String.class);
+            call(CACHING_API_PATH + "/" + key, true, url -> restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<KeyValue>(null, defaultHeaders), String.class));
         } catch (RestClientException e) {
             throw new CachingServiceClientException("Unable to delete key: " + key + ", caused by: " + e.getMessage(), e);
         }
@@ -207,4 +362,31 @@ public class CachingServiceClient {
         }
     }
 
+    /**
+     * Data POJO that represents result of a single item of the batch operation. The status has the same meaning as
+     * the status of the request with the single item.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private String key;
+        private int status;
+        private String messageKey;
+    }
+
+    /**
+     * Data POJO that represents changes of a map in caching service. If the flag full is set, the updated items
+     * contain the whole map and the client should replace its copy.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MapChanges {
+        private long revision;
+        private boolean full;
+        private Map<String, String> updated = Collections.emptyMap();
+        private Set<String> removed = Collections.emptySet();
+    }
+
 }
@@ -10,9 +10,14 @@
 
 package org.zowe.apiml.zaas.config;
 
+import com.netflix.discovery.EurekaClient;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.util.Timeout;
 import org.ehcache.config.CacheConfiguration;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.ExpiryPolicyBuilder;
@@ -26,6 +31,7 @@ import org.ehcache.impl.config.store.disk.OffHeapDiskStoreProviderConfiguration;
 import org.ehcache.impl.copy.IdentityCopier;
 import org.ehcache.impl.copy.SerializingCopier;
 import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -37,12 +43,15 @@ import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.cache.CompositeKeyGenerator;
 import org.zowe.apiml.cache.CompositeKeyGeneratorWithoutLast;
 import org.zowe.apiml.product.gateway.GatewayClient;
+import org.zowe.apiml.product.instance.ServiceInstanceUrls;
 import org.zowe.apiml.security.common.token.TokenAuthentication;
 import org.zowe.apiml.util.CacheUtils;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
 import org.zowe.apiml.zaas.cache.CachingServiceClient;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 
@@ -73,6 +82,12 @@ public class CacheConfig {
     @Value("${apiml.cache.storage.location:./ehcache}")
     private String cacheDirectory;
 
+    @Value("${apiml.cachingServiceClient.direct.enabled:true}")
+    private boolean cachingServiceDirect;
+
+    @Value("${apiml.cachingServiceClient.direct.failureCooldownMs:30000}")
+    private long cachingServiceFailureCooldownMs;
+
     @PostConstruct
     public void afterPropertiesSet() {
         if (cacheEnabled) {
@@ -108,7 +123,7 @@ public class CacheConfig {
                 String.class, TokenAuthentication.class, ResourcePoolsBuilder.newResourcePoolsBuilder().heap(1000, EntryUnit.ENTRIES)
             )
             .withKeyCopier(IdentityCopier.identityCopier())
-            .withValueCopier(SerializingCopier.asCopierClass())
+            .withValueCopier(IdentityCopier.identityCopier())
             .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofDays(1))).build();
         caches.put("validationJwtToken", validationJwtTokenConf);
 
@@ -194,8 +209,70 @@ public class CacheConfig {
     }
 
     @Bean
-    public CachingServiceClient cachingServiceClient(GatewayClient gatewayClient, @Qualifier("restTemplateWithKeystore") RestTemplate restTemplate) {
-        return new CachingServiceClient(restTemplate, gatewayClient);
+    public CachingServiceClient cachingServiceClient(
+        GatewayClient gatewayClient,
+        @Qualifier("restTemplateWithKeystore") RestTemplate restTemplate,
+        @Qualifier("eurekaClient") ObjectProvider<EurekaClient> eurekaClient
+    ) {
+        return createCachingServiceClient(gatewayClient, restTemplate, eurekaClient);
+    }
+
+    private CachingServiceClient createCachingServiceClient(
+        GatewayClient gatewayClient,
+        RestTemplate restTemplate,
+        ObjectProvider<EurekaClient> eurekaClient
+    ) {
+        // the instances are called directly with the client certificate, the Gateway is the fallback
+        EurekaClient discovery = cachingServiceDirect ? eurekaClient.getIfAvailable() : null;
+        if (discovery == null) {
+            return new CachingServiceClient(restTemplate, gatewayClient);
+        }
+        return new CachingServiceClient(restTemplate, gatewayClient,
+            new ServiceInstanceUrls(discovery, "cachingservice", cachingServiceFailureCooldownMs));
+    }
+
+    /**
+     * The asynchronous client cannot interrupt a running HTTP call when its timeout elapses, so it uses its own
+     * RestTemplate whose connection and response timeouts are limited by the same value. A thread of the bulkhead
+     * is therefore released at latest after the timeout per called instance.
+     */
+    @Bean(destroyMethod = "close")
+    public AsyncCachingServiceClient asyncCachingServiceClient(
+        GatewayClient gatewayClient,
+        @Qualifier("secureHttpClientWithKeystore") CloseableHttpClient secureHttpClient,
+        @Qualifier("eurekaClient") ObjectProvider<EurekaClient> eurekaClient,
+        @Value("${apiml.cachingServiceClient.async.maxConcurrentCalls:16}") int maxConcurrentCalls,
+        @Value("${apiml.cachingServiceClient.async.maxWaitingCalls:100}") int maxWaitingCalls,
+        @Value("${apiml.cachingServiceClient.async.timeoutMs:5000}") long timeoutMs,
+        @Value("${apiml.cachingServiceClient.async.circuitBreaker.failureThreshold:5}") int failureThreshold,
+        @Value("${apiml.cachingServiceClient.async.circuitBreaker.openMs:10000}") long openMs
+    ) {
+        RestTemplate restTemplate = new RestTemplate(new TimeoutRequestFactory(secureHttpClient, timeoutMs));
+        CachingServiceClient cachingServiceClient = createCachingServiceClient(gatewayClient, restTemplate, eurekaClient);
+        return new AsyncCachingServiceClient(cachingServiceClient, maxConcurrentCalls, maxWaitingCalls, timeoutMs, failureThreshold, openMs);
+    }
+
+    /**
+     * Request factory which limits waiting for a connection from the pool, the connect and the response by the timeout.
+     */
+    static class TimeoutRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        private final Timeout timeout;
+
+        TimeoutRequestFactory(HttpClient httpClient, long timeoutMs) {
+            super(httpClient);
+            this.timeout = Timeout.ofMilliseconds(timeoutMs);
+            setConnectTimeout(Math.toIntExact(timeoutMs));
+        }
+
+        @Override
+        protected RequestConfig mergeRequestConfig(RequestConfig clientConfig) {
+            return RequestConfig.copy(super.mergeRequestConfig(clientConfig))
+                .setConnectionRequestTimeout(timeout)
+                .setResponseTimeout(timeout)
+                .build();
+        }
+
     }
 
 }
@@ -10,7 +10,11 @@
 
 package org.zowe.apiml.zaas.security.config;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -30,6 +34,9 @@ import org.zowe.apiml.passticket.PassTicketService;
 import org.zowe.apiml.security.common.audit.RauditxService;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Registers security related beans
@@ -48,13 +55,35 @@ public class ComponentsConfiguration {
 
     /**
      * Service to call generating and validating of passTickets. If JVM contains mainframe's class, it uses it,
-     * otherwise method returns dummy implementation
+     * otherwise method returns dummy implementation. The mainframe's instances are pooled, so concurrent requests
+     * do not wait for each other.
      *
      * @return mainframe / dummy implementation of passTicket's generation and validation
      */
     @Bean
-    public PassTicketService passTicketService() {
-        return new PassTicketService();
+    public PassTicketService passTicketService(
+        MeterRegistry meterRegistry,
+        @Value("${apiml.security.passTicket.poolSize:0}") int poolSize,
+        @Value("${apiml.security.passTicket.reuseSeconds:0}") long reuseSeconds,
+        @Value("${apiml.security.passTicket.maxWaitMs:5000}") long maxWaitMs
+    ) {
+        if (poolSize <= 0) {
+            poolSize = Runtime.getRuntime().availableProcessors();
+        }
+        PassTicketService passTicketService = new PassTicketService(poolSize, Duration.ofSeconds(reuseSeconds), Duration.ofMillis(maxWaitMs));
+
+        String metricName = "apiml.zaas.passticket";
+        FunctionCounter.builder(metricName + ".generated", passTicketService, PassTicketService::getGeneratedCount).register(meterRegistry);
+        FunctionCounter.builder(metricName + ".reused", passTicketService, PassTicketService::getReusedCount).register(meterRegistry);
+        FunctionCounter.builder(metricName + ".evaluated", passTicketService, PassTicketService::getEvaluatedCount).register(meterRegistry);
+        FunctionCounter.builder(metricName + ".contended", passTicketService, PassTicketService::getContendedCount).register(meterRegistry);
+        FunctionCounter.builder(metricName + ".wait", passTicketService, s -> TimeUnit.NANOSECONDS.toMillis(s.getWaitNanos()))
+            .baseUnit("milliseconds").register(meterRegistry);
+        FunctionCounter.builder(metricName + ".call", passTicketService, s -> TimeUnit.NANOSECONDS.toMillis(s.getCallNanos()))
+            .baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder(metricName + ".pool", passTicketService, PassTicketService::getPoolSize).register(meterRegistry);
+
+        return passTicketService;
     }
 
     @Bean
@@ -28,12 +28,17 @@ import org.zowe.apiml.message.log.ApimlLogger;
 import org.zowe.apiml.product.logging.annotations.InjectApimlLogger;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
+import org.zowe.apiml.zaas.security.service.JwtUtils;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.function.Predicate;
 
 /**
  * Common implementation of an external mapper to call identity mapping API in the ZSS on mainframe.
@@ -49,11 +54,42 @@ public abstract class ExternalMapper {
     private final CloseableHttpClient secureHttpClientWithoutKeystore;
     private final TokenCreationService tokenCreationService;
     private final AuthConfigurationProperties authConfigurationProperties;
+    private final IdentityMappingCache mappingCache;
     protected static final ObjectMapper objectMapper = new ObjectMapper();
 
+    private volatile MapperToken mapperToken;
+
     @InjectApimlLogger
     protected ApimlLogger apimlLog = ApimlLogger.empty();
 
+    /**
+     * Call the external mapper, or return the cached result of the previous call with the same identity. The
+     * failure of the mapper (null response or an error other than a missing mapping) is not cached.
+     *
+     * @param identity identification of the mapped user, the payload has to be the same for the same identity
+     * @param payload  the request to the mapper
+     * @param isMapped verify if the response contains a mapped user
+     * @return response of the mapper or null in case of any error
+     */
+    MapperResponse callExternalMapper(@NotNull byte[] identity, @NotNull HttpEntity payload, Predicate<MapperResponse> isMapped) {
+        return mappingCache.get(getClass().getName(), identity, () -> callExternalMapper(payload), response -> outcome(response, isMapped));
+    }
+
+    static IdentityMappingCache.Outcome outcome(MapperResponse response, Predicate<MapperResponse> isMapped) {
+        if (response.getRc() == 0) {
+            return isMapped.test(response) ? IdentityMappingCache.Outcome.MAPPED : IdentityMappingCache.Outcome.NOT_MAPPED;
+        }
+        if (isMappingNotFound(response)) {
+            return IdentityMappingCache.Outcome.NOT_MAPPED;
+        }
+        return IdentityMappingCache.Outcome.FAILED;
+    }
+
+    private static boolean isMappingNotFound(MapperResponse response) {
+        // https://www.ibm.com/docs/en/zos/2.5.0?topic=user-return-reason-codes, there is no mapping of the identity
+        return response.getRc() == 8 && response.getSafRc() == 8 && response.getRacfRc() == 8 && response.getRacfRs() == 48;
+    }
+
     MapperResponse callExternalMapper(@NotNull HttpEntity payload) {
         if (StringUtils.isBlank(mapperUrl)) {
             log.warn("Configuration error: External identity mapper URL is not set.");
@@ -67,7 +103,7 @@ public abstract class ExternalMapper {
             HttpPost httpPost = new HttpPost(new URI(mapperUrl));
             httpPost.setEntity(payload);
 
-            String jwtToken = tokenCreationService.createJwtTokenWithoutCredentials(mapperUser);
+            String jwtToken = getMapperToken();
             httpPost.setHeader(new BasicHeader("Cookie", authConfigurationProperties.getCookieProperties().getCookieName() + "=" + jwtToken));
             httpPost.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
             log.debug("Executing request against external identity mapper API: {}", httpPost);
@@ -82,6 +118,10 @@ public abstract class ExternalMapper {
                 log.debug("External identity mapper API returned: {}", responseBody);
                 if (HttpStatus.valueOf(statusCode).is2xxSuccessful()) {
                     return responseBody;
+                } else if (statusCode == HttpStatus.UNAUTHORIZED.value()) {
+                    // the token of the mapper user was probably invalidated, create a new one next time
+                    mapperToken = null;
+                    apimlLog.log("org.zowe.apiml.zaas.security.unexpectedMappingResponse", statusCode, httpResponse);
                 } else if (HttpStatus.valueOf(statusCode).is5xxServerError()) {
                     apimlLog.log("org.zowe.apiml.zaas.security.unexpectedMappingResponse", statusCode, httpResponse);
                 } else {
@@ -102,4 +142,40 @@ public abstract class ExternalMapper {
         return null;
     }
 
+    /**
+     * Return the token of the mapper user. The token is created once and then reused until it expires.
+     */
+    String getMapperToken() {
+        MapperToken current = mapperToken;
+        if ((current != null) && current.isValid()) {
+            return current.token();
+        }
+
+        String token = tokenCreationService.createJwtTokenWithoutCredentials(mapperUser);
+        mapperToken = MapperToken.of(token);
+        return token;
+    }
+
+    record MapperToken(String token, Instant expiration) {
+
+        // the token is renewed a while before its expiration to avoid a rejection during the call
+        private static final Duration RENEWAL = Duration.ofSeconds(60);
+
+        static MapperToken of(String token) {
+            try {
+                Date expiration = JwtUtils.getJwtClaims(token).getExpiration();
+                return expiration == null ? null : new MapperToken(token, expiration.toInstant());
+            } catch (RuntimeException e) {
+                // the token cannot be parsed (ie. z/OSMF LTPA token), it won't be reused
+                log.debug("Cannot read the expiration of the mapper token: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        boolean isValid() {
+            return Instant.now().plus(RENEWAL).isBefore(expiration);
+        }
+
+    }
+
 }
@@ -0,0 +1,185 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.mapping;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the results of identity mapping (certificate or distributed identity to the mainframe user ID). It is
+ * shared by the external (ZSS) and native mappers.
+ * <p>
+ * The successful mapping is cached for apiml.security.mapping.cache.ttlSeconds, a result without any user (the
+ * identity is not mapped) for negativeTtlSeconds. A failure of the mapper (the loader returns null or an error
+ * response) is not cached.
+ * Concurrent lookups of the same identity are coalesced, only one of them calls the mapper. An entry older than
+ * refreshSeconds is reloaded in the background by the next lookup, so a frequently used identity never waits for
+ * the mapper.
+ * <p>
+ * The cache is disabled if maxSize is not positive.
+ */
+@Slf4j
+@Component
+public class IdentityMappingCache {
+
+    static final String METRIC_NAME = "apiml.zaas.mapping.cache";
+
+    private final LoadingCache<MappingKey, Entry> cache;
+
+    @Autowired
+    public IdentityMappingCache(
+        MeterRegistry meterRegistry,
+        @Value("${apiml.security.mapping.cache.maxSize:10000}") long maxSize,
+        @Value("${apiml.security.mapping.cache.ttlSeconds:300}") long ttlSeconds,
+        @Value("${apiml.security.mapping.cache.negativeTtlSeconds:30}") long negativeTtlSeconds,
+        @Value("${apiml.security.mapping.cache.refreshSeconds:240}") long refreshSeconds
+    ) {
+        if (maxSize <= 0) {
+            this.cache = null;
+            return;
+        }
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats();
+        if ((refreshSeconds > 0) && (refreshSeconds < ttlSeconds)) {
+            builder.refreshAfterWrite(Duration.ofSeconds(refreshSeconds));
+        }
+        this.cache = builder
+            .expireAfter(new EntryExpiry(Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(negativeTtlSeconds)))
+            .build(key -> key.loader().get());
+
+        Gauge.builder(METRIC_NAME + ".size", cache, LoadingCache::estimatedSize).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".hits", cache, c -> c.stats().hitCount()).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".misses", cache, c -> c.stats().missCount()).register(meterRegistry);
+    }
+
+    /**
+     * Disabled cache, each lookup calls the mapper
+     */
+    public static IdentityMappingCache disabled() {
+        return new IdentityMappingCache(null, 0, 0, 0, 0);
+    }
+
+    /**
+     * Return the cached result of mapping or call the mapper.
+     *
+     * @param namespace type of mapping (ie. mapper), it separates the same identities of different mappers
+     * @param identity  the mapped identity (ie. encoded certificate or distributed ID and registry)
+     * @param mapper    call of the mapper, it returns null in case of any failure
+     * @param outcome   recognize if the result contains the user, if the identity is not mapped (cached for the
+     *                  negative TTL) or if the mapper failed (not cached)
+     * @return result of the mapping or null if the mapper failed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String namespace, byte[] identity, Supplier<T> mapper, Function<T, Outcome> outcome) {
+        if (cache == null) {
+            return mapper.get();
+        }
+
+        MappingKey key = new MappingKey(namespace + ":" + fingerprint(identity), () -> {
+            T value = mapper.get();
+            return value == null ? null : new Entry(value, outcome.apply(value));
+        });
+        Entry entry = cache.get(key);
+        return entry == null ? null : (T) entry.value();
+    }
+
+    public <T> T get(String namespace, String identity, Supplier<T> mapper, Function<T, Outcome> outcome) {
+        return get(namespace, identity.getBytes(StandardCharsets.UTF_8), mapper, outcome);
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    static String fingerprint(byte[] identity) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(identity));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Key of the cache. The loader is used to reload the value in the background, therefore it is part of the key,
+     * but the equality is given just by the identity.
+     */
+    record MappingKey(String identity, Supplier<Entry> loader) {
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof MappingKey other) && identity.equals(other.identity);
+        }
+
+        @Override
+        public int hashCode() {
+            return identity.hashCode();
+        }
+
+    }
+
+    /**
+     * Outcome of the mapping, it decides how long the result is cached
+     */
+    public enum Outcome {
+        MAPPED, NOT_MAPPED, FAILED
+    }
+
+    record Entry(Object value, Outcome outcome) {
+    }
+
+    record EntryExpiry(Duration ttl, Duration negativeTtl) implements Expiry<MappingKey, Entry> {
+
+        private long toNanos(Entry entry) {
+            return switch (entry.outcome()) {
+                case MAPPED -> ttl.toNanos();
+                case NOT_MAPPED -> negativeTtl.toNanos();
+                // the result is returned to the pending lookups, but it expires immediately
+                case FAILED -> 0;
+            };
+        }
+
+        @Override
+        public long expireAfterCreate(MappingKey key, Entry value, long currentTime) {
+            return toNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(MappingKey key, Entry value, long currentTime, long currentDuration) {
+            return toNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(MappingKey key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -10,8 +10,9 @@
 
 package org.zowe.apiml.zaas.security.mapping;
 
-import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.zowe.commons.usermap.CertificateResponse;
@@ -20,27 +21,43 @@ import org.zowe.commons.usermap.UserMapper;
 
 /**
  * Native on platform mapper. Depends on <a href="https://github.com/zowe/common-java/tree/v2.x.x/zos-utils">zos-utils</a> library
- * which provides native calls to z/OS.
+ * which provides native calls to z/OS. The results are cached in {@link IdentityMappingCache}.
  */
 @Slf4j
-@NoArgsConstructor
+@RequiredArgsConstructor
 @Component
 @ConditionalOnProperty(value = "apiml.security.useInternalMapper", havingValue = "true")
 public class NativeMapper implements NativeMapperWrapper {
 
     final UserMapper userMapper = new UserMapper();
 
+    private final IdentityMappingCache mappingCache;
+
+    /**
+     * Only the response of a successful call is cached, an error of the native call could be temporary.
+     */
+    static IdentityMappingCache.Outcome outcome(int rc, String userId) {
+        if (rc != 0) {
+            return IdentityMappingCache.Outcome.FAILED;
+        }
+        return StringUtils.isNotEmpty(userId) ? IdentityMappingCache.Outcome.MAPPED : IdentityMappingCache.Outcome.NOT_MAPPED;
+    }
+
     @Override
     public CertificateResponse getUserIDForCertificate(byte[] cert) {
-        CertificateResponse response =  userMapper.getUserIDForCertificate(cert);
-        log.debug("{}", response);
-        return response;
+        return mappingCache.get("nativeCertificate", cert, () -> {
+            CertificateResponse response =  userMapper.getUserIDForCertificate(cert);
+            log.debug("{}", response);
+            return response;
+        }, response -> outcome(response.getRc(), response.getUserId()));
     }
 
     @Override
     public MapperResponse getUserIDForDN(String dn, String registry) {
-        MapperResponse response = userMapper.getUserIDForDN(dn, registry);
-        log.debug("{}", response);
-        return response;
+        return mappingCache.get("nativeDN", registry + '\0' + dn, () -> {
+            MapperResponse response = userMapper.getUserIDForDN(dn, registry);
+            log.debug("{}", response);
+            return response;
+        }, response -> outcome(response.getRc(), response.getUserId()));
     }
 }
@@ -29,6 +29,8 @@ import org.zowe.apiml.zaas.security.service.TokenCreationService;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.schema.source.OIDCAuthSource;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.zowe.apiml.zaas.security.mapping.model.MapperResponse.OIDC_FAILED_MESSAGE_KEY;
 
 @Component("oidcMapper")
@@ -55,8 +57,9 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
                               @Value("${apiml.security.oidc.identityMapperUser:}") String mapperUser,
                               @Qualifier("secureHttpClientWithoutKeystore") CloseableHttpClient secureHttpClientWithoutKeystore,
                               TokenCreationService tokenCreationService,
-                              AuthConfigurationProperties authConfigurationProperties) {
-        super(mapperUrl, mapperUser, secureHttpClientWithoutKeystore, tokenCreationService, authConfigurationProperties);
+                              AuthConfigurationProperties authConfigurationProperties,
+                              IdentityMappingCache mappingCache) {
+        super(mapperUrl, mapperUser, secureHttpClientWithoutKeystore, tokenCreationService, authConfigurationProperties, mappingCache);
     }
 
     public String mapToMainframeUserId(AuthSource authSource) {
@@ -79,8 +82,9 @@ public class OIDCExternalMapper extends ExternalMapper implements Authentication
         }
         OIDCRequest oidcRequest = new OIDCRequest(distributedId, registry);
         try {
-            StringEntity payload = new StringEntity(objectMapper.writeValueAsString(oidcRequest));
-            MapperResponse mapperResponse = callExternalMapper(payload);
+            String json = objectMapper.writeValueAsString(oidcRequest);
+            StringEntity payload = new StringEntity(json);
+            MapperResponse mapperResponse = callExternalMapper(json.getBytes(StandardCharsets.UTF_8), payload, MapperResponse::isOIDCResultValid);
 
             if (mapperResponse != null && mapperResponse.isOIDCResultValid()) {
                 String userId = mapperResponse.getUserId().trim();
@@ -11,6 +11,7 @@
 package org.zowe.apiml.zaas.security.mapping;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
@@ -44,8 +45,9 @@ public class X509ExternalMapper extends ExternalMapper implements Authentication
                               @Value("${apiml.security.x509.externalMapperUser:}") String mapperUser,
                               @Qualifier("secureHttpClientWithoutKeystore") CloseableHttpClient secureHttpClientWithoutKeystore,
                               TokenCreationService tokenCreationService,
-                              AuthConfigurationProperties authConfigurationProperties) {
-        super(mapperUrl, mapperUser, secureHttpClientWithoutKeystore, tokenCreationService, authConfigurationProperties);
+                              AuthConfigurationProperties authConfigurationProperties,
+                              IdentityMappingCache mappingCache) {
+        super(mapperUrl, mapperUser, secureHttpClientWithoutKeystore, tokenCreationService, authConfigurationProperties, mappingCache);
     }
 
     /**
@@ -60,8 +62,9 @@ public class X509ExternalMapper extends ExternalMapper implements Authentication
             X509Certificate certificate = (X509Certificate) authSource.getRawSource();
             if (certificate != null) {
                 try {
-                    HttpEntity payload = new ByteArrayEntity(certificate.getEncoded(), ContentType.TEXT_PLAIN);
-                    MapperResponse mapperResponse = callExternalMapper(payload);
+                    byte[] encoded = certificate.getEncoded();
+                    HttpEntity payload = new ByteArrayEntity(encoded, ContentType.TEXT_PLAIN);
+                    MapperResponse mapperResponse = callExternalMapper(encoded, payload, response -> StringUtils.isNotBlank(response.getUserId()));
                     if (mapperResponse != null) {
                         return mapperResponse.getUserId().trim();
                     }
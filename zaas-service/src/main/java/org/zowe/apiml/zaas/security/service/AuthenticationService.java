@@ -14,8 +14,6 @@ import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
 import com.netflix.discovery.shared.Application;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwsHeader;
-import io.jsonwebtoken.Jwt;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.SignatureException;
 import jakarta.annotation.PostConstruct;
@@ -24,7 +22,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.StringUtils;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -36,7 +33,6 @@ import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.constants.ApimlConstants;
 import org.zowe.apiml.product.constants.CoreService;
@@ -45,6 +41,8 @@ import org.zowe.apiml.security.common.token.*;
 import org.zowe.apiml.util.CacheUtils;
 import org.zowe.apiml.util.EurekaUtils;
 import org.zowe.apiml.zaas.controllers.AuthController;
+import org.zowe.apiml.zaas.security.service.invalidation.InvalidationBus;
+import org.zowe.apiml.zaas.security.service.invalidation.InvalidationEvent;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 
@@ -80,6 +78,8 @@ public class AuthenticationService {
     private final RestTemplate restTemplate;
     private final CacheManager cacheManager;
     private final CacheUtils cacheUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final InvalidationBus invalidationBus;
 
     // to force calling inside methods with aspects - ie. ehCache aspect
     private AuthenticationService meAsProxy;
@@ -87,6 +87,7 @@ public class AuthenticationService {
     @PostConstruct
     public void afterPropertiesSet() {
         meAsProxy = applicationContext.getBean(AuthenticationService.class);
+        invalidationBus.subscribe(event -> meAsProxy.invalidateJwtTokenLocally(event.token()));
     }
 
     /**
@@ -129,15 +130,9 @@ public class AuthenticationService {
             .signWith(jwtSecurityInitializer.getJwtSecret(), jwtSecurityInitializer.getSignatureAlgorithm()).compact();
     }
 
-    @SuppressWarnings("java:S5659") // It is checking the signature securely - https://github.com/zowe/api-layer/issues/3191
     public QueryResponse parseJwtWithSignature(String jwt) throws SignatureException {
         try {
-            Jwt<JwsHeader, Claims> parsedJwt = (Jwt<JwsHeader, Claims>) Jwts.parser()
-                .verifyWith(jwtSecurityInitializer.getJwtPublicKey())
-                .build()
-                .parse(jwt);
-
-            return parseQueryResponse(parsedJwt.getPayload());
+            return parseQueryResponse(verifiedTokenCache.getVerifiedClaims(jwt, jwtSecurityInitializer.getJwtPublicKey()));
         } catch (RuntimeException exception) {
             throw handleJwtParserException(exception);
         }
@@ -147,6 +142,9 @@ public class AuthenticationService {
      * Method will invalidate jwtToken. It could be called from two reasons:
      * - on logout phase (distribute = true)
      * - from another ZAAS instance to notify about change (distribute = false)
+     * <p>
+     * The token is always invalidated in z/OSMF and on this instance, then the invalidation is distributed to the other
+     * instances (see {@link InvalidationBus}). A failed distribution does not revert the invalidation.
      *
      * @param jwtToken   token to invalidate
      * @param distribute distribute invalidation to another instances?
@@ -155,20 +153,9 @@ public class AuthenticationService {
     @CacheEvict(value = CACHE_VALIDATION_JWT_TOKEN, key = "#jwtToken")
     @Cacheable(value = CACHE_INVALIDATED_JWT_TOKENS, key = "#jwtToken", condition = "#jwtToken != null")
     public Boolean invalidateJwtToken(String jwtToken, boolean distribute) {
-        /*
-         * until ehCache is not distributed, send to other instances invalidation request
-         */
-        boolean isInvalidatedOnAnotherInstance = false;
-        if (distribute) {
-            isInvalidatedOnAnotherInstance = invalidateTokenOnAnotherInstance(jwtToken);
-            if (!isInvalidatedOnAnotherInstance) {
-                return Boolean.FALSE;
-            }
-
-        }
+        final QueryResponse queryResponse = parseJwtToken(jwtToken);
 
         // invalidate token in z/OSMF
-        final QueryResponse queryResponse = parseJwtToken(jwtToken);
         try {
             switch (queryResponse.getSource()) {
                 case ZOWE:
@@ -182,34 +169,38 @@ public class AuthenticationService {
                     throw new TokenFormatNotValidException("Unknown token type.");
             }
         } catch (BadCredentialsException e) {
-            if (!isInvalidatedOnAnotherInstance) {
+            if (!distribute) {
                 throw e;
             }
         }
 
-        return Boolean.TRUE;
-    }
-
-    private boolean invalidateTokenOnAnotherInstance(String jwtToken) {
-        final Application application = eurekaClient.getApplication(CoreService.ZAAS.getServiceId());
-        // wrong state, ZAAS have to exists (at least this current instance), return false like unsuccessful
-        if (application == null) {
-            return Boolean.FALSE;
+        if (distribute) {
+            distributeInvalidation(new InvalidationEvent(jwtToken, queryResponse.getExpiration().getTime()));
         }
 
-        final String myInstanceId = eurekaClient.getApplicationInfoManager().getInfo().getInstanceId();
-        for (final InstanceInfo instanceInfo : application.getInstances()) {
-            if (StringUtils.equals(myInstanceId, instanceInfo.getInstanceId())) continue;
+        return Boolean.TRUE;
+    }
 
-            final String url = EurekaUtils.getUrl(instanceInfo) + AuthController.CONTROLLER_PATH + "/invalidate/" + jwtToken;
-            try {
-                restTemplate.delete(url);
-            } catch (HttpClientErrorException e) {
-                log.debug("Problem invalidating token on another instance url " + url, e);
+    private void distributeInvalidation(InvalidationEvent event) {
+        try {
+            if (!invalidationBus.publish(event)) {
+                log.warn("The invalidation of token was not delivered to all other instances of ZAAS");
             }
-
+        } catch (RuntimeException e) {
+            log.warn("The invalidation of token cannot be distributed to other instances of ZAAS: {}", e.getMessage());
         }
+    }
 
+    /**
+     * Mark the token as invalidated on this instance only. It is used for invalidations made on another instance,
+     * the token is already invalidated in z/OSMF.
+     *
+     * @param jwtToken token to invalidate
+     * @return always true
+     */
+    @CacheEvict(value = CACHE_VALIDATION_JWT_TOKEN, key = "#jwtToken")
+    @Cacheable(value = CACHE_INVALIDATED_JWT_TOKENS, key = "#jwtToken", condition = "#jwtToken != null")
+    public Boolean invalidateJwtTokenLocally(String jwtToken) {
         return Boolean.TRUE;
     }
 
@@ -227,11 +218,7 @@ public class AuthenticationService {
 
     private Claims validateAndParseLocalJwtToken(String jwtToken) {
         try {
-            return Jwts.parser()
-                .verifyWith(jwtSecurityInitializer.getJwtPublicKey())
-                .build()
-                .parseSignedClaims(jwtToken)
-                .getPayload();
+            return verifiedTokenCache.getVerifiedClaims(jwtToken, jwtSecurityInitializer.getJwtPublicKey());
         } catch (RuntimeException exception) {
             throw handleJwtParserException(exception);
         }
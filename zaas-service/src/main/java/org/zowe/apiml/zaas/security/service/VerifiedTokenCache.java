@@ -0,0 +1,172 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Cache of the claims of tokens signed by API ML (Zowe JWT and personal access tokens) whose signature was already
+ * verified. It is shared by all places which verify the signature, so the RSA verification is done once per token
+ * and not on each call of the validation.
+ * <p>
+ * The tokens are stored by SHA-256 digest, never in plain text. An entry expires with the token, at the latest after
+ * apiml.security.jwt.verificationCache.maxTtlSeconds. The parser is built once per public key, it is thread-safe.
+ * If the public key is changed (ie. new configuration of z/OSMF), the entries verified by the previous key are not
+ * used anymore.
+ * <p>
+ * The cache is disabled if maxSize is not positive, each call verifies the signature.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String METRIC_NAME = "apiml.zaas.jwt.verified";
+
+    private final Cache<String, Entry> cache;
+    private volatile Verifier verifier;
+
+    @Autowired
+    public VerifiedTokenCache(
+        MeterRegistry meterRegistry,
+        @Value("${apiml.security.jwt.verificationCache.maxSize:10000}") long maxSize,
+        @Value("${apiml.security.jwt.verificationCache.maxTtlSeconds:300}") long maxTtlSeconds
+    ) {
+        if (maxSize <= 0) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new TokenExpiry(Duration.ofSeconds(maxTtlSeconds)))
+            .recordStats()
+            .build();
+
+        Gauge.builder(METRIC_NAME + ".size", cache, Cache::estimatedSize).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".hits", cache, c -> c.stats().hitCount()).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".misses", cache, c -> c.stats().missCount()).register(meterRegistry);
+    }
+
+    /**
+     * Disabled cache, each call verifies the signature
+     */
+    public static VerifiedTokenCache disabled() {
+        return new VerifiedTokenCache(null, 0, 0);
+    }
+
+    /**
+     * Return claims of the token with a verified signature. The exceptions of the parser are not translated, the
+     * caller should handle them (see {@link JwtUtils#handleJwtParserException(RuntimeException)}).
+     *
+     * @param jwt       the token
+     * @param publicKey the key to verify the signature
+     * @return claims of the token
+     * @throws io.jsonwebtoken.JwtException if the token is not valid or expired
+     */
+    public Claims getVerifiedClaims(String jwt, PublicKey publicKey) {
+        Verifier current = getVerifier(publicKey);
+        if ((cache == null) || (jwt == null)) {
+            return current.parse(jwt);
+        }
+
+        String key = digest(jwt);
+        Entry entry = cache.getIfPresent(key);
+        if ((entry != null) && (entry.verifier() == current) && !isExpired(entry.claims())) {
+            return entry.claims();
+        }
+
+        Claims claims = current.parse(jwt);
+        cache.put(key, new Entry(current, claims));
+        return claims;
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private Verifier getVerifier(PublicKey publicKey) {
+        Verifier current = verifier;
+        if ((current == null) || (current.publicKey() != publicKey)) {
+            current = new Verifier(publicKey, Jwts.parser().verifyWith(publicKey).build());
+            verifier = current;
+            invalidateAll();
+        }
+        return current;
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return (expiration != null) && (expiration.getTime() <= System.currentTimeMillis());
+    }
+
+    static String digest(String jwt) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    record Verifier(PublicKey publicKey, JwtParser parser) {
+
+        Claims parse(String jwt) {
+            return parser.parseSignedClaims(jwt).getPayload();
+        }
+
+    }
+
+    record Entry(Verifier verifier, Claims claims) {
+    }
+
+    record TokenExpiry(Duration maxTtl) implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            Date expiration = value.claims().getExpiration();
+            if (expiration == null) {
+                return maxTtl.toNanos();
+            }
+            long ttl = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(ttl, maxTtl.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
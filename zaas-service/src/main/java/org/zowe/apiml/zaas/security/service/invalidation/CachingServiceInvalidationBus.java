@@ -0,0 +1,267 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.zowe.apiml.models.AccessTokenContainer;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus backed by a map (cache-list) in the Caching Service.
+ * <p>
+ * The published events are stored in the map, the logout does not wait for the other instances. With the confirmed
+ * delivery (default) the caller stores its own event, it waits at most for the timeout of
+ * {@link AsyncCachingServiceClient} and it does not wait for the events of the others. If the event is not stored in
+ * time, the publishing fails and the event is queued. Otherwise the events are queued only. A background task stores
+ * the queued events, they stay in the queue until the Caching Service is available (at-least-once delivery). An event
+ * is dropped once the token expires.
+ * <p>
+ * Each instance reads the changes of the map (long-polling). The first read returns the whole map, therefore a new
+ * or restarted instance replays all invalidations of tokens which are not expired yet. The stored value is
+ * {@link AccessTokenContainer}, the Caching Service does not remove it by itself. Each instance periodically asks
+ * the Caching Service to evict the items of the expired tokens, so the map contains only the current invalidations.
+ */
+@Slf4j
+public class CachingServiceInvalidationBus implements InvalidationBus {
+
+    static final String MAP_KEY = "invalidatedJwtTokens";
+    static final String METRIC_NAME = "apiml.zaas.invalidation.bus";
+
+    private static final long UNKNOWN_REVISION = -1;
+
+    private final CachingServiceClient cachingServiceClient;
+    private final AsyncCachingServiceClient asyncCachingServiceClient;
+    private final ObjectMapper objectMapper;
+    private final long flushIntervalMs;
+    private final long pollIntervalMs;
+    private final long pollWaitMs;
+    private final long evictIntervalMs;
+    private final boolean confirmDelivery;
+
+    private final Queue<InvalidationEvent> pending = new ConcurrentLinkedQueue<>();
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<InvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+
+    private volatile long revision = UNKNOWN_REVISION;
+
+    public CachingServiceInvalidationBus(
+        CachingServiceClient cachingServiceClient,
+        AsyncCachingServiceClient asyncCachingServiceClient,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        long flushIntervalMs,
+        long pollIntervalMs,
+        long pollWaitMs,
+        long evictIntervalMs,
+        boolean confirmDelivery
+    ) {
+        this.cachingServiceClient = cachingServiceClient;
+        this.asyncCachingServiceClient = asyncCachingServiceClient;
+        this.objectMapper = objectMapper;
+        this.flushIntervalMs = flushIntervalMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.pollWaitMs = pollWaitMs;
+        this.evictIntervalMs = evictIntervalMs;
+        this.confirmDelivery = confirmDelivery;
+
+        this.executor = Executors.newScheduledThreadPool(3, r -> {
+            Thread thread = new Thread(r, "Token invalidation bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.publishedCounter = Counter.builder(METRIC_NAME + ".published").description("Invalidations stored in the Caching Service").register(meterRegistry);
+        this.receivedCounter = Counter.builder(METRIC_NAME + ".received").description("Invalidations received from other instances").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".pending", pending, Queue::size).description("Invalidations waiting for the Caching Service").register(meterRegistry);
+    }
+
+    @Override
+    public boolean publish(InvalidationEvent event) {
+        known.add(getItemKey(event.token()));
+        start();
+
+        if (!confirmDelivery) {
+            pending.add(event);
+            return true;
+        }
+
+        // only the own event is stored, out of the monitor of the background flush
+        try {
+            AsyncCachingServiceClient.await(asyncCachingServiceClient.appendList(MAP_KEY, toKeyValue(event)));
+            publishedCounter.increment();
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("The invalidation of token was not stored in the Caching Service, it will be retried: {}", e.getMessage());
+            pending.add(event);
+            return false;
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationEvent> listener) {
+        listeners.add(listener);
+        start();
+    }
+
+    private void start() {
+        // without intervals the background tasks are not running, the events are processed by direct calls only
+        if ((flushIntervalMs > 0) && (pollIntervalMs > 0) && started.compareAndSet(false, true)) {
+            executor.scheduleWithFixedDelay(this::flush, 0, flushIntervalMs, TimeUnit.MILLISECONDS);
+            executor.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+            if (evictIntervalMs > 0) {
+                executor.scheduleWithFixedDelay(this::evict, evictIntervalMs, evictIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Store all queued events in the Caching Service. The first failure stops the processing, the event stays in
+     * the queue for the next attempt.
+     */
+    synchronized void flush() {
+        InvalidationEvent event;
+        while ((event = pending.peek()) != null) {
+            if (!event.isExpired()) {
+                try {
+                    cachingServiceClient.appendList(MAP_KEY, toKeyValue(event));
+                    publishedCounter.increment();
+                } catch (RuntimeException e) {
+                    log.debug("Cannot publish the invalidation of token, it will be retried: {}", e.getMessage());
+                    return;
+                }
+            }
+            pending.remove();
+        }
+    }
+
+    /**
+     * Read the changes since the last known revision and notify the listeners about unknown invalidations
+     */
+    void poll() {
+        CachingServiceClient.MapChanges changes;
+        try {
+            changes = cachingServiceClient.readMapChanges(MAP_KEY, revision, pollWaitMs);
+        } catch (RuntimeException e) {
+            log.debug("Cannot read the invalidations of tokens: {}", e.getMessage());
+            return;
+        }
+
+        Map<String, String> updated = Optional.ofNullable(changes.getUpdated()).orElse(Collections.emptyMap());
+        if (changes.isFull()) {
+            // forget the removed items, the pending ones are not stored yet
+            known.retainAll(updated.keySet());
+            pending.forEach(event -> known.add(getItemKey(event.token())));
+        }
+        Optional.ofNullable(changes.getRemoved()).ifPresent(known::removeAll);
+
+        updated.forEach((itemKey, value) -> {
+            if (known.add(itemKey)) {
+                toEvent(value).filter(event -> !event.isExpired()).ifPresent(this::notifyListeners);
+            }
+        });
+        revision = changes.getRevision();
+    }
+
+    /**
+     * Remove the invalidations of the expired tokens from the map in the Caching Service
+     */
+    void evict() {
+        try {
+            cachingServiceClient.evictTokens(MAP_KEY);
+        } catch (RuntimeException e) {
+            log.debug("Cannot evict the invalidations of expired tokens: {}", e.getMessage());
+        }
+    }
+
+    private void notifyListeners(InvalidationEvent event) {
+        receivedCounter.increment();
+        for (Consumer<InvalidationEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                log.debug("Cannot process the invalidation of token: {}", e.getMessage());
+            }
+        }
+    }
+
+    private CachingServiceClient.KeyValue toKeyValue(InvalidationEvent event) {
+        return new CachingServiceClient.KeyValue(getItemKey(event.token()), toValue(event));
+    }
+
+    private String toValue(InvalidationEvent event) {
+        AccessTokenContainer container = new AccessTokenContainer();
+        container.setTokenValue(event.token());
+        container.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.expiration()), ZoneId.systemDefault()));
+        try {
+            return objectMapper.writeValueAsString(container);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the invalidation of token", e);
+        }
+    }
+
+    private Optional<InvalidationEvent> toEvent(String value) {
+        try {
+            AccessTokenContainer container = objectMapper.readValue(value, AccessTokenContainer.class);
+            if ((container == null) || (container.getTokenValue() == null) || (container.getExpiresAt() == null)) {
+                return Optional.empty();
+            }
+            long expiration = container.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return Optional.of(new InvalidationEvent(container.getTokenValue(), expiration));
+        } catch (JsonProcessingException e) {
+            log.debug("Not able to parse the invalidation of token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The map item is identified by a hash, the token is stored only in the value
+     */
+    static String getItemKey(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus inside a single JVM. It is suitable for a deployment with a single instance of ZAAS and for
+ * tests. The events are delivered synchronously. The not expired events are replayed to each new listener.
+ */
+public class InProcessInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<InvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, InvalidationEvent> events = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean publish(InvalidationEvent event) {
+        events.values().removeIf(InvalidationEvent::isExpired);
+        events.put(event.token(), event);
+        listeners.forEach(listener -> listener.accept(event));
+        return true;
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationEvent> listener) {
+        events.values().stream()
+            .filter(event -> !event.isExpired())
+            .forEach(listener);
+        listeners.add(listener);
+    }
+
+}
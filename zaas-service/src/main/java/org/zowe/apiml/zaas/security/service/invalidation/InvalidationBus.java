@@ -0,0 +1,38 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Distribution of token invalidations between ZAAS instances. The implementation is selected by the property
+ * apiml.security.invalidation.bus (see {@link InvalidationBusConfig}).
+ */
+public interface InvalidationBus {
+
+    /**
+     * Publish the invalidation to the other instances. The guarantees of the delivery depend on the implementation,
+     * the caller has already invalidated the token and it should not revert it if the publishing fails.
+     *
+     * @param event the invalidation
+     * @return true if the event was delivered or accepted for the delivery, false if the delivery failed
+     */
+    boolean publish(InvalidationEvent event);
+
+    /**
+     * Register a listener of invalidations. The listener could be called with the same event more than once and also
+     * with the events published by this instance.
+     *
+     * @param listener the listener
+     */
+    void subscribe(Consumer<InvalidationEvent> listener);
+
+}
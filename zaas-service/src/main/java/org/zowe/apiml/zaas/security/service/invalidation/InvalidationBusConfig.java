@@ -0,0 +1,64 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.discovery.EurekaClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClient;
+
+/**
+ * Selection of {@link InvalidationBus} by apiml.security.invalidation.bus: peer (default, direct calls of the other
+ * instances), cachingService (requires the Caching Service) or inProcess (a single instance of ZAAS).
+ */
+@Configuration
+public class InvalidationBusConfig {
+
+    @Bean
+    @ConditionalOnProperty(value = "apiml.security.invalidation.bus", havingValue = "peer", matchIfMissing = true)
+    public InvalidationBus peerInvalidationBus(
+        EurekaClient eurekaClient,
+        @Qualifier("restTemplateWithKeystore") RestTemplate restTemplate
+    ) {
+        return new PeerInvalidationBus(eurekaClient, restTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "apiml.security.invalidation.bus", havingValue = "cachingService")
+    public InvalidationBus cachingServiceInvalidationBus(
+        CachingServiceClient cachingServiceClient,
+        AsyncCachingServiceClient asyncCachingServiceClient,
+        @Qualifier("oidcJwkMapper") ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${apiml.security.invalidation.flushIntervalMs:100}") long flushIntervalMs,
+        @Value("${apiml.security.invalidation.pollIntervalMs:1000}") long pollIntervalMs,
+        @Value("${apiml.security.invalidation.pollWaitMs:10000}") long pollWaitMs,
+        @Value("${apiml.security.invalidation.evictIntervalMs:600000}") long evictIntervalMs,
+        @Value("${apiml.security.invalidation.confirmDelivery:true}") boolean confirmDelivery
+    ) {
+        return new CachingServiceInvalidationBus(cachingServiceClient, asyncCachingServiceClient, objectMapper, meterRegistry,
+            flushIntervalMs, pollIntervalMs, pollWaitMs, evictIntervalMs, confirmDelivery);
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "apiml.security.invalidation.bus", havingValue = "inProcess")
+    public InvalidationBus inProcessInvalidationBus() {
+        return new InProcessInvalidationBus();
+    }
+
+}
@@ -0,0 +1,25 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+/**
+ * Invalidation of a token (ie. logout) made on any ZAAS instance
+ *
+ * @param token      the invalidated token
+ * @param expiration expiration of the token (in milliseconds), the event is not relevant after this time
+ */
+public record InvalidationEvent(String token, long expiration) {
+
+    public boolean isExpired() {
+        return expiration <= System.currentTimeMillis();
+    }
+
+}
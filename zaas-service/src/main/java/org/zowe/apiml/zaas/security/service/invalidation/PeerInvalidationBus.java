@@ -0,0 +1,68 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.client.RestTemplate;
+import org.zowe.apiml.product.constants.CoreService;
+import org.zowe.apiml.util.EurekaUtils;
+import org.zowe.apiml.zaas.controllers.AuthController;
+
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus calling the other ZAAS instances registered in Eureka directly. It does not need the Caching
+ * Service, therefore it is the default one. The other instances receive the invalidation by the endpoint
+ * /auth/invalidate, so there is nothing to subscribe here. An instance which is not reachable (or which is started
+ * later) does not receive the invalidation.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PeerInvalidationBus implements InvalidationBus {
+
+    private final EurekaClient eurekaClient;
+    private final RestTemplate restTemplate;
+
+    @Override
+    public boolean publish(InvalidationEvent event) {
+        Application application = eurekaClient.getApplication(CoreService.ZAAS.getServiceId());
+        if (application == null) {
+            log.debug("No instance of ZAAS is registered, the invalidation of token is not distributed");
+            return false;
+        }
+
+        String myInstanceId = eurekaClient.getApplicationInfoManager().getInfo().getInstanceId();
+        boolean delivered = true;
+        for (InstanceInfo instanceInfo : application.getInstances()) {
+            if (StringUtils.equals(myInstanceId, instanceInfo.getInstanceId())) continue;
+
+            String url = EurekaUtils.getUrl(instanceInfo) + AuthController.CONTROLLER_PATH + "/invalidate/{token}";
+            try {
+                restTemplate.delete(url, event.token());
+            } catch (RuntimeException e) {
+                log.debug("Problem invalidating token on the instance {}: {}", instanceInfo.getInstanceId(), e.getMessage());
+                delivered = false;
+            }
+        }
+        return delivered;
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationEvent> listener) {
+        // the other instances call the endpoint /auth/invalidate directly
+    }
+
+}
@@ -19,6 +19,7 @@ import org.springframework.stereotype.Service;
 import org.zowe.apiml.models.AccessTokenContainer;
 import org.zowe.apiml.security.common.token.AccessTokenProvider;
 import org.zowe.apiml.security.common.token.QueryResponse;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
 import org.zowe.apiml.zaas.cache.CachingServiceClient;
 import org.zowe.apiml.zaas.cache.CachingServiceClientException;
 import org.zowe.apiml.zaas.security.service.AuthenticationService;
@@ -30,10 +31,16 @@ import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import static org.zowe.apiml.zaas.cache.AsyncCachingServiceClient.await;
+
+/**
+ * Personal access tokens and their revocation. The calls of the Caching Service are asynchronous with a limited time,
+ * see {@link AsyncCachingServiceClient}. The synchronous methods wait for the result, the asynchronous ones allow
+ * the caller to release its thread. The validation of a token uses the local {@link InvalidatedTokensIndex}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -43,14 +50,19 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     static final String INVALID_USERS_KEY = "invalidUsers";
     static final String INVALID_SCOPES_KEY = "invalidScopes";
 
-    private final CachingServiceClient cachingServiceClient;
+    private final AsyncCachingServiceClient cachingServiceClient;
     private final AuthenticationService authenticationService;
     @Qualifier("oidcJwkMapper")
     private final ObjectMapper objectMapper;
+    private final InvalidatedTokensIndex invalidatedTokensIndex;
 
     private byte[] salt;
 
     public void invalidateToken(String token) throws CachingServiceClientException, JsonProcessingException {
+        await(invalidateTokenAsync(token));
+    }
+
+    public CompletableFuture<Void> invalidateTokenAsync(String token) throws JsonProcessingException {
         String hashedValue = getHash(token);
         QueryResponse queryResponse = authenticationService.parseJwtWithSignature(token);
         AccessTokenContainer container = new AccessTokenContainer();
@@ -59,25 +71,38 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
         container.setExpiresAt(LocalDateTime.ofInstant(queryResponse.getExpiration().toInstant(), ZoneId.systemDefault()));
 
         String json = objectMapper.writeValueAsString(container);
-        cachingServiceClient.appendList(INVALID_TOKENS_KEY, new CachingServiceClient.KeyValue(hashedValue, json));
+        return cachingServiceClient.appendList(INVALID_TOKENS_KEY, new CachingServiceClient.KeyValue(hashedValue, json))
+            .thenRun(() -> invalidatedTokensIndex.addInvalidToken(hashedValue));
     }
 
     public void invalidateAllTokensForUser(String userId, long timestamp) throws CachingServiceClientException {
+        await(invalidateAllTokensForUserAsync(userId, timestamp));
+    }
+
+    public CompletableFuture<Void> invalidateAllTokensForUserAsync(String userId, long timestamp) {
         String hashedUserId = getHash(userId);
         if (timestamp == 0) {
             timestamp = System.currentTimeMillis();
         }
         log.debug("hashedUserId {}, timestamp {}", hashedUserId, timestamp);
-        cachingServiceClient.appendList(INVALID_USERS_KEY, new CachingServiceClient.KeyValue(hashedUserId, Long.toString(timestamp)));
+        long ruleTimestamp = timestamp;
+        return cachingServiceClient.appendList(INVALID_USERS_KEY, new CachingServiceClient.KeyValue(hashedUserId, Long.toString(timestamp)))
+            .thenRun(() -> invalidatedTokensIndex.addUserRule(hashedUserId, ruleTimestamp));
     }
 
     public void invalidateAllTokensForService(String serviceId, long timestamp) throws CachingServiceClientException {
+        await(invalidateAllTokensForServiceAsync(serviceId, timestamp));
+    }
+
+    public CompletableFuture<Void> invalidateAllTokensForServiceAsync(String serviceId, long timestamp) {
         String hashedServiceId = getHash(serviceId);
         if (timestamp == 0) {
             timestamp = System.currentTimeMillis();
         }
         log.debug("serviceIdHash {}, timestamp {}", hashedServiceId, timestamp);
-        cachingServiceClient.appendList(INVALID_SCOPES_KEY, new CachingServiceClient.KeyValue(hashedServiceId, Long.toString(timestamp)));
+        long ruleTimestamp = timestamp;
+        return cachingServiceClient.appendList(INVALID_SCOPES_KEY, new CachingServiceClient.KeyValue(hashedServiceId, Long.toString(timestamp)))
+            .thenRun(() -> invalidatedTokensIndex.addScopeRule(hashedServiceId, ruleTimestamp));
     }
 
     public boolean isInvalidated(String token) throws CachingServiceClientException {
@@ -86,63 +111,19 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
         String hashedUserId = getHash(parsedToken.getUserId());
         List<String> hashedServiceIds = parsedToken.getScopes().stream().map(this::getHash).toList();
 
-        Map<String, Map<String, String>> cacheMap = cachingServiceClient.readAllMaps();
-        if (cacheMap != null && !cacheMap.isEmpty()) {
-            Map<String, String> invalidTokens = cacheMap.get(INVALID_TOKENS_KEY);
-            Map<String, String> invalidUsers = cacheMap.get(INVALID_USERS_KEY);
-            Map<String, String> invalidScopes = cacheMap.get(INVALID_SCOPES_KEY);
-            Optional<Boolean> isInvalidated = checkInvalidToken(invalidTokens, hashedToken);
-            if (isInvalidated.isEmpty()) {
-                isInvalidated = checkRule(invalidUsers, hashedUserId, parsedToken);
-            }
-            for (String hashedServiceId : hashedServiceIds) {
-                if (isInvalidated.isEmpty()) {
-                    isInvalidated = checkRule(invalidScopes, hashedServiceId, parsedToken);
-                } else {
-                    break;
-                }
-            }
-            if (isInvalidated.isPresent()) {
-                return isInvalidated.get();
-            }
-        }
-        return false;
+        return invalidatedTokensIndex.isInvalidated(hashedToken, hashedUserId, hashedServiceIds, parsedToken.getCreation().getTime());
     }
 
-    private Optional<Boolean> checkInvalidToken(Map<String, String> invalidTokens, String tokenId) {
-        if (invalidTokens != null && !invalidTokens.isEmpty() && invalidTokens.containsKey(tokenId)) {
-            String s = invalidTokens.get(tokenId);
-            try {
-                AccessTokenContainer c = objectMapper.readValue(s, AccessTokenContainer.class);
-                return Optional.of(c != null);
-            } catch (JsonProcessingException e) {
-                log.error("Not able to parse invalidToken json value.", e);
-            }
-        }
-        return Optional.empty();
-    }
-
-    private Optional<Boolean> checkRule(Map<String, String> tokenRules, String ruleId, QueryResponse parsedToken) {
-        if (tokenRules != null && !tokenRules.isEmpty() && tokenRules.containsKey(ruleId)) {
-            String timestampStr = tokenRules.get(ruleId);
-            try {
-                long timestamp = Long.parseLong(timestampStr);
-                var tokenTime = parsedToken.getCreation().getTime();
-                boolean result = tokenTime <= timestamp;
-                if (result) {
-                    return Optional.of(true);
-                }
-            } catch (NumberFormatException e) {
-                log.error("Not able to convert timestamp value to number.", e);
-            }
-        }
-        return Optional.empty();
+    public void evictNonRelevantTokensAndRules() {
+        await(evictNonRelevantTokensAndRulesAsync());
     }
 
-    public void evictNonRelevantTokensAndRules() {
-        cachingServiceClient.evictTokens(INVALID_TOKENS_KEY);
-        cachingServiceClient.evictRules(INVALID_USERS_KEY);
-        cachingServiceClient.evictRules(INVALID_SCOPES_KEY);
+    public CompletableFuture<Void> evictNonRelevantTokensAndRulesAsync() {
+        return CompletableFuture.allOf(
+            cachingServiceClient.evictTokens(INVALID_TOKENS_KEY),
+            cachingServiceClient.evictRules(INVALID_USERS_KEY),
+            cachingServiceClient.evictRules(INVALID_SCOPES_KEY)
+        );
     }
 
     public String getHash(String token) throws CachingServiceClientException {
@@ -152,7 +133,7 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     private String initializeSalt() throws CachingServiceClientException,SecureTokenInitializationException {
         String localSalt;
         try {
-            CachingServiceClient.KeyValue keyValue = cachingServiceClient.read("salt");
+            CachingServiceClient.KeyValue keyValue = await(cachingServiceClient.read("salt"));
             localSalt = keyValue.getValue();
         } catch (CachingServiceClientException e) {
             byte[] newSalt = generateSalt();
@@ -190,7 +171,7 @@ public class ApimlAccessTokenProvider implements AccessTokenProvider {
     }
 
     private void storeSalt(byte[] salt) throws CachingServiceClientException {
-        cachingServiceClient.create(new CachingServiceClient.KeyValue("salt", new String(salt)));
+        await(cachingServiceClient.create(new CachingServiceClient.KeyValue("salt", new String(salt))));
     }
 
     public static byte[] generateSalt() {
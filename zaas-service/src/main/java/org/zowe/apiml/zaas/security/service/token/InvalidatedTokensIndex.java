@@ -0,0 +1,327 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.token;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zowe.apiml.models.AccessTokenContainer;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClient.MapChanges;
+import org.zowe.apiml.zaas.cache.CachingServiceClientException;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.INVALID_SCOPES_KEY;
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.INVALID_TOKENS_KEY;
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.INVALID_USERS_KEY;
+
+/**
+ * Local copy of the revocation rules of personal access tokens (maps invalidTokens, invalidUsers and invalidScopes
+ * stored in the Caching Service). The validation of a token is answered from memory without any network call.
+ * <p>
+ * The index is refreshed in the background with the configured interval. A refresh reads only the changes of each
+ * map since its last known revision, the full map is returned just for the first read or if the Caching Service does
+ * not know the revision anymore. If the index is older than the maximum staleness (ie. the Caching Service was not
+ * available), the next check waits for the refresh. Only one refresh runs at a time, the concurrent checks wait for
+ * the same one. The changes made by this instance are applied to the index immediately, the ones made during a
+ * running refresh are applied again to its result.
+ * <p>
+ * With the stale grace period, the stale index is still used for this time after the maximum staleness. The check
+ * does not wait, the refresh runs in the background and the next checks use its result.
+ * <p>
+ * The background refresh is started with the first check, therefore there are no calls of Caching Service when
+ * personal access tokens are not used.
+ */
+@Slf4j
+@Component
+public class InvalidatedTokensIndex {
+
+    static final String METRIC_NAME = "apiml.zaas.pat.revocation.index";
+
+    private static final long UNKNOWN_REVISION = -1;
+
+    private final AsyncCachingServiceClient cachingServiceClient;
+    private final ObjectMapper objectMapper;
+
+    private final long refreshIntervalMs;
+    private final long maxStalenessMs;
+    private final long staleGraceMs;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private CompletableFuture<Snapshot> refreshing;
+    private long tokensRevision = UNKNOWN_REVISION;
+    private long usersRevision = UNKNOWN_REVISION;
+    private long scopesRevision = UNKNOWN_REVISION;
+    // changes of this instance made while a refresh is running, its result could be read before them
+    private final List<LocalChange> localChanges = new ArrayList<>();
+
+    public InvalidatedTokensIndex(
+        AsyncCachingServiceClient cachingServiceClient,
+        @Qualifier("oidcJwkMapper") ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${apiml.security.personalAccessToken.revocation.refreshIntervalMs:10000}") long refreshIntervalMs,
+        @Value("${apiml.security.personalAccessToken.revocation.maxStalenessMs:30000}") long maxStalenessMs,
+        @Value("${apiml.security.personalAccessToken.revocation.staleGraceMs:0}") long staleGraceMs
+    ) {
+        this.cachingServiceClient = cachingServiceClient;
+        this.objectMapper = objectMapper;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.maxStalenessMs = maxStalenessMs;
+        this.staleGraceMs = staleGraceMs;
+
+        Gauge.builder(METRIC_NAME + ".size", () -> snapshot.invalidTokens().size()).tag("map", INVALID_TOKENS_KEY).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", () -> snapshot.invalidUsers().size()).tag("map", INVALID_USERS_KEY).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".size", () -> snapshot.invalidScopes().size()).tag("map", INVALID_SCOPES_KEY).register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".lag", this::getLagMs).baseUnit("milliseconds").register(meterRegistry);
+    }
+
+    /**
+     * Verify if the token is invalidated by any rule: the token itself, the user or any of the scopes.
+     *
+     * @param hashedToken   hash of the token
+     * @param hashedUserId  hash of the userId
+     * @param hashedScopes  hashes of all scopes of the token
+     * @param tokenCreation time of the token creation (in milliseconds)
+     * @return true if the token is invalidated, otherwise false
+     * @throws CachingServiceClientException if the index is too old and it cannot be refreshed
+     */
+    public boolean isInvalidated(String hashedToken, String hashedUserId, Collection<String> hashedScopes, long tokenCreation) {
+        Snapshot current = getFreshSnapshot();
+
+        if (current.invalidTokens().contains(hashedToken)) {
+            return true;
+        }
+        if (isInvalidatedByRule(current.invalidUsers(), hashedUserId, tokenCreation)) {
+            return true;
+        }
+        for (String hashedScope : hashedScopes) {
+            if (isInvalidatedByRule(current.invalidScopes(), hashedScope, tokenCreation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInvalidatedByRule(Map<String, Long> rules, String ruleId, long tokenCreation) {
+        Long timestamp = rules.get(ruleId);
+        return timestamp != null && tokenCreation <= timestamp;
+    }
+
+    /**
+     * Apply a change made by this instance to the index without waiting for the next refresh
+     */
+    synchronized void addInvalidToken(String hashedToken) {
+        recordLocalChange(new LocalChange(INVALID_TOKENS_KEY, hashedToken, 0));
+        Set<String> invalidTokens = new HashSet<>(snapshot.invalidTokens());
+        invalidTokens.add(hashedToken);
+        snapshot = new Snapshot(invalidTokens, snapshot.invalidUsers(), snapshot.invalidScopes(), snapshot.refreshedAt());
+    }
+
+    synchronized void addUserRule(String hashedUserId, long timestamp) {
+        recordLocalChange(new LocalChange(INVALID_USERS_KEY, hashedUserId, timestamp));
+        Map<String, Long> invalidUsers = new HashMap<>(snapshot.invalidUsers());
+        invalidUsers.merge(hashedUserId, timestamp, Math::max);
+        snapshot = new Snapshot(snapshot.invalidTokens(), invalidUsers, snapshot.invalidScopes(), snapshot.refreshedAt());
+    }
+
+    synchronized void addScopeRule(String hashedServiceId, long timestamp) {
+        recordLocalChange(new LocalChange(INVALID_SCOPES_KEY, hashedServiceId, timestamp));
+        Map<String, Long> invalidScopes = new HashMap<>(snapshot.invalidScopes());
+        invalidScopes.merge(hashedServiceId, timestamp, Math::max);
+        snapshot = new Snapshot(snapshot.invalidTokens(), snapshot.invalidUsers(), invalidScopes, snapshot.refreshedAt());
+    }
+
+    private void recordLocalChange(LocalChange localChange) {
+        if (refreshing != null && !refreshing.isDone()) {
+            localChanges.add(localChange);
+        }
+    }
+
+    private Snapshot getFreshSnapshot() {
+        startRefreshing();
+
+        Snapshot current = snapshot;
+        if (!isStale(current, maxStalenessMs)) {
+            return current;
+        }
+
+        CompletableFuture<Snapshot> refresh = refreshAsync();
+        if (staleGraceMs > 0 && !isStale(current, maxStalenessMs + staleGraceMs)) {
+            log.debug("The stale index of invalidated tokens is used, it is being refreshed");
+            return current;
+        }
+        return AsyncCachingServiceClient.await(refresh);
+    }
+
+    private boolean isStale(Snapshot current, long maxAgeMs) {
+        return current.refreshedAt() == 0 || System.currentTimeMillis() - current.refreshedAt() > maxAgeMs;
+    }
+
+    private void startRefreshing() {
+        if ((refreshIntervalMs > 0) && started.compareAndSet(false, true)) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "PAT revocation index refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.debug("Cannot refresh the index of invalidated tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Load the changes of rules from the Caching Service and apply them to the index
+     *
+     * @return the new snapshot
+     * @throws CachingServiceClientException when the Caching Service is not available
+     */
+    Snapshot refresh() {
+        return AsyncCachingServiceClient.await(refreshAsync());
+    }
+
+    /**
+     * Start the refresh if there is no running one. The maps are read one after another to occupy only one slot of
+     * the Caching Service client.
+     *
+     * @return the running refresh
+     */
+    synchronized CompletableFuture<Snapshot> refreshAsync() {
+        if (refreshing == null || refreshing.isDone()) {
+            long tokensSince = tokensRevision;
+            long usersSince = usersRevision;
+            long scopesSince = scopesRevision;
+            refreshing = cachingServiceClient.readMapChanges(INVALID_TOKENS_KEY, tokensSince)
+                .thenCompose(tokens -> cachingServiceClient.readMapChanges(INVALID_USERS_KEY, usersSince)
+                    .thenCompose(users -> cachingServiceClient.readMapChanges(INVALID_SCOPES_KEY, scopesSince)
+                        .thenApply(scopes -> update(tokens, users, scopes))));
+        }
+        return refreshing;
+    }
+
+    private synchronized Snapshot update(MapChanges tokens, MapChanges users, MapChanges scopes) {
+        Snapshot previous = snapshot;
+        Set<String> invalidTokens = applyTokenChanges(previous.invalidTokens(), tokens);
+        Map<String, Long> invalidUsers = applyRuleChanges(previous.invalidUsers(), users);
+        Map<String, Long> invalidScopes = applyRuleChanges(previous.invalidScopes(), scopes);
+
+        if (!localChanges.isEmpty()) {
+            invalidTokens = new HashSet<>(invalidTokens);
+            invalidUsers = new HashMap<>(invalidUsers);
+            invalidScopes = new HashMap<>(invalidScopes);
+            for (LocalChange localChange : localChanges) {
+                switch (localChange.mapKey()) {
+                    case INVALID_TOKENS_KEY -> invalidTokens.add(localChange.id());
+                    case INVALID_USERS_KEY -> invalidUsers.merge(localChange.id(), localChange.timestamp(), Math::max);
+                    default -> invalidScopes.merge(localChange.id(), localChange.timestamp(), Math::max);
+                }
+            }
+            localChanges.clear();
+        }
+
+        tokensRevision = tokens.getRevision();
+        usersRevision = users.getRevision();
+        scopesRevision = scopes.getRevision();
+        snapshot = new Snapshot(invalidTokens, invalidUsers, invalidScopes, System.currentTimeMillis());
+        log.debug("Index of invalidated tokens was refreshed: {} tokens, {} users, {} scopes",
+            snapshot.invalidTokens().size(), snapshot.invalidUsers().size(), snapshot.invalidScopes().size());
+        return snapshot;
+    }
+
+    private Set<String> applyTokenChanges(Set<String> known, MapChanges changes) {
+        Map<String, String> updated = changes.getUpdated() == null ? Collections.emptyMap() : changes.getUpdated();
+        Set<String> removed = changes.getRemoved() == null ? Collections.emptySet() : changes.getRemoved();
+        if (!changes.isFull() && updated.isEmpty() && removed.isEmpty()) {
+            return known;
+        }
+
+        Set<String> output = changes.isFull() ? new HashSet<>(updated.size()) : new HashSet<>(known);
+        output.removeAll(removed);
+        updated.forEach((hash, json) -> {
+            // the value was already verified in the previous refresh
+            if (known.contains(hash) || isValidContainer(json)) {
+                output.add(hash);
+            }
+        });
+        return output;
+    }
+
+    private boolean isValidContainer(String json) {
+        try {
+            return objectMapper.readValue(json, AccessTokenContainer.class) != null;
+        } catch (JsonProcessingException e) {
+            log.error("Not able to parse invalidToken json value.", e);
+            return false;
+        }
+    }
+
+    private Map<String, Long> applyRuleChanges(Map<String, Long> known, MapChanges changes) {
+        Map<String, String> updated = changes.getUpdated() == null ? Collections.emptyMap() : changes.getUpdated();
+        Set<String> removed = changes.getRemoved() == null ? Collections.emptySet() : changes.getRemoved();
+        if (!changes.isFull() && updated.isEmpty() && removed.isEmpty()) {
+            return known;
+        }
+
+        Map<String, Long> output = changes.isFull() ? new HashMap<>(updated.size()) : new HashMap<>(known);
+        output.keySet().removeAll(removed);
+        updated.forEach((ruleId, timestamp) -> {
+            try {
+                output.put(ruleId, Long.parseLong(timestamp));
+            } catch (NumberFormatException e) {
+                log.error("Not able to convert timestamp value to number.", e);
+            }
+        });
+        return output;
+    }
+
+    long getLagMs() {
+        long refreshedAt = snapshot.refreshedAt();
+        return refreshedAt == 0 ? 0 : System.currentTimeMillis() - refreshedAt;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    record Snapshot(Set<String> invalidTokens, Map<String, Long> invalidUsers, Map<String, Long> invalidScopes, long refreshedAt) {
+
+        static final Snapshot EMPTY = new Snapshot(Collections.emptySet(), Collections.emptyMap(), Collections.emptyMap(), 0);
+
+    }
+
+    private record LocalChange(String mapKey, String id, long timestamp) {
+    }
+
+}
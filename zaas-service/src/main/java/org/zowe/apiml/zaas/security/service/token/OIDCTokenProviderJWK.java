@@ -18,15 +18,17 @@ import com.nimbusds.jose.jwk.KeyType;
 import com.nimbusds.jose.jwk.KeyUse;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.UnsupportedKeyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.zowe.apiml.message.log.ApimlLogger;
 import org.zowe.apiml.product.logging.annotations.InjectApimlLogger;
@@ -37,19 +39,32 @@ import java.net.URL;
 import java.security.Key;
 import java.security.PublicKey;
 import java.text.ParseException;
+import java.util.Collections;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+/**
+ * Validation of OIDC tokens by the public keys (JWK) of the identity provider.
+ * <p>
+ * The keys are held in an immutable snapshot which is replaced atomically after a successful download, therefore
+ * the validation never sees an empty or partial set during the refresh and a failed refresh keeps the previous keys.
+ * The keys are refreshed periodically (apiml.security.oidc.jwks.refreshInternalHours) and also on demand when a token
+ * with an unknown key ID arrives (ie. the provider rotated the keys). The refresh is single-flight and the download
+ * runs out of any lock. The on-demand refresh is limited to one successful download per
+ * apiml.security.oidc.jwks.minRefreshIntervalSeconds. Parsed public keys are reused
+ * across refreshes while the JWK is not changed.
+ */
 @RequiredArgsConstructor
 @Service
 @Slf4j
 @ConditionalOnExpression("'${apiml.security.oidc.validationType:JWK}' == 'JWK' && '${apiml.security.oidc.enabled:false}' == 'true'")
 public class OIDCTokenProviderJWK implements OIDCProvider {
 
+    static final String METRIC_NAME = "apiml.zaas.oidc.jwk";
+
     private final LocatorAdapterKid keyLocator = new LocatorAdapterKid();
 
     @InjectApimlLogger
@@ -64,47 +79,147 @@ public class OIDCTokenProviderJWK implements OIDCProvider {
     @Value("${apiml.security.oidc.jwks.refreshInternalHours:1}")
     private int jwkRefreshInterval;
 
+    @Value("${apiml.security.oidc.jwks.minRefreshIntervalSeconds:30}")
+    private int minRefreshIntervalSeconds;
+
     @Qualifier("oidcJwtClock")
     private final Clock clock;
 
-    @Getter
-    private final Map<String, PublicKey> publicKeys = new ConcurrentHashMap<>();
-    @Getter
-    private JWKSet jwkSet;
+    private final MeterRegistry meterRegistry;
+
+    private final Object refreshLock = new Object();
+    private volatile KeySnapshot snapshot = KeySnapshot.EMPTY;
+    private long lastFetchNanos;
+    private boolean fetched;
+    private CompletableFuture<KeySnapshot> running;
+
+    private Timer refreshTimer;
+    private Counter unknownKidCounter;
 
     @PostConstruct
     public void afterPropertiesSet() {
+        refreshTimer = Timer.builder(METRIC_NAME + ".refresh").description("Download of JWK set").register(meterRegistry);
+        unknownKidCounter = Counter.builder(METRIC_NAME + ".unknownKid").description("Tokens with a key ID out of the JWK set").register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".keys", this, provider -> provider.snapshot.publicKeys().size()).register(meterRegistry);
+
         this.fetchJWKSet();
-        Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "OIDC JWK Refresh"))
-            .scheduleAtFixedRate(this::fetchJWKSet, jwkRefreshInterval, jwkRefreshInterval, TimeUnit.HOURS);
+        Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "OIDC JWK Refresh");
+            thread.setDaemon(true);
+            return thread;
+        }).scheduleAtFixedRate(this::fetchJWKSet, jwkRefreshInterval, jwkRefreshInterval, TimeUnit.HOURS);
+    }
+
+    public Map<String, PublicKey> getPublicKeys() {
+        return snapshot.publicKeys();
+    }
+
+    public JWKSet getJwkSet() {
+        return snapshot.jwkSet();
     }
 
-    @Retryable
     void fetchJWKSet() {
         if (StringUtils.isBlank(jwksUri)) {
             log.debug("OIDC JWK URI not provided, JWK refresh not performed");
             return;
         }
-        log.debug("Refreshing JWK endpoints {}", jwksUri);
 
+        refresh(null);
+    }
+
+    /**
+     * Download the keys if the last successful download is older than the minimal interval. Concurrent calls are
+     * coalesced, the threads waiting for a running download use its result.
+     *
+     * @param outdated the snapshot which is not sufficient for the caller
+     * @return the current snapshot
+     */
+    KeySnapshot refreshOnDemand(KeySnapshot outdated) {
+        return refresh(outdated);
+    }
+
+    /**
+     * Single-flight refresh of the keys. The download runs out of the lock, so the validation of tokens with known
+     * keys is never blocked, and the new snapshot is swapped in under the lock only if the download succeeded.
+     *
+     * @param outdated the snapshot which is not sufficient for the caller, or null for an unconditional refresh
+     * @return the current snapshot
+     */
+    private KeySnapshot refresh(KeySnapshot outdated) {
+        CompletableFuture<KeySnapshot> pending;
+        synchronized (refreshLock) {
+            if (running != null) {
+                pending = running;
+            } else {
+                if (outdated != null) {
+                    if (snapshot != outdated) {
+                        // another thread has just refreshed the keys
+                        return snapshot;
+                    }
+                    if (fetched && (System.nanoTime() - lastFetchNanos < TimeUnit.SECONDS.toNanos(minRefreshIntervalSeconds))) {
+                        log.debug("JWK refresh skipped, the last one was done less than {} seconds ago", minRefreshIntervalSeconds);
+                        return snapshot;
+                    }
+                }
+                running = new CompletableFuture<>();
+                pending = null;
+            }
+        }
+
+        if (pending != null) {
+            return pending.join();
+        }
+
+        KeySnapshot downloaded = null;
+        try {
+            downloaded = download(snapshot);
+        } finally {
+            CompletableFuture<KeySnapshot> finished;
+            synchronized (refreshLock) {
+                if (downloaded != null) {
+                    snapshot = downloaded;
+                    lastFetchNanos = System.nanoTime();
+                    fetched = true;
+                }
+                finished = running;
+                running = null;
+            }
+            finished.complete(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the new snapshot, or null if the download failed
+     */
+    private KeySnapshot download(KeySnapshot previous) {
+        log.debug("Refreshing JWK endpoints {}", jwksUri);
+        long start = System.nanoTime();
         try {
-            publicKeys.clear();
-            jwkSet = null;
-            jwkSet = JWKSet.load(new URL(jwksUri));
-            publicKeys.putAll(processKeys(jwkSet));
+            JWKSet newJwkSet = JWKSet.load(new URL(jwksUri));
+            return new KeySnapshot(newJwkSet, processKeys(newJwkSet, previous));
         } catch (IOException | ParseException | IllegalStateException e) {
             log.error("Error processing response from URI {} message: {}", jwksUri, e.getMessage());
+            return null;
+        } finally {
+            if (refreshTimer != null) {
+                refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
         }
     }
 
-    private Map<String, PublicKey> processKeys(JWKSet jwkKeys) {
+    private Map<String, PublicKey> processKeys(JWKSet jwkKeys, KeySnapshot previous) {
         return jwkKeys.getKeys().stream()
             .filter(jwkKey -> {
                 KeyUse keyUse = jwkKey.getKeyUse();
                 KeyType keyType = jwkKey.getKeyType();
                 return keyUse != null && keyType != null && "sig".equals(keyUse.getValue()) && "RSA".equals(keyType.getValue());
             })
-            .collect(Collectors.toMap(JWK::getKeyID, jwkKey -> {
+            .collect(Collectors.toUnmodifiableMap(JWK::getKeyID, jwkKey -> {
+                PublicKey known = previous.getKnownKey(jwkKey);
+                if (known != null) {
+                    return known;
+                }
                 try {
                     return jwkKey.toRSAKey().toRSAPublicKey();
                 } catch (JOSEException e) {
@@ -124,8 +239,9 @@ public class OIDCTokenProviderJWK implements OIDCProvider {
     }
 
     Claims getClaims(String token) {
-        if (jwkSet == null || jwkSet.isEmpty()) {
-            fetchJWKSet();
+        KeySnapshot current = snapshot;
+        if (current.jwkSet() == null || current.jwkSet().isEmpty()) {
+            refreshOnDemand(current);
         }
 
         if (StringUtils.isBlank(token)) {
@@ -140,26 +256,63 @@ public class OIDCTokenProviderJWK implements OIDCProvider {
             .getPayload();
     }
 
+    /**
+     * Immutable set of keys. The parsed public keys are stored for signing RSA keys, the other keys are parsed
+     * from the JWK set on use.
+     */
+    record KeySnapshot(JWKSet jwkSet, Map<String, PublicKey> publicKeys) {
+
+        static final KeySnapshot EMPTY = new KeySnapshot(null, Collections.emptyMap());
+
+        boolean contains(String kid) {
+            return (jwkSet != null) && (jwkSet.getKeyByKeyId(kid) != null);
+        }
+
+        PublicKey getKnownKey(JWK jwk) {
+            if (jwkSet == null) {
+                return null;
+            }
+            JWK previous = jwkSet.getKeyByKeyId(jwk.getKeyID());
+            return jwk.equals(previous) ? publicKeys.get(jwk.getKeyID()) : null;
+        }
+
+        Key getKey(String kid) {
+            PublicKey publicKey = publicKeys.get(kid);
+            if (publicKey != null) {
+                return publicKey;
+            }
+            try {
+                return jwkSet.getKeyByKeyId(kid).toRSAKey().toPublicKey();
+            } catch (JOSEException e) {
+                throw new JwtException("Could not validate the token due to either an invalid token or an invalid public key.", e);
+            }
+        }
+
+    }
+
     class LocatorAdapterKid extends LocatorAdapter<Key> {
 
         @Override
         protected Key locate(ProtectedHeader header) {
-            if (jwkSet == null) {
+            KeySnapshot current = snapshot;
+            String kid = header.getKeyId();
+            if (kid != null && !current.contains(kid)) {
+                if (unknownKidCounter != null) {
+                    unknownKidCounter.increment();
+                }
+                current = refreshOnDemand(current);
+            }
+
+            if (current.jwkSet() == null) {
                 throw new JwtException("Could not validate the token due to missing public key.");
             }
-            String kid = header.getKeyId();
             if (kid == null) {
                 throw new UnsupportedKeyException("Token does not provide kid. It uses an unsupported type of signature.");
             }
-            return Optional.ofNullable(jwkSet.getKeyByKeyId(header.getKeyId()))
-                .map(key -> {
-                    try {
-                        return key.toRSAKey().toPublicKey();
-                    } catch (JOSEException e) {
-                        throw new JwtException("Could not validate the token due to either an invalid token or an invalid public key.", e);
-                    }
-                })
-                .orElseThrow(() -> new UnsupportedKeyException("Key with id " + header.getKeyId() + " is null in JWK"));
+            if (!current.contains(kid)) {
+                throw new UnsupportedKeyException("Key with id " + kid + " is null in JWK");
+            }
+            return current.getKey(kid);
         }
 
     }
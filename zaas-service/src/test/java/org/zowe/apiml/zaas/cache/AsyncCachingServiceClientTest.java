@@ -0,0 +1,157 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncCachingServiceClientTest {
+
+    private final CachingServiceClient cachingServiceClient = mock(CachingServiceClient.class);
+    private final AtomicLong now = new AtomicLong(1000);
+    private AsyncCachingServiceClient.CircuitBreaker circuitBreaker;
+    private AsyncCachingServiceClient underTest;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new AsyncCachingServiceClient.CircuitBreaker(2, 100, now::get);
+        underTest = new AsyncCachingServiceClient(cachingServiceClient, Runnable::run, 5000, circuitBreaker);
+    }
+
+    private CachingServiceClientException unavailable() {
+        return new CachingServiceClientException("unavailable", new ResourceAccessException("Connection refused"));
+    }
+
+    @Test
+    void givenResponse_thenCompleteWithIt() {
+        CachingServiceClient.KeyValue kv = new CachingServiceClient.KeyValue("key", "value");
+        when(cachingServiceClient.read("key")).thenReturn(kv);
+
+        assertEquals(kv, AsyncCachingServiceClient.await(underTest.read("key")));
+    }
+
+    @Test
+    void givenFailure_thenAwaitThrowsTheOriginalException() {
+        CachingServiceClientException exception = unavailable();
+        doThrow(exception).when(cachingServiceClient).delete("key");
+        CompletableFuture<Void> future = underTest.delete("key");
+
+        assertSame(exception, assertThrows(CachingServiceClientException.class, () -> AsyncCachingServiceClient.await(future)));
+    }
+
+    @Test
+    void givenSlowCachingService_thenFailAfterTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (AsyncCachingServiceClient client = new AsyncCachingServiceClient(cachingServiceClient, 1, 1, 50, 5, 10_000)) {
+            doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(cachingServiceClient).evictTokens("key");
+            CompletableFuture<Void> future = client.evictTokens("key");
+
+            CachingServiceClientException exception = assertThrows(CachingServiceClientException.class, () -> AsyncCachingServiceClient.await(future));
+            assertTrue(exception.getMessage().contains("did not respond"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void givenFullBulkhead_thenRejectTheCall() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (AsyncCachingServiceClient client = new AsyncCachingServiceClient(cachingServiceClient, 1, 1, 5000, 5, 10_000)) {
+            doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(cachingServiceClient).evictRules("key");
+            client.evictRules("key");
+            client.evictRules("key");
+            CompletableFuture<Void> rejected = client.evictRules("key");
+
+            CachingServiceClientException exception = assertThrows(CachingServiceClientException.class, () -> AsyncCachingServiceClient.await(rejected));
+            assertTrue(exception.getMessage().contains("rejected"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Nested
+    class GivenCircuitBreaker {
+
+        @Test
+        void whenFailuresReachTheThreshold_thenFailImmediately() {
+            when(cachingServiceClient.readAllMaps()).thenThrow(unavailable());
+
+            for (int i = 0; i < 2; i++) {
+                CompletableFuture<?> future = underTest.readAllMaps();
+                assertThrows(CachingServiceClientException.class, () -> AsyncCachingServiceClient.await(future));
+            }
+            assertFalse(underTest.isAvailable());
+
+            CompletableFuture<?> future = underTest.readAllMaps();
+            assertThrows(CachingServiceClientException.class, () -> AsyncCachingServiceClient.await(future));
+            verify(cachingServiceClient, times(2)).readAllMaps();
+        }
+
+        @Test
+        void whenClientErrors_thenCircuitStaysClosed() {
+            when(cachingServiceClient.read("key")).thenThrow(new CachingServiceClientException("not found",
+                HttpClientErrorException.create(HttpStatusCode.valueOf(404), "Not Found", null, null, null)));
+
+            for (int i = 0; i < 3; i++) {
+                CompletableFuture<?> future = underTest.read("key");
+                assertThrows(CachingServiceClientException.class, () -> AsyncCachingServiceClient.await(future));
+            }
+
+            assertTrue(underTest.isAvailable());
+            verify(cachingServiceClient, times(3)).read("key");
+        }
+
+        @Test
+        void whenOpenTimeElapses_thenProbeAndClose() {
+            when(cachingServiceClient.readAllMaps()).thenThrow(unavailable(), unavailable()).thenReturn(Map.of());
+            underTest.readAllMaps();
+            underTest.readAllMaps();
+            assertFalse(underTest.isAvailable());
+
+            now.addAndGet(100);
+            assertTrue(circuitBreaker.tryAcquire());
+            assertFalse(circuitBreaker.tryAcquire());
+            circuitBreaker.release();
+
+            AsyncCachingServiceClient.await(underTest.readAllMaps());
+            assertTrue(underTest.isAvailable());
+        }
+
+        @Test
+        void whenProbeFails_thenOpenAgain() {
+            when(cachingServiceClient.readAllMaps()).thenThrow(unavailable());
+            underTest.readAllMaps();
+            underTest.readAllMaps();
+
+            now.addAndGet(100);
+            underTest.readAllMaps();
+
+            assertFalse(underTest.isAvailable());
+            assertFalse(circuitBreaker.tryAcquire());
+            verify(cachingServiceClient, times(3)).readAllMaps();
+        }
+
+    }
+
+}
@@ -20,13 +20,20 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.models.AccessTokenContainer;
 import org.zowe.apiml.product.gateway.GatewayClient;
 import org.zowe.apiml.product.instance.ServiceAddress;
+import org.zowe.apiml.product.instance.ServiceInstanceUrls;
 
+import java.io.IOException;
+import java.net.ConnectException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -79,6 +86,59 @@ class CachingServiceClientTest {
         }
     }
 
+    @Nested
+    class givenUpsertOperation {
+        @Test
+        void upsertWithoutProblem() {
+            CachingServiceClient.KeyValue kv = new CachingServiceClient.KeyValue("Britney", "Spears");
+            assertDoesNotThrow(() -> underTest.upsert(kv));
+            verify(restTemplate).exchange(urlBase + "/upsert", HttpMethod.PUT, new HttpEntity<>(kv, CachingServiceClient.getDefaultHeaders()), String.class);
+            verify(restTemplate, never()).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class));
+        }
+
+        @Test
+        void upsertWithExceptionFromRestTemplateThrowsDefined() {
+            doThrow(new RestClientException("oops")).when(restTemplate).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+            assertThrows(CachingServiceClientException.class, () -> underTest.upsert(new CachingServiceClient.KeyValue("Britney", "Spears")));
+        }
+    }
+
+    @Nested
+    class givenBatchOperations {
+
+        @Test
+        void readAllInSingleRequest() {
+            var kv = new CachingServiceClient.KeyValue("a", "1");
+            ResponseEntity<Map<String, CachingServiceClient.KeyValue>> responseEntity = ResponseEntity.ok(Map.of("a", kv));
+            doReturn(responseEntity).when(restTemplate).exchange(eq(urlBase + "?key=a&key=b"), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+
+            assertEquals(Map.of("a", kv), underTest.readAll(List.of("a", "b")));
+        }
+
+        @Test
+        void readAllWithoutKeysDoesNotCall() {
+            assertTrue(underTest.readAll(List.of()).isEmpty());
+            verifyNoInteractions(restTemplate);
+        }
+
+        @Test
+        void upsertAllReturnsResultOfEachItem() {
+            var kvs = List.of(new CachingServiceClient.KeyValue("a", "1"), new CachingServiceClient.KeyValue("b", "2"));
+            var results = List.of(new CachingServiceClient.ItemResult("a", 201, null), new CachingServiceClient.ItemResult("b", 204, null));
+            doReturn(ResponseEntity.ok(results)).when(restTemplate).exchange(eq(urlBase + "/batch"), eq(HttpMethod.PUT), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+
+            assertEquals(results, underTest.upsertAll(kvs));
+        }
+
+        @Test
+        void upsertAllWithExceptionFromRestTemplateThrowsDefined() {
+            var kvs = List.of(new CachingServiceClient.KeyValue("a", "1"));
+            doThrow(new RestClientException("oops")).when(restTemplate).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+            assertThrows(CachingServiceClientException.class, () -> underTest.upsertAll(kvs));
+        }
+
+    }
+
     @Nested
     class givenReadOperation {
 
@@ -227,4 +287,83 @@ class CachingServiceClientTest {
 
     }
 
+    @Nested
+    class GivenCachingServiceInstances {
+
+        private static final String INSTANCE1 = "https://cs1:10016";
+        private static final String INSTANCE2 = "https://cs2:10016";
+        private static final String PATH = "/cachingservice/api/v1/cache";
+
+        private final ServiceInstanceUrls instances = mock(ServiceInstanceUrls.class);
+        private final CachingServiceClient.KeyValue kv = new CachingServiceClient.KeyValue("key", "value");
+
+        @BeforeEach
+        void setUp() {
+            ServiceAddress gatewayAddress = ServiceAddress.builder().scheme("https").hostname("localhost:10010").build();
+            underTest = new CachingServiceClient(restTemplate, new GatewayClient(gatewayAddress), instances);
+            when(instances.getUrls()).thenReturn(List.of(INSTANCE1, INSTANCE2));
+        }
+
+        private ResponseEntity<CachingServiceClient.KeyValue> read(String url) {
+            return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<CachingServiceClient.KeyValue>(null, CachingServiceClient.getDefaultHeaders()), CachingServiceClient.KeyValue.class);
+        }
+
+        @Test
+        void whenInstanceIsAvailable_thenCallItDirectly() {
+            when(read(INSTANCE1 + PATH + "/key")).thenReturn(new ResponseEntity<>(kv, HttpStatus.OK));
+
+            assertEquals(kv, underTest.read("key"));
+            verify(instances).succeeded(INSTANCE1);
+            verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(CachingServiceClient.KeyValue.class));
+        }
+
+        @Test
+        void whenInstanceIsNotReachable_thenTryTheNextOne() {
+            when(read(INSTANCE1 + PATH + "/key")).thenThrow(new ResourceAccessException("timeout", new IOException("read timed out")));
+            when(read(INSTANCE2 + PATH + "/key")).thenReturn(new ResponseEntity<>(kv, HttpStatus.OK));
+
+            assertEquals(kv, underTest.read("key"));
+            verify(instances).failed(INSTANCE1);
+            verify(instances).succeeded(INSTANCE2);
+        }
+
+        @Test
+        void whenNoInstanceIsReachable_thenCallViaGateway() {
+            when(read(INSTANCE1 + PATH + "/key")).thenThrow(new ResourceAccessException("refused", new ConnectException("refused")));
+            when(read(INSTANCE2 + PATH + "/key")).thenThrow(new ResourceAccessException("refused", new ConnectException("refused")));
+            when(read(urlBase + "/key")).thenReturn(new ResponseEntity<>(kv, HttpStatus.OK));
+
+            assertEquals(kv, underTest.read("key"));
+            verify(instances).failed(INSTANCE1);
+            verify(instances).failed(INSTANCE2);
+        }
+
+        @Test
+        void whenInstanceResponds_thenDoNotTryAnotherOne() {
+            when(read(INSTANCE1 + PATH + "/key")).thenThrow(HttpClientErrorException.create(HttpStatusCode.valueOf(404), "Not Found", null, null, null));
+
+            assertThrows(CachingServiceClientException.class, () -> underTest.read("key"));
+            verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(CachingServiceClient.KeyValue.class));
+        }
+
+        @Test
+        void whenCreateCannotConnect_thenTryTheNextOne() {
+            when(restTemplate.exchange(eq(INSTANCE1 + PATH), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("refused", new ConnectException("refused")));
+
+            assertDoesNotThrow(() -> underTest.create(kv));
+            verify(restTemplate).exchange(INSTANCE2 + PATH, HttpMethod.POST, new HttpEntity<>(kv, CachingServiceClient.getDefaultHeaders()), String.class);
+        }
+
+        @Test
+        void whenCreateFailsOnEstablishedConnection_thenDoNotRepeatIt() {
+            when(restTemplate.exchange(eq(INSTANCE1 + PATH), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("timeout", new IOException("read timed out")));
+
+            assertThrows(CachingServiceClientException.class, () -> underTest.create(kv));
+            verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), eq(String.class));
+        }
+
+    }
+
 }
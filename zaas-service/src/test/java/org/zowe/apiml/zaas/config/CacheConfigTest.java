@@ -10,6 +10,9 @@
 
 package org.zowe.apiml.zaas.config;
 
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.util.Timeout;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,8 +25,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.product.gateway.GatewayClient;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 
 
 class CacheConfigTest {
@@ -33,6 +38,7 @@ class CacheConfigTest {
     @ActiveProfiles("test")
     @MockBean(GatewayClient.class)
     @MockBean(name = "restTemplateWithKeystore", value = RestTemplate.class)
+    @MockBean(name = "secureHttpClientWithKeystore", value = CloseableHttpClient.class)
     class EnabledCache {
 
         @Autowired
@@ -53,6 +59,7 @@ class CacheConfigTest {
     @ActiveProfiles("test")
     @MockBean(GatewayClient.class)
     @MockBean(name = "restTemplateWithKeystore", value = RestTemplate.class)
+    @MockBean(name = "secureHttpClientWithKeystore", value = CloseableHttpClient.class)
     class DisabledCache {
 
         @Autowired
@@ -66,4 +73,19 @@ class CacheConfigTest {
 
     }
 
+    @Nested
+    class GivenAsyncClient {
+
+        @Test
+        void whenRequestIsCreated_thenTimeoutsAreLimited() {
+            CacheConfig.TimeoutRequestFactory factory = new CacheConfig.TimeoutRequestFactory(mock(CloseableHttpClient.class), 500);
+
+            RequestConfig requestConfig = factory.mergeRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofMinutes(3)).build());
+
+            assertEquals(Timeout.ofMilliseconds(500), requestConfig.getResponseTimeout());
+            assertEquals(Timeout.ofMilliseconds(500), requestConfig.getConnectionRequestTimeout());
+        }
+
+    }
+
 }
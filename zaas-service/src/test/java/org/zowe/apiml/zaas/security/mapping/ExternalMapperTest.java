@@ -10,6 +10,7 @@
 
 package org.zowe.apiml.zaas.security.mapping;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.core5.http.HttpEntity;
@@ -22,6 +23,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.zowe.apiml.message.log.ApimlLogger;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
 import org.zowe.apiml.util.HttpClientMockHelper;
 import org.zowe.apiml.zaas.security.mapping.model.MapperResponse;
@@ -29,16 +31,27 @@ import org.zowe.apiml.zaas.security.service.TokenCreationService;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ExternalMapperTest {
 
     class TestExternalMapper extends ExternalMapper {
         public TestExternalMapper(String mapperUrl, String mapperUser, CloseableHttpClient httpClientProxy, TokenCreationService tokenCreationService) {
-            super(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, authConfigurationProperties);
+            this(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, IdentityMappingCache.disabled());
+        }
+
+        public TestExternalMapper(String mapperUrl, String mapperUser, CloseableHttpClient httpClientProxy, TokenCreationService tokenCreationService, IdentityMappingCache mappingCache) {
+            super(mapperUrl, mapperUser, httpClientProxy, tokenCreationService, authConfigurationProperties, mappingCache);
         }
     }
 
@@ -198,5 +211,112 @@ class ExternalMapperTest {
             verify(tokenCreationService, times(0)).createJwtTokenWithoutCredentials(anyString());
         }
     }
-}
 
+    @Nested
+    class GivenMapperToken {
+
+        private String jwt(long exp) {
+            String payload = "{\"sub\":\"mapper_user\",\"exp\":" + exp + "}";
+            return "eyJhbGciOiJub25lIn0." + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+        }
+
+        @Test
+        void whenTokenIsValid_thenReuseIt() {
+            String token = jwt(Instant.now().plus(Duration.ofHours(1)).getEpochSecond());
+            when(tokenCreationService.createJwtTokenWithoutCredentials("mapper_user")).thenReturn(token);
+
+            assertEquals(token, mapper.getMapperToken());
+            assertEquals(token, mapper.getMapperToken());
+            verify(tokenCreationService, times(1)).createJwtTokenWithoutCredentials("mapper_user");
+        }
+
+        @Test
+        void whenTokenIsExpiring_thenCreateNewOne() {
+            String token = jwt(Instant.now().plus(Duration.ofSeconds(10)).getEpochSecond());
+            when(tokenCreationService.createJwtTokenWithoutCredentials("mapper_user")).thenReturn(token);
+
+            mapper.getMapperToken();
+            mapper.getMapperToken();
+            verify(tokenCreationService, times(2)).createJwtTokenWithoutCredentials("mapper_user");
+        }
+
+        @Test
+        void whenTokenIsNotJwt_thenCreateNewOneEachTime() {
+            mapper.getMapperToken();
+            mapper.getMapperToken();
+            verify(tokenCreationService, times(2)).createJwtTokenWithoutCredentials("mapper_user");
+        }
+
+        @Test
+        void whenMapperRejectsToken_thenCreateNewOne() {
+            String token = jwt(Instant.now().plus(Duration.ofHours(1)).getEpochSecond());
+            when(tokenCreationService.createJwtTokenWithoutCredentials("mapper_user")).thenReturn(token);
+            when(httpResponse.getCode()).thenReturn(HttpStatus.SC_UNAUTHORIZED);
+            ApimlLogger apimlLogger = mock(ApimlLogger.class);
+            mapper.apimlLog = apimlLogger;
+
+            assertNull(mapper.callExternalMapper(NullEntity.INSTANCE));
+            mapper.getMapperToken();
+            verify(tokenCreationService, times(2)).createJwtTokenWithoutCredentials("mapper_user");
+            verify(apimlLogger).log(eq("org.zowe.apiml.zaas.security.unexpectedMappingResponse"), eq(HttpStatus.SC_UNAUTHORIZED), any());
+        }
+
+    }
+
+    @Nested
+    class GivenMappingCache {
+
+        @Test
+        void whenSameIdentityIsMapped_thenCallMapperOnce() {
+            AtomicInteger calls = new AtomicInteger();
+            IdentityMappingCache mappingCache = new IdentityMappingCache(new SimpleMeterRegistry(), 100, 300, 30, 0);
+            mapper = new TestExternalMapper("http://localhost/test", "mapper_user", closeableHttpClient, tokenCreationService, mappingCache) {
+                @Override
+                MapperResponse callExternalMapper(HttpEntity payload) {
+                    calls.incrementAndGet();
+                    return new MapperResponse("ZOSUSER", 0, 0, 0, 0);
+                }
+            };
+
+            byte[] identity = "identity".getBytes(StandardCharsets.UTF_8);
+            assertEquals("ZOSUSER", mapper.callExternalMapper(identity, NullEntity.INSTANCE, r -> true).getUserId());
+            assertEquals("ZOSUSER", mapper.callExternalMapper(identity, NullEntity.INSTANCE, r -> true).getUserId());
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void whenMappingIsNotFound_thenCacheTheResult() {
+            AtomicInteger calls = new AtomicInteger();
+            mapper = mapperWithResponse(calls, new MapperResponse("", 8, 8, 8, 48));
+
+            byte[] identity = "identity".getBytes(StandardCharsets.UTF_8);
+            mapper.callExternalMapper(identity, NullEntity.INSTANCE, MapperResponse::isOIDCResultValid);
+            mapper.callExternalMapper(identity, NullEntity.INSTANCE, MapperResponse::isOIDCResultValid);
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void whenMapperReturnsError_thenDoNotCacheIt() {
+            AtomicInteger calls = new AtomicInteger();
+            mapper = mapperWithResponse(calls, new MapperResponse("", 8, 8, 8, 20));
+
+            byte[] identity = "identity".getBytes(StandardCharsets.UTF_8);
+            assertEquals(20, mapper.callExternalMapper(identity, NullEntity.INSTANCE, MapperResponse::isOIDCResultValid).getRacfRs());
+            mapper.callExternalMapper(identity, NullEntity.INSTANCE, MapperResponse::isOIDCResultValid);
+            assertEquals(2, calls.get());
+        }
+
+        private TestExternalMapper mapperWithResponse(AtomicInteger calls, MapperResponse response) {
+            IdentityMappingCache mappingCache = new IdentityMappingCache(new SimpleMeterRegistry(), 100, 300, 30, 0);
+            return new TestExternalMapper("http://localhost/test", "mapper_user", closeableHttpClient, tokenCreationService, mappingCache) {
+                @Override
+                MapperResponse callExternalMapper(HttpEntity payload) {
+                    calls.incrementAndGet();
+                    return response;
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.mapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityMappingCacheTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private String map(String userId) {
+        calls.incrementAndGet();
+        return userId;
+    }
+
+    private static IdentityMappingCache.Outcome outcome(String userId) {
+        if (userId.startsWith("ERROR")) {
+            return IdentityMappingCache.Outcome.FAILED;
+        }
+        return userId.isEmpty() ? IdentityMappingCache.Outcome.NOT_MAPPED : IdentityMappingCache.Outcome.MAPPED;
+    }
+
+    @Nested
+    class GivenEnabledCache {
+
+        private SimpleMeterRegistry meterRegistry;
+        private IdentityMappingCache cache;
+
+        @BeforeEach
+        void setUp() {
+            meterRegistry = new SimpleMeterRegistry();
+            cache = new IdentityMappingCache(meterRegistry, 100, 300, 30, 0);
+        }
+
+        @Test
+        void whenMappedRepeatedly_thenCallMapperOnce() {
+            assertEquals("USER", cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome));
+            assertEquals("USER", cache.get("ns", "identity", () -> map("OTHER"), IdentityMappingCacheTest::outcome));
+
+            assertEquals(1, calls.get());
+            assertEquals(1, meterRegistry.get(IdentityMappingCache.METRIC_NAME + ".hits").gauge().value());
+        }
+
+        @Test
+        void whenDifferentNamespace_thenCallMapperAgain() {
+            cache.get("ns1", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome);
+            assertEquals("OTHER", cache.get("ns2", "identity", () -> map("OTHER"), IdentityMappingCacheTest::outcome));
+
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenNotMapped_thenCacheNegativeResult() {
+            assertEquals("", cache.get("ns", "identity", () -> map(""), IdentityMappingCacheTest::outcome));
+            assertEquals("", cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome));
+
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        void whenMapperFails_thenDoNotCache() {
+            assertNull(cache.get("ns", "identity", () -> map(null), IdentityMappingCacheTest::outcome));
+            assertEquals("USER", cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome));
+
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenMapperReturnsError_thenDoNotCache() {
+            assertEquals("ERROR", cache.get("ns", "identity", () -> map("ERROR"), IdentityMappingCacheTest::outcome));
+            assertEquals("USER", cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome));
+
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenInvalidated_thenCallMapperAgain() {
+            cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome);
+            cache.invalidateAll();
+            cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome);
+
+            assertEquals(2, calls.get());
+        }
+
+        @Test
+        void whenConcurrentLookups_thenCallMapperOnce() throws Exception {
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return cache.get("ns", "identity", () -> {
+                            try {
+                                Thread.sleep(50);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return map("USER");
+                        }, IdentityMappingCacheTest::outcome);
+                    }));
+                }
+                start.countDown();
+
+                for (Future<String> result : results) {
+                    assertEquals("USER", result.get(5, TimeUnit.SECONDS));
+                }
+                assertEquals(1, calls.get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+    }
+
+    @Nested
+    class GivenDisabledCache {
+
+        @Test
+        void whenMappedRepeatedly_thenCallMapperEachTime() {
+            IdentityMappingCache cache = IdentityMappingCache.disabled();
+
+            cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome);
+            cache.get("ns", "identity", () -> map("USER"), IdentityMappingCacheTest::outcome);
+
+            assertEquals(2, calls.get());
+        }
+
+    }
+
+}
@@ -24,7 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 class NativeMapperTest {
 
     public static final String MF_USER = "mf_user";
-    private static final NativeMapper nativeMapper = new NativeMapper();
+    private static final NativeMapper nativeMapper = new NativeMapper(IdentityMappingCache.disabled());
 
     static UserMapper mockUserMapper = new MockUserMapper();
 
@@ -52,6 +52,26 @@ class NativeMapperTest {
         }
     }
 
+    @Nested
+    class GivenResponseOfNativeCall {
+
+        @Test
+        void whenUserIsMapped_thenCacheAsMapped() {
+            assertEquals(IdentityMappingCache.Outcome.MAPPED, NativeMapper.outcome(0, MF_USER));
+        }
+
+        @Test
+        void whenNoUserIsMapped_thenCacheAsNotMapped() {
+            assertEquals(IdentityMappingCache.Outcome.NOT_MAPPED, NativeMapper.outcome(0, ""));
+        }
+
+        @Test
+        void whenCallFails_thenDoNotCache() {
+            assertEquals(IdentityMappingCache.Outcome.FAILED, NativeMapper.outcome(8, ""));
+        }
+
+    }
+
     /**
      * Extend the UserMapper class to overcome the issue of UnsatisfiedLinkError exception while mocking native methods in UserMapper class.
      */
@@ -88,7 +88,7 @@ class OIDCExternalMapperTest {
     void setup() {
         authSource = new OIDCAuthSource("OIDC_access_token");
         authSource.setDistributedId("distributed_ID");
-        oidcExternalMapper = new OIDCExternalMapper("https://domain.com/mapper", "mapper_user", httpClient, tokenCreationService, authConfigurationProperties);
+        oidcExternalMapper = new OIDCExternalMapper("https://domain.com/mapper", "mapper_user", httpClient, tokenCreationService, authConfigurationProperties, IdentityMappingCache.disabled());
         oidcExternalMapper.registry = "test_registry";
 
         responseEntity = new BasicHttpEntity(IOUtils.toInputStream(SUCCESS_MAPPER_RESPONSE, StandardCharsets.UTF_8), ContentType.APPLICATION_JSON);
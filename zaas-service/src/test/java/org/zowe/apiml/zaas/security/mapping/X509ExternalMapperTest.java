@@ -40,7 +40,7 @@ class X509ExternalMapperTest {
         x509Certificate = mock(X509Certificate.class);
         when(x509Certificate.getEncoded()).thenReturn(new byte[2]);
         x509AuthSource = new X509AuthSource(x509Certificate);
-        x509ExternalMapper = spy(new X509ExternalMapper("https://domain.com/mapper", "mapper_user", mock(CloseableHttpClient.class), mock(TokenCreationService.class), mock(AuthConfigurationProperties.class)));
+        x509ExternalMapper = spy(new X509ExternalMapper("https://domain.com/mapper", "mapper_user", mock(CloseableHttpClient.class), mock(TokenCreationService.class), mock(AuthConfigurationProperties.class), IdentityMappingCache.disabled()));
     }
 
     @Nested
@@ -34,6 +34,8 @@ import org.zowe.apiml.util.CacheUtils;
 import org.zowe.apiml.zaas.security.service.AuthenticationService;
 import org.zowe.apiml.zaas.security.service.JwtSecurity;
 import org.zowe.apiml.zaas.security.service.TokenCreationService;
+import org.zowe.apiml.zaas.security.service.VerifiedTokenCache;
+import org.zowe.apiml.zaas.security.service.invalidation.InProcessInvalidationBus;
 import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 
 import java.security.KeyPair;
@@ -100,7 +102,7 @@ class SuccessfulQueryHandlerTest {
             new ArrayList<>());
         AuthenticationService authService = new AuthenticationService(
             applicationContext, authConfigurationProperties, jwtSecurityInitializer, zosmfService,
-            eurekaClient, restTemplate, cacheManager, new CacheUtils()
+            eurekaClient, restTemplate, cacheManager, new CacheUtils(), VerifiedTokenCache.disabled(), new InProcessInvalidationBus()
         );
         when(jwtSecurityInitializer.getSignatureAlgorithm()).thenReturn(algorithm);
         when(jwtSecurityInitializer.getJwtSecret()).thenReturn(privateKey);
@@ -10,7 +10,6 @@
 
 package org.zowe.apiml.zaas.security.service;
 
-import com.netflix.appinfo.ApplicationInfoManager;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.EurekaClient;
 import com.netflix.discovery.shared.Application;
@@ -18,12 +17,14 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.impl.DefaultClaims;
 import io.jsonwebtoken.security.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.Cookie;
 import org.apache.commons.lang.time.DateUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -40,7 +41,6 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 import org.zowe.apiml.constants.ApimlConstants;
-import org.zowe.apiml.product.constants.CoreService;
 import org.zowe.apiml.product.gateway.GatewayClient;
 import org.zowe.apiml.security.SecurityUtils;
 import org.zowe.apiml.security.common.config.AuthConfigurationProperties;
@@ -51,6 +51,8 @@ import org.zowe.apiml.security.common.token.TokenNotValidException;
 import org.zowe.apiml.util.CacheUtils;
 import org.zowe.apiml.util.EurekaUtils;
 import org.zowe.apiml.zaas.config.CacheConfig;
+import org.zowe.apiml.zaas.security.service.invalidation.InvalidationBus;
+import org.zowe.apiml.zaas.security.service.invalidation.InvalidationEvent;
 import org.zowe.apiml.zaas.security.service.schema.source.AuthSource;
 import org.zowe.apiml.zaas.security.service.zosmf.ZosmfService;
 
@@ -97,6 +99,8 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
     private CacheUtils cacheUtils;
     @Mock
     private CacheManager cacheManager;
+    @Mock
+    private InvalidationBus invalidationBus;
 
 
     static {
@@ -115,7 +119,7 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
 
         authService = new AuthenticationService(
             applicationContext, authConfigurationProperties, jwtSecurityInitializer,
-            zosmfService, eurekaClient, restTemplate, cacheManager, cacheUtils
+            zosmfService, eurekaClient, restTemplate, cacheManager, cacheUtils, new VerifiedTokenCache(new SimpleMeterRegistry(), 100, 300), invalidationBus
         );
         scopes = new HashSet<>();
         scopes.add("Service1");
@@ -406,9 +410,9 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
         public static final String LTPA_TOKEN = "zosmfLtpaToken";
 
         @Test
-        void givenNoInstancesAvailable_thenReturnFalse() {
-            when(eurekaClient.getApplication(CoreService.ZAAS.getServiceId())).thenReturn(null);
-            assertFalse(authService.invalidateJwtToken(JWT_TOKEN, true));
+        void givenInvalidToken_whenDistribute_thenDoNotPublish() {
+            assertThrows(TokenNotValidException.class, () -> authService.invalidateJwtToken(JWT_TOKEN, true));
+            verify(invalidationBus, never()).publish(any());
         }
 
         @Test
@@ -429,28 +433,60 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
 
         @Test
         void givenTokenWasAlreadyInvalidateOnAnotherInstance_thenReturnInvalidatedTrue() {
-            Application application = mock(Application.class);
-            ApplicationInfoManager applicationInfoManager = mock(ApplicationInfoManager.class);
-            InstanceInfo instanceInfo = mock(InstanceInfo.class);
-            InstanceInfo instanceInfo2 = mock(InstanceInfo.class);
-            when(eurekaClient.getApplication(CoreService.ZAAS.getServiceId())).thenReturn(application);
-            when(eurekaClient.getApplicationInfoManager()).thenReturn(applicationInfoManager);
-            when(applicationInfoManager.getInfo()).thenReturn(instanceInfo);
-            when(instanceInfo.getInstanceId()).thenReturn("instanceId");
-            when(application.getInstances()).thenReturn(Collections.singletonList(instanceInfo2));
-            when(instanceInfo2.getInstanceId()).thenReturn("insncId2");
-            when(instanceInfo2.getSecurePort()).thenReturn(100);
-            when(instanceInfo2.getHostName()).thenReturn("localhost");
-
             stubJWTSecurityForSign();
             authConfigurationProperties.getTokenProperties().setIssuer(ZOSMF);
             String token = authService.createJwtToken("user", DOMAIN, null);
-            doNothing().when(restTemplate).delete("http://localhost:0/zaas/api/v1/auth/invalidate/" + token);
             Mockito.doThrow(new BadCredentialsException("Invalid Credentials")).when(zosmfService).invalidate(ZosmfService.TokenType.JWT, token);
+            when(invalidationBus.publish(any())).thenReturn(true);
 
             assertTrue(authService.invalidateJwtToken(token, true));
         }
 
+        @Test
+        void whenDistribute_thenPublishEventWithExpiration() {
+            stubJWTSecurityForSign();
+            String token = authService.createJwtToken("user", DOMAIN, LTPA_TOKEN);
+            long expiration = authService.parseJwtToken(token).getExpiration().getTime();
+            when(invalidationBus.publish(any())).thenReturn(true);
+
+            assertTrue(authService.invalidateJwtToken(token, true));
+            verify(invalidationBus).publish(new InvalidationEvent(token, expiration));
+            verify(eurekaClient, never()).getApplication(any());
+            verifyNoInteractions(restTemplate);
+        }
+
+        @Test
+        void givenDistributionFailed_thenInvalidateAnyway() {
+            stubJWTSecurityForSign();
+            String token = authService.createJwtToken("user", DOMAIN, LTPA_TOKEN);
+            when(invalidationBus.publish(any())).thenReturn(false);
+
+            assertTrue(authService.invalidateJwtToken(token, true));
+            verify(zosmfService).invalidate(ZosmfService.TokenType.LTPA, LTPA_TOKEN);
+        }
+
+        @Test
+        void givenDistributionThrows_thenInvalidateAnyway() {
+            stubJWTSecurityForSign();
+            String token = authService.createJwtToken("user", DOMAIN, LTPA_TOKEN);
+            when(invalidationBus.publish(any())).thenThrow(new IllegalStateException("not available"));
+
+            assertTrue(authService.invalidateJwtToken(token, true));
+            verify(zosmfService).invalidate(ZosmfService.TokenType.LTPA, LTPA_TOKEN);
+        }
+
+        @Test
+        void whenInvalidatedOnAnotherInstance_thenInvalidateOnlyLocally() {
+            ArgumentCaptor<Consumer<InvalidationEvent>> listener = ArgumentCaptor.captor();
+            when(applicationContext.getBean(AuthenticationService.class)).thenReturn(authService);
+            authService.afterPropertiesSet();
+            verify(invalidationBus).subscribe(listener.capture());
+
+            listener.getValue().accept(new InvalidationEvent("token", Long.MAX_VALUE));
+
+            verifyNoInteractions(zosmfService);
+        }
+
         @Test
         void invalidateZosmfJwtToken() {
             stubJWTSecurityForSign();
@@ -537,8 +573,8 @@ public class AuthenticationServiceTest { //NOSONAR, needs to be public
 
     @Nested
     @ExtendWith(SpringExtension.class)
-    @ContextConfiguration(classes = { CacheConfig.class, AuthenticationService.class, AuthConfigurationProperties.class })
-    @MockBean({ JwtSecurity.class, ZosmfService.class, EurekaClient.class, GatewayClient.class })
+    @ContextConfiguration(classes = { CacheConfig.class, AuthenticationService.class, AuthConfigurationProperties.class, VerifiedTokenCache.class, SimpleMeterRegistry.class })
+    @MockBean({ JwtSecurity.class, ZosmfService.class, EurekaClient.class, GatewayClient.class, InvalidationBus.class })
     @MockBean(name = "restTemplateWithKeystore", value = RestTemplate.class)
     class GivenCacheJWTTest {
 
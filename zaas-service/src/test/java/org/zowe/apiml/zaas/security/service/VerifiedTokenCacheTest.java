@@ -0,0 +1,128 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.security.SecurityUtils;
+
+import java.security.KeyPair;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final KeyPair KEY_PAIR = SecurityUtils.generateKeyPair("RSA", 2048);
+    private static final KeyPair OTHER_KEY_PAIR = SecurityUtils.generateKeyPair("RSA", 2048);
+
+    private static String createToken(KeyPair keyPair, String user, long expiration) {
+        return Jwts.builder()
+            .subject(user)
+            .expiration(new Date(expiration))
+            .signWith(keyPair.getPrivate(), Jwts.SIG.RS256)
+            .compact();
+    }
+
+    private static String createToken(String user) {
+        return createToken(KEY_PAIR, user, System.currentTimeMillis() + 60_000);
+    }
+
+    private static String tamper(String token) {
+        int lastDot = token.lastIndexOf('.');
+        return token.substring(0, lastDot + 1) + new StringBuilder(token.substring(lastDot + 1)).reverse();
+    }
+
+    @Nested
+    class GivenEnabledCache {
+
+        private SimpleMeterRegistry meterRegistry;
+        private VerifiedTokenCache cache;
+
+        @BeforeEach
+        void setUp() {
+            meterRegistry = new SimpleMeterRegistry();
+            cache = new VerifiedTokenCache(meterRegistry, 100, 300);
+        }
+
+        @Test
+        void whenVerifiedRepeatedly_thenReturnCachedClaims() {
+            String token = createToken("user");
+
+            Claims claims = cache.getVerifiedClaims(token, KEY_PAIR.getPublic());
+            assertEquals("user", claims.getSubject());
+            assertSame(claims, cache.getVerifiedClaims(token, KEY_PAIR.getPublic()));
+            assertEquals(1, meterRegistry.get(VerifiedTokenCache.METRIC_NAME + ".hits").gauge().value());
+        }
+
+        @Test
+        void whenSignatureIsInvalid_thenThrowEachTime() {
+            String token = tamper(createToken("user"));
+
+            assertThrows(JwtException.class, () -> cache.getVerifiedClaims(token, KEY_PAIR.getPublic()));
+            assertThrows(JwtException.class, () -> cache.getVerifiedClaims(token, KEY_PAIR.getPublic()));
+        }
+
+        @Test
+        void whenTokenIsExpired_thenThrow() {
+            String token = createToken(KEY_PAIR, "user", System.currentTimeMillis() - 1000);
+
+            assertThrows(ExpiredJwtException.class, () -> cache.getVerifiedClaims(token, KEY_PAIR.getPublic()));
+        }
+
+        @Test
+        void whenTokenExpiresAfterVerification_thenThrow() throws InterruptedException {
+            String token = createToken(KEY_PAIR, "user", System.currentTimeMillis() + 1000);
+            cache.getVerifiedClaims(token, KEY_PAIR.getPublic());
+
+            Thread.sleep(1100);
+
+            assertThrows(ExpiredJwtException.class, () -> cache.getVerifiedClaims(token, KEY_PAIR.getPublic()));
+        }
+
+        @Test
+        void whenPublicKeyIsChanged_thenVerifyAgain() {
+            String token = createToken("user");
+            cache.getVerifiedClaims(token, KEY_PAIR.getPublic());
+
+            assertThrows(JwtException.class, () -> cache.getVerifiedClaims(token, OTHER_KEY_PAIR.getPublic()));
+        }
+
+        @Test
+        void whenDifferentTokens_thenReturnTheirClaims() {
+            assertEquals("user1", cache.getVerifiedClaims(createToken("user1"), KEY_PAIR.getPublic()).getSubject());
+            assertEquals("user2", cache.getVerifiedClaims(createToken("user2"), KEY_PAIR.getPublic()).getSubject());
+        }
+
+    }
+
+    @Nested
+    class GivenDisabledCache {
+
+        @Test
+        void whenVerifiedRepeatedly_thenParseEachTime() {
+            VerifiedTokenCache cache = VerifiedTokenCache.disabled();
+            String token = createToken("user");
+
+            Claims claims = cache.getVerifiedClaims(token, KEY_PAIR.getPublic());
+            assertEquals("user", claims.getSubject());
+            assertNotSame(claims, cache.getVerifiedClaims(token, KEY_PAIR.getPublic()));
+        }
+
+    }
+
+}
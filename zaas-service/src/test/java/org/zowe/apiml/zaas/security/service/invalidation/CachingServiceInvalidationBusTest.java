@@ -0,0 +1,287 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClientException;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CachingServiceInvalidationBusTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final long EXPIRATION = System.currentTimeMillis() + 3_600_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+        .registerModule(new JavaTimeModule());
+
+    private CachingServiceClient cachingServiceClient;
+    private AsyncCachingServiceClient asyncCachingServiceClient;
+    private CachingServiceInvalidationBus bus;
+    private List<InvalidationEvent> received;
+
+    @BeforeEach
+    void setUp() {
+        cachingServiceClient = mock(CachingServiceClient.class);
+        asyncCachingServiceClient = new AsyncCachingServiceClient(cachingServiceClient, 2, 10, 5000, 5, 10_000);
+        bus = bus(false);
+        received = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.stop();
+        asyncCachingServiceClient.close();
+    }
+
+    private CachingServiceInvalidationBus bus(boolean confirmDelivery) {
+        // no background tasks, the tests call flush and poll directly
+        return new CachingServiceInvalidationBus(cachingServiceClient, asyncCachingServiceClient, objectMapper, new SimpleMeterRegistry(),
+            0, 0, 0, 0, confirmDelivery);
+    }
+
+    private String storedValue(InvalidationEvent event) {
+        CachingServiceClient.KeyValue[] stored = new CachingServiceClient.KeyValue[1];
+        doAnswer(invocation -> {
+            stored[0] = invocation.getArgument(1);
+            return null;
+        }).when(cachingServiceClient).appendList(eq(CachingServiceInvalidationBus.MAP_KEY), any());
+        bus.publish(event);
+        bus.flush();
+        reset(cachingServiceClient);
+        return stored[0].getValue();
+    }
+
+    @Nested
+    class WhenPublish {
+
+        @Test
+        void thenStoreHashOfTokenAsKey() {
+            bus.publish(new InvalidationEvent(TOKEN, EXPIRATION));
+            bus.flush();
+
+            verify(cachingServiceClient).appendList(eq(CachingServiceInvalidationBus.MAP_KEY),
+                argThat(kv -> kv.getKey().equals(CachingServiceInvalidationBus.getItemKey(TOKEN)) && kv.getValue().contains(TOKEN)));
+            assertEquals(0, bus.getPendingCount());
+        }
+
+        @Test
+        void givenCachingServiceIsNotAvailable_thenRetryLater() {
+            doThrow(new CachingServiceClientException("unavailable")).when(cachingServiceClient).appendList(any(), any());
+            bus.publish(new InvalidationEvent(TOKEN, EXPIRATION));
+            bus.flush();
+            assertEquals(1, bus.getPendingCount());
+
+            doNothing().when(cachingServiceClient).appendList(any(), any());
+            bus.flush();
+            assertEquals(0, bus.getPendingCount());
+            verify(cachingServiceClient, times(2)).appendList(any(), any());
+        }
+
+        @Test
+        void givenConfirmedDelivery_thenStoreByCaller() {
+            bus = bus(true);
+
+            assertTrue(bus.publish(new InvalidationEvent(TOKEN, EXPIRATION)));
+
+            verify(cachingServiceClient).appendList(eq(CachingServiceInvalidationBus.MAP_KEY), any());
+            assertEquals(0, bus.getPendingCount());
+        }
+
+        @Test
+        void givenConfirmedDeliveryAndCachingServiceIsNotAvailable_thenReportFailureAndRetryLater() {
+            bus = bus(true);
+            doThrow(new CachingServiceClientException("unavailable")).when(cachingServiceClient).appendList(any(), any());
+
+            assertFalse(bus.publish(new InvalidationEvent(TOKEN, EXPIRATION)));
+            assertEquals(1, bus.getPendingCount());
+
+            doNothing().when(cachingServiceClient).appendList(any(), any());
+            bus.flush();
+            assertEquals(0, bus.getPendingCount());
+            verify(cachingServiceClient, times(2)).appendList(any(), any());
+        }
+
+        @Test
+        void givenConfirmedDelivery_thenStoreOnlyOwnEvent() {
+            bus = bus(true);
+            doThrow(new CachingServiceClientException("unavailable")).doNothing().when(cachingServiceClient).appendList(any(), any());
+            bus.publish(new InvalidationEvent("queued", EXPIRATION));
+
+            assertTrue(bus.publish(new InvalidationEvent(TOKEN, EXPIRATION)));
+
+            verify(cachingServiceClient).appendList(eq(CachingServiceInvalidationBus.MAP_KEY),
+                argThat(kv -> kv.getKey().equals(CachingServiceInvalidationBus.getItemKey(TOKEN))));
+            assertEquals(1, bus.getPendingCount());
+        }
+
+        @Test
+        void givenRunningFlush_whenConfirmedPublish_thenDoNotWaitForIt() throws Exception {
+            bus = bus(true);
+            CountDownLatch flushing = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            String queuedKey = CachingServiceInvalidationBus.getItemKey("queued");
+            AtomicBoolean failed = new AtomicBoolean();
+            doAnswer(invocation -> {
+                CachingServiceClient.KeyValue kv = invocation.getArgument(1);
+                if (kv.getKey().equals(queuedKey)) {
+                    if (failed.compareAndSet(false, true)) {
+                        throw new CachingServiceClientException("unavailable");
+                    }
+                    flushing.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return null;
+            }).when(cachingServiceClient).appendList(any(), any());
+            assertFalse(bus.publish(new InvalidationEvent("queued", EXPIRATION)));
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> flush = executor.submit(bus::flush);
+                assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+                // the flush holds its monitor and waits for the Caching Service
+                assertTrue(bus.publish(new InvalidationEvent(TOKEN, EXPIRATION)));
+
+                release.countDown();
+                flush.get(5, TimeUnit.SECONDS);
+                assertEquals(0, bus.getPendingCount());
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void givenExpiredToken_thenDropIt() {
+            bus.publish(new InvalidationEvent(TOKEN, System.currentTimeMillis() - 1000));
+            bus.flush();
+
+            verify(cachingServiceClient, never()).appendList(any(), any());
+            assertEquals(0, bus.getPendingCount());
+        }
+
+    }
+
+    @Nested
+    class WhenEvict {
+
+        @Test
+        void thenEvictExpiredTokensInCachingService() {
+            bus.evict();
+
+            verify(cachingServiceClient).evictTokens(CachingServiceInvalidationBus.MAP_KEY);
+        }
+
+        @Test
+        void givenCachingServiceIsNotAvailable_thenIgnoreIt() {
+            doThrow(new CachingServiceClientException("unavailable")).when(cachingServiceClient).evictTokens(any());
+
+            assertDoesNotThrow(bus::evict);
+        }
+
+    }
+
+    @Nested
+    class WhenPoll {
+
+        private String value;
+
+        @BeforeEach
+        void setUp() {
+            value = storedValue(new InvalidationEvent(TOKEN, EXPIRATION));
+            // a new instance, it does not know the event
+            bus.stop();
+            bus = bus(false);
+            bus.subscribe(received::add);
+        }
+
+        @Test
+        void givenNewInstance_thenReplayWholeMap() {
+            when(cachingServiceClient.readMapChanges(CachingServiceInvalidationBus.MAP_KEY, -1, 0))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true, Map.of(CachingServiceInvalidationBus.getItemKey(TOKEN), value), Set.of()));
+
+            bus.poll();
+
+            assertEquals(1, received.size());
+            assertEquals(TOKEN, received.get(0).token());
+        }
+
+        @Test
+        void givenKnownRevision_thenAskForChangesOnlyAndDeliverOnce() {
+            Map<String, String> items = Map.of(CachingServiceInvalidationBus.getItemKey(TOKEN), value);
+            when(cachingServiceClient.readMapChanges(CachingServiceInvalidationBus.MAP_KEY, -1, 0))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true, items, Set.of()));
+            when(cachingServiceClient.readMapChanges(CachingServiceInvalidationBus.MAP_KEY, 10, 0))
+                .thenReturn(new CachingServiceClient.MapChanges(11, false, items, Set.of()));
+
+            bus.poll();
+            bus.poll();
+
+            assertEquals(1, received.size());
+            verify(cachingServiceClient).readMapChanges(CachingServiceInvalidationBus.MAP_KEY, 10, 0);
+        }
+
+        @Test
+        void givenOwnEvent_thenDoNotDeliver() {
+            bus.publish(new InvalidationEvent(TOKEN, EXPIRATION));
+            when(cachingServiceClient.readMapChanges(CachingServiceInvalidationBus.MAP_KEY, -1, 0))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true, Map.of(CachingServiceInvalidationBus.getItemKey(TOKEN), value), Set.of()));
+
+            bus.poll();
+
+            assertTrue(received.isEmpty());
+        }
+
+        @Test
+        void givenCachingServiceIsNotAvailable_thenKeepRevision() {
+            when(cachingServiceClient.readMapChanges(any(), anyLong(), anyLong())).thenThrow(new CachingServiceClientException("unavailable"));
+
+            bus.poll();
+            bus.poll();
+
+            verify(cachingServiceClient, times(2)).readMapChanges(CachingServiceInvalidationBus.MAP_KEY, -1, 0);
+            assertTrue(received.isEmpty());
+        }
+
+        @Test
+        void givenInvalidValue_thenIgnoreIt() {
+            when(cachingServiceClient.readMapChanges(CachingServiceInvalidationBus.MAP_KEY, -1, 0))
+                .thenReturn(new CachingServiceClient.MapChanges(10, true, Map.of("key", "not a json"), Set.of()));
+
+            bus.poll();
+
+            assertTrue(received.isEmpty());
+        }
+
+    }
+
+}
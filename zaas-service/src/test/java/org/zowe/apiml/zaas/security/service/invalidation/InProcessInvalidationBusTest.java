@@ -0,0 +1,50 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessInvalidationBusTest {
+
+    private final InProcessInvalidationBus bus = new InProcessInvalidationBus();
+
+    @Test
+    void whenPublish_thenDeliverToAllListeners() {
+        List<InvalidationEvent> first = new ArrayList<>();
+        List<InvalidationEvent> second = new ArrayList<>();
+        bus.subscribe(first::add);
+        bus.subscribe(second::add);
+
+        InvalidationEvent event = new InvalidationEvent("token", Long.MAX_VALUE);
+        bus.publish(event);
+
+        assertEquals(List.of(event), first);
+        assertEquals(List.of(event), second);
+    }
+
+    @Test
+    void whenSubscribeLater_thenReplayNotExpiredEvents() {
+        InvalidationEvent valid = new InvalidationEvent("valid", Long.MAX_VALUE);
+        bus.publish(new InvalidationEvent("expired", System.currentTimeMillis() - 1000));
+        bus.publish(valid);
+
+        List<InvalidationEvent> received = new ArrayList<>();
+        bus.subscribe(received::add);
+
+        assertEquals(List.of(valid), received);
+    }
+
+}
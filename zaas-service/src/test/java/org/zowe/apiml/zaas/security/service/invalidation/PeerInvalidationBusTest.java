@@ -0,0 +1,88 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.invalidation;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.zowe.apiml.product.constants.CoreService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PeerInvalidationBusTest {
+
+    private static final InvalidationEvent EVENT = new InvalidationEvent("token", Long.MAX_VALUE);
+    private static final String INVALIDATE_PATH = "/zaas/api/v1/auth/invalidate/{token}";
+
+    private final EurekaClient eurekaClient = mock(EurekaClient.class);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final PeerInvalidationBus bus = new PeerInvalidationBus(eurekaClient, restTemplate);
+
+    @BeforeEach
+    void setUp() {
+        ApplicationInfoManager applicationInfoManager = mock(ApplicationInfoManager.class);
+        when(eurekaClient.getApplicationInfoManager()).thenReturn(applicationInfoManager);
+        InstanceInfo myInstance = instance("zaas:1", "host1");
+        when(applicationInfoManager.getInfo()).thenReturn(myInstance);
+    }
+
+    private static InstanceInfo instance(String instanceId, String hostName) {
+        return InstanceInfo.Builder.newBuilder()
+            .setAppName(CoreService.ZAAS.getServiceId())
+            .setInstanceId(instanceId)
+            .setHostName(hostName)
+            .setSecurePort(10023)
+            .enablePort(InstanceInfo.PortType.SECURE, true)
+            .build();
+    }
+
+    private void register(InstanceInfo... instances) {
+        when(eurekaClient.getApplication(CoreService.ZAAS.getServiceId())).thenReturn(new Application(CoreService.ZAAS.getServiceId(), List.of(instances)));
+    }
+
+    @Test
+    void whenPublish_thenCallOnlyOtherInstances() {
+        register(instance("zaas:1", "host1"), instance("zaas:2", "host2"));
+
+        assertTrue(bus.publish(EVENT));
+
+        verify(restTemplate).delete("https://host2:10023" + INVALIDATE_PATH, "token");
+        verify(restTemplate, times(1)).delete(anyString(), eq("token"));
+    }
+
+    @Test
+    void givenUnavailableInstance_whenPublish_thenCallTheOthersAndReportFailure() {
+        register(instance("zaas:2", "host2"), instance("zaas:3", "host3"));
+        doThrow(new ResourceAccessException("Connection refused")).when(restTemplate).delete("https://host2:10023" + INVALIDATE_PATH, "token");
+
+        assertFalse(bus.publish(EVENT));
+
+        verify(restTemplate).delete("https://host3:10023" + INVALIDATE_PATH, "token");
+    }
+
+    @Test
+    void givenNoRegisteredApplication_whenPublish_thenReportFailure() {
+        assertFalse(bus.publish(EVENT));
+        verifyNoInteractions(restTemplate);
+    }
+
+}
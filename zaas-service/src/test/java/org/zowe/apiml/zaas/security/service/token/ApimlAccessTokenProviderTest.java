@@ -13,6 +13,7 @@ package org.zowe.apiml.zaas.security.service.token;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -24,6 +25,7 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.zowe.apiml.models.AccessTokenContainer;
 import org.zowe.apiml.security.common.token.QueryResponse;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
 import org.zowe.apiml.zaas.cache.CachingServiceClient;
 import org.zowe.apiml.zaas.cache.CachingServiceClientException;
 import org.zowe.apiml.zaas.security.service.AuthenticationService;
@@ -54,7 +56,17 @@ class ApimlAccessTokenProviderTest {
         cachingServiceClient = mock(CachingServiceClient.class);
         as = mock(AuthenticationService.class);
         when(cachingServiceClient.read("salt")).thenReturn(new CachingServiceClient.KeyValue("salt", new String(ApimlAccessTokenProvider.generateSalt())));
-        accessTokenProvider = new ApimlAccessTokenProvider(cachingServiceClient, as, new ObjectMapper().registerModule(new JavaTimeModule()));
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        AsyncCachingServiceClient asyncCachingServiceClient = new AsyncCachingServiceClient(cachingServiceClient, 1, 10, 5000, 5, 10_000);
+        InvalidatedTokensIndex index = new InvalidatedTokensIndex(asyncCachingServiceClient, objectMapper, new SimpleMeterRegistry(), 0, 30_000, 0);
+        accessTokenProvider = new ApimlAccessTokenProvider(asyncCachingServiceClient, as, objectMapper, index);
+    }
+
+    private void givenRevocationMaps(Map<String, Map<String, String>> cacheMap) {
+        for (String mapKey : List.of(ApimlAccessTokenProvider.INVALID_TOKENS_KEY, ApimlAccessTokenProvider.INVALID_USERS_KEY, ApimlAccessTokenProvider.INVALID_SCOPES_KEY)) {
+            when(cachingServiceClient.readMapChanges(eq(mapKey), anyLong(), anyLong()))
+                .thenReturn(new CachingServiceClient.MapChanges(1, true, cacheMap.getOrDefault(mapKey, Collections.emptyMap()), Collections.emptySet()));
+        }
     }
 
     @BeforeAll
@@ -112,8 +124,20 @@ class ApimlAccessTokenProviderTest {
         invalidTokens.put(tokenHash, s);
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_TOKENS_KEY, invalidTokens);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenRevocationMaps(cacheMap);
+        assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+    }
+
+    @Test
+    void givenTokenInvalidatedByThisInstance_whenCheck_thenInvalidatedWithoutNewRefresh() throws Exception {
+        when(as.parseJwtWithSignature(TOKEN_WITHOUT_SCOPES)).thenReturn(queryResponseWithoutScopes);
+        givenRevocationMaps(Collections.emptyMap());
+        assertFalse(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+
+        accessTokenProvider.invalidateToken(TOKEN_WITHOUT_SCOPES);
+
         assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
+        verify(cachingServiceClient, times(1)).readMapChanges(eq(ApimlAccessTokenProvider.INVALID_TOKENS_KEY), anyLong(), anyLong());
     }
 
     @Test
@@ -169,7 +193,7 @@ class ApimlAccessTokenProviderTest {
         invalidTokens.put(tokenHash, s);
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_TOKENS_KEY, invalidTokens);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenRevocationMaps(cacheMap);
 
         assertFalse(accessTokenProvider.isInvalidated(differentToken));
     }
@@ -183,7 +207,7 @@ class ApimlAccessTokenProviderTest {
         invalidUsers.put(userId, String.valueOf(System.currentTimeMillis()));
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_USERS_KEY, invalidUsers);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenRevocationMaps(cacheMap);
         assertTrue(accessTokenProvider.isInvalidated(TOKEN_WITHOUT_SCOPES));
     }
 
@@ -196,7 +220,7 @@ class ApimlAccessTokenProviderTest {
         invalidScopes.put(serviceId, String.valueOf(System.currentTimeMillis()));
         Map<String, Map<String, String>> cacheMap = new HashMap<>();
         cacheMap.put(ApimlAccessTokenProvider.INVALID_SCOPES_KEY, invalidScopes);
-        when(cachingServiceClient.readAllMaps()).thenReturn(cacheMap);
+        givenRevocationMaps(cacheMap);
         assertTrue(accessTokenProvider.isInvalidated(SCOPED_TOKEN));
     }
 
@@ -0,0 +1,256 @@
+/*
+ * This program and the accompanying materials are made available under the terms of the
+ * Eclipse Public License v2.0 which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Copyright Contributors to the Zowe Project.
+ */
+
+package org.zowe.apiml.zaas.security.service.token;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.zowe.apiml.models.AccessTokenContainer;
+import org.zowe.apiml.zaas.cache.AsyncCachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClient;
+import org.zowe.apiml.zaas.cache.CachingServiceClientException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.zowe.apiml.zaas.security.service.token.ApimlAccessTokenProvider.*;
+
+class InvalidatedTokensIndexTest {
+
+    private static final long CREATED = 1_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private CachingServiceClient cachingServiceClient;
+    private AsyncCachingServiceClient asyncCachingServiceClient;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        cachingServiceClient = mock(CachingServiceClient.class);
+        asyncCachingServiceClient = new AsyncCachingServiceClient(cachingServiceClient, 1, 10, 5000, 5, 10_000);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncCachingServiceClient.close();
+    }
+
+    private InvalidatedTokensIndex index(long maxStalenessMs) {
+        return index(maxStalenessMs, 0);
+    }
+
+    private InvalidatedTokensIndex index(long maxStalenessMs, long staleGraceMs) {
+        return new InvalidatedTokensIndex(asyncCachingServiceClient, objectMapper, meterRegistry, 0, maxStalenessMs, staleGraceMs);
+    }
+
+    private String container(String hash) throws Exception {
+        return objectMapper.writeValueAsString(new AccessTokenContainer(null, hash, null, null, null, null));
+    }
+
+    private static CachingServiceClient.MapChanges full(Map<String, String> items) {
+        return new CachingServiceClient.MapChanges(1, true, items, Collections.emptySet());
+    }
+
+    private void givenMaps(Map<String, Map<String, String>> maps) {
+        for (String mapKey : List.of(INVALID_TOKENS_KEY, INVALID_USERS_KEY, INVALID_SCOPES_KEY)) {
+            when(cachingServiceClient.readMapChanges(eq(mapKey), anyLong(), anyLong())).thenReturn(full(maps.getOrDefault(mapKey, Collections.emptyMap())));
+        }
+    }
+
+    private void verifyRefreshes(int count) {
+        verify(cachingServiceClient, times(count)).readMapChanges(eq(INVALID_TOKENS_KEY), anyLong(), anyLong());
+    }
+
+    @Nested
+    class GivenRevocationRules {
+
+        private InvalidatedTokensIndex index;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            givenMaps(Map.of(
+                INVALID_TOKENS_KEY, Map.of("tokenHash", container("tokenHash"), "brokenHash", "{not a json"),
+                INVALID_USERS_KEY, Map.of("userHash", "2000", "wrongRule", "notANumber"),
+                INVALID_SCOPES_KEY, Map.of("scopeHash", "500")
+            ));
+            index = index(60_000);
+        }
+
+        @Test
+        void whenTokenIsListed_thenInvalidated() {
+            assertTrue(index.isInvalidated("tokenHash", "otherUser", Collections.emptyList(), CREATED));
+        }
+
+        @Test
+        void whenTokenValueIsInvalid_thenNotInvalidated() {
+            assertFalse(index.isInvalidated("brokenHash", "otherUser", Collections.emptyList(), CREATED));
+        }
+
+        @Test
+        void whenUserRuleIsNewerThanToken_thenInvalidated() {
+            assertTrue(index.isInvalidated("otherToken", "userHash", Collections.emptyList(), CREATED));
+        }
+
+        @Test
+        void whenScopeRuleIsOlderThanToken_thenNotInvalidated() {
+            assertFalse(index.isInvalidated("otherToken", "otherUser", List.of("scopeHash"), CREATED));
+        }
+
+        @Test
+        void whenCheckedRepeatedly_thenCachingServiceIsCalledOnce() {
+            for (int i = 0; i < 10; i++) {
+                index.isInvalidated("otherToken", "otherUser", List.of("otherScope"), CREATED);
+            }
+            verifyRefreshes(1);
+        }
+
+        @Test
+        void whenIndexIsLoaded_thenMetricsAreAvailable() {
+            index.isInvalidated("otherToken", "otherUser", Collections.emptyList(), CREATED);
+
+            assertEquals(2, meterRegistry.get(InvalidatedTokensIndex.METRIC_NAME + ".size").tag("map", INVALID_TOKENS_KEY).gauge().value());
+            assertEquals(1, meterRegistry.get(InvalidatedTokensIndex.METRIC_NAME + ".size").tag("map", INVALID_USERS_KEY).gauge().value());
+            assertNotNull(meterRegistry.get(InvalidatedTokensIndex.METRIC_NAME + ".lag").gauge());
+        }
+
+    }
+
+    @Nested
+    class GivenLocalChanges {
+
+        private InvalidatedTokensIndex index;
+
+        @BeforeEach
+        void setUp() {
+            givenMaps(Collections.emptyMap());
+            index = index(60_000);
+            assertFalse(index.isInvalidated("tokenHash", "userHash", List.of("scopeHash"), CREATED));
+        }
+
+        @Test
+        void whenTokenIsInvalidated_thenApplyImmediately() {
+            index.addInvalidToken("tokenHash");
+            assertTrue(index.isInvalidated("tokenHash", "otherUser", Collections.emptyList(), CREATED));
+        }
+
+        @Test
+        void whenUserIsInvalidated_thenApplyImmediately() {
+            index.addUserRule("userHash", CREATED + 1);
+            assertTrue(index.isInvalidated("otherToken", "userHash", Collections.emptyList(), CREATED));
+        }
+
+        @Test
+        void whenScopeIsInvalidated_thenApplyImmediately() {
+            index.addScopeRule("scopeHash", CREATED);
+            assertTrue(index.isInvalidated("otherToken", "otherUser", List.of("scopeHash"), CREATED));
+        }
+
+    }
+
+    @Nested
+    class GivenStaleIndex {
+
+        @Test
+        void whenChecked_thenRefreshSynchronously() {
+            givenMaps(Collections.emptyMap());
+            InvalidatedTokensIndex index = index(-1);
+
+            index.isInvalidated("tokenHash", "userHash", Collections.emptyList(), CREATED);
+            index.isInvalidated("tokenHash", "userHash", Collections.emptyList(), CREATED);
+
+            verifyRefreshes(2);
+        }
+
+        @Test
+        void whenCachingServiceIsNotAvailable_thenThrowException() {
+            when(cachingServiceClient.readMapChanges(eq(INVALID_TOKENS_KEY), anyLong(), anyLong())).thenThrow(new CachingServiceClientException("unavailable"));
+            InvalidatedTokensIndex index = index(60_000);
+            List<String> scopes = Collections.emptyList();
+
+            assertThrows(CachingServiceClientException.class, () -> index.isInvalidated("tokenHash", "userHash", scopes, CREATED));
+        }
+
+        @Test
+        void whenInGracePeriod_thenUseTheLastSnapshotAndRefreshInBackground() throws Exception {
+            givenMaps(Collections.emptyMap());
+            when(cachingServiceClient.readMapChanges(eq(INVALID_TOKENS_KEY), anyLong(), anyLong()))
+                .thenReturn(full(Map.of("tokenHash", container("tokenHash"))))
+                .thenThrow(new CachingServiceClientException("unavailable"));
+            InvalidatedTokensIndex index = index(-1, 60_000);
+            List<String> scopes = Collections.emptyList();
+
+            assertTrue(index.isInvalidated("tokenHash", "userHash", scopes, CREATED));
+            assertTrue(index.isInvalidated("tokenHash", "userHash", scopes, CREATED));
+
+            verify(cachingServiceClient, timeout(5000).times(2)).readMapChanges(eq(INVALID_TOKENS_KEY), anyLong(), anyLong());
+        }
+
+    }
+
+    @Nested
+    class GivenChangeFeed {
+
+        @Test
+        void whenRefreshedAgain_thenApplyOnlyChangesSinceKnownRevision() throws Exception {
+            givenMaps(Collections.emptyMap());
+            when(cachingServiceClient.readMapChanges(eq(INVALID_TOKENS_KEY), anyLong(), anyLong()))
+                .thenReturn(full(Map.of("tokenHash", container("tokenHash"), "evictedHash", container("evictedHash"))))
+                .thenReturn(new CachingServiceClient.MapChanges(2, false, Map.of("newHash", container("newHash")), Set.of("evictedHash")));
+            InvalidatedTokensIndex index = index(60_000);
+
+            assertTrue(index.isInvalidated("evictedHash", "userHash", Collections.emptyList(), CREATED));
+            index.refresh();
+
+            assertTrue(index.isInvalidated("tokenHash", "userHash", Collections.emptyList(), CREATED));
+            assertTrue(index.isInvalidated("newHash", "userHash", Collections.emptyList(), CREATED));
+            assertFalse(index.isInvalidated("evictedHash", "userHash", Collections.emptyList(), CREATED));
+            verify(cachingServiceClient).readMapChanges(INVALID_TOKENS_KEY, -1, 0);
+            verify(cachingServiceClient).readMapChanges(INVALID_TOKENS_KEY, 1, 0);
+        }
+
+        @Test
+        void givenRunningRefresh_whenTokenIsInvalidatedLocally_thenKeepItInTheResult() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            givenMaps(Collections.emptyMap());
+            when(cachingServiceClient.readMapChanges(eq(INVALID_TOKENS_KEY), anyLong(), anyLong())).thenAnswer(invocation -> {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+                return full(Collections.emptyMap());
+            });
+            InvalidatedTokensIndex index = index(60_000);
+
+            CompletableFuture<InvalidatedTokensIndex.Snapshot> refresh = index.refreshAsync();
+            index.addInvalidToken("tokenHash");
+            index.addUserRule("userHash", CREATED);
+            release.countDown();
+            AsyncCachingServiceClient.await(refresh);
+
+            assertTrue(index.isInvalidated("tokenHash", "otherUser", Collections.emptyList(), CREATED));
+            assertTrue(index.isInvalidated("otherToken", "userHash", Collections.emptyList(), CREATED));
+            verifyRefreshes(1);
+        }
+
+    }
+
+}
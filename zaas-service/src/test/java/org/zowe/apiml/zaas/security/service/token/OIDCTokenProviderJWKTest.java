@@ -15,6 +15,7 @@ import com.nimbusds.jose.Requirement;
 import com.nimbusds.jose.jwk.*;
 import io.jsonwebtoken.impl.DefaultClock;
 import io.jsonwebtoken.impl.FixedClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -32,6 +33,9 @@ import java.security.PublicKey;
 import java.text.ParseException;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
@@ -47,13 +51,15 @@ class OIDCTokenProviderJWKTest {
 
     private static final String TOKEN = "token";
 
+    private static final String EXPIRED_TOKEN_KID = "Lcxckkor94qkrunxHP7Tkib547rzmkXvsYV-nc6U-N4";
+
     private OIDCTokenProviderJWK oidcTokenProviderJwk;
 
     private JWKSet jwkSet;
 
     @BeforeEach
     void setup() throws CachingServiceClientException {
-        oidcTokenProviderJwk = new OIDCTokenProviderJWK(new DefaultClock());
+        oidcTokenProviderJwk = new OIDCTokenProviderJWK(new DefaultClock(), new SimpleMeterRegistry());
         ReflectionTestUtils.setField(oidcTokenProviderJwk, "jwkRefreshInterval", 1);
         ReflectionTestUtils.setField(oidcTokenProviderJwk, "jwksUri", "https://jwksurl");
     }
@@ -146,6 +152,97 @@ class OIDCTokenProviderJWKTest {
 
     }
 
+    @Nested
+    class GivenKeyRotation {
+
+        private JWKSet rotatedOut;
+
+        @BeforeEach
+        void setUp() throws IOException, ParseException {
+            jwkSet = JWKSet.load(getClass().getResourceAsStream(OKTA_JWKS_RESOURCE));
+            rotatedOut = new JWKSet(jwkSet.getKeys().stream().filter(key -> !EXPIRED_TOKEN_KID.equals(key.getKeyID())).toList());
+            ReflectionTestUtils.setField(oidcTokenProviderJwk, "clock", new FixedClock(new Date(Instant.ofEpochSecond(1697060773 + 1000L).toEpochMilli())));
+        }
+
+        @Test
+        void whenRefreshFails_thenKeepPreviousKeys() {
+            try (MockedStatic<JWKSet> mockedStatic = Mockito.mockStatic(JWKSet.class)) {
+                mockedStatic.when(() -> JWKSet.load(any(URL.class))).thenReturn(jwkSet).thenThrow(IOException.class);
+                oidcTokenProviderJwk.fetchJWKSet();
+                oidcTokenProviderJwk.fetchJWKSet();
+            }
+
+            assertSame(jwkSet, oidcTokenProviderJwk.getJwkSet());
+            assertTrue(oidcTokenProviderJwk.getPublicKeys().containsKey(EXPIRED_TOKEN_KID));
+        }
+
+        @Test
+        void whenKeyIsNotChanged_thenReuseParsedKey() {
+            try (MockedStatic<JWKSet> mockedStatic = Mockito.mockStatic(JWKSet.class)) {
+                mockedStatic.when(() -> JWKSet.load(any(URL.class))).thenReturn(jwkSet);
+                oidcTokenProviderJwk.fetchJWKSet();
+                PublicKey publicKey = oidcTokenProviderJwk.getPublicKeys().get(EXPIRED_TOKEN_KID);
+                oidcTokenProviderJwk.fetchJWKSet();
+
+                assertSame(publicKey, oidcTokenProviderJwk.getPublicKeys().get(EXPIRED_TOKEN_KID));
+            }
+        }
+
+        @Test
+        void whenUnknownKid_thenRefreshKeys() {
+            try (MockedStatic<JWKSet> mockedStatic = Mockito.mockStatic(JWKSet.class)) {
+                mockedStatic.when(() -> JWKSet.load(any(URL.class))).thenReturn(rotatedOut).thenReturn(jwkSet);
+                oidcTokenProviderJwk.fetchJWKSet();
+
+                assertTrue(oidcTokenProviderJwk.isValid(EXPIRED_TOKEN));
+                mockedStatic.verify(() -> JWKSet.load(any(URL.class)), times(2));
+            }
+        }
+
+        @Test
+        void whenUnknownKidInMinimalInterval_thenDoNotRefreshKeys() {
+            ReflectionTestUtils.setField(oidcTokenProviderJwk, "minRefreshIntervalSeconds", 60);
+            try (MockedStatic<JWKSet> mockedStatic = Mockito.mockStatic(JWKSet.class)) {
+                mockedStatic.when(() -> JWKSet.load(any(URL.class))).thenReturn(rotatedOut).thenReturn(jwkSet);
+                oidcTokenProviderJwk.fetchJWKSet();
+
+                assertFalse(oidcTokenProviderJwk.isValid(EXPIRED_TOKEN));
+                assertFalse(oidcTokenProviderJwk.isValid(EXPIRED_TOKEN));
+                mockedStatic.verify(() -> JWKSet.load(any(URL.class)), times(1));
+            }
+        }
+
+        @Test
+        void whenRefreshFailed_thenDoNotDelayNextRefresh() {
+            ReflectionTestUtils.setField(oidcTokenProviderJwk, "minRefreshIntervalSeconds", 60);
+            try (MockedStatic<JWKSet> mockedStatic = Mockito.mockStatic(JWKSet.class)) {
+                mockedStatic.when(() -> JWKSet.load(any(URL.class))).thenThrow(IOException.class).thenReturn(jwkSet);
+                oidcTokenProviderJwk.fetchJWKSet();
+
+                assertTrue(oidcTokenProviderJwk.isValid(EXPIRED_TOKEN));
+                mockedStatic.verify(() -> JWKSet.load(any(URL.class)), times(2));
+            }
+        }
+
+        @Test
+        void whenDownloading_thenKnownKeysAreAvailable() {
+            AtomicReference<Boolean> validDuringDownload = new AtomicReference<>();
+            try (MockedStatic<JWKSet> mockedStatic = Mockito.mockStatic(JWKSet.class)) {
+                mockedStatic.when(() -> JWKSet.load(any(URL.class))).thenReturn(jwkSet).thenAnswer(invocation -> {
+                    // the static mock is visible only to this thread, the validation must not need a download
+                    CompletableFuture<Boolean> valid = CompletableFuture.supplyAsync(() -> oidcTokenProviderJwk.isValid(EXPIRED_TOKEN));
+                    validDuringDownload.set(valid.get(5, TimeUnit.SECONDS));
+                    return jwkSet;
+                });
+                oidcTokenProviderJwk.fetchJWKSet();
+                oidcTokenProviderJwk.fetchJWKSet();
+            }
+
+            assertEquals(Boolean.TRUE, validDuringDownload.get());
+        }
+
+    }
+
     @Nested
     class GivenEmptyTokenProvided {
         @Test
@@ -165,7 +262,7 @@ class OIDCTokenProviderJWKTest {
 
         @BeforeEach
         public void setUp() {
-            oidcTokenProviderJwk = new OIDCTokenProviderJWK(new DefaultClock());
+            oidcTokenProviderJwk = new OIDCTokenProviderJWK(new DefaultClock(), new SimpleMeterRegistry());
             ReflectionTestUtils.setField(oidcTokenProviderJwk, "jwksUri", "https://jwksurl");
         }
 